@@ -98,7 +98,7 @@ public abstract class AbstractAmazonS3Source extends BaseSource {
     //init spooler
     if (issues.isEmpty()) {
       spooler = new S3Spooler(getContext(), s3ConfigBean);
-      spooler.init();
+      spooler.init(issues);
     }
 
     return issues;
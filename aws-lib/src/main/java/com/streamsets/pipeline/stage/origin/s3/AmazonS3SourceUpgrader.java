@@ -57,6 +57,9 @@ public class AmazonS3SourceUpgrader implements StageUpgrader {
         // fall through
       case 8:
         upgradeV8ToV9(configs);
+        // fall through
+      case 9:
+        upgradeV9ToV10(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -163,4 +166,10 @@ public class AmazonS3SourceUpgrader implements StageUpgrader {
     configs.add(new Config(S3ConfigBean.S3_SSE_CONFIG_PREFIX + "useCustomerSSEKey", false));
 
   }
+
+  private static void upgradeV9ToV10(List<Config> configs) {
+    configs.add(new Config(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "useObjectIndex", false));
+    configs.add(new Config(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "objectIndexDir", "s3-object-index"));
+    configs.add(new Config(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "fullListingInterval", 3600));
+  }
 }
@@ -168,7 +168,67 @@ public class AmazonS3Util {
     return new ArrayList<>(treeSet);
   }
 
-  private static boolean isEligible(S3ObjectSummary s, AmazonS3Source.S3Offset s3Offset) {
+  /**
+   * Lists objects from AmazonS3 in chronological order like
+   * {@link #listObjectsChronologically(AmazonS3Client, S3ConfigBean, AntPathMatcher, AmazonS3Source.S3Offset, int)}
+   * but only lists the keys after the last key in the index, unless a full listing is due.
+   *
+   * @param s3Client
+   * @param s3ConfigBean
+   * @param pathMatcher glob patterns to match file name against
+   * @param s3Offset current offset which provides the timestamp of the previous object
+   * @param fetchSize number of objects to fetch in one go
+   * @param index object index, updated with the listed objects
+   * @param now current time in milliseconds
+   * @return
+   * @throws AmazonClientException
+   */
+  static List<S3ObjectSummary> listObjectsChronologically(
+      AmazonS3Client s3Client,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      AmazonS3Source.S3Offset s3Offset,
+      int fetchSize,
+      S3ObjectIndex index,
+      long now
+  ) {
+    index.advance(s3Offset);
+
+    String marker = index.getListingMarker(now, s3ConfigBean.s3FileConfig.fullListingInterval * 1000);
+    if (marker == null) {
+      index.startFullListing(now);
+    }
+
+    ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+    listObjectsRequest.setBucketName(s3ConfigBean.s3Config.bucket);
+    listObjectsRequest.setPrefix(s3ConfigBean.s3Config.commonPrefix);
+    listObjectsRequest.setMaxKeys(BATCH_SIZE);
+    if (marker != null) {
+      listObjectsRequest.setMarker(marker);
+    }
+
+    ObjectListing objectListing = s3Client.listObjects(listObjectsRequest);
+    while (true) {
+      for (S3ObjectSummary s : objectListing.getObjectSummaries()) {
+        index.listed(s.getKey());
+        String fullPrefix = s.getKey();
+        String remainingPrefix = fullPrefix.substring(s3ConfigBean.s3Config.commonPrefix.length(), fullPrefix.length());
+        if (!remainingPrefix.isEmpty() &&
+            pathMatcher.match(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix) &&
+            isEligible(s, s3Offset)) {
+          index.add(s);
+        }
+      }
+      if (!objectListing.isTruncated()) {
+        break;
+      }
+      objectListing = s3Client.listNextBatchOfObjects(objectListing);
+    }
+
+    return index.getOldest(fetchSize);
+  }
+
+  static boolean isEligible(S3ObjectSummary s, AmazonS3Source.S3Offset s3Offset) {
 
     //The object is eligible if
     //1. The timestamp is greater than that of the current object in offset
@@ -37,6 +37,7 @@ public enum Errors implements ErrorCode {
   S3_SPOOLDIR_12("Bucket '{}' does not exist"),
   S3_SPOOLDIR_13("Prefix cannot be empty"),
   S3_SPOOLDIR_14("Absolute source path cannot be same as the absolute post processing path, '{}'"),
+  S3_SPOOLDIR_15("Cannot create object index directory '{}'"),
 
   S3_SPOOLDIR_20("Cannot connect to Amazon S3, reason : {}"),
   S3_SPOOLDIR_21("Found invalid offset value '{}'"),
@@ -57,6 +57,50 @@ public class S3FileConfig {
   @ValueChooserModel(ObjectOrderingChooseValues.class)
   public ObjectOrdering objectOrdering = ObjectOrdering.LEXICOGRAPHICAL;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Use Object Index",
+      description = "Keeps an on-disk index of the listed objects so that each poll only lists keys greater than " +
+          "the last listed key instead of all the objects under the common prefix. Works best when new objects " +
+          "have ascending key names, like date-partitioned prefixes.",
+      displayPosition = 111,
+      group = "#0",
+      dependsOn = "objectOrdering",
+      triggeredByValue = "TIMESTAMP"
+  )
+  public boolean useObjectIndex;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      defaultValue = "s3-object-index",
+      label = "Object Index Directory",
+      description = "Directory where the object index is stored. Relative paths are resolved against the " +
+          "resources directory.",
+      displayPosition = 112,
+      group = "#0",
+      dependsOn = "useObjectIndex",
+      triggeredByValue = "true"
+  )
+  public String objectIndexDir;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "3600",
+      label = "Full Listing Interval (secs)",
+      description = "How often all the objects under the common prefix are listed again to pick up objects with keys " +
+          "lower than the last listed key. Use 0 to only list all the objects when the index is built.",
+      displayPosition = 113,
+      group = "#0",
+      min = 0,
+      dependsOn = "useObjectIndex",
+      triggeredByValue = "true"
+  )
+  public long fullListingInterval;
+
   @ConfigDef(
     required = true,
     type = ConfigDef.Type.NUMBER,
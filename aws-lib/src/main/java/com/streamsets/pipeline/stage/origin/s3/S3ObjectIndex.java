@@ -0,0 +1,332 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * On-disk index of the objects found by the S3 origin when reading in {@link ObjectOrdering#TIMESTAMP} order.
+ * <p/>
+ * The index remembers the greatest key listed so far and the objects that have been listed but not read yet, ordered
+ * by last-modified timestamp and key. With it each poll only has to list the keys after the last listed key, a full
+ * listing is only needed to build the index and, periodically, to pick up objects with lower keys.
+ * <p/>
+ * Objects older than the offset are dropped from the index as the offset moves forward. If the offset goes back, for
+ * example because the origin was reset, the index is discarded and built again.
+ * <p/>
+ * The index keeps at most <code>maxPendingObjects</code> objects, the oldest ones. Once objects have been left out,
+ * only objects older than all of them are added and, when the index runs out of objects, all the objects are listed
+ * again to pick up the objects left out. The index is only written when it changes.
+ * <p/>
+ * The index file records the bucket, common prefix and prefix pattern the objects were listed with, an index written
+ * for other objects is discarded when it is loaded.
+ */
+class S3ObjectIndex {
+  static final int VERSION = 3;
+  static final int DEFAULT_MAX_PENDING_OBJECTS = 100000;
+
+  private static final Comparator<S3ObjectSummary> CHRONOLOGICAL = new Comparator<S3ObjectSummary>() {
+    @Override
+    public int compare(S3ObjectSummary o1, S3ObjectSummary o2) {
+      int result = o1.getLastModified().compareTo(o2.getLastModified());
+      if (result != 0) {
+        return result;
+      }
+      return o1.getKey().compareTo(o2.getKey());
+    }
+  };
+
+  private final File file;
+  private final String bucket;
+  private final String commonPrefix;
+  private final String prefixPattern;
+  private final int maxPendingObjects;
+  private final TreeSet<S3ObjectSummary> pending;
+  private final Map<String, S3ObjectSummary> pendingByKey;
+  // oldest object left out of the index since the last full listing, null if none was left out
+  private S3ObjectSummary leftOut;
+  private String lastListedKey;
+  private long lastFullListing;
+  private String offsetKey = "";
+  private long offsetTimestamp;
+  private boolean changed;
+
+  S3ObjectIndex(File file, String bucket, String commonPrefix, String prefixPattern) {
+    this(file, bucket, commonPrefix, prefixPattern, DEFAULT_MAX_PENDING_OBJECTS);
+  }
+
+  S3ObjectIndex(File file, String bucket, String commonPrefix, String prefixPattern, int maxPendingObjects) {
+    this.file = file;
+    this.bucket = bucket;
+    this.commonPrefix = Strings.nullToEmpty(commonPrefix);
+    this.prefixPattern = Strings.nullToEmpty(prefixPattern);
+    this.maxPendingObjects = maxPendingObjects;
+    pending = new TreeSet<>(CHRONOLOGICAL);
+    pendingByKey = new HashMap<>();
+    clear();
+  }
+
+  /**
+   * Returns the index file of a stage instance, one per pipeline and stage instance.
+   */
+  static File getIndexFile(String dir, String pipelineId, String instanceName) {
+    return new File(dir, (pipelineId + "-" + instanceName).replaceAll("[^A-Za-z0-9_.-]", "_") + ".idx");
+  }
+
+  /**
+   * Discards all the objects in the index, the next listing must list all the objects.
+   */
+  void clear() {
+    pending.clear();
+    pendingByKey.clear();
+    leftOut = null;
+    lastListedKey = null;
+    lastFullListing = 0;
+    changed = true;
+  }
+
+  /**
+   * Returns the key to start listing after, <code>null</code> if all the objects must be listed.
+   */
+  String getListingMarker(long now, long fullListingIntervalMillis) {
+    if (lastListedKey == null ||
+        (leftOut != null && pending.isEmpty()) ||
+        (fullListingIntervalMillis > 0 && now - lastFullListing >= fullListingIntervalMillis)) {
+      return null;
+    }
+    return lastListedKey;
+  }
+
+  void startFullListing(long now) {
+    pending.clear();
+    pendingByKey.clear();
+    leftOut = null;
+    lastListedKey = null;
+    lastFullListing = now;
+    changed = true;
+  }
+
+  /**
+   * Records that the given key was listed, whether or not the object is read.
+   */
+  void listed(String key) {
+    if (lastListedKey == null || key.compareTo(lastListedKey) > 0) {
+      lastListedKey = key;
+      changed = true;
+    }
+  }
+
+  /**
+   * Adds an object to be read, replacing the previous entry of the same key. If the index is full the newest object
+   * is left out.
+   */
+  void add(S3ObjectSummary s) {
+    if (leftOut != null && CHRONOLOGICAL.compare(s, leftOut) >= 0) {
+      // an object newer than an object left out can't be read before it
+      return;
+    }
+    S3ObjectSummary previous = pendingByKey.put(s.getKey(), s);
+    if (previous != null) {
+      pending.remove(previous);
+    }
+    pending.add(s);
+    if (pending.size() > maxPendingObjects) {
+      S3ObjectSummary newest = pending.pollLast();
+      pendingByKey.remove(newest.getKey());
+      leftOut = newest;
+    }
+    changed = true;
+  }
+
+  /**
+   * Drops the objects that are not eligible for the given offset anymore. If the offset is earlier than the one seen
+   * before, the whole index is discarded.
+   */
+  void advance(AmazonS3Source.S3Offset s3Offset) {
+    long timestamp = Long.parseLong(s3Offset.getTimestamp());
+    String key = (s3Offset.getKey() == null) ? "" : s3Offset.getKey();
+    int cmp = Long.compare(timestamp, offsetTimestamp);
+    if (cmp == 0) {
+      cmp = key.compareTo(offsetKey);
+    }
+    if (cmp < 0) {
+      clear();
+    } else {
+      Iterator<S3ObjectSummary> iterator = pending.iterator();
+      while (iterator.hasNext()) {
+        S3ObjectSummary s = iterator.next();
+        if (s.getLastModified().getTime() > timestamp) {
+          break;
+        }
+        if (!AmazonS3Util.isEligible(s, s3Offset)) {
+          iterator.remove();
+          pendingByKey.remove(s.getKey());
+          changed = true;
+        }
+      }
+    }
+    offsetTimestamp = timestamp;
+    offsetKey = key;
+  }
+
+  /**
+   * Returns up to <code>count</code> objects, oldest first.
+   */
+  List<S3ObjectSummary> getOldest(int count) {
+    List<S3ObjectSummary> list = new ArrayList<>(Math.min(count, pending.size()));
+    for (S3ObjectSummary s : pending) {
+      if (list.size() == count) {
+        break;
+      }
+      list.add(s);
+    }
+    return list;
+  }
+
+  @VisibleForTesting
+  int size() {
+    return pending.size();
+  }
+
+  @VisibleForTesting
+  String getLastListedKey() {
+    return lastListedKey;
+  }
+
+  @VisibleForTesting
+  boolean hasChanged() {
+    return changed;
+  }
+
+  /**
+   * Loads the index from its file, returns <code>false</code> if there is no index file or if it was written for a
+   * different bucket, common prefix or prefix pattern, in which case the index starts empty.
+   */
+  boolean load() throws IOException {
+    clear();
+    offsetKey = "";
+    offsetTimestamp = 0;
+    if (!file.exists()) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported object index version '" + version + "'");
+      }
+      if (!bucket.equals(in.readUTF()) || !commonPrefix.equals(in.readUTF()) || !prefixPattern.equals(in.readUTF())) {
+        // the objects listed before are not the objects to read anymore
+        return false;
+      }
+      lastListedKey = in.readBoolean() ? in.readUTF() : null;
+      leftOut = in.readBoolean() ? readObject(in) : null;
+      lastFullListing = in.readLong();
+      offsetKey = in.readUTF();
+      offsetTimestamp = in.readLong();
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        S3ObjectSummary s = readObject(in);
+        pendingByKey.put(s.getKey(), s);
+        pending.add(s);
+      }
+    } catch (IOException ex) {
+      clear();
+      offsetKey = "";
+      offsetTimestamp = 0;
+      throw ex;
+    }
+    changed = false;
+    return true;
+  }
+
+  private S3ObjectSummary readObject(DataInputStream in) throws IOException {
+    S3ObjectSummary s = new S3ObjectSummary();
+    s.setBucketName(bucket);
+    s.setKey(in.readUTF());
+    s.setLastModified(new Date(in.readLong()));
+    s.setSize(in.readLong());
+    s.setETag(in.readUTF());
+    return s;
+  }
+
+  private static void writeObject(DataOutputStream out, S3ObjectSummary s) throws IOException {
+    out.writeUTF(s.getKey());
+    out.writeLong(s.getLastModified().getTime());
+    out.writeLong(s.getSize());
+    out.writeUTF(Strings.nullToEmpty(s.getETag()));
+  }
+
+  /**
+   * Writes the index, if it changed since it was loaded or saved, to a temporary file and then renames it, a failure
+   * never leaves a partial index behind. Only offset changes that did not drop any object are not written, the offset
+   * in the index is only used to detect that the offset went back.
+   */
+  void save() throws IOException {
+    if (!changed) {
+      return;
+    }
+    File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeInt(VERSION);
+      out.writeUTF(bucket);
+      out.writeUTF(commonPrefix);
+      out.writeUTF(prefixPattern);
+      out.writeBoolean(lastListedKey != null);
+      if (lastListedKey != null) {
+        out.writeUTF(lastListedKey);
+      }
+      out.writeBoolean(leftOut != null);
+      if (leftOut != null) {
+        writeObject(out, leftOut);
+      }
+      out.writeLong(lastFullListing);
+      out.writeUTF(offsetKey);
+      out.writeLong(offsetTimestamp);
+      out.writeInt(pending.size());
+      for (S3ObjectSummary s : pending) {
+        writeObject(out, s);
+      }
+    }
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    changed = false;
+  }
+
+}
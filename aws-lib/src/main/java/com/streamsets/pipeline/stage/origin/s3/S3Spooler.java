@@ -25,11 +25,14 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.codahale.metrics.Meter;
 import com.google.common.base.Preconditions;
 import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.PostProcessingOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -53,17 +56,51 @@ public class S3Spooler {
   private S3ObjectSummary currentObject;
   private ArrayBlockingQueue<S3ObjectSummary> objectQueue;
   private Meter spoolQueueMeter;
+  private S3ObjectIndex objectIndex;
 
-  public void init() {
+  public void init(List<Stage.ConfigIssue> issues) {
     try {
       objectQueue = new ArrayBlockingQueue<>(s3ConfigBean.s3FileConfig.poolSize);
       spoolQueueMeter = context.createMeter("spoolQueue");
       pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
+      if (s3ConfigBean.s3FileConfig.objectOrdering == ObjectOrdering.TIMESTAMP &&
+          s3ConfigBean.s3FileConfig.useObjectIndex && !context.isPreview()) {
+        initObjectIndex(issues);
+      }
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
   }
 
+  private void initObjectIndex(List<Stage.ConfigIssue> issues) {
+    File dir = new File(s3ConfigBean.s3FileConfig.objectIndexDir);
+    if (!dir.isAbsolute()) {
+      dir = new File(context.getResourcesDirectory(), s3ConfigBean.s3FileConfig.objectIndexDir);
+    }
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      issues.add(context.createConfigIssue(Groups.S3.name(), "objectIndexDir", Errors.S3_SPOOLDIR_15, dir));
+      return;
+    }
+    objectIndex = new S3ObjectIndex(
+        S3ObjectIndex.getIndexFile(
+            dir.getAbsolutePath(),
+            context.getPipelineId(),
+            context.getStageInfo().getInstanceName()
+        ),
+        s3ConfigBean.s3Config.bucket,
+        s3ConfigBean.s3Config.commonPrefix,
+        s3ConfigBean.s3FileConfig.prefixPattern
+    );
+    try {
+      if (objectIndex.load()) {
+        LOG.debug("Loaded object index with '{}' pending objects", objectIndex.size());
+      }
+    } catch (IOException ex) {
+      // the index is only an optimization, it is built again with a full listing
+      LOG.warn("Could not load object index, all objects will be listed: {}", ex.toString(), ex);
+    }
+  }
+
   public void destroy() {
     if(objectQueue != null) {
       objectQueue.clear();
@@ -77,13 +114,26 @@ public class S3Spooler {
     ObjectOrdering objectOrdering = s3ConfigBean.s3FileConfig.objectOrdering;
     switch (objectOrdering) {
       case TIMESTAMP:
-        s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(
-            s3Client,
-            s3ConfigBean,
-            pathMatcher,
-            s3offset,
-            objectQueue.remainingCapacity()
-        );
+        if (objectIndex != null) {
+          s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(
+              s3Client,
+              s3ConfigBean,
+              pathMatcher,
+              s3offset,
+              objectQueue.remainingCapacity(),
+              objectIndex,
+              System.currentTimeMillis()
+          );
+          saveObjectIndex();
+        } else {
+          s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(
+              s3Client,
+              s3ConfigBean,
+              pathMatcher,
+              s3offset,
+              objectQueue.remainingCapacity()
+          );
+        }
         break;
       case LEXICOGRAPHICAL:
         s3ObjectSummaries = AmazonS3Util.listObjectsLexicographically(
@@ -105,6 +155,14 @@ public class S3Spooler {
     return (s3ObjectSummaries.isEmpty()) ? null : s3ObjectSummaries.get(s3ObjectSummaries.size() - 1);
   }
 
+  private void saveObjectIndex() {
+    try {
+      objectIndex.save();
+    } catch (IOException ex) {
+      LOG.warn("Could not save object index: {}", ex.toString(), ex);
+    }
+  }
+
   void addObjectToQueue(S3ObjectSummary objectSummary, boolean checkCurrent) {
     Preconditions.checkNotNull(objectSummary, "file cannot be null");
     if (checkCurrent) {
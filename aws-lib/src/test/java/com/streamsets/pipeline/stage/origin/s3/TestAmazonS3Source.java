@@ -78,6 +78,7 @@ public class TestAmazonS3Source {
   private static final String POSTPROCESS_PREFIX = "post-process-prefix";
   private static final String ERROR_BUCKET = "error-bucket";
   private static final String ERROR_PREFIX = "error-prefix";
+  private static final String INDEX_BUCKET = "index-bucket";
   private static int port;
 
   @BeforeClass
@@ -113,6 +114,7 @@ public class TestAmazonS3Source {
     TestUtil.createBucket(s3client, BUCKET_NAME);
     TestUtil.createBucket(s3client, POSTPROCESS_BUCKET);
     TestUtil.createBucket(s3client, ERROR_BUCKET);
+    TestUtil.createBucket(s3client, INDEX_BUCKET);
 
     //create directory structure
     // mybucket/NorthAmerica/USA
@@ -609,6 +611,71 @@ public class TestAmazonS3Source {
     }
   }
 
+  @Test
+  public void testTimestampOrderingWithObjectIndex() throws Exception {
+    File indexDir = new File("target", UUID.randomUUID().toString()).getAbsoluteFile();
+    putObject(INDEX_BUCKET, "2017/01/file1.log");
+    //make sure files will have different timestamps.
+    Thread.sleep(1000);
+    putObject(INDEX_BUCKET, "2017/01/file2.log");
+
+    AmazonS3Source source = createSourceWithObjectIndex(indexDir, 0);
+    SourceRunner runner = new SourceRunner.Builder(AmazonS3DSource.class, source).addOutputLane("lane").build();
+    runner.runInit();
+    String offset = null;
+    try {
+      offset = produceOneObject(source, offset);
+      Assert.assertTrue(offset.contains("2017/01/file1.log::-1::"));
+      offset = produceOneObject(source, offset);
+      Assert.assertTrue(offset.contains("2017/01/file2.log::-1::"));
+
+      // new key after the last listed key, picked up by the incremental listing
+      Thread.sleep(1000);
+      putObject(INDEX_BUCKET, "2017/02/file3.log");
+      offset = produceOneObject(source, offset);
+      Assert.assertTrue(offset.contains("2017/02/file3.log::-1::"));
+
+      // new key before the last listed key, only picked up by a full listing
+      Thread.sleep(1000);
+      putObject(INDEX_BUCKET, "2016/12/file4.log");
+      BatchMaker batchMaker = SourceRunner.createTestBatchMaker("lane");
+      Assert.assertEquals(offset, source.produce(offset, 60000, batchMaker));
+      Assert.assertTrue(SourceRunner.getOutput(batchMaker).getRecords().get("lane").isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+
+    File[] indexFiles = indexDir.listFiles();
+    Assert.assertNotNull(indexFiles);
+    Assert.assertEquals(1, indexFiles.length);
+
+    // restart with a full listing every second, the index is loaded and the older key is found
+    Thread.sleep(1000);
+    source = createSourceWithObjectIndex(indexDir, 1);
+    runner = new SourceRunner.Builder(AmazonS3DSource.class, source).addOutputLane("lane").build();
+    runner.runInit();
+    try {
+      offset = produceOneObject(source, offset);
+      Assert.assertTrue(offset.contains("2016/12/file4.log::-1::"));
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  private static void putObject(String bucket, String key) {
+    InputStream in = new ByteArrayInputStream("Hello World".getBytes());
+    s3client.putObject(new PutObjectRequest(bucket, key, in, new ObjectMetadata()));
+  }
+
+  private static String produceOneObject(AmazonS3Source source, String offset) throws StageException {
+    BatchMaker batchMaker = SourceRunner.createTestBatchMaker("lane");
+    offset = source.produce(offset, 60000, batchMaker);
+    Assert.assertNotNull(offset);
+    List<Record> records = SourceRunner.getOutput(batchMaker).getRecords().get("lane");
+    Assert.assertEquals(1, records.size());
+    return offset;
+  }
+
   private AmazonS3Source createSource() {
 
     S3ConfigBean s3ConfigBean = new S3ConfigBean();
@@ -741,6 +808,18 @@ public class TestAmazonS3Source {
     return new AmazonS3Source(s3ConfigBean);
   }
 
+  private AmazonS3Source createSourceWithObjectIndex(File indexDir, long fullListingInterval) {
+    AmazonS3Source source = createSourceWithLexicographicalOrdering();
+    S3ConfigBean s3ConfigBean = source.s3ConfigBean;
+    s3ConfigBean.s3FileConfig.objectOrdering = ObjectOrdering.TIMESTAMP;
+    s3ConfigBean.s3FileConfig.useObjectIndex = true;
+    s3ConfigBean.s3FileConfig.objectIndexDir = indexDir.getAbsolutePath();
+    s3ConfigBean.s3FileConfig.fullListingInterval = fullListingInterval;
+    s3ConfigBean.s3Config.bucket = INDEX_BUCKET;
+    s3ConfigBean.s3Config.commonPrefix = "";
+    return source;
+  }
+
   private AmazonS3Source createSourceArchiveDiffBucket() {
 
     S3ConfigBean s3ConfigBean = new S3ConfigBean();
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class TestS3ObjectIndex {
+
+  private File indexFile;
+
+  @Before
+  public void setUp() {
+    File dir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(dir.mkdirs());
+    indexFile = S3ObjectIndex.getIndexFile(dir.getAbsolutePath(), "pipeline", "AmazonS3_01");
+  }
+
+  private S3ObjectIndex createIndex() {
+    return new S3ObjectIndex(indexFile, "bucket", "logs/", "**/*.log");
+  }
+
+  private static S3ObjectSummary summary(String key, long lastModified) {
+    S3ObjectSummary s = new S3ObjectSummary();
+    s.setBucketName("bucket");
+    s.setKey(key);
+    s.setLastModified(new Date(lastModified));
+    s.setSize(key.length());
+    s.setETag("etag-" + key);
+    return s;
+  }
+
+  private static AmazonS3Source.S3Offset offset(String key, String offset, long timestamp) {
+    return new AmazonS3Source.S3Offset(key, offset, "etag-" + key, String.valueOf(timestamp));
+  }
+
+  @Test
+  public void testIndexFile() {
+    File file = S3ObjectIndex.getIndexFile("/tmp", "my pipeline/1", "AmazonS3_01");
+    Assert.assertEquals(new File("/tmp", "my_pipeline_1-AmazonS3_01.idx"), file);
+  }
+
+  @Test
+  public void testChronologicalOrder() {
+    S3ObjectIndex index = createIndex();
+    index.add(summary("c", 1000));
+    index.add(summary("b", 2000));
+    index.add(summary("a", 2000));
+    index.add(summary("d", 500));
+
+    List<S3ObjectSummary> oldest = index.getOldest(3);
+    Assert.assertEquals(3, oldest.size());
+    Assert.assertEquals("d", oldest.get(0).getKey());
+    Assert.assertEquals("c", oldest.get(1).getKey());
+    Assert.assertEquals("a", oldest.get(2).getKey());
+
+    // same key listed again with a newer timestamp replaces the previous entry
+    index.add(summary("d", 3000));
+    Assert.assertEquals(4, index.size());
+    Assert.assertEquals("c", index.getOldest(1).get(0).getKey());
+  }
+
+  @Test
+  public void testAdvance() {
+    S3ObjectIndex index = createIndex();
+    index.add(summary("a", 1000));
+    index.add(summary("b", 2000));
+    index.add(summary("c", 2000));
+    index.add(summary("d", 3000));
+
+    // 'b' partially read, it stays in the index
+    index.advance(offset("b", "10", 2000));
+    Assert.assertEquals(3, index.size());
+    Assert.assertEquals("b", index.getOldest(1).get(0).getKey());
+
+    // 'b' fully read
+    index.advance(offset("b", "-1", 2000));
+    Assert.assertEquals(2, index.size());
+    Assert.assertEquals("c", index.getOldest(1).get(0).getKey());
+  }
+
+  @Test
+  public void testOffsetGoingBackClearsIndex() {
+    S3ObjectIndex index = createIndex();
+    index.listed("d");
+    index.add(summary("d", 3000));
+    index.advance(offset("c", "-1", 2000));
+    Assert.assertEquals(1, index.size());
+    Assert.assertEquals("d", index.getListingMarker(0, 0));
+
+    // origin reset
+    index.advance(offset(null, "0", 0));
+    Assert.assertEquals(0, index.size());
+    Assert.assertNull(index.getListingMarker(0, 0));
+  }
+
+  @Test
+  public void testListingMarker() {
+    S3ObjectIndex index = createIndex();
+    Assert.assertNull(index.getListingMarker(1000, 0));
+
+    index.startFullListing(1000);
+    index.listed("b");
+    index.listed("a");
+    Assert.assertEquals("b", index.getLastListedKey());
+
+    // no periodic full listing
+    Assert.assertEquals("b", index.getListingMarker(1000000, 0));
+
+    // full listing every 10 secs
+    Assert.assertEquals("b", index.getListingMarker(10999, 10000));
+    Assert.assertNull(index.getListingMarker(11000, 10000));
+  }
+
+  @Test
+  public void testMaxPendingObjects() {
+    S3ObjectIndex index = new S3ObjectIndex(indexFile, "bucket", "logs/", "**/*.log", 2);
+    index.startFullListing(1000);
+    index.add(summary("a", 3000));
+    index.add(summary("b", 1000));
+    index.add(summary("c", 2000));
+    Assert.assertEquals(2, index.size());
+    Assert.assertEquals("b", index.getOldest(2).get(0).getKey());
+    Assert.assertEquals("c", index.getOldest(2).get(1).getKey());
+
+    // objects newer than the object left out are left out as well, older ones replace the newest object
+    index.add(summary("d", 4000));
+    index.add(summary("e", 500));
+    Assert.assertEquals(2, index.size());
+    Assert.assertEquals("e", index.getOldest(2).get(0).getKey());
+    Assert.assertEquals("b", index.getOldest(2).get(1).getKey());
+    index.listed("e");
+    Assert.assertEquals("e", index.getListingMarker(1000, 0));
+
+    // once all the objects in the index have been read, all the objects are listed again
+    index.advance(offset("b", "-1", 1000));
+    Assert.assertEquals(0, index.size());
+    Assert.assertNull(index.getListingMarker(1000, 0));
+    index.startFullListing(1000);
+    index.add(summary("a", 3000));
+    index.add(summary("c", 2000));
+    index.add(summary("d", 4000));
+    Assert.assertEquals("c", index.getOldest(1).get(0).getKey());
+  }
+
+  @Test
+  public void testSaveOnlyWhenChanged() throws Exception {
+    S3ObjectIndex index = createIndex();
+    index.startFullListing(1000);
+    index.listed("b");
+    index.add(summary("a", 1000));
+    index.add(summary("b", 2000));
+    index.save();
+    Assert.assertFalse(index.hasChanged());
+    long modified = indexFile.lastModified();
+    Assert.assertTrue(indexFile.setLastModified(modified - 10000));
+
+    // nothing new listed and the offset did not drop any object
+    index.listed("b");
+    index.advance(offset("a", "10", 1000));
+    Assert.assertFalse(index.hasChanged());
+    index.save();
+    Assert.assertEquals(modified - 10000, indexFile.lastModified());
+
+    index.advance(offset("a", "-1", 1000));
+    Assert.assertTrue(index.hasChanged());
+    index.save();
+    Assert.assertFalse(index.hasChanged());
+    Assert.assertNotEquals(modified - 10000, indexFile.lastModified());
+
+    S3ObjectIndex loaded = createIndex();
+    Assert.assertTrue(loaded.load());
+    Assert.assertFalse(loaded.hasChanged());
+    Assert.assertEquals(1, loaded.size());
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    S3ObjectIndex index = createIndex();
+    Assert.assertFalse(index.load());
+
+    index.startFullListing(1000);
+    index.listed("c");
+    index.add(summary("a", 1000));
+    index.add(summary("b", 2000));
+    index.add(summary("c", 2000));
+    index.advance(offset("a", "-1", 1000));
+    index.save();
+    Assert.assertTrue(indexFile.exists());
+
+    S3ObjectIndex loaded = createIndex();
+    Assert.assertTrue(loaded.load());
+    Assert.assertEquals(2, loaded.size());
+    Assert.assertEquals("c", loaded.getListingMarker(2000, 0));
+    Assert.assertNull(loaded.getListingMarker(11000, 10000));
+
+    List<S3ObjectSummary> oldest = loaded.getOldest(10);
+    Assert.assertEquals("b", oldest.get(0).getKey());
+    Assert.assertEquals(2000, oldest.get(0).getLastModified().getTime());
+    Assert.assertEquals(1, oldest.get(0).getSize());
+    Assert.assertEquals("etag-b", oldest.get(0).getETag());
+    Assert.assertEquals("bucket", oldest.get(0).getBucketName());
+    Assert.assertEquals("c", oldest.get(1).getKey());
+
+    // the offset the index was saved with is kept, going back clears the index
+    loaded.advance(offset(null, "0", 0));
+    Assert.assertEquals(0, loaded.size());
+  }
+
+  @Test
+  public void testLoadDiscardsIndexOfOtherObjects() throws Exception {
+    S3ObjectIndex index = createIndex();
+    index.startFullListing(1000);
+    index.listed("logs/b.log");
+    index.add(summary("logs/b.log", 1000));
+    index.save();
+
+    Assert.assertTrue(createIndex().load());
+    S3ObjectIndex[] others = {
+        new S3ObjectIndex(indexFile, "other-bucket", "logs/", "**/*.log"),
+        new S3ObjectIndex(indexFile, "bucket", "archive/", "**/*.log"),
+        new S3ObjectIndex(indexFile, "bucket", "logs/", "**/*.txt")
+    };
+    for (S3ObjectIndex other : others) {
+      Assert.assertFalse(other.load());
+      Assert.assertEquals(0, other.size());
+      Assert.assertNull(other.getListingMarker(2000, 0));
+      Assert.assertTrue(other.hasChanged());
+    }
+  }
+
+}
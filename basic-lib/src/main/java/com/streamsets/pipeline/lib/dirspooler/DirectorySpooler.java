@@ -21,8 +21,9 @@ package com.streamsets.pipeline.lib.dirspooler;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.api.ProtoSource;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import com.streamsets.pipeline.lib.io.DirectoryPathCreationWatcher;
@@ -32,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -43,13 +45,24 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -60,8 +73,14 @@ import static com.streamsets.pipeline.lib.dirspooler.PathMatcherMode.REGEX;
 public class DirectorySpooler {
   private static final Logger LOG = LoggerFactory.getLogger(DirectorySpooler.class);
   private static final String PENDING_FILES = "pending.files";
-
-  private final Source.Context context;
+  private static final long SCAN_INTERVAL_SECS = 5;
+  // with a watch service the scan only picks up files whose notification was missed
+  private static final long RECONCILIATION_SCAN_INTERVAL_SECS = 60;
+  // a file reported by the watch service is queued once it has not been modified for this long, more than the mtime
+  // granularity of file systems with 1 second resolution
+  private static final long SETTLE_MILLIS = 2000;
+
+  private final ProtoSource.Context context;
   private final String spoolDir;
   private final int maxSpoolFiles;
   private final String pattern;
@@ -73,6 +92,7 @@ public class DirectorySpooler {
   private final boolean useLastModified;
   private final Comparator<Path> pathComparator;
   private final boolean processSubdirectories;
+  private final boolean watchDirectory;
 
   public enum FilePostProcessing {NONE, DELETE, ARCHIVE}
 
@@ -81,7 +101,7 @@ public class DirectorySpooler {
   }
 
   public static class Builder {
-    private Source.Context context;
+    private ProtoSource.Context context;
     private String spoolDir;
     private int maxSpoolFiles;
     private String pattern;
@@ -93,12 +113,13 @@ public class DirectorySpooler {
     private boolean waitForPathAppearance;
     private boolean useLastModifiedTimestamp;
     private boolean processSubdirectories;
+    private boolean watchDirectory;
 
     private Builder() {
       postProcessing = FilePostProcessing.NONE;
     }
 
-    public Builder setContext(Source.Context context) {
+    public Builder setContext(ProtoSource.Context context) {
       this.context = Preconditions.checkNotNull(context, "context cannot be null");
       return this;
     }
@@ -169,6 +190,11 @@ public class DirectorySpooler {
       return this;
     }
 
+    public Builder watchDirectory(boolean watchDirectory) {
+      this.watchDirectory = watchDirectory;
+      return this;
+    }
+
     public DirectorySpooler build() {
       Preconditions.checkArgument(context != null, "context not specified");
       Preconditions.checkArgument(spoolDir != null, "spool dir not specified");
@@ -188,13 +214,14 @@ public class DirectorySpooler {
           errorArchiveDir,
           waitForPathAppearance,
           useLastModifiedTimestamp,
-          processSubdirectories
+          processSubdirectories,
+          watchDirectory
       );
     }
   }
 
   public DirectorySpooler(
-      Source.Context context,
+      ProtoSource.Context context,
       String spoolDir,
       int maxSpoolFiles,
       String pattern,
@@ -222,7 +249,7 @@ public class DirectorySpooler {
   }
 
   public DirectorySpooler(
-      Source.Context context,
+      ProtoSource.Context context,
       String spoolDir,
       int maxSpoolFiles,
       String pattern,
@@ -234,6 +261,38 @@ public class DirectorySpooler {
       boolean waitForPathAppearance,
       final boolean useLastModified,
       boolean processSubdirectories
+  ) {
+    this(
+        context,
+        spoolDir,
+        maxSpoolFiles,
+        pattern,
+        pathMatcherMode,
+        postProcessing,
+        archiveDir,
+        archiveRetentionMillis,
+        errorArchiveDir,
+        waitForPathAppearance,
+        useLastModified,
+        processSubdirectories,
+        false
+    );
+  }
+
+  public DirectorySpooler(
+      ProtoSource.Context context,
+      String spoolDir,
+      int maxSpoolFiles,
+      String pattern,
+      PathMatcherMode pathMatcherMode,
+      FilePostProcessing postProcessing,
+      String archiveDir,
+      long archiveRetentionMillis,
+      String errorArchiveDir,
+      boolean waitForPathAppearance,
+      final boolean useLastModified,
+      boolean processSubdirectories,
+      boolean watchDirectory
   ) {
     this.context = context;
     this.spoolDir = spoolDir;
@@ -247,6 +306,7 @@ public class DirectorySpooler {
     this.waitForPathAppearance = waitForPathAppearance;
     this.useLastModified = useLastModified;
     this.processSubdirectories = processSubdirectories;
+    this.watchDirectory = watchDirectory;
 
     pathComparator = new Comparator<Path>() {
       @Override
@@ -277,6 +337,14 @@ public class DirectorySpooler {
   private Path errorArchiveDirPath;
   private PathMatcher fileMatcher;
   private PriorityBlockingQueue<Path> filesQueue;
+  // files in filesQueue, PriorityBlockingQueue.contains() is a linear search
+  private final Set<Path> queuedFiles = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+  // index of the files already queued or found to be before the current file, with their mtime at that point. Scans
+  // skip these files while their mtime does not change and drop the files that are not in the directory anymore
+  private final Map<Path, Long> seenFiles = new ConcurrentHashMap<>();
+  private WatchService watchService;
+  // files reported by the watch service that may still be written, only used by the directory watcher thread
+  private final Set<Path> settlingFiles = new LinkedHashSet<>();
   private Path previousFile;
   private ScheduledExecutorService scheduledExecutor;
   private boolean waitForPathAppearance;
@@ -288,6 +356,7 @@ public class DirectorySpooler {
 
   volatile FilePurger purger;
   volatile FileFinder finder;
+  volatile DirectoryWatcher watcher;
 
   private void checkBaseDir(Path path) {
     Preconditions.checkState(path.isAbsolute(), Utils.formatL("Path '{}' is not an absolute path", path));
@@ -378,12 +447,22 @@ public class DirectorySpooler {
       handleOlderFiles(currentFile);
     }
 
-    scheduledExecutor = new SafeScheduledExecutorService(1, "directory-spooler");
+    scheduledExecutor = new SafeScheduledExecutorService(watchDirectory ? 2 : 1, "directory-spooler");
+
+    long scanIntervalSecs = SCAN_INTERVAL_SECS;
+    if (watchDirectory) {
+      // registering before the first scan, files created in between are reported by both and queued once
+      watchService = spoolDirPath.getFileSystem().newWatchService();
+      registerDirectories(spoolDirPath);
+      watcher = new DirectoryWatcher(watchService);
+      scheduledExecutor.submit(watcher);
+      scanIntervalSecs = RECONCILIATION_SCAN_INTERVAL_SECS;
+    }
 
     findAndQueueFiles(currentFile, true, false);
 
     finder = new FileFinder();
-    scheduledExecutor.scheduleAtFixedRate(finder, 5, 5, TimeUnit.SECONDS);
+    scheduledExecutor.scheduleAtFixedRate(finder, scanIntervalSecs, scanIntervalSecs, TimeUnit.SECONDS);
 
     if (postProcessing == FilePostProcessing.ARCHIVE && archiveRetentionMillis > 0) {
       // create and schedule file purger only if the retention time is > 0
@@ -394,6 +473,14 @@ public class DirectorySpooler {
 
   public void destroy() {
     running = false;
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException ex) {
+        LOG.warn("Error while closing the directory watch service: {}", ex.toString(), ex);
+      }
+      watchService = null;
+    }
     try {
       if (scheduledExecutor != null) {
         scheduledExecutor.shutdownNow();
@@ -408,7 +495,7 @@ public class DirectorySpooler {
     return running;
   }
 
-  public Source.Context getContext() {
+  public ProtoSource.Context getContext() {
     return context;
   }
 
@@ -432,13 +519,21 @@ public class DirectorySpooler {
     return archiveDir;
   }
 
-  private void addFileToQueue(Path file, boolean checkCurrent) {
+  @VisibleForTesting
+  Set<Path> getSeenFiles() {
+    return seenFiles.keySet();
+  }
+
+  @VisibleForTesting
+  void addFileToQueue(Path file, long lastModified, boolean checkCurrent) {
     Preconditions.checkNotNull(file, "file cannot be null");
     if (checkCurrent) {
       try {
         boolean valid = StringUtils.isEmpty(currentFile.toString()) || compare(currentFile, file) < 0;
         if (!valid) {
-          LOG.warn("File cannot be added to the queue: " + file.toString());
+          LOG.warn("File '{}' is not after the current file '{}', not adding it to the queue", file, currentFile);
+          seenFiles.put(file, lastModified);
+          return;
         }
       } catch (NoSuchFileException ex) {
         // Happens only in timestamp ordering.
@@ -448,8 +543,9 @@ public class DirectorySpooler {
         // (else this would have been consumed and archived first)
       }
     }
-    if (!filesQueue.contains(file)) {
+    if (queuedFiles.add(file)) {
       if (filesQueue.size() >= maxSpoolFiles) {
+        queuedFiles.remove(file);
         throw new IllegalStateException(Utils.format("Exceeded max number '{}' of queued files", maxSpoolFiles));
       }
       filesQueue.add(file);
@@ -457,6 +553,7 @@ public class DirectorySpooler {
     } else {
       LOG.warn("File '{}' already in queue, ignoring", file);
     }
+    seenFiles.put(file, lastModified);
   }
 
   private boolean canPoolFiles() {
@@ -487,39 +584,7 @@ public class DirectorySpooler {
     Preconditions.checkState(running, "Spool directory watcher not running");
     synchronized (this) {
       if (previousFile != null && !context.isPreview()) {
-        switch (postProcessing) {
-          case NONE:
-            LOG.debug("Previous file '{}' remains in spool directory", previousFile);
-            break;
-          case DELETE:
-            try {
-              if (Files.exists(previousFile)) {
-                LOG.debug("Deleting previous file '{}'", previousFile);
-                Files.delete(previousFile);
-              } else {
-                LOG.error("failed to delete previous file '{}'", previousFile);
-              }
-            } catch (IOException ex) {
-              throw new RuntimeException(Utils.format("Could not delete file '{}', {}", previousFile, ex.toString()),
-                  ex);
-            }
-            break;
-          case ARCHIVE:
-            try {
-              if (Files.exists(previousFile)) {
-                LOG.debug("Archiving previous file '{}'", previousFile);
-                moveIt(previousFile, archiveDirPath);
-              } else {
-                LOG.error("failed to Archive previous file '{}'", previousFile);
-              }
-            } catch (IOException ex) {
-              throw new RuntimeException(Utils.format("Could not move file '{}' to archive dir {}, {}", previousFile,
-                  archiveDirPath, ex.toString()), ex);
-            }
-            break;
-          default:
-            LOG.error("poolForFile(): switch failed. postProcesing " + postProcessing.name() + " " + postProcessing.toString());
-        }
+        postProcess(previousFile);
         previousFile = null;
       }
     }
@@ -532,6 +597,7 @@ public class DirectorySpooler {
     } finally {
       LOG.debug("Polling for file returned '{}'", next);
       if (next != null) {
+        queuedFiles.remove(next);
         currentFile = next;
         previousFile = next;
       }
@@ -540,6 +606,113 @@ public class DirectorySpooler {
     return (next != null) ? next.toFile() : null;
   }
 
+  /**
+   * Takes the next file from the queue for callers processing several files at the same time.
+   * <p/>
+   * Unlike {@link #poolForFile(long, TimeUnit)} the previously returned file is not post processed, each claimed file
+   * must be released with either {@link #handleFileAsProcessed(File)} or {@link #handleFileAsError(File)}.
+   */
+  public File claimFile(long wait, TimeUnit timeUnit) {
+    Preconditions.checkArgument(wait >= 0, "wait must be zero or greater");
+    Preconditions.checkNotNull(timeUnit, "timeUnit cannot be null");
+
+    boolean canPool;
+    synchronized (this) {
+      canPool = canPoolFiles();
+    }
+    if (!canPool) {
+      // there is no queue to wait on until the directory shows up, callers claim files in a loop
+      try {
+        timeUnit.sleep(wait);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+
+    Preconditions.checkState(running, "Spool directory watcher not running");
+    Path next = null;
+    try {
+      LOG.debug("Polling for file, waiting '{}' ms", TimeUnit.MILLISECONDS.convert(wait, timeUnit));
+      next = filesQueue.poll(wait, timeUnit);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    LOG.debug("Polling for file returned '{}'", next);
+    if (next != null) {
+      queuedFiles.remove(next);
+      synchronized (this) {
+        // claimed files come out of the queue in order, the finder has to look for files newer than the newest one
+        try {
+          if (currentFile == null || StringUtils.isEmpty(currentFile.toString()) || compare(currentFile, next) < 0) {
+            currentFile = next;
+          }
+        } catch (NoSuchFileException ex) {
+          currentFile = next;
+        }
+      }
+    }
+    pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+    return (next != null) ? next.toFile() : null;
+  }
+
+  /**
+   * Applies the configured post processing to a file returned by {@link #claimFile(long, TimeUnit)}.
+   */
+  public void handleFileAsProcessed(File file) {
+    if (!context.isPreview()) {
+      postProcess(file.toPath());
+    }
+  }
+
+  /**
+   * Moves a file returned by {@link #claimFile(long, TimeUnit)} to the error archive directory, if there is one.
+   */
+  public void handleFileAsError(File file) throws IOException {
+    if (errorArchiveDirPath != null && !context.isPreview()) {
+      LOG.error("Archiving file in error '{}' in error archive directory '{}'", file, errorArchiveDirPath);
+      moveIt(spoolDirPath.resolve(file.toPath()), errorArchiveDirPath);
+    } else {
+      LOG.error("Leaving file in error '{}' in spool directory", file);
+    }
+  }
+
+  private void postProcess(Path file) {
+    switch (postProcessing) {
+      case NONE:
+        LOG.debug("Previous file '{}' remains in spool directory", file);
+        break;
+      case DELETE:
+        try {
+          if (Files.exists(file)) {
+            LOG.debug("Deleting previous file '{}'", file);
+            Files.delete(file);
+          } else {
+            LOG.error("failed to delete previous file '{}'", file);
+          }
+        } catch (IOException ex) {
+          throw new RuntimeException(Utils.format("Could not delete file '{}', {}", file, ex.toString()),
+              ex);
+        }
+        break;
+      case ARCHIVE:
+        try {
+          if (Files.exists(file)) {
+            LOG.debug("Archiving previous file '{}'", file);
+            moveIt(file, archiveDirPath);
+          } else {
+            LOG.error("failed to Archive previous file '{}'", file);
+          }
+        } catch (IOException ex) {
+          throw new RuntimeException(Utils.format("Could not move file '{}' to archive dir {}, {}", file,
+              archiveDirPath, ex.toString()), ex);
+        }
+        break;
+      default:
+        LOG.error("poolForFile(): switch failed. postProcesing " + postProcessing.name() + " " + postProcessing.toString());
+    }
+  }
+
   public void handleCurrentFileAsError() throws IOException {
     if (errorArchiveDirPath != null && !context.isPreview()) {
       Path current = spoolDirPath.resolve(previousFile);
@@ -591,25 +764,45 @@ public class DirectorySpooler {
       final Path startingFile, final boolean includeStartingFile, boolean checkCurrent
   ) throws IOException {
     final long scanTime = System.currentTimeMillis();
+    // every entry listed and the mtime of the accepted ones, the listing is diffed against the seen files index
+    final Set<Path> listedFiles = new HashSet<>();
+    final Map<Path, Long> foundFilesMtime = new HashMap<>();
     DirectoryStream.Filter<Path> filter = new DirectoryStream.Filter<Path>() {
       @Override
       public boolean accept(Path entry) throws IOException {
+        if (entry == null) {
+          return false;
+        }
+        listedFiles.add(entry);
+        long mtime = Files.getLastModifiedTime(entry).toMillis();
         boolean accept = false;
         // SDC-3551: Pick up only files with mtime strictly less than scan time.
-        if (entry != null && Files.getLastModifiedTime(entry).toMillis() < scanTime && fileMatcher.matches(entry.getFileName())) {
+        if (mtime < scanTime && fileMatcher.matches(entry.getFileName())) {
+          Long seenMtime = seenFiles.get(entry);
+          if (seenMtime != null && seenMtime == mtime) {
+            // already queued or before the current file, and not modified since
+            return false;
+          }
           if (startingFile == null || startingFile.toString().isEmpty()) {
             accept = true;
           } else {
             try {
               int compares = compare(entry, startingFile);
               accept = (compares == 0 && includeStartingFile) || (compares > 0);
+              if (!accept) {
+                // the current file only moves forward, the file won't be read unless it is modified
+                seenFiles.put(entry, mtime);
+              }
             } catch (NoSuchFileException ex) {
               // This happens only if timestamp is used, when the mtime is looked up for the startingFile
               // which has been archived, so this file must be newer since it is still in the directory
               // (if it was older it would have been consumed and archived earlier)
-              return true;
+              accept = true;
             }
           }
+          if (accept) {
+            foundFilesMtime.put(entry, mtime);
+          }
         }
         return accept;
       }
@@ -638,6 +831,7 @@ public class DirectorySpooler {
     }
 
     List<Path> foundFiles = new ArrayList<>(maxSpoolFiles);
+    boolean listedAll = true;
     for (Path dir : directories) {
       try (DirectoryStream<Path> matchingFile = Files.newDirectoryStream(dir, filter)) {
         for (Path file : matchingFile) {
@@ -656,15 +850,20 @@ public class DirectorySpooler {
           }
         }
       } catch(Exception ex) {
+        listedAll = false;
         LOG.error("findAndQueueFiles(): newDirectoryStream failed. " + ex.getMessage());
       }
     }
+    if (listedAll) {
+      // files archived, deleted or renamed since they were seen
+      seenFiles.keySet().retainAll(listedFiles);
+    }
 
     if (!useLastModified) { // Sorted in the queue, if useLastModified is true.
       Collections.sort(foundFiles);
     }
     for (Path file : foundFiles) {
-      addFileToQueue(file, checkCurrent);
+      addFileToQueue(file, foundFilesMtime.get(file), checkCurrent);
       if (filesQueue.size() > maxSpoolFiles) {
         throw new IllegalStateException(Utils.format("Exceeded max number '{}' of spool files in directory",
             maxSpoolFiles
@@ -747,6 +946,122 @@ public class DirectorySpooler {
     }
   }
 
+  private void registerDirectories(Path dir) throws IOException {
+    if (processSubdirectories && useLastModified) {
+      // same directories findAndQueueFiles() looks into
+      Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dirPath, BasicFileAttributes attributes) throws IOException {
+          dirPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } else {
+      dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+    }
+  }
+
+  private void handleCreatedPath(Path path) throws IOException {
+    if (Files.isDirectory(path)) {
+      if (processSubdirectories && useLastModified) {
+        registerDirectories(path);
+        // files may have been created in the directory before it was registered
+        findAndQueueFiles(currentFile, false, true);
+      }
+    } else if (fileMatcher.matches(path.getFileName()) && Files.exists(path)) {
+      // the file may still be being written, it is queued by queueSettledFiles() once its mtime stops changing
+      settlingFiles.add(path);
+    }
+  }
+
+  private void queueSettledFiles() {
+    final long checkTime = System.currentTimeMillis();
+    Iterator<Path> iterator = settlingFiles.iterator();
+    while (iterator.hasNext()) {
+      Path path = iterator.next();
+      long mtime;
+      try {
+        mtime = Files.getLastModifiedTime(path).toMillis();
+      } catch (IOException ex) {
+        // gone before it settled, a later scan picks it up if it comes back
+        iterator.remove();
+        continue;
+      }
+      // SDC-3551: like the mtime guard in findAndQueueFiles(), but the file must not have been modified for a while
+      if (checkTime - mtime < SETTLE_MILLIS) {
+        continue;
+      }
+      iterator.remove();
+      boolean newer;
+      try {
+        newer = StringUtils.isEmpty(currentFile.toString()) || compare(path, currentFile) > 0;
+      } catch (NoSuchFileException ex) {
+        // same reasoning as in findAndQueueFiles(), the current file has already been archived
+        newer = true;
+      } catch (IOException ex) {
+        LOG.warn("Error while checking new file '{}': {}", path, ex.toString(), ex);
+        continue;
+      }
+      if (newer) {
+        LOG.trace("Found file '{}'", path);
+        addFileToQueue(path, mtime, false);
+        pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+      }
+    }
+  }
+
+  class DirectoryWatcher implements Runnable {
+    private final WatchService watchService;
+
+    DirectoryWatcher(WatchService watchService) {
+      this.watchService = watchService;
+    }
+
+    @Override
+    public void run() {
+      LOG.debug("Watching directory '{}' for new files", spoolDirPath);
+      while (running) {
+        WatchKey key;
+        try {
+          key = watchService.poll(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ClosedWatchServiceException ex) {
+          // the spooler has been destroyed
+          break;
+        }
+        if (key != null) {
+          handleEvents(key);
+        }
+        try {
+          queueSettledFiles();
+        } catch (Exception ex) {
+          LOG.warn("Error while queueing new files: {}", ex.toString(), ex);
+        }
+      }
+    }
+
+    private void handleEvents(WatchKey key) {
+      Path dir = (Path) key.watchable();
+      for (WatchEvent<?> event : key.pollEvents()) {
+        try {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            LOG.warn("Directory '{}' notifications overflowed, scanning the directory", dir);
+            findAndQueueFiles(currentFile, false, true);
+          } else {
+            handleCreatedPath(dir.resolve((Path) event.context()));
+          }
+        } catch (Exception ex) {
+          LOG.warn("Error while handling new file notification in '{}': {}", dir, ex.toString(), ex);
+        }
+      }
+      if (!key.reset()) {
+        LOG.debug("Directory '{}' is no longer watched", dir);
+      }
+    }
+  }
+
   class FilePurger implements Runnable {
 
     @Override
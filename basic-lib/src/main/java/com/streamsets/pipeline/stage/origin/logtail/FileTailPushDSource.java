@@ -0,0 +1,55 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.logtail;
+
+import com.streamsets.pipeline.api.ConfigDefBean;
+import com.streamsets.pipeline.api.ConfigGroups;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.GenerateResourceBundle;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.configurablestage.DPushSource;
+
+@StageDef(
+    version = 1,
+    label = "File Tail (Multithreaded)",
+    description = "Tails several files at the same time. It handles rolling files within the same directory " +
+        "[Multi-Threaded Pipeline]",
+    icon = "fileTail.png",
+    execution = ExecutionMode.STANDALONE,
+    outputStreams = FileTailOutputStreams.class,
+    recordsByRef = true,
+    resetOffset = true,
+    producesEvents = true,
+    onlineHelpRefUrl = "index.html#Origins/FileTail.html#task_unq_wdw_yq"
+)
+@ConfigGroups(Groups.class)
+@GenerateResourceBundle
+public class FileTailPushDSource extends DPushSource {
+
+  @ConfigDefBean
+  public FileTailPushConfigBean conf;
+
+  @Override
+  protected PushSource createPushSource() {
+    return new FileTailPushSource(conf);
+  }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.logtail;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.BatchContext;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.BasePushSource;
+import com.streamsets.pipeline.lib.io.LiveFileChunk;
+import com.streamsets.pipeline.lib.io.MultiFileInfo;
+import com.streamsets.pipeline.lib.io.MultiFileReader;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * File Tail origin tailing the configured files from several threads.
+ * <p/>
+ * The configured files are split among the runner threads, each runner tails its files with its own
+ * {@link MultiFileReader}, so a busy file only competes with the files of its own runner. Each file is its own offset
+ * entity, keyed by its file key, and the bytes each file is behind its end are reported in the
+ * {@link #OFFSETS_LAG_GAUGE} gauge.
+ */
+public class FileTailPushSource extends BasePushSource {
+  private static final Logger LOG = LoggerFactory.getLogger(FileTailPushSource.class);
+  static final String OFFSETS_LAG_GAUGE = "Offsets Lag";
+  static final String PENDING_FILES_GAUGE = "Pending Files";
+
+  private final FileTailPushConfigBean conf;
+  private final int scanIntervalSecs;
+
+  private DataParserFactory parserFactory;
+  private final List<MultiFileReader> readers = new ArrayList<>();
+  private String outputLane;
+  private String metadataLane;
+  private int batchSize;
+  private long maxWaitTimeMillis;
+  private Map<String, Object> offsetsLag;
+  private Map<String, Object> pendingFiles;
+
+  public FileTailPushSource(FileTailPushConfigBean conf) {
+    this(conf, 20);
+  }
+
+  FileTailPushSource(FileTailPushConfigBean conf, int scanIntervalSecs) {
+    this.conf = conf;
+    this.scanIntervalSecs = scanIntervalSecs;
+  }
+
+  @Override
+  protected List<ConfigIssue> init() {
+    List<ConfigIssue> issues = super.init();
+
+    List<MultiFileInfo> dirInfos = FileTailSource.validateConfigs(getContext(), conf, issues);
+    if (issues.isEmpty()) {
+      // files are assigned round robin, a runner never gets more than one file more than another runner
+      int numberOfReaders = Math.min(conf.numberOfThreads, dirInfos.size());
+      List<List<MultiFileInfo>> dirInfosPerReader = new ArrayList<>(numberOfReaders);
+      for (int i = 0; i < numberOfReaders; i++) {
+        dirInfosPerReader.add(new ArrayList<MultiFileInfo>());
+      }
+      for (int i = 0; i < dirInfos.size(); i++) {
+        dirInfosPerReader.get(i % numberOfReaders).add(dirInfos.get(i));
+      }
+      try {
+        for (List<MultiFileInfo> readerDirInfos : dirInfosPerReader) {
+          readers.add(FileTailSource.createMultiFileReader(getContext(), conf, readerDirInfos, scanIntervalSecs));
+        }
+      } catch (IOException ex) {
+        issues.add(
+            getContext().createConfigIssue(
+                Groups.FILES.name(),
+                FileTailSource.FILE_TAIL_CONF_PREFIX + "fileInfos",
+                Errors.TAIL_02,
+                ex.toString(),
+                ex
+            )
+        );
+      }
+    }
+
+    if (issues.isEmpty()) {
+      parserFactory = conf.dataFormatConfig.getParserFactory();
+      maxWaitTimeMillis = conf.maxWaitTimeSecs * 1000;
+      outputLane = getContext().getOutputLanes().get(0);
+      metadataLane = getContext().getOutputLanes().get(1);
+      offsetsLag = getContext().createGauge(OFFSETS_LAG_GAUGE).getValue();
+      pendingFiles = getContext().createGauge(PENDING_FILES_GAUGE).getValue();
+    }
+    return issues;
+  }
+
+  @Override
+  public int getNumberOfThreads() {
+    // there are never more runners than files
+    return (readers.isEmpty()) ? conf.numberOfThreads : readers.size();
+  }
+
+  @Override
+  public void produce(Map<String, String> lastOffsets, int maxBatchSize) throws StageException {
+    batchSize = Math.min(conf.batchSize, maxBatchSize);
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        readers.size(),
+        new ThreadFactoryBuilder().setNameFormat("File Tail Runner - %d").build()
+    );
+    CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+    for (MultiFileReader reader : readers) {
+      // a reader only picks the offsets of its own files
+      completionService.submit(new FileTailRunnable(reader, lastOffsets));
+    }
+
+    int numThreadsRemaining = readers.size();
+    try {
+      while (numThreadsRemaining-- > 0) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while waiting for the file tail runners", e);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StageException) {
+        throw (StageException) cause;
+      }
+      throw new StageException(Errors.TAIL_21, cause.toString(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for (MultiFileReader reader : readers) {
+      IOUtils.closeQuietly(reader);
+    }
+    super.destroy();
+  }
+
+  private class FileTailRunnable implements Callable<Void> {
+    private final MultiFileReader reader;
+    private final Map<String, String> committedOffsets;
+
+    FileTailRunnable(MultiFileReader reader, Map<String, String> lastOffsets) {
+      this.reader = reader;
+      this.committedOffsets = new HashMap<>(lastOffsets);
+    }
+
+    // remaining time till  timeout, return zero if already in timeout
+    private long getRemainingWaitTime(long startTime) {
+      long remaining = maxWaitTimeMillis - (System.currentTimeMillis() - startTime);
+      return (remaining > 0) ? remaining : 0;
+    }
+
+    @Override
+    public Void call() throws StageException {
+      Map<String, String> offsetMap = committedOffsets;
+      while (!getContext().isStopped()) {
+        long startTime = System.currentTimeMillis();
+        BatchContext batchContext = getContext().startBatch();
+        ErrorRecordHandler errorRecordHandler = new DefaultErrorRecordHandler(getContext(), batchContext);
+
+        FileTailSource.setOffsets(reader, offsetMap);
+
+        int recordCounter = 0;
+        while (recordCounter < batchSize && getRemainingWaitTime(startTime) > 0 && !getContext().isStopped()) {
+          LiveFileChunk chunk = reader.next(getRemainingWaitTime(startTime));
+          if (chunk != null) {
+            recordCounter += FileTailSource.addRecords(
+                chunk,
+                parserFactory,
+                batchContext.getBatchMaker(),
+                outputLane,
+                errorRecordHandler
+            );
+          }
+        }
+
+        Date now = new Date(startTime);
+        if (!FileTailSource.addFileEvents(
+            getContext(),
+            batchContext,
+            reader.getEvents(),
+            now,
+            batchContext.getBatchMaker(),
+            metadataLane
+        )) {
+          reader.purge();
+        }
+
+        offsetMap = FileTailSource.getOffsets(reader);
+        if (getContext().processBatch(batchContext)) {
+          commitOffsets(offsetMap);
+        }
+        updateGauges(offsetMap);
+      }
+      return null;
+    }
+
+    // only the files that moved are committed, each file is its own entity
+    private void commitOffsets(Map<String, String> offsetMap) {
+      for (Map.Entry<String, String> entry : offsetMap.entrySet()) {
+        if (!Objects.equals(committedOffsets.get(entry.getKey()), entry.getValue())) {
+          getContext().commitOffset(entry.getKey(), entry.getValue());
+          committedOffsets.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    private void updateGauges(Map<String, String> offsetMap) {
+      try {
+        offsetsLag.putAll(reader.getOffsetsLag(offsetMap));
+      } catch (IOException ex) {
+        LOG.warn("Error while Calculating Offset Lag {}", ex.toString(), ex);
+      }
+      try {
+        pendingFiles.putAll(reader.getPendingFiles());
+      } catch (IOException ex) {
+        LOG.warn("Error while Calculating Pending Files Metric {}", ex.toString(), ex);
+      }
+    }
+  }
+
+}
@@ -25,7 +25,9 @@ import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.EventRecord;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.ToEventContext;
 import com.streamsets.pipeline.api.base.BaseSource;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.DataFormat;
@@ -93,23 +95,28 @@ public class FileTailSource extends BaseSource {
   private Map<String, Counter> offsetLagMetric;
   private Map<String, Counter> pendingFilesMetric;
 
-  private boolean validateFileInfo(FileInfo fileInfo, List<ConfigIssue> issues) {
+  private static boolean validateFileInfo(Stage.Context context, FileInfo fileInfo, List<ConfigIssue> issues) {
     boolean ok = true;
     String fileName = Paths.get(fileInfo.fileFullPath).getFileName().toString();
     String token = fileInfo.fileRollMode.getTokenForPattern();
 
-    if (!validateFilePathNoNull(fileInfo, fileName, issues)) {
+    if (!validateFilePathNoNull(context, fileInfo, fileName, issues)) {
       return false;
     }
-    ok &= validateTokenConfiguration(fileInfo, issues, fileName, token);
+    ok &= validateTokenConfiguration(context, fileInfo, issues, fileName, token);
 
     return ok;
   }
 
-  private boolean validateFilePathNoNull(FileInfo fileInfo, String fileName, List<ConfigIssue> issues) {
+  private static boolean validateFilePathNoNull(
+      Stage.Context context,
+      FileInfo fileInfo,
+      String fileName,
+      List<ConfigIssue> issues
+  ) {
     if (fileName == null || fileName.isEmpty()) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               FILE_TAIL_CONF_PREFIX + "fileInfos",
               Errors.TAIL_20,
@@ -121,7 +128,13 @@ public class FileTailSource extends BaseSource {
     return true;
   }
 
-  private boolean validateTokenConfiguration(FileInfo fileInfo, List<ConfigIssue> issues, String fileName, String token) {
+  private static boolean validateTokenConfiguration(
+      Stage.Context context,
+      FileInfo fileInfo,
+      List<ConfigIssue> issues,
+      String fileName,
+      String token
+  ) {
     boolean ok = true;
 
     String fileParentDir = Paths.get(fileInfo.fileFullPath).getParent().toString();
@@ -129,7 +142,7 @@ public class FileTailSource extends BaseSource {
       // If the token exists, it can't be in the directory name
       if(fileParentDir.contains(token)) {
         issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
             Groups.FILES.name(),
             FILE_TAIL_CONF_PREFIX + "fileInfos",
             Errors.TAIL_16,
@@ -143,7 +156,7 @@ public class FileTailSource extends BaseSource {
       // The token has to be in the filename instead
       if (!fileName.contains(token)) {
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.FILES.name(),
                 FILE_TAIL_CONF_PREFIX + "fileInfos",
                 Errors.TAIL_08,
@@ -161,7 +174,7 @@ public class FileTailSource extends BaseSource {
       if (fileInfo.patternForToken == null || fileInfo.patternForToken.isEmpty()) {
         ok &= false;
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.FILES.name(),
                 FILE_TAIL_CONF_PREFIX + "fileInfos",
                 Errors.TAIL_08,
@@ -170,7 +183,7 @@ public class FileTailSource extends BaseSource {
         );
       } else {
         // valid patternForTokens must be parseable regexes
-        ok &= validatePatternIsValidRegex(fileInfo, issues);
+        ok &= validatePatternIsValidRegex(context, fileInfo, issues);
       }
 
       // if firstFile is provided, make sure it's possible to use it
@@ -179,7 +192,7 @@ public class FileTailSource extends BaseSource {
         if (!rollMode.isFirstAcceptable(fileInfo.firstFile)) {
           ok = false;
           issues.add(
-              getContext().createConfigIssue(
+              context.createConfigIssue(
                   Groups.FILES.name(),
                   FILE_TAIL_CONF_PREFIX + "fileInfos",
                   Errors.TAIL_19,
@@ -192,12 +205,12 @@ public class FileTailSource extends BaseSource {
     return ok;
   }
 
-  private boolean validatePatternIsValidRegex(FileInfo fileInfo, List<ConfigIssue> issues) {
+  private static boolean validatePatternIsValidRegex(Stage.Context context, FileInfo fileInfo, List<ConfigIssue> issues) {
     try {
       Pattern.compile(fileInfo.patternForToken);
     } catch (PatternSyntaxException ex) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               FILE_TAIL_CONF_PREFIX + "fileInfos",
               Errors.TAIL_09,
@@ -216,10 +229,43 @@ public class FileTailSource extends BaseSource {
     List<ConfigIssue> issues = super.init();
     errorRecordHandler = new DefaultErrorRecordHandler(getContext());
 
+    List<MultiFileInfo> dirInfos = validateConfigs(getContext(), conf, issues);
+    if (!dirInfos.isEmpty()) {
+      try {
+        multiDirReader = createMultiFileReader(getContext(), conf, dirInfos, scanIntervalSecs);
+      } catch (IOException ex) {
+        issues.add(
+            getContext().createConfigIssue(
+                Groups.FILES.name(),
+                FILE_TAIL_CONF_PREFIX + "fileInfos",
+                Errors.TAIL_02,
+                ex.toString(),
+                ex
+            )
+        );
+      }
+    }
+    parserFactory = conf.dataFormatConfig.getParserFactory();
+
+    maxWaitTimeMillis = conf.maxWaitTimeSecs * 1000;
+    outputLane = getContext().getOutputLanes().get(0);
+    metadataLane = getContext().getOutputLanes().get(1);
+    offsetLagMetric = new HashMap<String, Counter>();
+    pendingFilesMetric = new HashMap<String, Counter>();
+
+    return issues;
+  }
+
+  /**
+   * Validates the configuration and initializes the data format, returns the files to tail that have a valid
+   * configuration.
+   */
+  static List<MultiFileInfo> validateConfigs(Stage.Context context, FileTailConfigBean conf, List<ConfigIssue> issues) {
+    List<MultiFileInfo> dirInfos = new ArrayList<>();
     if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
       if (conf.archiveDir == null || conf.archiveDir.isEmpty()) {
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.POST_PROCESSING.name(),
                 FILE_TAIL_CONF_PREFIX + "archiveDir",
                 Errors.TAIL_05
@@ -229,7 +275,7 @@ public class FileTailSource extends BaseSource {
         File dir = new File(conf.archiveDir);
         if (!dir.exists()) {
           issues.add(
-              getContext().createConfigIssue(
+              context.createConfigIssue(
                   Groups.POST_PROCESSING.name(),
                   FILE_TAIL_CONF_PREFIX + "archiveDir",
                   Errors.TAIL_06
@@ -238,7 +284,7 @@ public class FileTailSource extends BaseSource {
         }
         if (!dir.isDirectory()) {
           issues.add(
-              getContext().createConfigIssue(
+              context.createConfigIssue(
                   Groups.POST_PROCESSING.name(),
                   FILE_TAIL_CONF_PREFIX + "archiveDir",
                   Errors.TAIL_07
@@ -249,7 +295,7 @@ public class FileTailSource extends BaseSource {
     }
     if (conf.fileInfos.isEmpty()) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               FILE_TAIL_CONF_PREFIX + "fileInfos",
               Errors.TAIL_01
@@ -257,9 +303,8 @@ public class FileTailSource extends BaseSource {
       );
     } else {
       Set<String> fileKeys = new LinkedHashSet<>();
-      List<MultiFileInfo> dirInfos = new ArrayList<>();
       for (FileInfo fileInfo : conf.fileInfos) {
-        if (validateFileInfo(fileInfo, issues)) {
+        if (validateFileInfo(context, fileInfo, issues)) {
           MultiFileInfo directoryInfo = new MultiFileInfo(
               fileInfo.tag,
               fileInfo.fileFullPath,
@@ -270,7 +315,7 @@ public class FileTailSource extends BaseSource {
           );
           dirInfos.add(directoryInfo);
           if (fileKeys.contains(directoryInfo.getFileKey())) {
-            issues.add(getContext().createConfigIssue(
+            issues.add(context.createConfigIssue(
                 Groups.FILES.name(),
                 FILE_TAIL_CONF_PREFIX + "fileInfos",
                 Errors.TAIL_04,
@@ -280,59 +325,44 @@ public class FileTailSource extends BaseSource {
           fileKeys.add(directoryInfo.getFileKey());
         }
       }
-      if (!dirInfos.isEmpty()) {
-        try {
-          int maxLineLength = Integer.MAX_VALUE;
-          if (conf.dataFormat == DataFormat.TEXT) {
-            maxLineLength = conf.dataFormatConfig.textMaxLineLen;
-          } else if (conf.dataFormat == DataFormat.JSON) {
-            maxLineLength = conf.dataFormatConfig.jsonMaxObjectLen;
-          } else if (conf.dataFormat == DataFormat.LOG) {
-            maxLineLength = conf.dataFormatConfig.logMaxObjectLen;
-          }
-          int scanIntervalSecs = (getContext().isPreview()) ? 0 : this.scanIntervalSecs;
-          multiDirReader = new MultiFileReader(
-              dirInfos,
-              Charset.forName(conf.dataFormatConfig.charset),
-              maxLineLength,
-              conf.postProcessing,
-              conf.archiveDir,
-              true,
-              scanIntervalSecs,
-              conf.allowLateDirectories,
-              getContext().isPreview()
-          );
-        } catch (IOException ex) {
-          issues.add(
-              getContext().createConfigIssue(
-                  Groups.FILES.name(),
-                  FILE_TAIL_CONF_PREFIX + "fileInfos",
-                  Errors.TAIL_02,
-                  ex.toString(),
-                  ex
-              )
-          );
-        }
-      }
     }
 
     conf.dataFormatConfig.init(
-        getContext(),
+        context,
         conf.dataFormat,
         Groups.FILES.name(),
         FILE_TAIL_DATA_FORMAT_CONFIG_PREFIX,
         !conf.multiLineMainPattern.isEmpty(),
         issues
     );
-    parserFactory = conf.dataFormatConfig.getParserFactory();
-
-    maxWaitTimeMillis = conf.maxWaitTimeSecs * 1000;
-    outputLane = getContext().getOutputLanes().get(0);
-    metadataLane = getContext().getOutputLanes().get(1);
-    offsetLagMetric = new HashMap<String, Counter>();
-    pendingFilesMetric = new HashMap<String, Counter>();
+    return dirInfos;
+  }
 
-    return issues;
+  static MultiFileReader createMultiFileReader(
+      Stage.Context context,
+      FileTailConfigBean conf,
+      List<MultiFileInfo> dirInfos,
+      int scanIntervalSecs
+  ) throws IOException {
+    int maxLineLength = Integer.MAX_VALUE;
+    if (conf.dataFormat == DataFormat.TEXT) {
+      maxLineLength = conf.dataFormatConfig.textMaxLineLen;
+    } else if (conf.dataFormat == DataFormat.JSON) {
+      maxLineLength = conf.dataFormatConfig.jsonMaxObjectLen;
+    } else if (conf.dataFormat == DataFormat.LOG) {
+      maxLineLength = conf.dataFormatConfig.logMaxObjectLen;
+    }
+    return new MultiFileReader(
+        dirInfos,
+        Charset.forName(conf.dataFormatConfig.charset),
+        maxLineLength,
+        conf.postProcessing,
+        conf.archiveDir,
+        true,
+        (context.isPreview()) ? 0 : scanIntervalSecs,
+        conf.allowLateDirectories,
+        context.isPreview()
+    );
   }
 
   @Override
@@ -403,6 +433,35 @@ public class FileTailSource extends BaseSource {
     // deserializing offsets of all directories
     Map<String, String> offsetMap = deserializeOffsetMap(lastSourceOffset);
 
+    setOffsets(multiDirReader, offsetMap);
+
+    while (recordCounter < maxBatchSize && !isTimeout(startTime)) {
+      LiveFileChunk chunk = multiDirReader.next(getRemainingWaitTime(startTime));
+
+      if (chunk != null) {
+        recordCounter += addRecords(chunk, parserFactory, batchMaker, outputLane, errorRecordHandler);
+      }
+    }
+
+    Date now = new Date(startTime);
+    if (!addFileEvents(getContext(), getContext(), multiDirReader.getEvents(), now, batchMaker, metadataLane)) {
+      multiDirReader.purge();
+    }
+
+    offsetMap = getOffsets(multiDirReader);
+
+    //Calculate Offset lag Metric.
+    calculateOffsetLagMetric(offsetMap);
+
+    //Calculate Pending Files Metric
+    calculatePendingFilesMetric();
+
+    // serializing offsets of all directories
+    return serializeOffsetMap(offsetMap);
+  }
+
+
+  static void setOffsets(MultiFileReader multiDirReader, Map<String, String> offsetMap) {
     boolean offsetSet = false;
     while (!offsetSet) {
       try {
@@ -413,50 +472,84 @@ public class FileTailSource extends BaseSource {
         multiDirReader.purge();
       }
     }
+  }
 
-    while (recordCounter < maxBatchSize && !isTimeout(startTime)) {
-      LiveFileChunk chunk = multiDirReader.next(getRemainingWaitTime(startTime));
+  static Map<String, String> getOffsets(MultiFileReader multiDirReader) {
+    Map<String, String> offsetMap = null;
+    boolean offsetExtracted = false;
+    while (!offsetExtracted) {
+      try {
+        offsetMap = multiDirReader.getOffsets();
+        offsetExtracted = true;
+      } catch (IOException ex) {
+        LOG.warn("Error while creating creating new offset: {}", ex.toString(), ex);
+        multiDirReader.purge();
+      }
+    }
+    return offsetMap;
+  }
 
-      if (chunk != null) {
-        String tag = chunk.getTag();
-        tag = (tag != null && tag.isEmpty()) ? null : tag;
-        String liveFileStr = chunk.getFile().serialize();
-
-        List<FileLine> lines = chunk.getLines();
-        int truncatedLine = chunk.isTruncated() ? lines.size()-1 : -1;
-
-        for (int i = 0; i < lines.size(); i++) {
-          FileLine line = lines.get(i);
-          String sourceId = liveFileStr + "::" + line.getFileOffset();
-          try (DataParser parser = parserFactory.getParser(sourceId, line.getText())) {
-            if(i == truncatedLine) {
-              //set truncated
-              parser.setTruncated();
-            }
-            Record record = parser.parse();
-            if (record != null) {
-              if (tag != null) {
-                record.getHeader().setAttribute("tag", tag);
-              }
-              record.getHeader().setAttribute(HeaderAttributeConstants.FILE, chunk.getFile().getPath().toString());
-              record.getHeader().setAttribute(HeaderAttributeConstants.FILE_NAME, chunk.getFile().getPath().getFileName().toString());
-              record.getHeader().setAttribute(HeaderAttributeConstants.OFFSET, String.valueOf(line.getFileOffset()));
-              batchMaker.addRecord(record, outputLane);
-              recordCounter++;
-            }
-          } catch (IOException | DataParserException ex) {
-            errorRecordHandler.onError(Errors.TAIL_12, sourceId, ex.toString(), ex);
+  /**
+   * Parses the lines of the chunk into the output lane, returns the number of records added.
+   */
+  static int addRecords(
+      LiveFileChunk chunk,
+      DataParserFactory parserFactory,
+      BatchMaker batchMaker,
+      String outputLane,
+      ErrorRecordHandler errorRecordHandler
+  ) throws StageException {
+    int recordCounter = 0;
+    String tag = chunk.getTag();
+    tag = (tag != null && tag.isEmpty()) ? null : tag;
+    String liveFileStr = chunk.getFile().serialize();
+
+    List<FileLine> lines = chunk.getLines();
+    int truncatedLine = chunk.isTruncated() ? lines.size()-1 : -1;
+
+    for (int i = 0; i < lines.size(); i++) {
+      FileLine line = lines.get(i);
+      String sourceId = liveFileStr + "::" + line.getFileOffset();
+      try (DataParser parser = parserFactory.getParser(sourceId, line.getText())) {
+        if(i == truncatedLine) {
+          //set truncated
+          parser.setTruncated();
+        }
+        Record record = parser.parse();
+        if (record != null) {
+          if (tag != null) {
+            record.getHeader().setAttribute("tag", tag);
           }
+          record.getHeader().setAttribute(HeaderAttributeConstants.FILE, chunk.getFile().getPath().toString());
+          record.getHeader().setAttribute(HeaderAttributeConstants.FILE_NAME, chunk.getFile().getPath().getFileName().toString());
+          record.getHeader().setAttribute(HeaderAttributeConstants.OFFSET, String.valueOf(line.getFileOffset()));
+          batchMaker.addRecord(record, outputLane);
+          recordCounter++;
         }
+      } catch (IOException | DataParserException ex) {
+        errorRecordHandler.onError(Errors.TAIL_12, sourceId, ex.toString(), ex);
       }
     }
+    return recordCounter;
+  }
 
+  /**
+   * Adds the file start/end events to the metadata lane and sends them as events, returns <code>false</code> if
+   * the metadata of some files could not be read.
+   */
+  static boolean addFileEvents(
+      Stage.Context context,
+      ToEventContext toEventContext,
+      List<FileEvent> events,
+      Date now,
+      BatchMaker batchMaker,
+      String metadataLane
+  ) {
     boolean metadataGenerationFailure = false;
-    Date now = new Date(startTime);
-    for (FileEvent event : multiDirReader.getEvents()) {
+    for (FileEvent event : events) {
       try {
         LiveFile file = event.getFile().refresh();
-        Record metadataRecord = getContext().createRecord("");
+        Record metadataRecord = context.createRecord("");
         Map<String, Field> map = new HashMap<>();
         map.put("fileName", Field.create(file.getPath().toString()));
         map.put("inode", Field.create(file.getINode()));
@@ -468,40 +561,17 @@ public class FileTailSource extends BaseSource {
         // We're also sending the same information on event lane
         String eventRecordSourceId =
             Utils.format("event:{}:{}:{}", event.getAction().name(), 1, file.getPath().toString());
-        EventRecord eventRecord = getContext().createEventRecord(event.getAction().name(), 1, eventRecordSourceId);
+        EventRecord eventRecord = context.createEventRecord(event.getAction().name(), 1, eventRecordSourceId);
         eventRecord.set(Field.create(map));
-        getContext().toEvent(eventRecord);
+        toEventContext.toEvent(eventRecord);
       } catch (IOException ex) {
         LOG.warn("Error while creating metadata records: {}", ex.toString(), ex);
         metadataGenerationFailure = true;
       }
     }
-    if (metadataGenerationFailure) {
-      multiDirReader.purge();
-    }
-
-    boolean offsetExtracted = false;
-    while (!offsetExtracted) {
-      try {
-        offsetMap = multiDirReader.getOffsets();
-        offsetExtracted = true;
-      } catch (IOException ex) {
-        LOG.warn("Error while creating creating new offset: {}", ex.toString(), ex);
-        multiDirReader.purge();
-      }
-    }
-
-    //Calculate Offset lag Metric.
-    calculateOffsetLagMetric(offsetMap);
-
-    //Calculate Pending Files Metric
-    calculatePendingFilesMetric();
-
-    // serializing offsets of all directories
-    return serializeOffsetMap(offsetMap);
+    return !metadataGenerationFailure;
   }
 
-
   private void calibrateMetric(Map<String, Long> resultMap, Map<String, Counter> metricMap, String metricPrefix) {
     for (Map.Entry<String, Long> mapEntry : resultMap.entrySet()) {
       String fileKey = mapEntry.getKey();
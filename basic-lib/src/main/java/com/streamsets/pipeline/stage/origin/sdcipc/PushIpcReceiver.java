@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.streamsets.pipeline.api.BatchContext;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.ext.ContextExtensions;
+import com.streamsets.pipeline.api.ext.RecordReader;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.http.HttpReceiver;
+import com.streamsets.pipeline.stage.destination.sdcipc.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives SDC RPC requests for {@link SdcIpcPushSource}. Requests are processed concurrently, each one as a batch of
+ * its own; the request completes once the pipeline runner processed the batch, so the sender gets the commit only
+ * after the batch is done.
+ */
+public class PushIpcReceiver implements HttpReceiver {
+  private static final Logger LOG = LoggerFactory.getLogger(PushIpcReceiver.class);
+
+  private final Configs configs;
+  private final int maxObjectLen;
+  private PushSource.Context context;
+
+  public PushIpcReceiver(Configs configs) {
+    this.configs = configs;
+    maxObjectLen = configs.maxRecordSize * 1000 * 1000;
+  }
+
+  @Override
+  public List<Stage.ConfigIssue> init(Stage.Context context) {
+    this.context = (PushSource.Context) context;
+    return new ArrayList<>();
+  }
+
+  @Override
+  public void destroy() {
+    //NOP
+  }
+
+  @Override
+  public String getAppId() {
+    return configs.getAppId();
+  }
+
+  @Override
+  public boolean isAppIdViaQueryParamAllowed() {
+    return configs.isAppIdViaQueryParamAllowed();
+  }
+
+  @Override
+  public String getUriPath() {
+    return Constants.IPC_PATH;
+  }
+
+  @Override
+  public boolean validate(HttpServletRequest req, HttpServletResponse res) throws IOException {
+    String contentType = req.getContentType();
+    if (!Constants.APPLICATION_BINARY.equals(contentType)) {
+      res.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          Utils.format("Wrong content-type '{}', expected '{}'", contentType, Constants.APPLICATION_BINARY));
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void process(HttpServletRequest req, InputStream is) throws IOException {
+    BatchContext batchContext = context.startBatch();
+    int count = 0;
+    // the input stream is closed by the servlet
+    RecordReader reader = ((ContextExtensions) context).createRecordReader(is, 0, maxObjectLen);
+    Record record = reader.readRecord();
+    while (record != null) {
+      batchContext.getBatchMaker().addRecord(record);
+      count++;
+      record = reader.readRecord();
+    }
+    LOG.debug("Got '{}' records from '{}'", count, req.getRemoteAddr());
+    // fails the request if the batch did not go through, the sender will then retry it
+    if (!context.processBatch(batchContext)) {
+      throw new IOException(Utils.format("Batch of '{}' records from '{}' was not processed", count,
+          req.getRemoteAddr()));
+    }
+  }
+
+}
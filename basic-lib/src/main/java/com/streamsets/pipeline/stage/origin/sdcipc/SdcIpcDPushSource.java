@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.streamsets.pipeline.api.ConfigDefBean;
+import com.streamsets.pipeline.api.ConfigGroups;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.GenerateResourceBundle;
+import com.streamsets.pipeline.api.HideConfigs;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.configurablestage.DPushSource;
+
+@StageDef(
+    version = 1,
+    label = "SDC RPC (Multithreaded)",
+    execution = ExecutionMode.STANDALONE,
+    description = "Receives records via SDC RPC from Data Collector pipelines that use an SDC RPC destination " +
+        "[Multi-Threaded Pipeline]",
+    icon="sdcipc.png",
+    recordsByRef = true,
+    onlineHelpRefUrl = "index.html#Origins/SDC_RPCorigin.html#task_lxh_1w2_ct"
+)
+@ConfigGroups(Groups.class)
+@HideConfigs(value = {
+    // requests are processed as soon as they arrive, there is no batch to wait for
+    "configs.maxWaitTimeSecs"
+})
+@GenerateResourceBundle
+public class SdcIpcDPushSource extends DPushSource {
+
+  @ConfigDefBean
+  public PushConfigs configs;
+
+  @Override
+  protected PushSource createPushSource() {
+    return new SdcIpcPushSource(configs);
+  }
+}
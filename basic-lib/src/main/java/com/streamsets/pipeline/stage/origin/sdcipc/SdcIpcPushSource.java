@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.streamsets.pipeline.lib.httpsource.AbstractHttpServerPushSource;
+
+import java.util.List;
+
+/**
+ * Multithreaded variant of {@link SdcIpcSource}, every SDC RPC request is handed to a pipeline runner of its own
+ * instead of going through a single queue.
+ */
+public class SdcIpcPushSource extends AbstractHttpServerPushSource<PushIpcReceiver> {
+
+  private final Configs configs;
+
+  public SdcIpcPushSource(Configs configs) {
+    super(configs, new PushIpcReceiver(configs));
+    this.configs = configs;
+  }
+
+  @Override
+  protected List<ConfigIssue> init() {
+    List<ConfigIssue> issues = configs.init(getContext());
+    issues.addAll(getReceiver().init(getContext()));
+    if (issues.isEmpty()) {
+      issues.addAll(super.init());
+    }
+    return issues;
+  }
+
+  @Override
+  public void destroy() {
+    super.destroy();
+    getReceiver().destroy();
+    configs.destroy();
+  }
+
+}
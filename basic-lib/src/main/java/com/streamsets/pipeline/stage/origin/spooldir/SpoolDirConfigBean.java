@@ -114,6 +114,18 @@ public class SpoolDirConfigBean {
   )
   public boolean allowLateDirectory = false;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Watch Directory",
+      description = "Picks up new files from file system notifications instead of scanning the directory every few " +
+          "seconds. The directory is still scanned every minute for files whose notification was missed.",
+      displayPosition = 52,
+      group = "FILES"
+  )
+  public boolean watchDirectory;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.NUMBER,
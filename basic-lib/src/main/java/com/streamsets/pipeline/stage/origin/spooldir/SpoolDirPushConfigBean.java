@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.spooldir;
+
+import com.streamsets.pipeline.api.ConfigDef;
+import com.streamsets.pipeline.api.ValueChooserModel;
+
+public class SpoolDirPushConfigBean extends SpoolDirConfigBean {
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Number of Threads",
+      description = "Number of files read at the same time, each thread reads one file at a time and sends its " +
+          "batches to its own pipeline runner.",
+      displayPosition = 5,
+      group = "FILES",
+      min = 1,
+      max = 200
+  )
+  public int numberOfThreads;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "STRICT",
+      label = "Processing Order",
+      description = "Strict post processes files in file order, a file read before an older file is post processed " +
+          "once the older file is read as well. Parallel post processes each file as soon as it is read.",
+      displayPosition = 6,
+      group = "FILES"
+  )
+  @ValueChooserModel(ProcessingOrderChooserValues.class)
+  public ProcessingOrder processingOrder;
+
+}
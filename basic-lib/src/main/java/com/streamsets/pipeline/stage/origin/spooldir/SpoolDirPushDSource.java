@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.spooldir;
+
+import com.streamsets.pipeline.api.ConfigDefBean;
+import com.streamsets.pipeline.api.ConfigGroups;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.GenerateResourceBundle;
+import com.streamsets.pipeline.api.HideConfigs;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.configurablestage.DPushSource;
+
+import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
+
+@StageDef(
+    version = 1,
+    label = "Directory (Multithreaded)",
+    description = "Reads files from a directory, several files at a time [Multi-Threaded Pipeline]",
+    icon="directory.png",
+    execution = ExecutionMode.STANDALONE,
+    recordsByRef = true,
+    resetOffset = true,
+    producesEvents = true,
+    onlineHelpRefUrl = "index.html#Origins/Directory.html#task_gfj_ssv_yq"
+)
+@ConfigGroups(Groups.class)
+@HideConfigs(value = {
+  "conf.dataFormatConfig.verifyChecksum",
+  "conf.dataFormatConfig.avroSchemaSource"
+})
+@GenerateResourceBundle
+public class SpoolDirPushDSource extends DPushSource {
+
+  @ConfigDefBean
+  public SpoolDirPushConfigBean conf;
+
+  @Override
+  protected PushSource createPushSource() {
+    if (conf.dataFormat == DataFormat.AVRO) {
+      conf.dataFormatConfig.avroSchemaSource = SOURCE;
+    }
+    return new SpoolDirPushSource(conf);
+  }
+
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.spooldir;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.BatchContext;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.BasePushSource;
+import com.streamsets.pipeline.lib.dirspooler.DirectorySpooler;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Directory origin reading several files at the same time, each runner thread claims a file from the spooler and
+ * reads it to the end.
+ * <p/>
+ * Each file being read has its own offset entity, keyed by the file path relative to the spool directory. The
+ * {@link #LAST_FILE} entity keeps the newest file such that it and all the files claimed before it have been read, on
+ * restart the spooler starts from it and the files after it resume from their own entities.
+ */
+public class SpoolDirPushSource extends BasePushSource {
+  private static final Logger LOG = LoggerFactory.getLogger(SpoolDirPushSource.class);
+  static final String LAST_FILE = "$com.streamsets.pipeline.stage.origin.spooldir.SpoolDirPushSource.lastFile$";
+  private static final String MINUS_ONE = SpoolDirReader.MINUS_ONE;
+  private static final String ZERO = "0";
+  // waits for files in short slices so stopping the pipeline is not delayed by the pooling timeout
+  private static final long CLAIM_SLICE_MILLIS = 1000;
+
+  private final SpoolDirPushConfigBean conf;
+
+  private boolean waitForPathToBePresent;
+  private DataParserFactory parserFactory;
+  private DirectorySpooler spooler;
+  private Path spoolDirPath;
+  private int batchSize;
+
+  // claiming a file and registering it must be atomic so files are registered in the order the spooler returns them
+  private final Lock claimLock = new ReentrantLock();
+  private final Map<String, String> restoredOffsets = new HashMap<>();
+  private final LinkedHashMap<String, ClaimedFile> claimedFiles = new LinkedHashMap<>();
+
+  public SpoolDirPushSource(SpoolDirPushConfigBean conf) {
+    this.conf = conf;
+  }
+
+  @Override
+  protected List<ConfigIssue> init() {
+    List<ConfigIssue> issues = super.init();
+
+    waitForPathToBePresent = SpoolDirSource.validateConfigs(getContext(), conf, issues);
+
+    if (issues.isEmpty()) {
+      parserFactory = conf.dataFormatConfig.getParserFactory();
+
+      if (getContext().isPreview()) {
+        conf.poolingTimeoutSecs = 1;
+      }
+      spoolDirPath = Paths.get(conf.spoolDir).toAbsolutePath();
+    }
+    return issues;
+  }
+
+  @Override
+  public int getNumberOfThreads() {
+    return conf.numberOfThreads;
+  }
+
+  @Override
+  public void produce(Map<String, String> lastOffsets, int maxBatchSize) throws StageException {
+    batchSize = Math.min(conf.batchSize, maxBatchSize);
+
+    String lastFile = restoreOffsets(lastOffsets);
+    spooler = SpoolDirSource.createSpooler(getContext(), conf, waitForPathToBePresent);
+    spooler.init(lastFile != null ? lastFile : conf.initialFileToProcess);
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        getNumberOfThreads(),
+        new ThreadFactoryBuilder().setNameFormat("Directory Runner - %d").build()
+    );
+    CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+    for (int i = 0; i < getNumberOfThreads(); i++) {
+      completionService.submit(new SpoolDirRunnable());
+    }
+
+    int numThreadsRemaining = getNumberOfThreads();
+    try {
+      while (numThreadsRemaining-- > 0) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while waiting for the directory runners", e);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StageException) {
+        throw (StageException) cause;
+      }
+      throw new StageException(Errors.SPOOLDIR_33, cause.toString(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Keeps the offsets of the files after the last fully read file, returns the file the spooler starts from.
+   */
+  private String restoreOffsets(Map<String, String> lastOffsets) {
+    String lastFile = null;
+    for (Map.Entry<String, String> entry : lastOffsets.entrySet()) {
+      if (LAST_FILE.equals(entry.getKey())) {
+        lastFile = entry.getValue();
+      } else if (entry.getValue() != null) {
+        if (Files.exists(spoolDirPath.resolve(entry.getKey()))) {
+          restoredOffsets.put(entry.getKey(), entry.getValue());
+        } else {
+          LOG.warn("File '{}' with offset '{}' is no longer in the spool directory", entry.getKey(), entry.getValue());
+          getContext().commitOffset(entry.getKey(), null);
+        }
+      }
+    }
+    if (lastFile != null && !Files.exists(spoolDirPath.resolve(lastFile))) {
+      // the file has been post processed and so have all files before it, all files in the directory are newer
+      LOG.debug("Last read file '{}' is no longer in the spool directory", lastFile);
+      lastFile = null;
+    }
+    if (lastFile != null) {
+      // the spooler queues the file it starts from as well
+      restoredOffsets.put(lastFile, MINUS_ONE);
+    }
+    return lastFile;
+  }
+
+  private ClaimedFile claimFile() {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(conf.poolingTimeoutSecs);
+    do {
+      long slice = Math.max(0, Math.min(CLAIM_SLICE_MILLIS, deadline - System.currentTimeMillis()));
+      try {
+        if (!claimLock.tryLock(slice, TimeUnit.MILLISECONDS)) {
+          // another thread is claiming a file
+          continue;
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      try {
+        if (getContext().isStopped()) {
+          return null;
+        }
+        File file = spooler.claimFile(slice, TimeUnit.MILLISECONDS);
+        if (file != null) {
+          String entity = spoolDirPath.relativize(file.toPath().toAbsolutePath()).toString();
+          synchronized (claimedFiles) {
+            String offset = restoredOffsets.remove(entity);
+            ClaimedFile claimedFile = new ClaimedFile(file, entity, (offset == null) ? ZERO : offset);
+            claimedFiles.put(entity, claimedFile);
+            return claimedFile;
+          }
+        }
+      } finally {
+        claimLock.unlock();
+      }
+    } while (System.currentTimeMillis() < deadline && !getContext().isStopped() &&
+        !Thread.currentThread().isInterrupted());
+    return null;
+  }
+
+  /**
+   * Marks the file as read and commits the offsets of the files that are no longer needed to resume reading.
+   */
+  private void finishFile(ClaimedFile claimedFile, boolean inError) {
+    if (conf.processingOrder == ProcessingOrder.PARALLEL && !inError) {
+      spooler.handleFileAsProcessed(claimedFile.file);
+    }
+    synchronized (claimedFiles) {
+      claimedFile.finished = true;
+      claimedFile.inError = inError;
+
+      String lastFile = null;
+      List<ClaimedFile> done = new ArrayList<>();
+      Iterator<ClaimedFile> iterator = claimedFiles.values().iterator();
+      while (iterator.hasNext()) {
+        ClaimedFile file = iterator.next();
+        if (!file.finished) {
+          break;
+        }
+        iterator.remove();
+        done.add(file);
+        lastFile = file.entity;
+      }
+      if (lastFile != null) {
+        for (ClaimedFile file : done) {
+          if (conf.processingOrder == ProcessingOrder.STRICT && !file.inError) {
+            spooler.handleFileAsProcessed(file.file);
+          }
+        }
+        getContext().commitOffset(LAST_FILE, lastFile);
+        for (ClaimedFile file : done) {
+          getContext().commitOffset(file.entity, null);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (spooler != null) {
+      spooler.destroy();
+    }
+    super.destroy();
+  }
+
+  private static class ClaimedFile {
+    private final File file;
+    private final String entity;
+    private final String offset;
+    private boolean finished;
+    private boolean inError;
+
+    ClaimedFile(File file, String entity, String offset) {
+      this.file = file;
+      this.entity = entity;
+      this.offset = offset;
+    }
+  }
+
+  private class SpoolDirRunnable implements Callable<Void> {
+
+    @Override
+    public Void call() throws StageException {
+      try (SpoolDirReader reader = new SpoolDirReader(getContext(), conf, parserFactory)) {
+        while (!getContext().isStopped()) {
+          ClaimedFile claimedFile = claimFile();
+          if (claimedFile == null) {
+            LOG.debug("No new file available in spool directory after '{}' secs", conf.poolingTimeoutSecs);
+          } else if (MINUS_ONE.equals(claimedFile.offset)) {
+            // fully read before the last run stopped, it only had to wait for older files
+            finishFile(claimedFile, false);
+          } else {
+            readFile(reader, claimedFile);
+          }
+        }
+      }
+      return null;
+    }
+
+    private void readFile(SpoolDirReader reader, ClaimedFile claimedFile) throws StageException {
+      File file = claimedFile.file;
+      String offset = claimedFile.offset;
+      boolean inError = false;
+      boolean newFile = true;
+      while (!MINUS_ONE.equals(offset) && !getContext().isStopped()) {
+        BatchContext batchContext = getContext().startBatch();
+        if (newFile) {
+          SpoolDirEvents.NEW_FILE.create(getContext(), batchContext)
+              .with("filepath", file.getAbsolutePath())
+              .createAndSend();
+          newFile = false;
+        }
+        try {
+          offset = reader.produce(
+              file,
+              offset,
+              batchSize,
+              batchContext.getBatchMaker(),
+              new DefaultErrorRecordHandler(getContext(), batchContext)
+          );
+        } catch (BadSpoolFileException ex) {
+          LOG.error(Errors.SPOOLDIR_01.getMessage(), ex.getFile(), ex.getPos(), ex.toString(), ex);
+          getContext().reportError(Errors.SPOOLDIR_01, ex.getFile(), ex.getPos(), ex.toString(), ex);
+          try {
+            spooler.handleFileAsError(file);
+          } catch (IOException ex1) {
+            throw new StageException(Errors.SPOOLDIR_00, file, ex1.toString(), ex1);
+          }
+          inError = true;
+          offset = MINUS_ONE;
+        }
+        if (MINUS_ONE.equals(offset)) {
+          SpoolDirEvents.FINISHED_FILE.create(getContext(), batchContext)
+              .with("filepath", file.getAbsolutePath())
+              .createAndSend();
+        }
+        getContext().processBatch(batchContext, claimedFile.entity, offset);
+      }
+      if (MINUS_ONE.equals(offset)) {
+        finishFile(claimedFile, inError);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.spooldir;
+
+import com.streamsets.pipeline.api.BatchMaker;
+import com.streamsets.pipeline.api.FileRef;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
+import com.streamsets.pipeline.api.el.ELEval;
+import com.streamsets.pipeline.api.el.ELVars;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.io.ObjectLengthException;
+import com.streamsets.pipeline.lib.io.OverrunException;
+import com.streamsets.pipeline.lib.io.fileref.FileRefUtil;
+import com.streamsets.pipeline.lib.io.fileref.LocalFileRef;
+import com.streamsets.pipeline.lib.parser.DataParser;
+import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+
+/**
+ * Reads batches of records from spool directory files, one file at a time.
+ * <p/>
+ * The reader keeps the parser of the file being read open between batches, the single threaded and the multithreaded
+ * directory origins use one reader per thread.
+ */
+class SpoolDirReader implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SpoolDirReader.class);
+  static final String MINUS_ONE = "-1";
+  private static final String BASE_DIR = "baseDir";
+
+  private final Stage.Context context;
+  private final SpoolDirConfigBean conf;
+  private final DataParserFactory parserFactory;
+  private final ELEval rateLimitElEval;
+  private final ELVars rateLimitElVars;
+  private DataParser parser;
+
+  SpoolDirReader(Stage.Context context, SpoolDirConfigBean conf, DataParserFactory parserFactory) {
+    this.context = context;
+    this.conf = conf;
+    this.parserFactory = parserFactory;
+    rateLimitElEval = FileRefUtil.createElEvalForRateLimit(context);
+    rateLimitElVars = context.createELVars();
+  }
+
+  /**
+   * Processes a batch from the specified file and offset up to a maximum batch size. If the file is fully processed
+   * it must return -1, otherwise it must return the offset to continue from next invocation.
+   */
+  String produce(
+      File file,
+      String offset,
+      int maxBatchSize,
+      BatchMaker batchMaker,
+      ErrorRecordHandler errorRecordHandler
+  ) throws StageException, BadSpoolFileException {
+    String sourceFile = file.getName();
+    try {
+      if (parser == null) {
+        switch (conf.dataFormat) {
+          case AVRO:
+            parser = parserFactory.getParser(file, offset);
+            break;
+          case WHOLE_FILE:
+            FileRef localFileRef = new LocalFileRef.Builder()
+                .filePath(file.getAbsolutePath())
+                .bufferSize(conf.dataFormatConfig.wholeFileMaxObjectLen)
+                .rateLimit(FileRefUtil.evaluateAndGetRateLimit(rateLimitElEval, rateLimitElVars, conf.dataFormatConfig.rateLimit))
+                .createMetrics(true)
+                .totalSizeInBytes(Files.size(file.toPath()))
+                .build();
+            parser = parserFactory.getParser(file.getName(), SpoolDirSource.getFileMetadata(file), localFileRef);
+            break;
+          default:
+            parser = parserFactory.getParser(file.getName(), new FileInputStream(file), offset);
+        }
+      }
+
+      for (int i = 0; i < maxBatchSize; i++) {
+        try {
+          Record record;
+
+          try {
+            record = parser.parse();
+          } catch(RecoverableDataParserException ex) {
+            // Propagate partially parsed record to error stream
+            record = ex.getUnparsedRecord();
+            setHeaders(record, file, offset);
+            errorRecordHandler.onError(new OnRecordErrorException(record, ex.getErrorCode(), ex.getParams()));
+
+            // We'll simply continue reading once this
+            continue;
+          }
+
+          if (record != null) {
+            setHeaders(record, file, offset);
+            batchMaker.addRecord(record);
+            offset = parser.getOffset();
+          } else {
+            parser.close();
+            parser = null;
+            offset = MINUS_ONE;
+            break;
+          }
+        } catch (ObjectLengthException ex) {
+          String exOffset = offset;
+          offset = MINUS_ONE;
+          errorRecordHandler.onError(Errors.SPOOLDIR_02, sourceFile, exOffset, ex);
+        }
+      }
+    } catch (IOException|DataParserException ex) {
+      if (ex instanceof ClosedByInterruptException || ex.getCause() instanceof ClosedByInterruptException) {
+        //If the pipeline was stopped, we may get a ClosedByInterruptException while reading avro data.
+        //This is because the thread is interrupted when the pipeline is stopped.
+        //Instead of sending the file to error, publish batch and move one.
+      } else {
+        offset = MINUS_ONE;
+        String exOffset;
+        if (ex instanceof OverrunException) {
+          exOffset = String.valueOf(((OverrunException) ex).getStreamOffset());
+        } else {
+          try {
+            exOffset = (parser != null) ? parser.getOffset() : MINUS_ONE;
+          } catch (IOException ex1) {
+            LOG.warn("Could not get the file offset to report with error, reason: {}", ex1.toString(), ex);
+            exOffset = MINUS_ONE;
+          }
+        }
+        switch (context.getOnErrorRecord()) {
+          case DISCARD:
+            break;
+          case TO_ERROR:
+            // we failed to produce a record, which leaves the input file in an unknown state. all we can do here is
+            // throw an exception.
+            throw new BadSpoolFileException(file.getAbsolutePath(), exOffset, ex);
+          case STOP_PIPELINE:
+            context.reportError(Errors.SPOOLDIR_04, sourceFile, exOffset, ex.toString(), ex);
+            throw new StageException(Errors.SPOOLDIR_04, sourceFile, exOffset, ex.toString());
+          default:
+            throw new IllegalStateException(Utils.format("Unknown OnError value '{}'",
+                context.getOnErrorRecord(), ex));
+        }
+      }
+    } finally {
+      if (MINUS_ONE.equals(offset)) {
+        if (parser != null) {
+          try {
+            parser.close();
+            parser = null;
+          } catch (IOException ex) {
+            //NOP
+          }
+        }
+      }
+    }
+    return offset;
+  }
+
+  private void setHeaders(Record record, File file, String offset) {
+    record.getHeader().setAttribute(HeaderAttributeConstants.FILE, file.getPath());
+    record.getHeader().setAttribute(HeaderAttributeConstants.FILE_NAME, file.getName());
+    record.getHeader().setAttribute(HeaderAttributeConstants.OFFSET, offset == null ? "0" : offset);
+    record.getHeader().setAttribute(BASE_DIR, conf.spoolDir);
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(parser);
+    parser = null;
+  }
+
+}
@@ -20,24 +20,13 @@
 package com.streamsets.pipeline.stage.origin.spooldir;
 
 import com.streamsets.pipeline.api.BatchMaker;
-import com.streamsets.pipeline.api.FileRef;
-import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ProtoSource;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseSource;
-import com.streamsets.pipeline.api.base.OnRecordErrorException;
-import com.streamsets.pipeline.api.el.ELEval;
-import com.streamsets.pipeline.api.el.ELVars;
-import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.PostProcessingOptions;
 import com.streamsets.pipeline.lib.dirspooler.DirectorySpooler;
-import com.streamsets.pipeline.lib.io.ObjectLengthException;
-import com.streamsets.pipeline.lib.io.OverrunException;
-import com.streamsets.pipeline.lib.io.fileref.FileRefUtil;
-import com.streamsets.pipeline.lib.io.fileref.LocalFileRef;
-import com.streamsets.pipeline.lib.parser.DataParser;
-import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
-import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
@@ -46,9 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Files;
 import java.nio.file.PathMatcher;
 import java.nio.file.attribute.PosixFilePermission;
@@ -63,13 +50,11 @@ import java.util.concurrent.TimeUnit;
 public class SpoolDirSource extends BaseSource {
   private final static Logger LOG = LoggerFactory.getLogger(SpoolDirSource.class);
   private static final String OFFSET_SEPARATOR = "::";
-  private static final String MINUS_ONE = "-1";
+  private static final String MINUS_ONE = SpoolDirReader.MINUS_ONE;
   private static final String ZERO = "0";
   private static final String NULL_FILE = "NULL_FILE_ID-48496481-5dc5-46ce-9c31-3ab3e034730c";
   static final String PERMISSIONS = "permissions";
 
-  private static final String BASE_DIR = "baseDir";
-
   private static final int MIN_OVERRUN_LIMIT = 64 * 1024;
   public static final String SPOOLDIR_CONFIG_BEAN_PREFIX = "conf.";
   public static final String SPOOLDIR_DATAFORMAT_CONFIG_PREFIX = SPOOLDIR_CONFIG_BEAN_PREFIX + "dataFormatConfig.";
@@ -81,10 +66,7 @@ public class SpoolDirSource extends BaseSource {
   private File currentFile;
   private ErrorRecordHandler errorRecordHandler;
   private DataParserFactory parserFactory;
-  private DataParser parser;
-
-  private ELEval rateLimitElEval;
-  private ELVars rateLimitElVars;
+  private SpoolDirReader reader;
 
   public SpoolDirSource(SpoolDirConfigBean conf) {
     this.conf = conf;
@@ -94,16 +76,40 @@ public class SpoolDirSource extends BaseSource {
   protected List<ConfigIssue> init() {
     List<ConfigIssue> issues = super.init();
 
+    errorRecordHandler = new DefaultErrorRecordHandler(getContext());
+
+    boolean waitForPathToBePresent = validateConfigs(getContext(), conf, issues);
+
+    if (issues.isEmpty()) {
+      parserFactory = conf.dataFormatConfig.getParserFactory();
+
+      if (getContext().isPreview()) {
+        conf.poolingTimeoutSecs = 1;
+      }
+
+      this.useLastModified = conf.useLastModified == FileOrdering.TIMESTAMP;
+      spooler = createSpooler(getContext(), conf, waitForPathToBePresent);
+      spooler.init(conf.initialFileToProcess);
+      reader = new SpoolDirReader(getContext(), conf, parserFactory);
+    }
+
+    return issues;
+  }
+
+  /**
+   * Validates the configuration shared by the single threaded and the multithreaded directory origins, returns
+   * <code>true</code> if the spooler has to wait for the spool directory to be created.
+   */
+  static boolean validateConfigs(Stage.Context context, SpoolDirConfigBean conf, List<ConfigIssue> issues) {
     conf.dataFormatConfig.checkForInvalidAvroSchemaLookupMode(
         conf.dataFormat,
         "conf.dataFormat",
-        getContext(),
+        context,
         issues
     );
 
-    errorRecordHandler = new DefaultErrorRecordHandler(getContext());
-
     boolean waitForPathToBePresent = !validateDir(
+        context,
         conf.spoolDir, Groups.FILES.name(),
         SPOOLDIR_CONFIG_BEAN_PREFIX + "spoolDir",
         issues, !conf.allowLateDirectory
@@ -112,7 +118,7 @@ public class SpoolDirSource extends BaseSource {
     // Whether overrunLimit is less than max limit is validated by DataParserFormatConfig.
     if (conf.overrunLimit * 1024 < MIN_OVERRUN_LIMIT) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               SPOOLDIR_CONFIG_BEAN_PREFIX + "overrunLimit",
               Errors.SPOOLDIR_06
@@ -122,7 +128,7 @@ public class SpoolDirSource extends BaseSource {
 
     if (conf.batchSize < 1) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               SPOOLDIR_CONFIG_BEAN_PREFIX + "batchSize",
               Errors.SPOOLDIR_14
@@ -132,7 +138,7 @@ public class SpoolDirSource extends BaseSource {
 
     if (conf.poolingTimeoutSecs < 1) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               SPOOLDIR_CONFIG_BEAN_PREFIX + "poolingTimeoutSecs",
               Errors.SPOOLDIR_15
@@ -140,11 +146,11 @@ public class SpoolDirSource extends BaseSource {
       );
     }
 
-    validateFilePattern(issues);
+    validateFilePattern(context, conf, issues);
 
     if (conf.maxSpoolFiles < 1) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               SPOOLDIR_CONFIG_BEAN_PREFIX + "maxSpoolFiles",
               Errors.SPOOLDIR_17
@@ -152,10 +158,11 @@ public class SpoolDirSource extends BaseSource {
       );
     }
 
-    validateInitialFileToProcess(issues);
+    validateInitialFileToProcess(context, conf, issues);
 
     if (conf.errorArchiveDir != null && !conf.errorArchiveDir.isEmpty()) {
       validateDir(
+          context,
           conf.errorArchiveDir,
           Groups.POST_PROCESSING.name(),
           SPOOLDIR_CONFIG_BEAN_PREFIX + "errorArchiveDir",
@@ -166,6 +173,7 @@ public class SpoolDirSource extends BaseSource {
     if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
       if (conf.archiveDir != null && !conf.archiveDir.isEmpty()) {
         validateDir(
+            context,
             conf.archiveDir,
             Groups.POST_PROCESSING.name(),
             SPOOLDIR_CONFIG_BEAN_PREFIX + "archiveDir",
@@ -173,7 +181,7 @@ public class SpoolDirSource extends BaseSource {
             true);
       } else {
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.POST_PROCESSING.name(),
                 SPOOLDIR_CONFIG_BEAN_PREFIX + "archiveDir",
                 Errors.SPOOLDIR_11
@@ -182,7 +190,7 @@ public class SpoolDirSource extends BaseSource {
       }
       if (conf.retentionTimeMins < 0) {
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.POST_PROCESSING.name(),
                 SPOOLDIR_CONFIG_BEAN_PREFIX + "retentionTimeMins",
                 Errors.SPOOLDIR_19
@@ -192,7 +200,7 @@ public class SpoolDirSource extends BaseSource {
     }
 
     conf.dataFormatConfig.init(
-        getContext(),
+        context,
         conf.dataFormat,
         Groups.FILES.name(),
         SPOOLDIR_DATAFORMAT_CONFIG_PREFIX,
@@ -200,40 +208,36 @@ public class SpoolDirSource extends BaseSource {
         issues
     );
 
-    if (issues.isEmpty()) {
-      parserFactory = conf.dataFormatConfig.getParserFactory();
-
-      if (getContext().isPreview()) {
-        conf.poolingTimeoutSecs = 1;
-      }
+    return waitForPathToBePresent;
+  }
 
-      DirectorySpooler.Builder builder =
-          DirectorySpooler.builder().setDir(conf.spoolDir).setFilePattern(conf.filePattern)
-              .setMaxSpoolFiles(conf.maxSpoolFiles)
-              .setPostProcessing(DirectorySpooler.FilePostProcessing.valueOf(conf.postProcessing.name()))
-              .waitForPathAppearance(waitForPathToBePresent)
-              .processSubdirectories(conf.processSubdirectories);
+  static DirectorySpooler createSpooler(
+      ProtoSource.Context context,
+      SpoolDirConfigBean conf,
+      boolean waitForPathToBePresent
+  ) {
+    DirectorySpooler.Builder builder =
+        DirectorySpooler.builder().setDir(conf.spoolDir).setFilePattern(conf.filePattern)
+            .setMaxSpoolFiles(conf.maxSpoolFiles)
+            .setPostProcessing(DirectorySpooler.FilePostProcessing.valueOf(conf.postProcessing.name()))
+            .waitForPathAppearance(waitForPathToBePresent)
+            .processSubdirectories(conf.processSubdirectories)
+            .watchDirectory(conf.watchDirectory);
 
-      if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
-        builder.setArchiveDir(conf.archiveDir);
-        builder.setArchiveRetention(conf.retentionTimeMins);
-      }
-      if (conf.errorArchiveDir != null && !conf.errorArchiveDir.isEmpty()) {
-        builder.setErrorArchiveDir(conf.errorArchiveDir);
-      }
-      builder.setContext(getContext());
-      this.useLastModified = conf.useLastModified == FileOrdering.TIMESTAMP;
-      builder.setUseLastModifiedTimestamp(useLastModified);
-      spooler = builder.build();
-      spooler.init(conf.initialFileToProcess);
-      rateLimitElEval = FileRefUtil.createElEvalForRateLimit(getContext());;
-      rateLimitElVars = getContext().createELVars();
+    if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
+      builder.setArchiveDir(conf.archiveDir);
+      builder.setArchiveRetention(conf.retentionTimeMins);
     }
-
-    return issues;
+    if (conf.errorArchiveDir != null && !conf.errorArchiveDir.isEmpty()) {
+      builder.setErrorArchiveDir(conf.errorArchiveDir);
+    }
+    builder.setContext(context);
+    builder.setUseLastModifiedTimestamp(conf.useLastModified == FileOrdering.TIMESTAMP);
+    return builder.build();
   }
 
-  private boolean validateDir(
+  private static boolean validateDir(
+      Stage.Context context,
       String dir,
       String group,
       String config,
@@ -241,12 +245,13 @@ public class SpoolDirSource extends BaseSource {
       boolean addDirPresenceIssues
   ) {
     if (dir.isEmpty()) {
-      issues.add(getContext().createConfigIssue(group, config, Errors.SPOOLDIR_11));
+      issues.add(context.createConfigIssue(group, config, Errors.SPOOLDIR_11));
     }
-    return validateDirPresence(dir, group, config, issues, addDirPresenceIssues);
+    return validateDirPresence(context, dir, group, config, issues, addDirPresenceIssues);
   }
 
-  private boolean validateDirPresence(
+  private static boolean validateDirPresence(
+      Stage.Context context,
       String dir,
       String group,
       String config,
@@ -257,10 +262,10 @@ public class SpoolDirSource extends BaseSource {
     List<ConfigIssue> issuesToBeAdded = new ArrayList<ConfigIssue>();
     boolean isValid = true;
     if (!fDir.exists()) {
-      issuesToBeAdded.add(getContext().createConfigIssue(group, config, Errors.SPOOLDIR_12, dir));
+      issuesToBeAdded.add(context.createConfigIssue(group, config, Errors.SPOOLDIR_12, dir));
       isValid = false;
     } else if (!fDir.isDirectory()) {
-      issuesToBeAdded.add(getContext().createConfigIssue(group, config, Errors.SPOOLDIR_13, dir));
+      issuesToBeAdded.add(context.createConfigIssue(group, config, Errors.SPOOLDIR_13, dir));
       isValid = false;
     }
     if (addDirPresenceIssues) {
@@ -269,10 +274,14 @@ public class SpoolDirSource extends BaseSource {
     return isValid;
   }
 
-  private void validateFilePattern(List<ConfigIssue> issues) {
+  private static void validateFilePattern(
+      Stage.Context context,
+      SpoolDirConfigBean conf,
+      List<ConfigIssue> issues
+  ) {
     if (conf.filePattern == null || conf.filePattern.trim().isEmpty()) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               Groups.FILES.name(),
               SPOOLDIR_CONFIG_BEAN_PREFIX + "filePattern",
               Errors.SPOOLDIR_32,
@@ -284,7 +293,7 @@ public class SpoolDirSource extends BaseSource {
         DirectorySpooler.createPathMatcher(conf.filePattern, conf.pathMatcherMode);
       } catch (Exception ex) {
         issues.add(
-            getContext().createConfigIssue(
+            context.createConfigIssue(
                 Groups.FILES.name(),
                 SPOOLDIR_CONFIG_BEAN_PREFIX + "filePattern",
                 Errors.SPOOLDIR_16,
@@ -297,13 +306,17 @@ public class SpoolDirSource extends BaseSource {
     }
   }
 
-  private void validateInitialFileToProcess(List<ConfigIssue> issues) {
+  private static void validateInitialFileToProcess(
+      Stage.Context context,
+      SpoolDirConfigBean conf,
+      List<ConfigIssue> issues
+  ) {
     if (conf.initialFileToProcess != null && !conf.initialFileToProcess.isEmpty()) {
       try {
         PathMatcher pathMatcher = DirectorySpooler.createPathMatcher(conf.filePattern, conf.pathMatcherMode);
         if (!pathMatcher.matches(new File(conf.initialFileToProcess).toPath().getFileName())) {
           issues.add(
-              getContext().createConfigIssue(
+              context.createConfigIssue(
                   Groups.FILES.name(),
                   SPOOLDIR_CONFIG_BEAN_PREFIX + "initialFileToProcess",
                   Errors.SPOOLDIR_18,
@@ -319,7 +332,7 @@ public class SpoolDirSource extends BaseSource {
 
   @Override
   public void destroy() {
-    IOUtils.closeQuietly(parser);
+    IOUtils.closeQuietly(reader);
     if (spooler != null) {
       spooler.destroy();
     }
@@ -506,113 +519,7 @@ public class SpoolDirSource extends BaseSource {
    */
   public String produce(File file, String offset, int maxBatchSize, BatchMaker batchMaker) throws StageException,
       BadSpoolFileException {
-    String sourceFile = file.getName();
-    try {
-      if (parser == null) {
-        switch (conf.dataFormat) {
-          case AVRO:
-            parser = parserFactory.getParser(file, offset);
-            break;
-          case WHOLE_FILE:
-            FileRef localFileRef = new LocalFileRef.Builder()
-                .filePath(file.getAbsolutePath())
-                .bufferSize(conf.dataFormatConfig.wholeFileMaxObjectLen)
-                .rateLimit(FileRefUtil.evaluateAndGetRateLimit(rateLimitElEval, rateLimitElVars, conf.dataFormatConfig.rateLimit))
-                .createMetrics(true)
-                .totalSizeInBytes(Files.size(file.toPath()))
-                .build();
-            parser = parserFactory.getParser(file.getName(), getFileMetadata(file), localFileRef);
-            break;
-          default:
-            parser = parserFactory.getParser(file.getName(), new FileInputStream(file), offset);
-        }
-      }
-
-      for (int i = 0; i < maxBatchSize; i++) {
-        try {
-          Record record;
-
-          try {
-            record = parser.parse();
-          } catch(RecoverableDataParserException ex) {
-            // Propagate partially parsed record to error stream
-            record = ex.getUnparsedRecord();
-            setHeaders(record, file, offset);
-            errorRecordHandler.onError(new OnRecordErrorException(record, ex.getErrorCode(), ex.getParams()));
-
-            // We'll simply continue reading once this
-            continue;
-          }
-
-          if (record != null) {
-            setHeaders(record, file, offset);
-            batchMaker.addRecord(record);
-            offset = parser.getOffset();
-          } else {
-            parser.close();
-            parser = null;
-            offset = MINUS_ONE;
-            break;
-          }
-        } catch (ObjectLengthException ex) {
-          String exOffset = offset;
-          offset = MINUS_ONE;
-          errorRecordHandler.onError(Errors.SPOOLDIR_02, sourceFile, exOffset, ex);
-        }
-      }
-    } catch (IOException|DataParserException ex) {
-      if (ex instanceof ClosedByInterruptException || ex.getCause() instanceof ClosedByInterruptException) {
-        //If the pipeline was stopped, we may get a ClosedByInterruptException while reading avro data.
-        //This is because the thread is interrupted when the pipeline is stopped.
-        //Instead of sending the file to error, publish batch and move one.
-      } else {
-        offset = MINUS_ONE;
-        String exOffset;
-        if (ex instanceof OverrunException) {
-          exOffset = String.valueOf(((OverrunException) ex).getStreamOffset());
-        } else {
-          try {
-            exOffset = (parser != null) ? parser.getOffset() : MINUS_ONE;
-          } catch (IOException ex1) {
-            LOG.warn("Could not get the file offset to report with error, reason: {}", ex1.toString(), ex);
-            exOffset = MINUS_ONE;
-          }
-        }
-        switch (getContext().getOnErrorRecord()) {
-          case DISCARD:
-            break;
-          case TO_ERROR:
-            // we failed to produce a record, which leaves the input file in an unknown state. all we can do here is
-            // throw an exception.
-            throw new BadSpoolFileException(file.getAbsolutePath(), exOffset, ex);
-          case STOP_PIPELINE:
-            getContext().reportError(Errors.SPOOLDIR_04, sourceFile, exOffset, ex.toString(), ex);
-            throw new StageException(Errors.SPOOLDIR_04, sourceFile, exOffset, ex.toString());
-          default:
-            throw new IllegalStateException(Utils.format("Unknown OnError value '{}'",
-                getContext().getOnErrorRecord(), ex));
-        }
-      }
-    } finally {
-      if (MINUS_ONE.equals(offset)) {
-        if (parser != null) {
-          try {
-            parser.close();
-            parser = null;
-          } catch (IOException ex) {
-            //NOP
-          }
-        }
-      }
-    }
-    return offset;
-  }
-
-  private void setHeaders(Record record, File file, String offset) {
-    record.getHeader().setAttribute(HeaderAttributeConstants.FILE, file.getPath());
-    record.getHeader().setAttribute(HeaderAttributeConstants.FILE_NAME, file.getName());
-    record.getHeader().setAttribute(HeaderAttributeConstants.OFFSET, offset == null ? "0" : offset);
-    record.getHeader().setAttribute(BASE_DIR, conf.spoolDir);
+    return reader.produce(file, offset, maxBatchSize, batchMaker, errorRecordHandler);
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashCode;
+import com.google.common.primitives.Longs;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Probabilistic index, a record may be reported as a duplicate when it is not (at the configured false positive
+ * rate) but never the other way around.
+ * <p/>
+ * The window is kept in a ring of Bloom filters (buckets), hashes are added to the current bucket and looked up in
+ * all of them. When the current bucket is full, or it has been current for a slice of the time window, the oldest
+ * bucket is cleared and becomes the current one. The buckets are sized so that the ones besides the current bucket
+ * hold the whole window, hashes are remembered for at least the configured number of records and time.
+ * <p/>
+ * The bit positions are derived from the two halves of the 128 bit record hash (Kirsch-Mitzenmacher double hashing),
+ * records are not hashed again.
+ */
+class BloomFilterHashIndex implements HashIndex {
+  static final String FILL_RATIO = "Fill Ratio";
+  static final String FALSE_POSITIVE_PROBABILITY = "Estimated False Positive Probability";
+
+  private static final int BUCKETS = 4;
+  private static final int GAUGE_UPDATE_INTERVAL = 1024;
+  private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+
+  private final long timeSliceMillis;
+  private final long bucketCapacity;
+  private final long bitsPerBucket;
+  private final int hashFunctions;
+  private final long[][] buckets;
+  private final long[] bucketSetBits;
+  private final long[] bucketSizes;
+  private final long[] bucketStarts;
+  private final Map<String, Object> gaugeMap;
+  private int current;
+  private int addsSinceGaugeUpdate;
+
+  /**
+   * @param falsePositiveRate false positive probability of the index, between 0 and 1 exclusive.
+   * @param gaugeMap where the fill ratio and estimated false positive probability are reported, may be null.
+   */
+  BloomFilterHashIndex(int recordCountWindow, int timeWindowSecs, double falsePositiveRate,
+      Map<String, Object> gaugeMap) {
+    this(recordCountWindow, timeWindowSecs, falsePositiveRate, gaugeMap, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  BloomFilterHashIndex(int recordCountWindow, int timeWindowSecs, double falsePositiveRate,
+      Map<String, Object> gaugeMap, long now) {
+    Utils.checkArgument(recordCountWindow > 0, "recordCountWindow must be greater than zero");
+    Utils.checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0, 1)");
+    bucketCapacity = getBucketCapacity(recordCountWindow);
+    bitsPerBucket = getBitsPerBucket(recordCountWindow, falsePositiveRate);
+    hashFunctions = Math.max(1, (int) Math.round((double) bitsPerBucket / bucketCapacity * Math.log(2)));
+    timeSliceMillis = timeWindowSecs * 1000L / (BUCKETS - 1);
+    buckets = new long[BUCKETS][(int) (bitsPerBucket / 64)];
+    bucketSetBits = new long[BUCKETS];
+    bucketSizes = new long[BUCKETS];
+    bucketStarts = new long[BUCKETS];
+    bucketStarts[current] = now;
+    this.gaugeMap = gaugeMap;
+    updateGauges();
+  }
+
+  private static long getBucketCapacity(int recordCountWindow) {
+    return ((long) recordCountWindow + BUCKETS - 2) / (BUCKETS - 1);
+  }
+
+  // a lookup goes through all the buckets, each one gets a share of the false positive rate
+  private static long getBitsPerBucket(int recordCountWindow, double falsePositiveRate) {
+    long bits = (long) Math.ceil(-getBucketCapacity(recordCountWindow) * Math.log(falsePositiveRate / BUCKETS) /
+        LN2_SQUARED);
+    // whole longs
+    return Math.max(64, (bits + 63) / 64 * 64);
+  }
+
+  /**
+   * Heap used by an index with the given window and false positive rate, in bytes.
+   */
+  static long getEstimatedMemory(int recordCountWindow, double falsePositiveRate) {
+    return BUCKETS * getBitsPerBucket(recordCountWindow, falsePositiveRate) / 8;
+  }
+
+  @Override
+  public boolean add(HashCode hash) {
+    return add(hash, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  synchronized boolean add(HashCode hash, long now) {
+    byte[] bytes = hash.asBytes();
+    Utils.checkArgument(bytes.length == 16, "Expected a 128 bit hash");
+    long h1 = Longs.fromBytes(bytes[0], bytes[1], bytes[2], bytes[3], bytes[4], bytes[5], bytes[6], bytes[7]);
+    long h2 = Longs.fromBytes(bytes[8], bytes[9], bytes[10], bytes[11], bytes[12], bytes[13], bytes[14], bytes[15]);
+
+    if (timeSliceMillis > 0) {
+      long slices = (now - bucketStarts[current]) / timeSliceMillis;
+      if (slices >= BUCKETS) {
+        for (int b = 0; b < BUCKETS; b++) {
+          rotate(now);
+        }
+      } else {
+        for (int s = 0; s < slices; s++) {
+          rotate(bucketStarts[current] + timeSliceMillis);
+        }
+      }
+    }
+    for (int b = 0; b < BUCKETS; b++) {
+      if (bucketSetBits[b] > 0 && contains(buckets[b], h1, h2)) {
+        return false;
+      }
+    }
+    if (bucketSizes[current] == bucketCapacity) {
+      rotate(now);
+    }
+    long[] bucket = buckets[current];
+    long combined = h1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = (combined & Long.MAX_VALUE) % bitsPerBucket;
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      if ((bucket[word] & mask) == 0) {
+        bucket[word] |= mask;
+        bucketSetBits[current]++;
+      }
+      combined += h2;
+    }
+    bucketSizes[current]++;
+    if (++addsSinceGaugeUpdate == GAUGE_UPDATE_INTERVAL) {
+      updateGauges();
+    }
+    return true;
+  }
+
+  private boolean contains(long[] bucket, long h1, long h2) {
+    long combined = h1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = (combined & Long.MAX_VALUE) % bitsPerBucket;
+      if ((bucket[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+      combined += h2;
+    }
+    return true;
+  }
+
+  private void rotate(long start) {
+    current = (current + 1) % BUCKETS;
+    Arrays.fill(buckets[current], 0);
+    bucketSetBits[current] = 0;
+    bucketSizes[current] = 0;
+    bucketStarts[current] = start;
+    updateGauges();
+  }
+
+  @VisibleForTesting
+  synchronized double getFillRatio() {
+    long setBits = 0;
+    for (long bucketBits : bucketSetBits) {
+      setBits += bucketBits;
+    }
+    return (double) setBits / (BUCKETS * bitsPerBucket);
+  }
+
+  // probability of a hash not in the index to be found in any of the buckets
+  @VisibleForTesting
+  synchronized double getFalsePositiveProbability() {
+    double notFound = 1;
+    for (long bucketBits : bucketSetBits) {
+      notFound *= 1 - Math.pow((double) bucketBits / bitsPerBucket, hashFunctions);
+    }
+    return 1 - notFound;
+  }
+
+  private void updateGauges() {
+    addsSinceGaugeUpdate = 0;
+    if (gaugeMap != null) {
+      gaugeMap.put(FILL_RATIO, getFillRatio());
+      gaugeMap.put(FALSE_POSITIVE_PROBABILITY, getFalsePositiveProbability());
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    updateGauges();
+  }
+
+}
@@ -33,12 +33,13 @@ import com.streamsets.pipeline.configurablestage.DProcessor;
 import java.util.List;
 
 @StageDef(
-    version = 1,
+    version = 3,
     label = "Record Deduplicator",
     description = "Separates unique and duplicate records based on field comparison",
     icon="dedup.png",
     outputStreams = OutputStreams.class,
     execution = ExecutionMode.STANDALONE,
+    upgrader = DeDupProcessorUpgrader.class,
     onlineHelpRefUrl = "index.html#Processors/RDeduplicator.html#task_ikr_c2f_zq"
 )
 @ConfigGroups(Groups.class)
@@ -94,9 +95,52 @@ public class DeDupDProcessor extends DProcessor {
   @FieldSelectorModel
   public List<String> fieldsToCompare;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "HEAP",
+      label = "Hash Index",
+      description = "Where the hashes of the compared records are kept. Off-heap indexes allow large windows " +
+          "without increasing the heap, a memory-mapped file index also keeps the window across pipeline restarts. " +
+          "A probabilistic index uses much less memory but may send some unique records to the duplicate stream.",
+      displayPosition = 50,
+      group = "DE_DUP"
+  )
+  @ValueChooserModel(IndexTypeChooserValues.class)
+  public IndexType indexType = IndexType.HEAP;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Index File",
+      description = "Absolute path of the file backing the index. The window is reset if the file was created " +
+          "for a different Max Records to Compare.",
+      displayPosition = 60,
+      group = "DE_DUP",
+      dependsOn = "indexType",
+      triggeredByValue = "MEMORY_MAPPED_FILE"
+  )
+  public String indexFile;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "0.1",
+      label = "False Positive Rate (%)",
+      description = "Percentage of unique records that may be reported as duplicates. Lower rates use more memory.",
+      displayPosition = 70,
+      group = "DE_DUP",
+      dependsOn = "indexType",
+      triggeredByValue = "BLOOM_FILTER",
+      min = 0,
+      max = 100
+  )
+  public double falsePositiveRate = 0.1;
+
   @Override
   protected Processor createProcessor() {
-    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare);
+    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, indexType, indexFile,
+        falsePositiveRate);
   }
 
 }
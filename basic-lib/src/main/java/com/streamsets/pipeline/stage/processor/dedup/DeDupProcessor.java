@@ -23,46 +23,60 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.base.RecordProcessor;
 import com.streamsets.pipeline.lib.hashing.HashingUtil;
-import com.streamsets.pipeline.lib.queue.XEvictingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public class DeDupProcessor extends RecordProcessor {
   private static final long MEMORY_USAGE_PER_HASH = 85;
   private static final String CACHE_KEY = "cache";
+  private static final String INDEX_KEY = "index";
+  private static final String GAUGE_NAME = "Deduplication Index";
   private static final Logger LOG = LoggerFactory.getLogger(DeDupProcessor.class);
 
   private final  int recordCountWindow;
   private final  int timeWindowSecs;
   private final  SelectFields compareFields;
   private final  List<String> fieldsToCompare;
+  private final  IndexType indexType;
+  private final  String indexFile;
+  private final  double falsePositiveRate;
 
   public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
       SelectFields compareFields, List<String> fieldsToCompare) {
+    this(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, IndexType.HEAP, null, 0);
+  }
+
+  public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
+      SelectFields compareFields, List<String> fieldsToCompare, IndexType indexType, String indexFile,
+      double falsePositiveRate) {
     this.recordCountWindow = recordCountWindow;
     this.timeWindowSecs = timeWindowSecs;
     this.compareFields = compareFields;
     this.fieldsToCompare = fieldsToCompare;
+    this.indexType = indexType;
+    this.indexFile = indexFile;
+    this.falsePositiveRate = falsePositiveRate;
   }
 
   private static final Object VOID = new Object();
 
   private HashFunction hasher;
   private HashingUtil.RecordFunnel funnel;
-  private Cache<HashCode, HashCode> hashCache;
-  private XEvictingQueue<HashCode> hashBuffer;
+  private HashIndex hashIndex;
   private String uniqueLane;
   private String duplicateLane;
 
@@ -84,12 +98,25 @@ public class DeDupProcessor extends RecordProcessor {
       issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "compareFields", Errors.DEDUP_02));
     }
 
-    long estimatedMemory = MEMORY_USAGE_PER_HASH * recordCountWindow;
-    long maxPipelineMemoryBytes = getContext().getPipelineMaxMemory() * 1000 * 1000;
-    if (estimatedMemory > maxPipelineMemoryBytes) {
-      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "recordCountWindow", Errors.DEDUP_03,
-        recordCountWindow, estimatedMemory / (1000 * 1000), getContext().getPipelineMaxMemory()));
-        //MiB to bytes conversion, use  1000 * 1000 instead of 1024 * 1024
+    boolean validFalsePositiveRate = falsePositiveRate > 0 && falsePositiveRate < 100;
+    if (indexType == IndexType.BLOOM_FILTER && !validFalsePositiveRate) {
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "falsePositiveRate", Errors.DEDUP_07,
+                                                falsePositiveRate));
+    }
+
+    // off-heap indexes don't count against the pipeline heap
+    if (indexType == IndexType.HEAP || (indexType == IndexType.BLOOM_FILTER && validFalsePositiveRate)) {
+      long estimatedMemory = (indexType == IndexType.HEAP) ? MEMORY_USAGE_PER_HASH * recordCountWindow :
+          BloomFilterHashIndex.getEstimatedMemory(recordCountWindow, falsePositiveRate / 100);
+      long maxPipelineMemoryBytes = getContext().getPipelineMaxMemory() * 1000 * 1000;
+      if (estimatedMemory > maxPipelineMemoryBytes) {
+        issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "recordCountWindow", Errors.DEDUP_03,
+          recordCountWindow, estimatedMemory / (1000 * 1000), getContext().getPipelineMaxMemory()));
+          //MiB to bytes conversion, use  1000 * 1000 instead of 1024 * 1024
+      }
+    }
+    if (indexType == IndexType.MEMORY_MAPPED_FILE && (indexFile == null || indexFile.trim().isEmpty())) {
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "indexFile", Errors.DEDUP_05));
     }
     if (issues.isEmpty()) {
       hasher = HashingUtil.getHasher(HashingUtil.HashType.MURMUR3_128);
@@ -98,20 +125,52 @@ public class DeDupProcessor extends RecordProcessor {
 
       Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
       synchronized (runnerSharedMap) {
-        if(!runnerSharedMap.containsKey(CACHE_KEY)) {
-          CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
-          if (timeWindowSecs > 0) {
-            cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
-          }
-          hashCache = cacheBuilder.build();
-
-          runnerSharedMap.put(CACHE_KEY, hashCache);
-        } else {
-          hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
+        switch (indexType) {
+          case HEAP:
+            Cache<HashCode, HashCode> hashCache;
+            if(!runnerSharedMap.containsKey(CACHE_KEY)) {
+              CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
+              if (timeWindowSecs > 0) {
+                cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
+              }
+              hashCache = cacheBuilder.build();
+
+              runnerSharedMap.put(CACHE_KEY, hashCache);
+            } else {
+              hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
+            }
+            hashIndex = new HeapHashIndex(hashCache, recordCountWindow);
+            break;
+          case OFF_HEAP:
+          case MEMORY_MAPPED_FILE:
+            hashIndex = (HashIndex) runnerSharedMap.get(INDEX_KEY);
+            if (hashIndex == null) {
+              try {
+                // preview and validation must not touch the index file of the running pipeline
+                hashIndex = (indexType == IndexType.OFF_HEAP || getContext().isPreview())
+                    ? OffHeapHashIndex.allocate(recordCountWindow, timeWindowSecs)
+                    : OffHeapHashIndex.map(new File(indexFile.trim()), recordCountWindow, timeWindowSecs);
+                runnerSharedMap.put(INDEX_KEY, hashIndex);
+              } catch (IOException|OutOfMemoryError e) {
+                LOG.error("Can't create the deduplication index", e);
+                issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "indexType", Errors.DEDUP_06,
+                    e.toString()));
+              }
+            }
+            break;
+          case BLOOM_FILTER:
+            hashIndex = (HashIndex) runnerSharedMap.get(INDEX_KEY);
+            if (hashIndex == null) {
+              hashIndex = new BloomFilterHashIndex(recordCountWindow, timeWindowSecs, falsePositiveRate / 100,
+                  getContext().createGauge(GAUGE_NAME).getValue());
+              runnerSharedMap.put(INDEX_KEY, hashIndex);
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unknown index type: " + indexType);
         }
       }
 
-      hashBuffer = XEvictingQueue.create(recordCountWindow);
       hashAttrName = getInfo() + ".hash";
       uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
       duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
@@ -119,24 +178,10 @@ public class DeDupProcessor extends RecordProcessor {
     return issues;
   }
 
-  boolean duplicateCheck(Record record) throws ExecutionException {
+  boolean duplicateCheck(Record record) {
     HashCode hash = hasher.hashObject(record, funnel);
     record.getHeader().setAttribute(hashAttrName, hash.toString());
-
-    HashCode hashInstance = hashCache.get(hash, () -> hash);
-    // We are riding on the fact that if the instance is the same we just added and it is not a dup
-    boolean dup = hashInstance != hash;
-
-    // Eviction is done in async manner - e.g. around the eviction time, we can possibly not issue a record because
-    // we still think that it's a duplicate when in facts it's not.
-    if (!dup) {
-      HashCode evicted = hashBuffer.addAndGetEvicted(hash);
-      if (evicted != null) {
-        hashCache.invalidate(evicted);
-      }
-    }
-
-    return dup;
+    return !hashIndex.add(hash);
   }
 
   @Override
@@ -147,10 +192,23 @@ public class DeDupProcessor extends RecordProcessor {
       } else {
         batchMaker.addRecord(record, uniqueLane);
       }
-    } catch (IllegalArgumentException|ExecutionException e) {
+    } catch (IllegalArgumentException|IllegalStateException|UncheckedExecutionException e) {
       LOG.error("Error processing Record", e);
       throw new OnRecordErrorException(Errors.DEDUP_04, e.toString());
     }
   }
 
+  @Override
+  public void destroy() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      // the first runner going away closes the index shared by all of them
+      HashIndex sharedIndex = (HashIndex) runnerSharedMap.remove(INDEX_KEY);
+      if (sharedIndex != null) {
+        sharedIndex.close();
+      }
+    }
+    super.destroy();
+  }
+
 }
@@ -35,6 +35,9 @@ public enum Errors implements ErrorCode {
   DEDUP_03("The estimated required memory for '{}' records is '{}'. The current maximum heap is '{}'. The " +
            "required memory must not exceed the maximum heap."),
   DEDUP_04("Error processing record. Reason: {}"),
+  DEDUP_05("Specify the index file"),
+  DEDUP_06("Can't create the deduplication index: {}"),
+  DEDUP_07("False positive rate must be greater than 0 and less than 100, it is '{}'"),
   ;
 
 
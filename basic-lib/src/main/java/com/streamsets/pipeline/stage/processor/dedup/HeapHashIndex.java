@@ -0,0 +1,69 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.cache.Cache;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.streamsets.pipeline.lib.queue.XEvictingQueue;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps the hashes in a Guava cache (which takes care of the time window) shared by all the runners of the stage, the
+ * record count window is kept by the runner in an evicting queue.
+ */
+class HeapHashIndex implements HashIndex {
+  private final Cache<HashCode, HashCode> hashCache;
+  private final XEvictingQueue<HashCode> hashBuffer;
+
+  HeapHashIndex(Cache<HashCode, HashCode> hashCache, int recordCountWindow) {
+    this.hashCache = hashCache;
+    this.hashBuffer = XEvictingQueue.create(recordCountWindow);
+  }
+
+  @Override
+  public boolean add(HashCode hash) {
+    HashCode hashInstance;
+    try {
+      hashInstance = hashCache.get(hash, () -> hash);
+    } catch (ExecutionException e) {
+      throw new UncheckedExecutionException(e.getCause());
+    }
+    // We are riding on the fact that if the instance is the same we just added and it is not a dup
+    boolean dup = hashInstance != hash;
+
+    // Eviction is done in async manner - e.g. around the eviction time, we can possibly not issue a record because
+    // we still think that it's a duplicate when in facts it's not.
+    if (!dup) {
+      HashCode evicted = hashBuffer.addAndGetEvicted(hash);
+      if (evicted != null) {
+        hashCache.invalidate(evicted);
+      }
+    }
+    return !dup;
+  }
+
+  @Override
+  public void close() {
+    // the cache is released with the stage runner shared map
+  }
+
+}
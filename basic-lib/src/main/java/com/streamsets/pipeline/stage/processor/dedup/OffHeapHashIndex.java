@@ -0,0 +1,340 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashCode;
+import com.google.common.primitives.Longs;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the 128 bit hashes outside of the Java heap, either in direct memory or in a memory-mapped file which makes
+ * the window survive pipeline restarts.
+ * <p/>
+ * The hashes are kept in an open addressing (linear probing) table sized to twice the record count window and in a
+ * ring buffer, in insertion order, with the time they were added. Whenever the ring is full or its oldest entry is
+ * older than the time window, the oldest hash is removed from the table (backward shift deletion, the table has no
+ * tombstones). Each hash takes 56 bytes of native memory and none of heap.
+ * <p/>
+ * Layout, all longs: a header (magic, version, table slots, ring capacity, ring head, ring size) followed by the table
+ * (2 longs per slot, 0/0 is an empty slot) and by the ring (3 longs per entry: the hash and the time it was added).
+ */
+class OffHeapHashIndex implements HashIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapHashIndex.class);
+
+  private static final long MAGIC = 0x5344434445445550L;
+  private static final long VERSION = 1;
+  private static final int HEADER_BYTES = 64;
+  private static final int MAGIC_POS = 0;
+  private static final int VERSION_POS = 8;
+  private static final int SLOTS_POS = 16;
+  private static final int RING_CAPACITY_POS = 24;
+  private static final int RING_HEAD_POS = 32;
+  private static final int RING_SIZE_POS = 40;
+
+  // native buffers are addressed with ints, the memory is split in segments of 1GB
+  private static final int SEGMENT_SHIFT = 27;
+  private static final long SEGMENT_LONGS = 1L << SEGMENT_SHIFT;
+  private static final long SEGMENT_MASK = SEGMENT_LONGS - 1;
+
+  private final long timeWindowMillis;
+  private final long slots;
+  private final long slotMask;
+  private final long ringCapacity;
+  private final long ringBase;
+  private final FileChannel channel;
+  private final ByteBuffer header;
+  private final ByteBuffer[] segments;
+  private long ringHead;
+  private long ringSize;
+  private boolean closed;
+
+  /**
+   * Creates an index in direct memory.
+   */
+  static OffHeapHashIndex allocate(int recordCountWindow, int timeWindowSecs) {
+    try {
+      return new OffHeapHashIndex(null, recordCountWindow, timeWindowSecs);
+    } catch (IOException ex) {
+      // no I/O without a file
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Creates an index backed by the given file. If the file has an index of the same window size, the index continues
+   * from the hashes it contains, otherwise the file is reset.
+   */
+  static OffHeapHashIndex map(File file, int recordCountWindow, int timeWindowSecs) throws IOException {
+    FileChannel channel = FileChannel.open(
+        file.toPath(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+    );
+    try {
+      return new OffHeapHashIndex(channel, recordCountWindow, timeWindowSecs);
+    } catch (IOException|RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private OffHeapHashIndex(FileChannel channel, int recordCountWindow, int timeWindowSecs) throws IOException {
+    Utils.checkArgument(recordCountWindow > 0, "recordCountWindow must be greater than zero");
+    this.channel = channel;
+    timeWindowMillis = timeWindowSecs * 1000L;
+    ringCapacity = recordCountWindow;
+    // load factor of the table is kept at 0.5 at most
+    slots = Long.highestOneBit(2L * ringCapacity - 1) << 1;
+    slotMask = slots - 1;
+    ringBase = 2 * slots;
+    long totalLongs = ringBase + 3 * ringCapacity;
+    segments = new ByteBuffer[(int) ((totalLongs + SEGMENT_LONGS - 1) >>> SEGMENT_SHIFT)];
+
+    if (channel == null) {
+      header = ByteBuffer.allocateDirect(HEADER_BYTES);
+      for (int i = 0; i < segments.length; i++) {
+        segments[i] = ByteBuffer.allocateDirect(segmentBytes(i, totalLongs));
+      }
+    } else {
+      long fileSize = HEADER_BYTES + totalLongs * 8;
+      boolean reuse = false;
+      if (channel.size() == fileSize) {
+        ByteBuffer existing = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        reuse = existing.getLong(MAGIC_POS) == MAGIC && existing.getLong(VERSION_POS) == VERSION &&
+            existing.getLong(SLOTS_POS) == slots && existing.getLong(RING_CAPACITY_POS) == ringCapacity;
+      }
+      if (!reuse) {
+        if (channel.size() > 0) {
+          LOG.info("Index file does not match the configured window, resetting it");
+        }
+        // truncating and mapping again gives a zeroed file
+        channel.truncate(0);
+      }
+      header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      for (int i = 0; i < segments.length; i++) {
+        segments[i] = channel.map(
+            FileChannel.MapMode.READ_WRITE,
+            HEADER_BYTES + i * SEGMENT_LONGS * 8,
+            segmentBytes(i, totalLongs)
+        );
+      }
+      if (reuse) {
+        ringHead = header.getLong(RING_HEAD_POS);
+        ringSize = header.getLong(RING_SIZE_POS);
+      }
+    }
+    header.putLong(MAGIC_POS, MAGIC);
+    header.putLong(VERSION_POS, VERSION);
+    header.putLong(SLOTS_POS, slots);
+    header.putLong(RING_CAPACITY_POS, ringCapacity);
+    writeRingPosition();
+  }
+
+  private static int segmentBytes(int segment, long totalLongs) {
+    return (int) (Math.min(SEGMENT_LONGS, totalLongs - segment * SEGMENT_LONGS) * 8);
+  }
+
+  private long get(long index) {
+    return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & SEGMENT_MASK) << 3);
+  }
+
+  private void put(long index, long value) {
+    segments[(int) (index >>> SEGMENT_SHIFT)].putLong((int) (index & SEGMENT_MASK) << 3, value);
+  }
+
+  private void writeRingPosition() {
+    header.putLong(RING_HEAD_POS, ringHead);
+    header.putLong(RING_SIZE_POS, ringSize);
+  }
+
+  private long home(long h1) {
+    return (h1 ^ (h1 >>> 32)) & slotMask;
+  }
+
+  @Override
+  public boolean add(HashCode hash) {
+    return add(hash, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  synchronized boolean add(HashCode hash, long now) {
+    Utils.checkState(!closed, "Index is closed");
+    byte[] bytes = hash.asBytes();
+    Utils.checkArgument(bytes.length == 16, "Expected a 128 bit hash");
+    long h1 = Longs.fromBytes(bytes[0], bytes[1], bytes[2], bytes[3], bytes[4], bytes[5], bytes[6], bytes[7]);
+    long h2 = Longs.fromBytes(bytes[8], bytes[9], bytes[10], bytes[11], bytes[12], bytes[13], bytes[14], bytes[15]);
+    if (h1 == 0 && h2 == 0) {
+      // 0/0 marks the empty slots
+      h2 = 1;
+    }
+
+    expire(now);
+
+    long slot = find(h1, h2);
+    if (!isEmpty(slot)) {
+      return false;
+    }
+    if (ringSize == ringCapacity) {
+      // evicting shifts entries around, the free slot for the hash has to be looked up again
+      evictOldest();
+      slot = find(h1, h2);
+    }
+    put(2 * slot, h1);
+    put(2 * slot + 1, h2);
+
+    long entry = ringBase + 3 * ((ringHead + ringSize) % ringCapacity);
+    put(entry, h1);
+    put(entry + 1, h2);
+    put(entry + 2, now);
+    ringSize++;
+    writeRingPosition();
+    return true;
+  }
+
+  private void expire(long now) {
+    if (timeWindowMillis > 0) {
+      while (ringSize > 0 && now - get(ringBase + 3 * ringHead + 2) >= timeWindowMillis) {
+        evictOldest();
+      }
+      writeRingPosition();
+    }
+  }
+
+  private void evictOldest() {
+    long entry = ringBase + 3 * ringHead;
+    remove(get(entry), get(entry + 1));
+    ringHead = (ringHead + 1) % ringCapacity;
+    ringSize--;
+  }
+
+  // returns the slot holding the hash or the empty slot where it would go, there is always an empty slot as the
+  // table has at least twice as many slots as hashes
+  private long find(long h1, long h2) {
+    long slot = home(h1);
+    while (true) {
+      long s1 = get(2 * slot);
+      long s2 = get(2 * slot + 1);
+      if ((s1 == 0 && s2 == 0) || (s1 == h1 && s2 == h2)) {
+        return slot;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+  }
+
+  private boolean isEmpty(long slot) {
+    return get(2 * slot) == 0 && get(2 * slot + 1) == 0;
+  }
+
+  private void remove(long h1, long h2) {
+    long slot = find(h1, h2);
+    if (isEmpty(slot)) {
+      // not in the table, can't happen unless the file was tampered with
+      return;
+    }
+    // shift back the entries of the probe sequence that would not be found anymore with the slot empty
+    long hole = slot;
+    long next = slot;
+    while (true) {
+      next = (next + 1) & slotMask;
+      long s1 = get(2 * next);
+      long s2 = get(2 * next + 1);
+      if (s1 == 0 && s2 == 0) {
+        break;
+      }
+      long nextHome = home(s1);
+      boolean stays = (hole <= next) ? (hole < nextHome && nextHome <= next) : (hole < nextHome || nextHome <= next);
+      if (!stays) {
+        put(2 * hole, s1);
+        put(2 * hole + 1, s2);
+        hole = next;
+      }
+    }
+    put(2 * hole, 0);
+    put(2 * hole + 1, 0);
+  }
+
+  @VisibleForTesting
+  synchronized long size() {
+    return ringSize;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      if (channel != null) {
+        ((MappedByteBuffer) header).force();
+        for (ByteBuffer segment : segments) {
+          ((MappedByteBuffer) segment).force();
+        }
+        try {
+          channel.close();
+        } catch (IOException ex) {
+          LOG.warn("Could not close index file: {}", ex.toString(), ex);
+        }
+      }
+      // direct and mapped memory is otherwise only released when the buffers are garbage collected
+      free(header);
+      for (int i = 0; i < segments.length; i++) {
+        free(segments[i]);
+        segments[i] = null;
+      }
+    }
+  }
+
+  private static void free(ByteBuffer buffer) {
+    try {
+      try {
+        // Java 9 and later
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+      } catch (NoSuchMethodException ex) {
+        // Java 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          Method cleanMethod = cleaner.getClass().getMethod("clean");
+          cleanMethod.setAccessible(true);
+          cleanMethod.invoke(cleaner);
+        }
+      }
+    } catch (ReflectiveOperationException|RuntimeException ex) {
+      LOG.debug("Could not free index buffer, it will be released by the garbage collector: {}", ex.toString());
+    }
+  }
+
+
+}
@@ -22,6 +22,7 @@ package com.streamsets.pipeline.lib.dirspooler;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
@@ -163,6 +164,61 @@ public class TestDirectorySpooler {
     spooler.destroy();
   }
 
+  @Test
+  public void testWatchDirectory() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(5)
+        .watchDirectory(true);
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("x2.log");
+    try {
+      Assert.assertNotNull(spooler.watcher);
+      Assert.assertNull(spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+      // picked up from the notification, without a directory scan
+      File logFile = new File(spoolDir, "x3.log").getAbsoluteFile();
+      new FileWriter(logFile).close();
+      Assert.assertEquals(logFile, spooler.poolForFile(10, TimeUnit.SECONDS));
+
+      // older than the current file and not matching files are ignored
+      new FileWriter(new File(spoolDir, "x1.log")).close();
+      new FileWriter(new File(spoolDir, "y4.log")).close();
+      logFile = new File(spoolDir, "x4.log").getAbsoluteFile();
+      new FileWriter(logFile).close();
+      Assert.assertEquals(logFile, spooler.poolForFile(10, TimeUnit.SECONDS));
+      Assert.assertNull(spooler.poolForFile(1, TimeUnit.SECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
+  @Test
+  public void testWatchDirectoryWaitsForFileToSettle() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(5)
+        .watchDirectory(true);
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("x2.log");
+    try {
+      // not queued while it is being written
+      File logFile = new File(spoolDir, "x3.log").getAbsoluteFile();
+      try (FileWriter writer = new FileWriter(logFile)) {
+        for (int i = 0; i < 10; i++) {
+          writer.write("line " + i + "\n");
+          writer.flush();
+          Assert.assertNull(spooler.poolForFile(300, TimeUnit.MILLISECONDS));
+        }
+      }
+      Assert.assertEquals(logFile, spooler.poolForFile(10, TimeUnit.SECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
   @Test
   public void testMatchingFileSpoolDir() throws Exception {
     assertTrue(spoolDir.mkdirs());
@@ -221,6 +277,75 @@ public class TestDirectorySpooler {
     spooler.destroy();
   }
 
+  @Test
+  public void testFileNotAfterCurrentFileIsNotQueued() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    File logFile3 = new File(spoolDir, "x3.log").getAbsoluteFile();
+    new FileWriter(logFile3).close();
+
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(3);
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("x2.log");
+    try {
+      Assert.assertEquals(logFile3, spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+      // a file before the current one, for example found by a scan that started before the current file changed
+      File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+      new FileWriter(logFile1).close();
+      spooler.addFileToQueue(logFile1.toPath(), logFile1.lastModified(), true);
+      Assert.assertNull(spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+      File logFile4 = new File(spoolDir, "x4.log").getAbsoluteFile();
+      new FileWriter(logFile4).close();
+      spooler.addFileToQueue(logFile4.toPath(), logFile4.lastModified(), true);
+      Assert.assertEquals(logFile4, spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
+  @Test
+  public void testSeenFilesIndex() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+    new FileWriter(logFile1).close();
+    File logFile3 = new File(spoolDir, "x3.log").getAbsoluteFile();
+    new FileWriter(logFile3).close();
+    File logFile4 = new File(spoolDir, "x4.log").getAbsoluteFile();
+    new FileWriter(logFile4).close();
+
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(3);
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("x2.log");
+    try {
+      // x1 is before the current file, x3 and x4 are queued
+      Assert.assertEquals(
+          ImmutableSet.of(logFile1.toPath(), logFile3.toPath(), logFile4.toPath()),
+          spooler.getSeenFiles()
+      );
+      Assert.assertEquals(logFile3, spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+      // files gone from the directory are dropped from the index, known files are not queued again
+      assertTrue(logFile1.delete());
+      spooler.finder.run();
+      Assert.assertEquals(ImmutableSet.of(logFile3.toPath(), logFile4.toPath()), spooler.getSeenFiles());
+      Assert.assertEquals(logFile4, spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+      Assert.assertNull(spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+      File logFile5 = new File(spoolDir, "x5.log").getAbsoluteFile();
+      new FileWriter(logFile5).close();
+      spooler.finder.run();
+      Assert.assertTrue(spooler.getSeenFiles().contains(logFile5.toPath()));
+      Assert.assertEquals(logFile5, spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
   @Test
   public void testOlderMultipleNewerMatchingFileSpoolDir() throws Exception {
     assertTrue(spoolDir.mkdirs());
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.logtail;
+
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.FileRollMode;
+import com.streamsets.pipeline.config.PostProcessingOptions;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.StageRunner;
+import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class TestFileTailPushSource {
+  private final static int SCAN_INTERVAL = 0; //using zero forces synchronous file discovery
+  private static final int LINES_PER_FILE = 10;
+
+  private FileTailPushConfigBean createConf(File testDataDir, int threads, int files) {
+    List<FileInfo> fileInfos = new ArrayList<>();
+    for (int i = 0; i < files; i++) {
+      FileInfo fileInfo = new FileInfo();
+      fileInfo.fileFullPath = testDataDir.getAbsolutePath() + "/file-" + i + ".log";
+      fileInfo.fileRollMode = FileRollMode.REVERSE_COUNTER;
+      fileInfo.firstFile = "";
+      fileInfo.patternForToken = "";
+      fileInfos.add(fileInfo);
+    }
+
+    FileTailPushConfigBean conf = new FileTailPushConfigBean();
+    conf.numberOfThreads = threads;
+    conf.dataFormat = DataFormat.TEXT;
+    conf.multiLineMainPattern = "";
+    conf.batchSize = 25;
+    conf.maxWaitTimeSecs = 1;
+    conf.fileInfos = fileInfos;
+    conf.postProcessing = PostProcessingOptions.NONE;
+    conf.dataFormatConfig.textMaxLineLen = 1024;
+    return conf;
+  }
+
+  private void appendLines(File testDataDir, int file, int lines) throws Exception {
+    try (OutputStream os = new FileOutputStream(new File(testDataDir, "file-" + file + ".log"), true)) {
+      for (int j = 0; j < lines; j++) {
+        os.write(String.format("line-%02d\n", j).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private List<Record> runUntil(
+      FileTailPushConfigBean conf,
+      Map<String, String> lastOffsets,
+      final int expectedRecords,
+      Map<String, String> offsets
+  ) throws Exception {
+    FileTailPushSource source = new FileTailPushSource(conf, SCAN_INTERVAL);
+    final PushSourceRunner runner = new PushSourceRunner.Builder(FileTailPushDSource.class, source)
+        .addOutputLane("lane").addOutputLane("metadata")
+        .build();
+    final List<Record> records = Collections.synchronizedList(new ArrayList<Record>());
+    runner.runInit();
+    try {
+      Assert.assertEquals(Math.min(conf.numberOfThreads, conf.fileInfos.size()), source.getNumberOfThreads());
+      runner.runProduce(lastOffsets, 25, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+          records.addAll(output.getRecords().get("lane"));
+          if (records.size() >= expectedRecords) {
+            runner.setStop();
+          }
+        }
+      });
+      runner.waitOnProduce();
+      Assert.assertTrue(runner.getErrors().isEmpty());
+      offsets.putAll(runner.getOffsets());
+    } finally {
+      runner.runDestroy();
+    }
+    return records;
+  }
+
+  private Map<String, Integer> countPerFile(List<Record> records) {
+    Map<String, Integer> recordsPerFile = new HashMap<>();
+    for (Record record : records) {
+      String fileName = record.getHeader().getAttribute(HeaderAttributeConstants.FILE_NAME);
+      Integer count = recordsPerFile.get(fileName);
+      recordsPerFile.put(fileName, (count == null) ? 1 : count + 1);
+    }
+    return recordsPerFile;
+  }
+
+  @Test
+  public void testTailFilesInParallel() throws Exception {
+    File testDataDir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(testDataDir.mkdirs());
+    for (int i = 0; i < 5; i++) {
+      appendLines(testDataDir, i, LINES_PER_FILE);
+    }
+    FileTailPushConfigBean conf = createConf(testDataDir, 3, 5);
+
+    Map<String, String> offsets = new HashMap<>();
+    List<Record> records = runUntil(conf, Collections.<String, String>emptyMap(), 5 * LINES_PER_FILE, offsets);
+
+    Assert.assertEquals(5 * LINES_PER_FILE, records.size());
+    Map<String, Integer> recordsPerFile = countPerFile(records);
+    Assert.assertEquals(5, recordsPerFile.size());
+    for (int count : recordsPerFile.values()) {
+      Assert.assertEquals(LINES_PER_FILE, count);
+    }
+
+    // one offset entity per file
+    Assert.assertEquals(5, offsets.size());
+    for (int i = 0; i < 5; i++) {
+      String fileFullPath = conf.fileInfos.get(i).fileFullPath;
+      boolean found = false;
+      for (String entity : offsets.keySet()) {
+        found |= entity.startsWith(fileFullPath);
+      }
+      Assert.assertTrue(fileFullPath, found);
+    }
+  }
+
+  @Test
+  public void testResumeFromOffsets() throws Exception {
+    File testDataDir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(testDataDir.mkdirs());
+    for (int i = 0; i < 3; i++) {
+      appendLines(testDataDir, i, LINES_PER_FILE);
+    }
+    FileTailPushConfigBean conf = createConf(testDataDir, 2, 3);
+
+    Map<String, String> offsets = new HashMap<>();
+    Assert.assertEquals(
+        3 * LINES_PER_FILE,
+        runUntil(conf, Collections.<String, String>emptyMap(), 3 * LINES_PER_FILE, offsets).size()
+    );
+
+    // only file-1 gets new data
+    appendLines(testDataDir, 1, 5);
+    Map<String, String> newOffsets = new HashMap<>();
+    List<Record> records = runUntil(conf, offsets, 5, newOffsets);
+
+    Assert.assertEquals(5, records.size());
+    Assert.assertEquals(Collections.singletonMap("file-1.log", 5), countPerFile(records));
+    Assert.assertEquals("line-00", records.get(0).get("/text").getValueAsString());
+  }
+
+}
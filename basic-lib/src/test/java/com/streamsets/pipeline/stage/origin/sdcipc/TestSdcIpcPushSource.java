@@ -0,0 +1,197 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.ext.ContextExtensions;
+import com.streamsets.pipeline.api.ext.RecordWriter;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import com.streamsets.pipeline.sdk.StageRunner;
+import com.streamsets.pipeline.stage.destination.sdcipc.Constants;
+import com.streamsets.testing.NetworkUtils;
+import org.iq80.snappy.SnappyFramedOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestSdcIpcPushSource {
+
+  private PushConfigs createConfigs() throws Exception {
+    PushConfigs configs = new PushConfigs();
+    configs.appId = "appId";
+    configs.port = NetworkUtils.getRandomPort();
+    configs.sslEnabled = false;
+    configs.maxRecordSize = 10;
+    configs.maxConcurrentRequests = 4;
+    return configs;
+  }
+
+  private HttpURLConnection getConnection(PushConfigs configs, String appId) throws Exception {
+    HttpURLConnection conn = (HttpURLConnection) new URL("http://localhost:" + configs.port + Constants.IPC_PATH)
+        .openConnection();
+    conn.setRequestProperty(Constants.X_SDC_APPLICATION_ID_HEADER, appId);
+    conn.setDefaultUseCaches(false);
+    return conn;
+  }
+
+  private int sendRecords(PushConfigs configs, String appId, Stage.Context context, boolean compressed,
+      List<Record> records) throws Exception {
+    HttpURLConnection conn = getConnection(configs, appId);
+    conn.setRequestMethod("POST");
+    conn.setRequestProperty(Constants.CONTENT_TYPE_HEADER, Constants.APPLICATION_BINARY);
+    if (compressed) {
+      conn.setRequestProperty(Constants.X_SDC_COMPRESSION_HEADER, Constants.SNAPPY_COMPRESSION);
+    }
+    conn.setDoOutput(true);
+    conn.setDoInput(true);
+    OutputStream os = conn.getOutputStream();
+    if (compressed) {
+      os = new SnappyFramedOutputStream(os);
+    }
+    RecordWriter writer = ((ContextExtensions) context).createRecordWriter(os);
+    for (Record record : records) {
+      writer.write(record);
+    }
+    writer.close();
+    return conn.getResponseCode();
+  }
+
+  private List<Record> createRecords(int id) {
+    Record r1 = RecordCreator.create();
+    r1.set(Field.create(id));
+    Record r2 = RecordCreator.create();
+    r2.set(Field.create(-id));
+    return ImmutableList.of(r1, r2);
+  }
+
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    final PushConfigs configs = createConfigs();
+    SdcIpcPushSource source = new SdcIpcPushSource(configs);
+    final PushSourceRunner runner =
+        new PushSourceRunner.Builder(SdcIpcPushSource.class, source).addOutputLane("a").build();
+    runner.runInit();
+    ExecutorService executor = Executors.newFixedThreadPool(configs.maxConcurrentRequests);
+    try {
+      final int requests = configs.maxConcurrentRequests;
+      final List<Record> records = Collections.synchronizedList(new ArrayList<Record>());
+      // every batch waits until all requests are in flight, so they can only complete if processed concurrently
+      final CountDownLatch inFlight = new CountDownLatch(requests);
+      runner.runProduce(Collections.<String, String>emptyMap(), 10, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+          inFlight.countDown();
+          try {
+            Assert.assertTrue(inFlight.await(10, TimeUnit.SECONDS));
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          records.addAll(output.getRecords().get("a"));
+          if (records.size() == 2 * requests) {
+            runner.setStop();
+          }
+        }
+      });
+
+      // ping
+      HttpURLConnection conn = getConnection(configs, configs.appId);
+      conn.setRequestMethod("GET");
+      Assert.assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+      Assert.assertEquals(Constants.X_SDC_PING_VALUE, conn.getHeaderField(Constants.X_SDC_PING_HEADER));
+
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < requests; i++) {
+        final int id = i + 1;
+        futures.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return sendRecords(configs, configs.appId, runner.getContext(), id % 2 == 0, createRecords(id));
+          }
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, (int) future.get(20, TimeUnit.SECONDS));
+      }
+      runner.waitOnProduce();
+
+      Assert.assertEquals(2 * requests, records.size());
+      int sum = 0;
+      for (Record record : records) {
+        sum += Math.abs(record.get().getValueAsInteger());
+      }
+      Assert.assertEquals(requests * (requests + 1), sum);
+      Assert.assertTrue(runner.getErrors().isEmpty());
+    } finally {
+      executor.shutdownNow();
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testInvalidRequests() throws Exception {
+    final PushConfigs configs = createConfigs();
+    SdcIpcPushSource source = new SdcIpcPushSource(configs);
+    final PushSourceRunner runner =
+        new PushSourceRunner.Builder(SdcIpcPushSource.class, source).addOutputLane("a").build();
+    runner.runInit();
+    try {
+      runner.runProduce(Collections.<String, String>emptyMap(), 10, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+          Assert.fail("No batch expected");
+        }
+      });
+
+      Assert.assertEquals(
+          HttpURLConnection.HTTP_FORBIDDEN,
+          sendRecords(configs, "invalid", runner.getContext(), false, createRecords(1))
+      );
+
+      HttpURLConnection conn = getConnection(configs, configs.appId);
+      conn.setRequestMethod("POST");
+      conn.setRequestProperty(Constants.CONTENT_TYPE_HEADER, "text/plain");
+      conn.setDoOutput(true);
+      conn.getOutputStream().write("Hello".getBytes());
+      Assert.assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, conn.getResponseCode());
+
+      runner.setStop();
+      runner.waitOnProduce();
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+}
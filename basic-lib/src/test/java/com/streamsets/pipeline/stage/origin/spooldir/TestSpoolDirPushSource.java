@@ -0,0 +1,207 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.spooldir;
+
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.config.Compression;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.OnParseError;
+import com.streamsets.pipeline.config.PostProcessingOptions;
+import com.streamsets.pipeline.lib.dirspooler.PathMatcherMode;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.StageRunner;
+import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class TestSpoolDirPushSource {
+  private static final int LINES_PER_FILE = 25;
+
+  private String createTestDir() {
+    File f = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(f.mkdirs());
+    return f.getAbsolutePath();
+  }
+
+  private SpoolDirPushConfigBean createConf(int threads, ProcessingOrder processingOrder) {
+    SpoolDirPushConfigBean conf = new SpoolDirPushConfigBean();
+    conf.numberOfThreads = threads;
+    conf.processingOrder = processingOrder;
+    conf.dataFormat = DataFormat.TEXT;
+    conf.spoolDir = createTestDir();
+    conf.batchSize = 10;
+    conf.overrunLimit = 100;
+    conf.poolingTimeoutSecs = 1;
+    conf.filePattern = "file-[0-9].log";
+    conf.pathMatcherMode = PathMatcherMode.GLOB;
+    conf.maxSpoolFiles = 10;
+    conf.initialFileToProcess = null;
+    conf.dataFormatConfig.compression = Compression.NONE;
+    conf.dataFormatConfig.filePatternInArchive = "*";
+    conf.errorArchiveDir = null;
+    conf.postProcessing = PostProcessingOptions.ARCHIVE;
+    conf.archiveDir = createTestDir();
+    conf.retentionTimeMins = 10;
+    conf.dataFormatConfig.textMaxLineLen = 10;
+    conf.dataFormatConfig.onParseError = OnParseError.ERROR;
+    conf.dataFormatConfig.maxStackTraceLines = 0;
+    return conf;
+  }
+
+  // every line is 8 characters long, so the offset after n lines is 8 * n
+  private void createFiles(String dir, int files) throws Exception {
+    for (int i = 0; i < files; i++) {
+      File file = new File(dir, "file-" + i + ".log");
+      try (OutputStream os = new FileOutputStream(file)) {
+        for (int j = 0; j < LINES_PER_FILE; j++) {
+          os.write(String.format("line-%02d\n", j).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      // the spooler only picks up files modified before it scans the directory
+      Assert.assertTrue(file.setLastModified(System.currentTimeMillis() - 10000 + i * 1000));
+    }
+  }
+
+  private List<Record> runUntil(
+      SpoolDirPushConfigBean conf,
+      Map<String, String> lastOffsets,
+      final int expectedRecords,
+      Map<String, String> offsets
+  ) throws Exception {
+    SpoolDirPushSource source = new SpoolDirPushSource(conf);
+    final PushSourceRunner runner =
+        new PushSourceRunner.Builder(SpoolDirPushSource.class, source).addOutputLane("lane").build();
+    final List<Record> records = Collections.synchronizedList(new ArrayList<Record>());
+    runner.runInit();
+    try {
+      runner.runProduce(lastOffsets, 10, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+          records.addAll(output.getRecords().get("lane"));
+          if (records.size() >= expectedRecords) {
+            runner.setStop();
+          }
+        }
+      });
+      runner.waitOnProduce();
+      Assert.assertTrue(runner.getErrors().isEmpty());
+      offsets.putAll(runner.getOffsets());
+    } finally {
+      runner.runDestroy();
+    }
+    return records;
+  }
+
+  @Test
+  public void testReadFilesInParallel() throws Exception {
+    SpoolDirPushConfigBean conf = createConf(3, ProcessingOrder.STRICT);
+    createFiles(conf.spoolDir, 5);
+
+    Map<String, String> offsets = new HashMap<>();
+    List<Record> records = runUntil(conf, Collections.<String, String>emptyMap(), 5 * LINES_PER_FILE, offsets);
+
+    Assert.assertEquals(5 * LINES_PER_FILE, records.size());
+    Map<String, Integer> recordsPerFile = new HashMap<>();
+    for (Record record : records) {
+      String fileName = record.getHeader().getAttribute(HeaderAttributeConstants.FILE_NAME);
+      Integer count = recordsPerFile.get(fileName);
+      recordsPerFile.put(fileName, (count == null) ? 1 : count + 1);
+    }
+    Assert.assertEquals(5, recordsPerFile.size());
+    for (int count : recordsPerFile.values()) {
+      Assert.assertEquals(LINES_PER_FILE, count);
+    }
+
+    // all files have been read, only the last file remains in the offsets
+    Assert.assertEquals(ImmutableMap.of(SpoolDirPushSource.LAST_FILE, "file-4.log"), offsets);
+    Assert.assertEquals(0, new File(conf.spoolDir).list().length);
+    Assert.assertEquals(5, new File(conf.archiveDir).list().length);
+  }
+
+  @Test
+  public void testResumeFromOffsets() throws Exception {
+    SpoolDirPushConfigBean conf = createConf(2, ProcessingOrder.PARALLEL);
+    conf.postProcessing = PostProcessingOptions.NONE;
+    createFiles(conf.spoolDir, 4);
+
+    // file-0 and file-2 were fully read, file-1 was half way and file-3 was not started
+    Map<String, String> lastOffsets = ImmutableMap.of(
+        SpoolDirPushSource.LAST_FILE, "file-0.log",
+        "file-1.log", "80",
+        "file-2.log", "-1"
+    );
+    Map<String, String> offsets = new HashMap<>();
+    List<Record> records = runUntil(conf, lastOffsets, LINES_PER_FILE - 10 + LINES_PER_FILE, offsets);
+
+    Assert.assertEquals(LINES_PER_FILE - 10 + LINES_PER_FILE, records.size());
+    int fromFile1 = 0;
+    for (Record record : records) {
+      String fileName = record.getHeader().getAttribute(HeaderAttributeConstants.FILE_NAME);
+      Assert.assertTrue(fileName, "file-1.log".equals(fileName) || "file-3.log".equals(fileName));
+      if ("file-1.log".equals(fileName)) {
+        if (fromFile1++ == 0) {
+          Assert.assertEquals("line-10", record.get("/text").getValueAsString());
+        }
+      }
+    }
+    Assert.assertEquals(LINES_PER_FILE - 10, fromFile1);
+    Assert.assertEquals(ImmutableMap.of(SpoolDirPushSource.LAST_FILE, "file-3.log"), offsets);
+    Assert.assertEquals(4, new File(conf.spoolDir).list().length);
+  }
+
+  @Test
+  public void testStopWhileWaitingForFiles() throws Exception {
+    SpoolDirPushConfigBean conf = createConf(3, ProcessingOrder.STRICT);
+    conf.poolingTimeoutSecs = 600;
+
+    SpoolDirPushSource source = new SpoolDirPushSource(conf);
+    final PushSourceRunner runner =
+        new PushSourceRunner.Builder(SpoolDirPushSource.class, source).addOutputLane("lane").build();
+    runner.runInit();
+    try {
+      runner.runProduce(Collections.<String, String>emptyMap(), 10, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+        }
+      });
+      // all threads are waiting for a file
+      Thread.sleep(1000);
+      long start = System.currentTimeMillis();
+      runner.setStop();
+      runner.waitOnProduce();
+      Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestBloomFilterHashIndex {
+
+  private static HashCode hash(int i) {
+    return Hashing.murmur3_128().hashInt(i);
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    int window = 100000;
+    Map<String, Object> gauges = new HashMap<>();
+    BloomFilterHashIndex index = new BloomFilterHashIndex(window, 0, 0.001, gauges);
+    for (int i = 0; i < window; i++) {
+      index.add(hash(i));
+    }
+    // everything in the window is a duplicate
+    for (int i = 0; i < window; i++) {
+      Assert.assertFalse(index.add(hash(i)));
+    }
+    int falsePositives = 0;
+    for (int i = window; i < 2 * window; i++) {
+      if (!index.add(hash(i))) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue("False positives: " + falsePositives, falsePositives < window * 0.002);
+
+    index.close();
+    Assert.assertTrue((Double) gauges.get(BloomFilterHashIndex.FILL_RATIO) > 0);
+    Assert.assertTrue((Double) gauges.get(BloomFilterHashIndex.FALSE_POSITIVE_PROBABILITY) < 0.002);
+    Assert.assertTrue(BloomFilterHashIndex.getEstimatedMemory(window, 0.001) < 85L * window / 10);
+  }
+
+  @Test
+  public void testCountWindow() {
+    BloomFilterHashIndex index = new BloomFilterHashIndex(30, 0, 0.000001, null);
+    for (int i = 0; i < 30; i++) {
+      Assert.assertTrue(index.add(hash(i)));
+    }
+    Assert.assertFalse(index.add(hash(0)));
+    // enough to rotate all the buckets
+    for (int i = 30; i < 100; i++) {
+      index.add(hash(i));
+    }
+    Assert.assertTrue(index.add(hash(0)));
+  }
+
+  @Test
+  public void testTimeWindow() {
+    long now = System.currentTimeMillis();
+    BloomFilterHashIndex index = new BloomFilterHashIndex(1000, 3, 0.001, null, now);
+    Assert.assertTrue(index.add(hash(1), now));
+    Assert.assertFalse(index.add(hash(1), now + 2999));
+    Assert.assertTrue(index.add(hash(2), now + 3000));
+    Assert.assertFalse(index.add(hash(1), now + 3000));
+    Assert.assertFalse(index.add(hash(1), now + 3999));
+    // the buckets rotate every second, after 4 seconds the bucket holding 1 is reused
+    Assert.assertTrue(index.add(hash(3), now + 4000));
+    Assert.assertTrue(index.add(hash(1), now + 4000));
+  }
+
+}
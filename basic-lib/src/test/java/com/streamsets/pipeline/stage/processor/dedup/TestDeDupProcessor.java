@@ -29,8 +29,11 @@ import com.streamsets.pipeline.sdk.ProcessorRunner;
 import com.streamsets.pipeline.sdk.RecordCreator;
 import com.streamsets.pipeline.sdk.StageRunner;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,6 +43,9 @@ import java.util.Map;
 
 public class TestDeDupProcessor {
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   private Record createRecordWithValue(String value) {
     Record record = RecordCreator.create();
     Map<String, Field> map = new HashMap<>();
@@ -389,6 +395,105 @@ public class TestDeDupProcessor {
     }
   }
 
+  @Test
+  public void testOffHeapIndex() throws Exception {
+    for (IndexType indexType : ImmutableList.of(IndexType.OFF_HEAP, IndexType.MEMORY_MAPPED_FILE)) {
+      String indexFile = new File(tempFolder.getRoot(), "index-" + indexType).getAbsolutePath();
+      Processor processor = new DeDupProcessor(3, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST, indexType,
+          indexFile, 0);
+      ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+          .addOutputLane("unique")
+          .addOutputLane("duplicate")
+          .build();
+      runner.runInit();
+      try {
+        List<Record> input = ImmutableList.of(
+            createRecordWithValue("a"),
+            createRecordWithValue("b"),
+            createRecordWithValue("a"),
+            createRecordWithValue("c"),
+            createRecordWithValue("d"),
+            createRecordWithValue("a")
+        );
+        StageRunner.Output output = runner.runProcess(input);
+        Assert.assertEquals(5, output.getRecords().get("unique").size());
+        Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+      } finally {
+        runner.runDestroy();
+      }
+    }
+  }
+
+  @Test
+  public void testMemoryMappedFileIndexNotUsedInPreview() throws Exception {
+    File indexFile = new File(tempFolder.getRoot(), "index-preview");
+    Processor processor = new DeDupProcessor(3, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        IndexType.MEMORY_MAPPED_FILE, indexFile.getAbsolutePath(), 0);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .setPreview(true)
+        .build();
+    runner.runInit();
+    try {
+      StageRunner.Output output = runner.runProcess(ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("a")
+      ));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+    Assert.assertFalse(indexFile.exists());
+  }
+
+  @Test(expected = StageException.class)
+  public void testMemoryMappedFileIndexRequiresFile() throws Exception {
+    Processor processor = new DeDupProcessor(4, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        IndexType.MEMORY_MAPPED_FILE, "", 0);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+  }
+
+  @Test
+  public void testBloomFilterIndex() throws Exception {
+    Processor processor = new DeDupProcessor(3, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        IndexType.BLOOM_FILTER, null, 0.1);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+    try {
+      List<Record> input = ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("b"),
+          createRecordWithValue("a"),
+          createRecordWithValue("c")
+      );
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(3, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test(expected = StageException.class)
+  public void testBloomFilterInvalidFalsePositiveRate() throws Exception {
+    Processor processor = new DeDupProcessor(4, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        IndexType.BLOOM_FILTER, null, 0);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+  }
+
   @Test
   public void testWildCardDedup() throws Exception {
     Processor processor = new DeDupProcessor(4, 1, SelectFields.SPECIFIED_FIELDS,
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class TestOffHeapHashIndex {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static HashCode hash(int i) {
+    return Hashing.murmur3_128().hashInt(i);
+  }
+
+  @Test
+  public void testCountWindow() {
+    OffHeapHashIndex index = OffHeapHashIndex.allocate(3, 0);
+    try {
+      Assert.assertTrue(index.add(hash(1)));
+      Assert.assertTrue(index.add(hash(2)));
+      Assert.assertFalse(index.add(hash(1)));
+      Assert.assertTrue(index.add(hash(3)));
+      Assert.assertEquals(3, index.size());
+      // evicts 1
+      Assert.assertTrue(index.add(hash(4)));
+      Assert.assertTrue(index.add(hash(1)));
+      Assert.assertFalse(index.add(hash(3)));
+      Assert.assertFalse(index.add(hash(4)));
+      Assert.assertEquals(3, index.size());
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testTimeWindow() {
+    OffHeapHashIndex index = OffHeapHashIndex.allocate(100, 10);
+    try {
+      Assert.assertTrue(index.add(hash(1), 1000));
+      Assert.assertTrue(index.add(hash(2), 5000));
+      Assert.assertFalse(index.add(hash(1), 10999));
+      // 1 expired, 2 did not
+      Assert.assertTrue(index.add(hash(1), 11000));
+      Assert.assertFalse(index.add(hash(2), 11000));
+      Assert.assertEquals(2, index.size());
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testColliding() {
+    // all hashes land in the same region of a small table, evictions have to keep the probe sequences intact
+    int window = 50;
+    OffHeapHashIndex index = OffHeapHashIndex.allocate(window, 0);
+    Deque<HashCode> expectedWindow = new ArrayDeque<>();
+    Set<HashCode> expected = new HashSet<>();
+    Random random = new Random(0);
+    try {
+      for (int i = 0; i < 20000; i++) {
+        byte[] bytes = new byte[16];
+        // keep clear of the all zero hash, the index stores it as 0/1
+        bytes[1] = 1;
+        bytes[0] = (byte) random.nextInt(8);
+        bytes[7] = (byte) random.nextInt(4);
+        bytes[15] = (byte) random.nextInt(32);
+        HashCode hash = HashCode.fromBytes(bytes);
+        boolean added = expected.add(hash);
+        Assert.assertEquals(added, index.add(hash));
+        if (added) {
+          expectedWindow.add(hash);
+          if (expectedWindow.size() > window) {
+            expected.remove(expectedWindow.remove());
+          }
+        }
+      }
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testMemoryMappedFile() throws Exception {
+    File file = new File(tempFolder.getRoot(), "dedup.index");
+    OffHeapHashIndex index = OffHeapHashIndex.map(file, 2, 0);
+    Assert.assertTrue(index.add(hash(1)));
+    Assert.assertTrue(index.add(hash(2)));
+    Assert.assertTrue(index.add(hash(3)));
+    index.close();
+
+    // survives a restart
+    index = OffHeapHashIndex.map(file, 2, 0);
+    Assert.assertEquals(2, index.size());
+    Assert.assertTrue(index.add(hash(1)));
+    Assert.assertFalse(index.add(hash(1)));
+    Assert.assertTrue(index.add(hash(2)));
+    Assert.assertFalse(index.add(hash(1)));
+    index.close();
+
+    // a different window resets the index
+    index = OffHeapHashIndex.map(file, 10, 0);
+    Assert.assertEquals(0, index.size());
+    Assert.assertTrue(index.add(hash(1)));
+    index.close();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testClosedIndex() throws Exception {
+    OffHeapHashIndex index = OffHeapHashIndex.allocate(2, 0);
+    Assert.assertTrue(index.add(hash(1)));
+    index.close();
+    // closing twice is fine, the buffers are only freed once
+    index.close();
+    index.add(hash(2));
+  }
+
+}
@@ -240,12 +240,19 @@ public class OverrunStreamingJsonParser extends StreamingJsonParser {
   }
 
   private static void checkIfLengthExceededForObjectRead(Object json) {
-    OverrunStreamingJsonParser enforcer = TL.get();
-    if (enforcer.maxObjectLen > -1) {
-      if (enforcer.getJsonParser().getCurrentLocation().getCharOffset() > enforcer.limitOffset) {
+    TL.get().checkIfLengthExceeded();
+  }
+
+  /**
+   * Throws an (undeclared) {@link ObjectLengthException} if the object being read exceeds the max object length.
+   * <p/>
+   * Subclasses reading values straight from the parser must call it as the value grows.
+   */
+  protected void checkIfLengthExceeded() {
+    if (maxObjectLen > -1) {
+      if (getJsonParser().getCurrentLocation().getCharOffset() > limitOffset) {
         ExceptionUtils.throwUndeclared(new ObjectLengthException(Utils.format(
-            "JSON Object at offset '{}' exceeds max length '{}'", enforcer.startOffset, enforcer.maxObjectLen),
-                                                                 enforcer.startOffset));
+            "JSON Object at offset '{}' exceeds max length '{}'", startOffset, maxObjectLen), startOffset));
       }
     }
   }
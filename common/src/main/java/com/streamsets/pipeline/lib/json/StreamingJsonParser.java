@@ -115,6 +115,14 @@ public class StreamingJsonParser {
     return rootContext;
   }
 
+  /**
+   * Reads the value starting at the current token of the parser, leaving the parser at the last token of the value.
+   */
+  @SuppressWarnings("unchecked")
+  protected Object readValue(Class klass) throws IOException {
+    return jsonParser.readValueAs(klass);
+  }
+
   @SuppressWarnings("unchecked")
   protected Object readObjectFromArray() throws IOException {
     Object value = null;
@@ -130,7 +138,7 @@ public class StreamingJsonParser {
     JsonToken token = jsonParser.nextToken();
     if (token != null) {
       if (token != JsonToken.END_ARRAY) {
-        value = jsonParser.readValueAs(Object.class);
+        value = readValue(Object.class);
       }
     }
     return value;
@@ -150,7 +158,7 @@ public class StreamingJsonParser {
       nextToken = jsonParser.nextToken();
     }
     if (nextToken != null) {
-      value = jsonParser.readValueAs(getExpectedClass());
+      value = readValue(getExpectedClass());
       nextToken = jsonParser.nextToken();
       if (nextToken == null) {
         // if we reached the EOF Jackson JSON parser keeps the as getTokenLocation() the location of the last token,
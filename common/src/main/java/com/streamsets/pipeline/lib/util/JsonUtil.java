@@ -19,14 +19,16 @@
  */
 package com.streamsets.pipeline.lib.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -146,20 +148,99 @@ public class JsonUtil {
     return obj;
   }
 
+  /**
+   * Writes the field to the generator without creating the intermediate Java objects of
+   * {@link #fieldToJsonObject(Record, Field)}, the JSON is the same as serializing them.
+   */
+  public static void writeField(Record record, Field field, JsonGenerator generator)
+      throws IOException, StageException {
+    if (field == null || field.getValue() == null) {
+      generator.writeNull();
+      return;
+    }
+    switch (field.getType()) {
+      case BOOLEAN:
+        generator.writeBoolean(field.getValueAsBoolean());
+        break;
+      case BYTE:
+        generator.writeNumber(field.getValueAsByte());
+        break;
+      case BYTE_ARRAY:
+        generator.writeBinary(field.getValueAsByteArray());
+        break;
+      case CHAR:
+        generator.writeString(String.valueOf(field.getValueAsChar()));
+        break;
+      case DATE:
+        generator.writeNumber(field.getValueAsDate().getTime());
+        break;
+      case TIME:
+        generator.writeNumber(field.getValueAsTime().getTime());
+        break;
+      case DATETIME:
+        generator.writeNumber(field.getValueAsDatetime().getTime());
+        break;
+      case DECIMAL:
+        generator.writeNumber(field.getValueAsDecimal());
+        break;
+      case DOUBLE:
+        generator.writeNumber(field.getValueAsDouble());
+        break;
+      case FLOAT:
+        generator.writeNumber(field.getValueAsFloat());
+        break;
+      case INTEGER:
+        generator.writeNumber(field.getValueAsInteger());
+        break;
+      case LONG:
+        generator.writeNumber(field.getValueAsLong());
+        break;
+      case SHORT:
+        generator.writeNumber(field.getValueAsShort());
+        break;
+      case STRING:
+        generator.writeString(field.getValueAsString());
+        break;
+      case LIST:
+        generator.writeStartArray();
+        for (Field element : field.getValueAsList()) {
+          writeField(record, element, generator);
+        }
+        generator.writeEndArray();
+        break;
+      case MAP:
+      case LIST_MAP:
+        generator.writeStartObject();
+        for (Map.Entry<String, Field> entry : field.getValueAsMap().entrySet()) {
+          generator.writeFieldName(entry.getKey());
+          writeField(record, entry.getValue(), generator);
+        }
+        generator.writeEndObject();
+        break;
+      default:
+        throw new StageException(CommonError.CMN_0100, field.getType(), field.getValue(),
+            record.getHeader().getSourceId());
+    }
+  }
+
   public static String jsonRecordToString(Record r) throws StageException {
-    try {
-      return OBJECT_MAPPER.writeValueAsString(JsonUtil.fieldToJsonObject(r, r.get()));
-    } catch (JsonProcessingException e) {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(writer)) {
+      writeField(r, r.get(), generator);
+    } catch (IOException e) {
       throw new StageException(CommonError.CMN_0101, r.getHeader().getSourceId(), e.toString(), e);
     }
+    return writer.toString();
   }
 
   public static byte[] jsonRecordToBytes(Record r, Field f) throws StageException {
-    try {
-      return OBJECT_MAPPER.writeValueAsBytes(JsonUtil.fieldToJsonObject(r, f));
-    } catch (JsonProcessingException e) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(outputStream)) {
+      writeField(r, f, generator);
+    } catch (IOException e) {
       throw new StageException(CommonError.CMN_0101, r.getHeader().getSourceId(), e.toString(), e);
     }
+    return outputStream.toByteArray();
   }
 
   public static Field bytesToField(byte[] bytes) throws StageException {
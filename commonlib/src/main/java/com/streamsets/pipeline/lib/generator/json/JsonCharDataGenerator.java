@@ -25,9 +25,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.config.JsonMode;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.util.CommonError;
+import com.streamsets.pipeline.lib.util.JsonUtil;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -67,7 +70,7 @@ public class JsonCharDataGenerator implements DataGenerator {
     if (closed) {
       throw new IOException("generator has been closed");
     }
-    generator.writeObject(fieldToJsonObject(record, record.get()));
+    writeRecord(record);
     if (!isArray) {
       generator.writeRaw(EOL);
     }
@@ -90,6 +93,18 @@ public class JsonCharDataGenerator implements DataGenerator {
     generator.close();
   }
 
+  // writes the record straight to the generator, the output is the same as serializing fieldToJsonObject()
+  private void writeRecord(Record record) throws IOException, DataGeneratorException {
+    try {
+      JsonUtil.writeField(record, record.get(), generator);
+    } catch (StageException ex) {
+      if (ex.getErrorCode() == CommonError.CMN_0100 && ex.getParams()[0] == Field.Type.FILE_REF) {
+        throw new DataGeneratorException(Errors.JSON_GENERATOR_01, ex.getParams()[1]);
+      }
+      throw new DataGeneratorException(ex.getErrorCode(), ex.getParams());
+    }
+  }
+
   public static Object fieldToJsonObject(Record record, Field field) throws DataGeneratorException {
     Object obj;
     if (field == null || field.getValue() == null) {
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds EOL characters in a {@link ByteBuffer} reading it a word (8 bytes) at a time.
+ * <p/>
+ * The buffer must be in {@link ByteOrder#LITTLE_ENDIAN} order, on a direct or memory mapped buffer each word is a
+ * single load. Indexes are absolute, the buffer position and limit are not used.
+ */
+final class EolFinder {
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long LF_WORD = ONES * '\n';
+  private static final long CR_WORD = ONES * '\r';
+
+  private EolFinder() {
+  }
+
+  // sets the high bit of the zero bytes of the word, other bits are cleared. There are no carries between bytes so,
+  // unlike the usual (x - 0x01..) & ~x & 0x80.. trick, all the bytes are exact, not only the lowest one.
+  private static long zeroBytes(long word) {
+    return ~(((word & LOW_7_BITS) + LOW_7_BITS) | word | LOW_7_BITS);
+  }
+
+  /**
+   * Returns the index of the first LF or CR in the [from, to) range, <code>-1</code> if there is none.
+   */
+  static int indexOfEol(ByteBuffer buffer, int from, int to) {
+    int i = from;
+    for (; i + 8 <= to; i += 8) {
+      long word = buffer.getLong(i);
+      long matches = zeroBytes(word ^ LF_WORD) | zeroBytes(word ^ CR_WORD);
+      if (matches != 0) {
+        return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+      }
+    }
+    for (; i < to; i++) {
+      byte b = buffer.get(i);
+      if (b == '\n' || b == '\r') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the last LF in the [from, to) range, <code>-1</code> if there is none.
+   */
+  static int lastIndexOfLf(ByteBuffer buffer, int from, int to) {
+    int i = to;
+    for (; i - 8 >= from; i -= 8) {
+      long matches = zeroBytes(buffer.getLong(i - 8) ^ LF_WORD);
+      if (matches != 0) {
+        return i - 1 - (Long.numberOfLeadingZeros(matches) >>> 3);
+      }
+    }
+    for (i--; i >= from; i--) {
+      if (buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -27,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -47,6 +49,11 @@ import java.nio.file.StandardOpenOption;
  * (ie UTF-8 or ASCII)
  * <p/>
  * IMPORTANT: The provided charset must encode LF and CR as '0x0A' and '0x0D' respectively.
+ * <p/>
+ * With the <code>LiveFileReader.mmap</code> system property set to <code>true</code> the file is memory mapped in
+ * windows of <code>LiveFileReader.mmap.window.kb</code> and chunks are copied straight from the mapped window, lines are
+ * found reading the window a word at a time. Within the last window of the file, which keeps growing while the file is
+ * live, the bytes are read into a buffer instead. Files must not be truncated in place while memory mapped.
  */
 public class SingleLineLiveFileReader implements LiveFileReader {
   private static final Logger LOG = LoggerFactory.getLogger(SingleLineLiveFileReader.class);
@@ -57,6 +64,11 @@ public class SingleLineLiveFileReader implements LiveFileReader {
   // we sleep for 10 millisec to yield CPU
   private static final long YIELD_INTERVAL = Integer.parseInt(System.getProperty("LiveFileReader.yield.ms", "10"));
 
+  static final boolean MEMORY_MAPPED = Boolean.parseBoolean(System.getProperty("LiveFileReader.mmap", "false"));
+
+  private static final int MAP_WINDOW =
+      Integer.parseInt(System.getProperty("LiveFileReader.mmap.window.kb", "8192")) * 1024;
+
   private final RollMode rollMode;
   private final LiveFile originalFile;
   private String tag;
@@ -71,6 +83,16 @@ public class SingleLineLiveFileReader implements LiveFileReader {
   private final ByteBuffer buffer;
   private final byte[] chunkBytes;
 
+  // memory mapped mode, there is no buffered data, position is the file position of the next byte to read
+  private final boolean memoryMapped;
+  private final int mapWindow;
+  private ByteBuffer mapped;
+  private long mapStart;
+  private long mapEnd;
+  private final ByteBuffer tailBuffer;
+  private long position;
+  private long eolCheckedUpTo;
+
   private boolean open;
   private long lastLiveFileRefresh;
 
@@ -101,6 +123,18 @@ public class SingleLineLiveFileReader implements LiveFileReader {
   public SingleLineLiveFileReader(RollMode rollMode, String tag, LiveFile file, Charset charset, long offset,
       int maxLineLen)
       throws IOException {
+    this(rollMode, tag, file, charset, offset, maxLineLen, MEMORY_MAPPED);
+  }
+
+  SingleLineLiveFileReader(RollMode rollMode, String tag, LiveFile file, Charset charset, long offset,
+      int maxLineLen, boolean memoryMapped)
+      throws IOException {
+    this(rollMode, tag, file, charset, offset, maxLineLen, memoryMapped, MAP_WINDOW);
+  }
+
+  SingleLineLiveFileReader(RollMode rollMode, String tag, LiveFile file, Charset charset, long offset,
+      int maxLineLen, boolean memoryMapped, int mapWindow)
+      throws IOException {
     Utils.checkNotNull(rollMode, "rollMode");
     Utils.checkNotNull(file, "file");
     Utils.checkNotNull(charset, "charset");
@@ -111,6 +145,8 @@ public class SingleLineLiveFileReader implements LiveFileReader {
     this.tag = tag;
     this.originalFile = file;
     this.charset = charset;
+    this.memoryMapped = memoryMapped;
+    this.mapWindow = mapWindow;
 
     this.offset = Math.abs(offset);
     truncateMode = offset < 0;
@@ -120,7 +156,11 @@ public class SingleLineLiveFileReader implements LiveFileReader {
       LOG.debug("Original file '{}' refreshed to '{}'", file, currentFile);
     }
 
-    channel = Files.newByteChannel(currentFile.getPath(), StandardOpenOption.READ);
+    if (memoryMapped) {
+      channel = FileChannel.open(currentFile.getPath(), StandardOpenOption.READ);
+    } else {
+      channel = Files.newByteChannel(currentFile.getPath(), StandardOpenOption.READ);
+    }
     open = true;
 
     long actualSize;
@@ -144,8 +184,11 @@ public class SingleLineLiveFileReader implements LiveFileReader {
       throw ex;
     }
     LOG.debug("File '{}', positioned at offset '{}'", currentFile, offset);
+    position = this.offset;
+    eolCheckedUpTo = position;
 
-    buffer = ByteBuffer.allocate(maxLineLen);
+    buffer = ByteBuffer.allocate(memoryMapped ? 0 : maxLineLen);
+    tailBuffer = ByteBuffer.allocate(memoryMapped ? maxLineLen : 0).order(ByteOrder.LITTLE_ENDIAN);
     chunkBytes = new byte[maxLineLen];
 
     lastPosCheckedForEol = 0;
@@ -213,14 +256,14 @@ public class SingleLineLiveFileReader implements LiveFileReader {
         }
         if (truncateMode) {
           if (LOG.isTraceEnabled()) {
-            LOG.trace("File '{}' at offset '{} in fast forward mode", currentFile, channel.position());
+            LOG.trace("File '{}' at offset '{} in fast forward mode", currentFile, readPosition());
           }
-          truncateMode = fastForward();
+          truncateMode = (memoryMapped) ? fastForwardMapped() : fastForward();
         }
         if (!truncateMode) {
-          liveFileChunk = readChunk();
+          liveFileChunk = (memoryMapped) ? readChunkMapped() : readChunk();
           if (LOG.isTraceEnabled()) {
-            LOG.trace("File '{}' at offset '{} got chunk '{}'", currentFile, channel.position(), liveFileChunk != null);
+            LOG.trace("File '{}' at offset '{} got chunk '{}'", currentFile, readPosition(), liveFileChunk != null);
           }
           if (liveFileChunk != null) {
             break;
@@ -228,18 +271,18 @@ public class SingleLineLiveFileReader implements LiveFileReader {
         }
         if (System.currentTimeMillis() - start >= 0) {
           if (LOG.isTraceEnabled()) {
-            LOG.trace("File '{}' at offset '{} timed out while waiting for chunk", currentFile, channel.position());
+            LOG.trace("File '{}' at offset '{} timed out while waiting for chunk", currentFile, readPosition());
           }
           //wait timeout
           break;
         }
         //yielding CPU while in wait loop
         if (!ThreadUtil.sleep(YIELD_INTERVAL)) {
-          LOG.trace("File '{}' at offset '{} interrupted while yielding CPU", currentFile, channel.position());
+          LOG.trace("File '{}' at offset '{} interrupted while yielding CPU", currentFile, readPosition());
           break;
         }
       }
-      offset = channel.position() - buffer.position();
+      offset = (memoryMapped) ? position : channel.position() - buffer.position();
       return liveFileChunk;
     } catch (IOException ex) {
       closeChannel();
@@ -343,7 +386,113 @@ public class SingleLineLiveFileReader implements LiveFileReader {
           lastLiveFileRefresh = System.currentTimeMillis();
         }
       }
-      return rolled && channel.position() >= channel.size();
+      return rolled && readPosition() >= channel.size();
+    } catch (IOException ex) {
+      closeChannel();
+      throw ex;
+    }
+  }
+
+  private long readPosition() throws IOException {
+    return (memoryMapped) ? position : channel.position();
+  }
+
+  // returns a window with at least len bytes from pos, pos is at index (pos - mapStart) of the window
+  private ByteBuffer map(long pos, int len) throws IOException {
+    if (mapped == null || pos < mapStart || pos + len > mapEnd) {
+      FileChannel fileChannel = (FileChannel) channel;
+      long mapLen = Math.max(mapWindow, len);
+      if (fileChannel.size() - pos >= mapLen) {
+        mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, pos, mapLen).order(ByteOrder.LITTLE_ENDIAN);
+        mapEnd = pos + mapLen;
+      } else {
+        // a read only mapping cannot go beyond the current file size, instead of remapping a shorter window every time
+        // the file grows the bytes are read, until there is a whole window to map
+        tailBuffer.clear();
+        tailBuffer.limit(len);
+        while (tailBuffer.hasRemaining()) {
+          if (fileChannel.read(tailBuffer, pos + tailBuffer.position()) < 0) {
+            throw new IOException(Utils.format("File '{}' was truncated while memory mapped", currentFile));
+          }
+        }
+        mapped = tailBuffer;
+        mapEnd = pos + len;
+      }
+      mapStart = pos;
+    }
+    return mapped;
+  }
+
+  // memory mapped version of fastForward()
+  private boolean fastForwardMapped() throws IOException {
+    try {
+      int available = (int) Math.min(chunkBytes.length, channel.size() - position);
+      if (available <= 0) {
+        return true;
+      }
+      ByteBuffer window = map(position, available);
+      int from = (int) (position - mapStart);
+      int to = from + available;
+      int eolIdx = EolFinder.indexOfEol(window, from, to);
+      if (eolIdx > -1) {
+        // same \r\n handling as findEndOfFirstLine()
+        if (window.get(eolIdx) == '\r' && eolIdx + 1 < to && window.get(eolIdx + 1) == '\n') {
+          eolIdx++;
+        }
+        position = mapStart + eolIdx + 1;
+        eolCheckedUpTo = position;
+        return false;
+      }
+      // no EOL yet, discarding what we looked at
+      position += available;
+      eolCheckedUpTo = position;
+      return true;
+    } catch (IOException ex) {
+      closeChannel();
+      throw ex;
+    }
+  }
+
+  // memory mapped version of readChunk(), bytes are copied once from the mapped window into the chunk
+  private LiveFileChunk readChunkMapped() throws IOException {
+    try {
+      LiveFileChunk liveFileChunk = null;
+      long size = channel.size();
+      int available = (int) Math.min(chunkBytes.length, size - position);
+      if (available > 0) {
+        ByteBuffer window = map(position, available);
+        int from = (int) (position - mapStart);
+        int to = from + available;
+        int chunkSize;
+        boolean truncated = false;
+        if (rolled && position + available >= size) {
+          // same as isEof() after reading all the remaining data, the last line may not have an EOL
+          chunkSize = available;
+        } else {
+          int scanFrom = (int) (Math.max(position, eolCheckedUpTo) - mapStart);
+          int lastEolIdx = EolFinder.lastIndexOfLf(window, scanFrom, to);
+          if (lastEolIdx > -1) {
+            chunkSize = lastEolIdx + 1 - from;
+          } else if (available == chunkBytes.length) {
+            // no EOL within max line length, return truncated chunk and go into truncate mode.
+            chunkSize = available;
+            truncated = true;
+          } else {
+            // we don't have an EOL and we don't have max line length bytes yet, no chunk in this read
+            chunkSize = 0;
+            eolCheckedUpTo = position + available;
+          }
+        }
+        if (chunkSize > 0) {
+          window.position(from);
+          window.get(chunkBytes, 0, chunkSize);
+          liveFileChunk = new LiveFileChunk(tag, currentFile, charset, chunkBytes, position, chunkSize, truncated);
+          position += chunkSize;
+          eolCheckedUpTo = position;
+          truncateMode = truncated;
+        }
+      }
+      return liveFileChunk;
     } catch (IOException ex) {
       closeChannel();
       throw ex;
@@ -31,11 +31,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class JsonDataParserFactory extends DataParserFactory {
-  public static final Map<String, Object> CONFIGS = Collections.emptyMap();
+  static final String KEY_PREFIX = "json.";
+  public static final String FIELD_PATHS_KEY = KEY_PREFIX + "field.paths";
+  static final List<String> FIELD_PATHS_DEFAULT = Collections.emptyList();
+
+  public static final Map<String, Object> CONFIGS;
+
+  static {
+    Map<String, Object> configs = new HashMap<>();
+    configs.put(FIELD_PATHS_KEY, FIELD_PATHS_DEFAULT);
+    CONFIGS = Collections.unmodifiableMap(configs);
+  }
 
   @SuppressWarnings("umchecked")
   public static final Set<Class<? extends Enum>> MODES =
@@ -60,7 +72,8 @@ public class JsonDataParserFactory extends DataParserFactory {
                                                          reader.getPos()));
     try {
       return new JsonCharDataParser(getSettings().getContext(), id, reader, offset,
-                                    getSettings().getMode(JsonMode.class).getFormat(), getSettings().getMaxRecordLen());
+                                    getSettings().getMode(JsonMode.class).getFormat(), getSettings().getMaxRecordLen(),
+                                    getSettings().<List<String>>getConfig(FIELD_PATHS_KEY));
     } catch (IOException ex) {
       throw new DataParserException(Errors.JSON_PARSER_00, id, offset, ex.toString(), ex);
     }
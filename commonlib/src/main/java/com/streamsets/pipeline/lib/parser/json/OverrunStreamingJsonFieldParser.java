@@ -0,0 +1,171 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.io.OverrunReader;
+import com.streamsets.pipeline.lib.json.OverrunStreamingJsonParser;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link OverrunStreamingJsonParser} that builds {@link Field}s straight from the parser tokens instead of
+ * materializing the JSON as Java maps and lists first.
+ * <p/>
+ * Optionally a set of field paths (i.e. <code>/a/b</code>) can be given, only those fields (and the maps leading to
+ * them) are kept and the parser skips the rest of the JSON without creating any values for it. List indexes in the
+ * field paths are ignored, <code>/a[*]/b</code> and <code>/a/b</code> keep field <code>b</code> of all maps in list
+ * <code>a</code>.
+ */
+public class OverrunStreamingJsonFieldParser extends OverrunStreamingJsonParser {
+
+  private static class PathNode {
+    private final Map<String, PathNode> children = new HashMap<>();
+    private boolean all;
+  }
+
+  private final PathNode projection;
+
+  public OverrunStreamingJsonFieldParser(OverrunReader reader, long initialPosition, Mode mode, int maxObjectLen)
+      throws IOException {
+    this(reader, initialPosition, mode, maxObjectLen, null);
+  }
+
+  public OverrunStreamingJsonFieldParser(OverrunReader reader, long initialPosition, Mode mode, int maxObjectLen,
+      Collection<String> fieldPaths) throws IOException {
+    super(reader, initialPosition, mode, maxObjectLen);
+    projection = createProjection(fieldPaths);
+  }
+
+  private static PathNode createProjection(Collection<String> fieldPaths) {
+    PathNode root = new PathNode();
+    if (fieldPaths == null || fieldPaths.isEmpty()) {
+      root.all = true;
+    } else {
+      for (String fieldPath : fieldPaths) {
+        PathNode node = root;
+        for (String name : fieldPath.split("/")) {
+          int bracket = name.indexOf('[');
+          if (bracket > -1) {
+            name = name.substring(0, bracket);
+          }
+          if (!name.isEmpty()) {
+            PathNode child = node.children.get(name);
+            if (child == null) {
+              child = new PathNode();
+              node.children.put(name, child);
+            }
+            node = child;
+          }
+        }
+        node.all = true;
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Returns the next JSON value as a {@link Field}, <code>null</code> if there are no more values.
+   */
+  @Override
+  public Field read() throws IOException {
+    return (Field) super.read();
+  }
+
+  @Override
+  protected Object readValue(Class klass) throws IOException {
+    JsonParser parser = getJsonParser();
+    // a root null has always been handled as the end of the data
+    return (parser.getCurrentToken() == JsonToken.VALUE_NULL) ? null : readField(parser, projection);
+  }
+
+  private Field readField(JsonParser parser, PathNode node) throws IOException {
+    Field field;
+    JsonToken token = parser.getCurrentToken();
+    switch (token) {
+      case START_OBJECT:
+        Map<String, Field> map = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          PathNode child = (node.all) ? node : node.children.get(name);
+          parser.nextToken();
+          if (child == null) {
+            parser.skipChildren();
+          } else {
+            map.put(name, readField(parser, child));
+          }
+          checkIfLengthExceeded();
+        }
+        field = Field.create(map);
+        break;
+      case START_ARRAY:
+        List<Field> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readField(parser, node));
+          checkIfLengthExceeded();
+        }
+        field = Field.create(list);
+        break;
+      case VALUE_STRING:
+        field = Field.create(parser.getText());
+        break;
+      case VALUE_NUMBER_INT:
+        switch (parser.getNumberType()) {
+          case INT:
+            field = Field.create(parser.getIntValue());
+            break;
+          case LONG:
+            field = Field.create(parser.getLongValue());
+            break;
+          default:
+            field = Field.create(new BigDecimal(parser.getBigIntegerValue()));
+            break;
+        }
+        break;
+      case VALUE_NUMBER_FLOAT:
+        field = Field.create(parser.getDoubleValue());
+        break;
+      case VALUE_TRUE:
+        field = Field.create(true);
+        break;
+      case VALUE_FALSE:
+        field = Field.create(false);
+        break;
+      case VALUE_NULL:
+        field = Field.create(Field.Type.STRING, null);
+        break;
+      default:
+        throw new JsonParseException(Utils.format("Unexpected JSON token '{}'", token), parser.getTokenLocation());
+    }
+    return field;
+  }
+
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.log;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.GroupInfo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A log line pattern compiled once per parser factory and shared by all the parsers it creates.
+ * <p/>
+ * The capture group index of every output field is resolved at compile time, lines are matched as they are in the
+ * parser's <code>StringBuilder</code> (no copy) and a literal prefix extracted from the regular expression is used to
+ * reject lines that can't match before running the regular expression.
+ * <p/>
+ * Instances are thread safe, the {@link Matcher} returned by {@link #matcher()} is not and must be owned by a parser.
+ */
+final class CompiledLogPattern {
+  private static final String META_CHARS = "\\[](){}.*+?^$|";
+  private static final int NO_PREFILTER_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL |
+      Pattern.CANON_EQ;
+
+  private final Pattern pattern;
+  private final String[] fieldNames;
+  private final int[] groups;
+  private final String prefix;
+  private final boolean anchored;
+
+  private CompiledLogPattern(Pattern pattern, String[] fieldNames, int[] groups) {
+    this.pattern = pattern;
+    this.fieldNames = fieldNames;
+    this.groups = groups;
+    String regex = pattern.pattern();
+    anchored = regex.startsWith("^") && (pattern.flags() & Pattern.MULTILINE) == 0;
+    prefix = ((pattern.flags() & NO_PREFILTER_FLAGS) == 0) ? literalPrefix(regex) : "";
+  }
+
+  /**
+   * Compiles a regular expression with named groups (ie a digested Grok expression), the output fields are the
+   * named groups in the order they first appear in the expression.
+   */
+  static CompiledLogPattern fromNamedRegex(String namedRegex) {
+    com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Pattern namedPattern =
+        com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Pattern.compile(namedRegex);
+    Map<String, List<GroupInfo>> groupInfo = namedPattern.groupInfo();
+    String[] fieldNames = new String[groupInfo.size()];
+    int[] groups = new int[groupInfo.size()];
+    int i = 0;
+    for (Map.Entry<String, List<GroupInfo>> entry : groupInfo.entrySet()) {
+      fieldNames[i] = entry.getKey();
+      // same group Grok reports for a name appearing more than once, the first one, group indexes start at 1
+      groups[i] = entry.getValue().get(0).groupIndex() + 1;
+      i++;
+    }
+    return new CompiledLogPattern(namedPattern.pattern(), fieldNames, groups);
+  }
+
+  /**
+   * Compiles a plain regular expression, the output fields are the given field paths mapped to group indexes.
+   */
+  static CompiledLogPattern fromRegex(String regex, Map<String, Integer> fieldToGroupMap) {
+    String[] fieldNames = new String[fieldToGroupMap.size()];
+    int[] groups = new int[fieldToGroupMap.size()];
+    int i = 0;
+    for (Map.Entry<String, Integer> entry : fieldToGroupMap.entrySet()) {
+      fieldNames[i] = entry.getKey();
+      groups[i] = entry.getValue();
+      i++;
+    }
+    return new CompiledLogPattern(Pattern.compile(regex), fieldNames, groups);
+  }
+
+  /**
+   * Returns a new matcher for this pattern, parsers keep one and reuse it for all their lines.
+   */
+  Matcher matcher() {
+    return pattern.matcher("");
+  }
+
+  /**
+   * Matches the line and returns its fields, <code>null</code> if the line does not match.
+   */
+  Map<String, Field> parse(Matcher matcher, CharSequence line) {
+    if (!mayMatch(line)) {
+      return null;
+    }
+    matcher.reset(line);
+    try {
+      if (!matcher.find()) {
+        return null;
+      }
+      Map<String, Field> fields = new LinkedHashMap<>(fieldNames.length * 4 / 3 + 1);
+      for (int i = 0; i < fieldNames.length; i++) {
+        fields.put(fieldNames[i], Field.create(matcher.group(groups[i])));
+      }
+      return fields;
+    } finally {
+      // don't keep a reference to the caller's (pooled) buffer
+      matcher.reset("");
+    }
+  }
+
+  /**
+   * Returns <code>false</code> if the line can't match because it does not have the literal prefix of the pattern,
+   * at its start if the pattern is anchored, anywhere otherwise.
+   */
+  @VisibleForTesting
+  boolean mayMatch(CharSequence line) {
+    if (prefix.isEmpty()) {
+      return true;
+    }
+    if (anchored) {
+      return regionMatches(line, 0, prefix);
+    }
+    int last = line.length() - prefix.length();
+    char first = prefix.charAt(0);
+    for (int i = 0; i <= last; i++) {
+      if (line.charAt(i) == first && regionMatches(line, i, prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  String getPrefix() {
+    return prefix;
+  }
+
+  String pattern() {
+    return pattern.pattern();
+  }
+
+  private static boolean regionMatches(CharSequence line, int offset, String literal) {
+    if (offset + literal.length() > line.length()) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (line.charAt(offset + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the literal characters every match of the regular expression starts with, an empty string if there are
+   * none or if the expression has a top level alternation.
+   */
+  @VisibleForTesting
+  static String literalPrefix(String regex) {
+    if (hasTopLevelAlternation(regex)) {
+      return "";
+    }
+    StringBuilder prefix = new StringBuilder();
+    int i = regex.startsWith("^") ? 1 : 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      int next;
+      if (c == '\\') {
+        // only escaped non alphanumeric characters are literals, \d, \Q, \p{..} and the like end the prefix
+        if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          break;
+        }
+        c = regex.charAt(i + 1);
+        next = i + 2;
+      } else if (META_CHARS.indexOf(c) >= 0) {
+        break;
+      } else {
+        next = i + 1;
+      }
+      if (next < regex.length()) {
+        char quantifier = regex.charAt(next);
+        if (quantifier == '*' || quantifier == '?' || quantifier == '{') {
+          // the character is optional (or repeated a variable number of times)
+          break;
+        }
+        if (quantifier == '+') {
+          prefix.append(c);
+          break;
+        }
+      }
+      prefix.append(c);
+      i = next;
+    }
+    return prefix.toString();
+  }
+
+  private static boolean hasTopLevelAlternation(String regex) {
+    int depth = 0;
+    boolean inClass = false;
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (inClass) {
+        inClass = c != ']';
+      } else if (c == '[') {
+        inClass = true;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == '|' && depth == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -23,17 +23,17 @@ import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.lib.io.OverrunReader;
 import com.streamsets.pipeline.lib.parser.DataParserException;
-import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.util.Grok;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Matcher;
 
 public class GrokParser extends LogCharDataParser {
 
-  private final Grok compiledPattern;
+  private final CompiledLogPattern compiledPattern;
   private final String formatName;
+  private final Matcher matcher;
 
   public GrokParser(Stage.Context context,
                     String readerId,
@@ -42,7 +42,7 @@ public class GrokParser extends LogCharDataParser {
                     int maxObjectLen,
                     boolean retainOriginalText,
                     int maxStackTraceLines,
-                    Grok compiledPattern,
+                    CompiledLogPattern compiledPattern,
                     String formatName,
                     GenericObjectPool<StringBuilder> currentLineBuilderPool,
                     GenericObjectPool<StringBuilder> previousLineBuilderPool
@@ -50,19 +50,16 @@ public class GrokParser extends LogCharDataParser {
     super(context, readerId, reader, readerOffset, maxObjectLen, retainOriginalText, maxStackTraceLines, currentLineBuilderPool, previousLineBuilderPool);
     this.compiledPattern = compiledPattern;
     this.formatName = formatName;
+    this.matcher = compiledPattern.matcher();
   }
 
   @Override
   public Map<String, Field> parseLogLine(StringBuilder logLine) throws DataParserException {
-    Map<String, String> namedGroupToValuesMap = compiledPattern.extractNamedGroups(logLine.toString());
-    if(namedGroupToValuesMap == null) {
+    Map<String, Field> map = compiledPattern.parse(matcher, logLine);
+    if(map == null) {
       //Did not match
       handleNoMatch(logLine.toString());
     }
-    Map<String, Field> map = new LinkedHashMap<>();
-    for(Map.Entry<String, String> e : namedGroupToValuesMap.entrySet()) {
-      map.put(e.getKey(), Field.create(e.getValue()));
-    }
     return map;
   }
 
@@ -31,7 +31,6 @@ import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.dictionary.GrokDictionary;
-import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.util.Grok;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.io.IOException;
@@ -43,7 +42,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 public class LogDataParserFactory extends DataParserFactory {
 
@@ -107,7 +105,7 @@ public class LogDataParserFactory extends DataParserFactory {
   private final String log4jCustomLogFormat;
   private final OnParseError onParseError;
   private final int maxStackTraceLength;
-  private final Map<String, Object> regexToPatternMap;
+  private final Map<String, CompiledLogPattern> regexToPatternMap;
   private final GenericObjectPool<StringBuilder> currentLineBuilderPool;
   private final GenericObjectPool<StringBuilder> previousLineBuilderPool;
 
@@ -165,7 +163,7 @@ public class LogDataParserFactory extends DataParserFactory {
             currentLineBuilderPool, previousLineBuilderPool);
         case REGEX:
           return new RegexParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
-            createPattern(regex), fieldPathToGroup, currentLineBuilderPool, previousLineBuilderPool);
+            createPattern(regex), currentLineBuilderPool, previousLineBuilderPool);
         case GROK:
           return new GrokParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
             getMaxStackTraceLines(), createGrok(grokPattern, grokDictionaries), "Grok Format",
@@ -184,9 +182,9 @@ public class LogDataParserFactory extends DataParserFactory {
   }
 
   @VisibleForTesting
-  private Grok createGrok(String grokPattern, List<String> dictionaries) {
+  private CompiledLogPattern createGrok(String grokPattern, List<String> dictionaries) {
     if(regexToPatternMap.containsKey(grokPattern)) {
-      return (Grok) regexToPatternMap.get(grokPattern);
+      return regexToPatternMap.get(grokPattern);
     }
     GrokDictionary grokDictionary = new GrokDictionary();
     //Add grok patterns and Java patterns by default
@@ -201,17 +199,17 @@ public class LogDataParserFactory extends DataParserFactory {
     }
     // Resolve all expressions loaded
     grokDictionary.bind();
-    Grok grok = grokDictionary.compileExpression(grokPattern);
+    CompiledLogPattern grok = CompiledLogPattern.fromNamedRegex(grokDictionary.digestExpression(grokPattern));
     regexToPatternMap.put(grokPattern, grok);
     return grok;
   }
 
   @VisibleForTesting
-  private Pattern createPattern(String regex) {
+  private CompiledLogPattern createPattern(String regex) {
     if(regexToPatternMap.containsKey(regex)) {
-      return (Pattern) regexToPatternMap.get(regex);
+      return regexToPatternMap.get(regex);
     }
-    Pattern pattern = Pattern.compile(regex);
+    CompiledLogPattern pattern = CompiledLogPattern.fromRegex(regex, fieldPathToGroup);
     regexToPatternMap.put(regex, pattern);
     return pattern;
   }
@@ -26,15 +26,13 @@ import com.streamsets.pipeline.lib.parser.DataParserException;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class RegexParser extends LogCharDataParser {
 
-  private final Pattern pattern;
-  private final Map<String, Integer> fieldToGroupMap;
+  private final CompiledLogPattern pattern;
+  private final Matcher matcher;
 
   public RegexParser(Stage.Context context,
                      String readerId,
@@ -42,28 +40,20 @@ public class RegexParser extends LogCharDataParser {
                      long readerOffset,
                      int maxObjectLen,
                      boolean retainOriginalText,
-                     Pattern pattern,
-                     Map<String, Integer> fieldToGroupMap,
+                     CompiledLogPattern pattern,
                      GenericObjectPool<StringBuilder> currentLineBuilderPool,
                      GenericObjectPool<StringBuilder> previousLineBuilderPool
   ) throws IOException {
     super(context, readerId, reader, readerOffset, maxObjectLen, retainOriginalText, -1, currentLineBuilderPool, previousLineBuilderPool);
-    this.fieldToGroupMap = fieldToGroupMap;
     this.pattern = pattern;
+    this.matcher = pattern.matcher();
   }
 
   @Override
   protected Map<String, Field> parseLogLine(StringBuilder sb) throws DataParserException {
-    Matcher m = pattern.matcher(sb.toString());
-    if (!m.find()) {
-      if (!m.find()) {
-        throw new DataParserException(Errors.LOG_PARSER_03, sb.toString(), "Regular Expression - " + pattern.pattern());
-      }
-    }
-
-    Map<String, Field> map = new HashMap<>();
-    for(Map.Entry<String, Integer> e : fieldToGroupMap.entrySet()) {
-      map.put(e.getKey(), Field.create(m.group(e.getValue())));
+    Map<String, Field> map = pattern.parse(matcher, sb);
+    if (map == null) {
+      throw new DataParserException(Errors.LOG_PARSER_03, sb.toString(), "Regular Expression - " + pattern.pattern());
     }
     return map;
   }
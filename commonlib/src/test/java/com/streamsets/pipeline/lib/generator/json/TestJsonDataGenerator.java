@@ -21,6 +21,8 @@ package com.streamsets.pipeline.lib.generator.json;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.FileRef;
 import com.streamsets.pipeline.api.OnRecordError;
@@ -45,7 +47,9 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -214,4 +218,38 @@ public class TestJsonDataGenerator {
       testDir.delete();
     }
   }
+
+  @Test
+  public void testAllFieldTypes() throws Exception {
+    LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+    map.put("boolean", Field.create(true));
+    map.put("char", Field.create('c'));
+    map.put("byte", Field.create((byte) 1));
+    map.put("short", Field.create((short) 2));
+    map.put("integer", Field.create(3));
+    map.put("long", Field.create(4L));
+    map.put("float", Field.create(5.5f));
+    map.put("double", Field.create(6.5d));
+    map.put("decimal", Field.create(new BigDecimal("7.123456789012345678901234567890")));
+    map.put("date", Field.createDate(new Date(8)));
+    map.put("datetime", Field.createDatetime(new Date(9)));
+    map.put("time", Field.createTime(new Date(10)));
+    map.put("byteArray", Field.create(new byte[]{1, 2, 3}));
+    map.put("string", Field.create("a\"b\n"));
+    map.put("null", Field.create(Field.Type.INTEGER, null));
+    map.put("list", Field.create(ImmutableList.of(Field.create(1), Field.create(Field.Type.MAP, null))));
+    map.put("map", Field.create(ImmutableMap.of("x", Field.create("y"))));
+    Record record = RecordCreator.create();
+    record.set(Field.createListMap(map));
+
+    StringWriter writer = new StringWriter();
+    DataGenerator gen = new JsonCharDataGenerator(writer, JsonMode.MULTIPLE_OBJECTS);
+    gen.write(record);
+    gen.close();
+
+    String expected = new ObjectMapper().writeValueAsString(JsonCharDataGenerator.fieldToJsonObject(record,
+        record.get()));
+    Assert.assertEquals(expected + JsonCharDataGenerator.EOL, writer.toString());
+  }
+
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+public class TestEolFinder {
+
+  private static int naiveIndexOfEol(ByteBuffer buffer, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == '\n' || buffer.get(i) == '\r') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int naiveLastIndexOfLf(ByteBuffer buffer, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  public void testNoEol() {
+    ByteBuffer buffer = ByteBuffer.wrap("Hello World, no EOL here".getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    Assert.assertEquals(-1, EolFinder.indexOfEol(buffer, 0, buffer.capacity()));
+    Assert.assertEquals(-1, EolFinder.lastIndexOfLf(buffer, 0, buffer.capacity()));
+  }
+
+  @Test
+  public void testEols() {
+    ByteBuffer buffer = ByteBuffer.wrap("Hello1\r\nHello2\nHello3\rHello4".getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    Assert.assertEquals(6, EolFinder.indexOfEol(buffer, 0, buffer.capacity()));
+    Assert.assertEquals(7, EolFinder.indexOfEol(buffer, 7, buffer.capacity()));
+    Assert.assertEquals(14, EolFinder.indexOfEol(buffer, 8, buffer.capacity()));
+    Assert.assertEquals(21, EolFinder.indexOfEol(buffer, 15, buffer.capacity()));
+    Assert.assertEquals(14, EolFinder.lastIndexOfLf(buffer, 0, buffer.capacity()));
+    Assert.assertEquals(7, EolFinder.lastIndexOfLf(buffer, 0, 14));
+    Assert.assertEquals(-1, EolFinder.lastIndexOfLf(buffer, 15, buffer.capacity()));
+  }
+
+  @Test
+  public void testAgainstByteScan() {
+    // high bytes (0x8A, 0x8D) must not be taken as EOLs
+    byte[] alphabet = {'a', '\n', '\r', (byte) 0x8A, (byte) 0x8D, 0, (byte) 0xFF, ' '};
+    Random random = new Random(0);
+    for (int n = 0; n < 1000; n++) {
+      byte[] data = new byte[random.nextInt(40)];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (random.nextInt(4) == 0) ? alphabet[random.nextInt(alphabet.length)] : (byte) 'x';
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+      int from = (data.length == 0) ? 0 : random.nextInt(data.length);
+      int to = from + random.nextInt(data.length - from + 1);
+      Assert.assertEquals(naiveIndexOfEol(buffer, from, to), EolFinder.indexOfEol(buffer, from, to));
+      Assert.assertEquals(naiveLastIndexOfLf(buffer, from, to), EolFinder.lastIndexOfLf(buffer, from, to));
+    }
+  }
+
+}
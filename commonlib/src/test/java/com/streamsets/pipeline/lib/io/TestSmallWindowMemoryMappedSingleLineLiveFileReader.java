@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.io;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+public class TestSmallWindowMemoryMappedSingleLineLiveFileReader extends TestSingleLineLiveFileReader {
+
+  // the test files are smaller than the default window, with a small window most reads come from mapped windows
+  @Override
+  protected LiveFileReader createReader(RollMode rollMode, String tag, LiveFile file, Charset charset, long offset,
+      int maxLineLen) throws IOException {
+    return new SingleLineLiveFileReader(rollMode, tag, file, charset, offset, maxLineLen, true, 16);
+  }
+
+}
@@ -19,6 +19,8 @@
  */
 package com.streamsets.pipeline.lib.parser.json;
 
+import com.google.common.collect.ImmutableSet;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
@@ -31,7 +33,12 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class TestJsonCharDataParser {
 
@@ -195,4 +202,56 @@ public class TestJsonCharDataParser {
     parser.close();
   }
 
+  @Test
+  public void testFieldTypes() throws Exception {
+    OverrunReader reader = new OverrunReader(new StringReader(
+        "{\"s\":\"a\",\"i\":1,\"l\":10000000000,\"bi\":100000000000000000000,\"d\":1.5,\"b\":true," +
+            "\"n\":null,\"m\":{\"x\":[1,{}]}}"), 1000, true, false);
+    DataParser parser = new JsonCharDataParser(getContext(), "id", reader, 0,
+                                               OverrunStreamingJsonParser.Mode.MULTIPLE_OBJECTS, 1000);
+    Record record = parser.parse();
+    Assert.assertNotNull(record);
+    Map<String, Field> map = record.get().getValueAsMap();
+    Assert.assertEquals(Arrays.asList("s", "i", "l", "bi", "d", "b", "n", "m"), new ArrayList<>(map.keySet()));
+    Assert.assertEquals(Field.create("a"), map.get("s"));
+    Assert.assertEquals(Field.create(1), map.get("i"));
+    Assert.assertEquals(Field.create(10000000000L), map.get("l"));
+    Assert.assertEquals(Field.create(new BigDecimal("100000000000000000000")), map.get("bi"));
+    Assert.assertEquals(Field.create(1.5d), map.get("d"));
+    Assert.assertEquals(Field.create(true), map.get("b"));
+    Assert.assertEquals(Field.create(Field.Type.STRING, null), map.get("n"));
+    List<Field> list = map.get("m").getValueAsMap().get("x").getValueAsList();
+    Assert.assertEquals(Field.create(1), list.get(0));
+    Assert.assertEquals(Field.Type.MAP, list.get(1).getType());
+    Assert.assertTrue(list.get(1).getValueAsMap().isEmpty());
+    Assert.assertNull(parser.parse());
+    parser.close();
+  }
+
+  @Test
+  public void testFieldPaths() throws Exception {
+    OverrunReader reader = new OverrunReader(new StringReader(
+        "{\"a\":1,\"b\":{\"c\":2,\"d\":[3]},\"e\":[{\"f\":4,\"g\":5}]}\n{\"b\":{\"d\":6}}"), 1000, true, false);
+    DataParser parser = new JsonCharDataParser(getContext(), "id", reader, 0,
+                                               OverrunStreamingJsonParser.Mode.MULTIPLE_OBJECTS, 1000,
+                                               Arrays.asList("/b/c", "/e[*]/f"));
+    Record record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals(ImmutableSet.of("b", "e"), record.get().getValueAsMap().keySet());
+    Assert.assertEquals(ImmutableSet.of("c"), record.get("/b").getValueAsMap().keySet());
+    Assert.assertEquals(1, record.get("/e").getValueAsList().size());
+    Assert.assertEquals(ImmutableSet.of("f"), record.get("/e[0]").getValueAsMap().keySet());
+    Assert.assertEquals(2, record.get("/b/c").getValueAsInteger());
+    Assert.assertEquals(4, record.get("/e[0]/f").getValueAsInteger());
+
+    // the offset must not be affected by the skipped fields
+    Assert.assertEquals(48, Long.parseLong(parser.getOffset()));
+    record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("id::48", record.getHeader().getSourceId());
+    Assert.assertTrue(record.get("/b").getValueAsMap().isEmpty());
+    Assert.assertNull(parser.parse());
+    parser.close();
+  }
+
 }
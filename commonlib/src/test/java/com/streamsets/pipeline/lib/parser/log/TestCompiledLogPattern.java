@@ -0,0 +1,129 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.log;
+
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.dictionary.GrokDictionary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+public class TestCompiledLogPattern {
+
+  private static final String COMBINED_LOG_LINE = "127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] " +
+      "\"GET /apache_pb.gif HTTP/1.0\" 200 2326 \"http://www.example.com/start.html\" \"Mozilla/4.08 [en] " +
+      "(Win98; I ;Nav)\"";
+
+  private static final String SYSLOG_PATTERN = "<%{POSINT:priority}>%{SYSLOGTIMESTAMP:timestamp} " +
+      "%{SYSLOGHOST:host} %{DATA:program}(?:\\[%{POSINT:pid}\\])?: %{GREEDYDATA:message}";
+
+  private static final String SYSLOG_LINE = "<34>Oct 11 22:14:15 mymachine su[123]: 'su root' failed for lonvick";
+
+  private static CompiledLogPattern compileGrok(String grokPattern) {
+    GrokDictionary grokDictionary = new GrokDictionary();
+    grokDictionary.addDictionary(TestCompiledLogPattern.class.getClassLoader().getResourceAsStream(
+        Constants.GROK_PATTERNS_FILE_NAME));
+    grokDictionary.bind();
+    return CompiledLogPattern.fromNamedRegex(grokDictionary.digestExpression(grokPattern));
+  }
+
+  @Test
+  public void testLiteralPrefix() {
+    Assert.assertEquals("abc", CompiledLogPattern.literalPrefix("abc"));
+    Assert.assertEquals("abc", CompiledLogPattern.literalPrefix("^abc.*"));
+    Assert.assertEquals("[x]", CompiledLogPattern.literalPrefix("\\[x\\](\\d+)"));
+    Assert.assertEquals("a", CompiledLogPattern.literalPrefix("ab*c"));
+    Assert.assertEquals("a", CompiledLogPattern.literalPrefix("ab?c"));
+    Assert.assertEquals("a", CompiledLogPattern.literalPrefix("ab{2}c"));
+    Assert.assertEquals("ab", CompiledLogPattern.literalPrefix("ab+c"));
+    Assert.assertEquals("a", CompiledLogPattern.literalPrefix("a\\d"));
+    Assert.assertEquals("", CompiledLogPattern.literalPrefix("(a)bc"));
+    Assert.assertEquals("", CompiledLogPattern.literalPrefix(".abc"));
+    Assert.assertEquals("", CompiledLogPattern.literalPrefix("abc|def"));
+    Assert.assertEquals("ab", CompiledLogPattern.literalPrefix("ab(c|d)"));
+    Assert.assertEquals("ab", CompiledLogPattern.literalPrefix("ab[c|d]"));
+  }
+
+  @Test
+  public void testPrefilter() {
+    CompiledLogPattern anchored = CompiledLogPattern.fromRegex("^\\[(\\d+)\\] (.*)", ImmutableMap.of("/pid", 1));
+    Assert.assertTrue(anchored.mayMatch(new StringBuilder("[1] a")));
+    Assert.assertFalse(anchored.mayMatch(new StringBuilder("x[1] a")));
+    Assert.assertFalse(anchored.mayMatch(new StringBuilder("")));
+
+    CompiledLogPattern unanchored = CompiledLogPattern.fromRegex("\\[(\\d+)\\] (.*)", ImmutableMap.of("/pid", 1));
+    Assert.assertTrue(unanchored.mayMatch(new StringBuilder("x[1] a")));
+    Assert.assertFalse(unanchored.mayMatch(new StringBuilder("x 1 a")));
+
+    Matcher matcher = unanchored.matcher();
+    Assert.assertEquals("1", unanchored.parse(matcher, new StringBuilder("x[1] a")).get("/pid").getValueAsString());
+    Assert.assertNull(unanchored.parse(matcher, new StringBuilder("x 1 a")));
+
+    // the matcher does not keep the line, whether it matched or not
+    Assert.assertEquals(0, matcher.regionEnd());
+    Assert.assertTrue(unanchored.mayMatch(new StringBuilder("x[a] b")));
+    Assert.assertNull(unanchored.parse(matcher, new StringBuilder("x[a] b")));
+    Assert.assertEquals(0, matcher.regionEnd());
+  }
+
+  @Test
+  public void testCombinedLogFormat() {
+    CompiledLogPattern pattern = compileGrok(Constants.GROK_COMBINED_APACHE_LOG_FORMAT);
+    Matcher matcher = pattern.matcher();
+    Map<String, Field> fields = pattern.parse(matcher, new StringBuilder(COMBINED_LOG_LINE));
+    Assert.assertNotNull(fields);
+    Assert.assertEquals(
+        Arrays.asList("clientip", "ident", "auth", "timestamp", "verb", "request", "httpversion", "rawrequest",
+            "response", "bytes", "referrer", "agent"),
+        Arrays.asList(fields.keySet().toArray())
+    );
+    Assert.assertEquals("127.0.0.1", fields.get("clientip").getValueAsString());
+    Assert.assertEquals("10/Oct/2000:13:55:36 -0700", fields.get("timestamp").getValueAsString());
+    Assert.assertEquals("/apache_pb.gif", fields.get("request").getValueAsString());
+    Assert.assertNull(fields.get("rawrequest").getValue());
+    Assert.assertEquals("\"Mozilla/4.08 [en] (Win98; I ;Nav)\"", fields.get("agent").getValueAsString());
+
+    // the matcher is reused line after line
+    Assert.assertNull(pattern.parse(matcher, new StringBuilder("not a log line")));
+    Assert.assertNotNull(pattern.parse(matcher, new StringBuilder(COMBINED_LOG_LINE)));
+  }
+
+  @Test
+  public void testSyslog() {
+    CompiledLogPattern pattern = compileGrok(SYSLOG_PATTERN);
+    Assert.assertEquals("<", pattern.getPrefix());
+    Matcher matcher = pattern.matcher();
+    Map<String, Field> fields = pattern.parse(matcher, new StringBuilder(SYSLOG_LINE));
+    Assert.assertNotNull(fields);
+    Assert.assertEquals("34", fields.get("priority").getValueAsString());
+    Assert.assertEquals("Oct 11 22:14:15", fields.get("timestamp").getValueAsString());
+    Assert.assertEquals("mymachine", fields.get("host").getValueAsString());
+    Assert.assertEquals("su", fields.get("program").getValueAsString());
+    Assert.assertEquals("123", fields.get("pid").getValueAsString());
+    Assert.assertEquals("'su root' failed for lonvick", fields.get("message").getValueAsString());
+
+    Assert.assertNull(pattern.parse(matcher, new StringBuilder("Oct 11 22:14:15 mymachine su: no priority")));
+  }
+
+}
@@ -25,6 +25,9 @@ import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.util.CommonError;
+import org.apache.commons.el.Coercions;
+import org.apache.commons.el.Expression;
+import org.apache.commons.el.ExpressionString;
 import org.apache.commons.el.LruExpressionEvaluatorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +40,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ELEvaluator extends ELEval {
   private static final Logger LOG = LoggerFactory.getLogger(ELEvaluator.class);
@@ -49,6 +54,12 @@ public class ELEvaluator extends ELEval {
 
   // ExpressionEvaluatorImpl can be used as a singleton
   private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl();
+  private static final org.apache.commons.el.Logger EL_LOGGER = LruExpressionEvaluatorImpl.getLogger();
+
+  // A stage evaluates the same few expressions for every record, they are parsed once and kept per evaluator so that
+  // evaluations do not go through the synchronized LRU cache of the evaluator shared by all pipelines
+  private static final int MAX_PARSED_EXPRESSIONS = 1000;
+  private final ConcurrentMap<String, Object> parsedExpressions = new ConcurrentHashMap<>();
 
   public ELEvaluator(String configName, Map<String, Object> constants, List<Class> elFuncConstDefClasses) {
     this(configName, constants, elFuncConstDefClasses.toArray(new Class[elFuncConstDefClasses.size()]));
@@ -124,23 +135,19 @@ public class ELEvaluator extends ELEval {
   @Override
   @SuppressWarnings("unchecked")
   public <T> T evaluate (final ELVars vars, String expression, Class<T> returnType) throws ELEvalException {
-    VariableResolver variableResolver = new VariableResolver() {
-
-      @Override
-      public Object resolveVariable(String name) throws ELException {
-        Object value = constants.get(name);
-        if (!vars.hasVariable(name)) {
-          if (value == null && !constants.containsKey(name)) {
-            throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
-          }
-        } else {
-          value = vars.getVariable(name);
-        }
-        return value;
-      }
-    };
+    VariableResolver variableResolver = getVariableResolver(vars);
     try {
-      return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
+      Object parsed = parse(expression);
+      Object value;
+      if (parsed instanceof Expression) {
+        value = ((Expression) parsed).evaluate(variableResolver, functionMapper, EL_LOGGER);
+      } else if (parsed instanceof ExpressionString) {
+        value = ((ExpressionString) parsed).evaluate(variableResolver, functionMapper, EL_LOGGER);
+      } else {
+        // static text
+        value = parsed;
+      }
+      return (T) Coercions.coerce(value, returnType, EL_LOGGER);
     } catch (ELException e) {
       // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
       // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
@@ -157,6 +164,56 @@ public class ELEvaluator extends ELEval {
     }
   }
 
+  // stages evaluate their expressions with the same variables for every record, the resolver is kept in them
+  private VariableResolver getVariableResolver(ELVars vars) {
+    if (vars instanceof ELVariables) {
+      ELVariables elVariables = (ELVariables) vars;
+      VariableResolverImpl variableResolver = elVariables.getVariableResolver();
+      if (variableResolver == null || variableResolver.constants != constants) {
+        variableResolver = new VariableResolverImpl(constants, vars);
+        elVariables.setVariableResolver(variableResolver);
+      }
+      return variableResolver;
+    }
+    return new VariableResolverImpl(constants, vars);
+  }
+
+  static class VariableResolverImpl implements VariableResolver {
+    private final Map<String, Object> constants;
+    private final ELVars vars;
+
+    private VariableResolverImpl(Map<String, Object> constants, ELVars vars) {
+      this.constants = constants;
+      this.vars = vars;
+    }
+
+    @Override
+    public Object resolveVariable(String name) throws ELException {
+      Object value = constants.get(name);
+      if (!vars.hasVariable(name)) {
+        if (value == null && !constants.containsKey(name)) {
+          throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
+        }
+      } else {
+        value = vars.getVariable(name);
+      }
+      return value;
+    }
+  }
+
+  // returns a String, an Expression or an ExpressionString
+  private Object parse(String expression) throws ELException {
+    Object parsed = parsedExpressions.get(expression);
+    if (parsed == null) {
+      parsed = EVALUATOR.parseExpressionString(expression);
+      // expressions built on the fly would grow the map indefinitely
+      if (parsedExpressions.size() < MAX_PARSED_EXPRESSIONS) {
+        parsedExpressions.put(expression, parsed);
+      }
+    }
+    return parsed;
+  }
+
   private class FunctionMapperImpl implements FunctionMapper {
 
     @Override
@@ -32,6 +32,8 @@ public class ELVariables implements ELVars {
   private final Map<String, Object> constants;
   private final Map<String, Object> variables;
   private final Map<String, Object> contextVariables;
+  // resolver of the last evaluator that used these variables
+  private volatile ELEvaluator.VariableResolverImpl variableResolver;
 
   @SuppressWarnings("unchecked")
   public ELVariables() {
@@ -44,6 +46,14 @@ public class ELVariables implements ELVars {
     contextVariables = new HashMap<>();
   }
 
+  ELEvaluator.VariableResolverImpl getVariableResolver() {
+    return variableResolver;
+  }
+
+  void setVariableResolver(ELEvaluator.VariableResolverImpl variableResolver) {
+    this.variableResolver = variableResolver;
+  }
+
   private final void checkVariableName(String name) {
     Utils.checkNotNull(name, "name");
     Utils.checkArgument(TextUtils.isValidName(name), Utils.formatL("Invalid name '{}', must be '{}'",
@@ -23,6 +23,7 @@ import com.streamsets.datacollector.util.PipelineException;
 
 import java.io.Closeable;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface Snapshot extends Closeable {
 
@@ -30,4 +31,10 @@ public interface Snapshot extends Closeable {
 
   public InputStream getOutput() throws PipelineException;
 
+  /**
+   * Streams <code>batchCount</code> batches of the snapshot data, starting at <code>batchOffset</code>, as JSON to the
+   * given output stream. A negative <code>batchCount</code> streams all the remaining batches.
+   */
+  public void writeOutput(OutputStream outputStream, int batchOffset, int batchCount) throws PipelineException;
+
 }
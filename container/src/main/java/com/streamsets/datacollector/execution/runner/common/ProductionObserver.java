@@ -19,8 +19,12 @@
  */
 package com.streamsets.datacollector.execution.runner.common;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.streamsets.datacollector.config.DataRuleDefinition;
+import com.streamsets.datacollector.metrics.MetricsConfigurator;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.runner.Observer;
 import com.streamsets.datacollector.runner.Pipe;
@@ -33,15 +37,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -49,40 +52,38 @@ public class ProductionObserver implements Observer {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProductionObserver.class);
 
-  private final com.streamsets.datacollector.util.Configuration configuration;
   private BlockingQueue<Object> observeRequests;
   private final MetricsObserverRunner metricsObserverRunner;
+  private final long offerWaitTimeMs;
+  private final Counter droppedObservationsCounter;
+  private final Meter droppedObservationsMeter;
 
   private volatile RulesConfigurationChangeRequest currentConfig;
   private volatile RulesConfigurationChangeRequest newConfig;
 
-   /*A lane has multiple rules with different sampling percentages.
-    Pick the one with highest sampling %, say n and generate n integers between 0 and 99.
-    All other rules for that lane pick a subset of numbers from that generated list based on their sampling %.
-    Maintain a record counter per lane that counts the records that flows through it.
-    If the counter matches a generated number, that record is picked uo, cloned and sent for evaluation.
-    This map holds the n generated numbers for the rule with max sampling % */
-  private final Map<String, Set<Integer>> laneToMaxRecordIndexMap;
-  /*This map holds the generated numbers for each rule, which is selected from the n generated numbers for the rule
-  with max sampling %.*/
-  private final Map<String, Set<Integer>> ruleIdToRecordIndexMap;
-  /*This map holds the count of records that have flown though that lane. The counter is reset when it reaches 100*/
-  private final Map<String, Integer> laneToRecordCounterMap;
-  /*Contains integers between 0 and 99 and n random numbers are selected by shuffling this list and picking the first
-  n*/
-  private final List<Integer> randomNumberSampleSpace;
+  /*Sampling state of every observed lane, only accessed by the pipeline thread*/
+  private final Map<String, LaneSampler> laneSamplers;
 
-  @Inject
   public ProductionObserver(Configuration configuration, MetricsObserverRunner metricsObserverRunner) {
-    this.configuration = configuration;
+    this(configuration, metricsObserverRunner, new MetricRegistry(), null, null);
+  }
+
+  @Inject
+  public ProductionObserver(
+      Configuration configuration,
+      MetricsObserverRunner metricsObserverRunner,
+      MetricRegistry metrics,
+      @Named("name") String pipelineName,
+      @Named("rev") String revision
+  ) {
     this.metricsObserverRunner = metricsObserverRunner;
-    this.laneToMaxRecordIndexMap = new HashMap<>();
-    this.ruleIdToRecordIndexMap = new HashMap<>();
-    this.laneToRecordCounterMap = new HashMap<>();
-    randomNumberSampleSpace = new ArrayList<>(100);
-    for(int i = 0; i < 100; i++) {
-      randomNumberSampleSpace.add(i);
-    }
+    this.offerWaitTimeMs = configuration.get(Constants.MAX_OBSERVER_REQUEST_OFFER_WAIT_TIME_MS_KEY,
+      Constants.MAX_OBSERVER_REQUEST_OFFER_WAIT_TIME_MS_DEFAULT);
+    this.droppedObservationsCounter = MetricsConfigurator.createCounter(metrics, "pipeline.droppedObservations",
+      pipelineName, revision);
+    this.droppedObservationsMeter = MetricsConfigurator.createMeter(metrics, "pipeline.droppedObservations",
+      pipelineName, revision);
+    this.laneSamplers = new HashMap<>();
   }
 
   public void setObserveRequests(BlockingQueue<Object> observeRequests) {
@@ -121,8 +122,8 @@ public class ProductionObserver implements Observer {
   @Override
   public void observe(Pipe pipe, Map<String, List<Record>> snapshot) {
     Map<String, Map<String, List<Record>>> laneToRecordsMap = new HashMap<>();
-    Map<String, List<Record>> ruleIdToRecordsMap = new HashMap<>();
     Map<String, Integer> laneToRecordsSizeMap = new HashMap<>();
+    boolean sampled = false;
     for(Map.Entry<String, List<Record>> entry : snapshot.entrySet()) {
       String lane = entry.getKey();
       List<Record> allRecords = entry.getValue();
@@ -130,24 +131,31 @@ public class ProductionObserver implements Observer {
       List<DataRuleDefinition> dataRuleDefinitions = currentConfig.getLaneToDataRuleMap().get(lane);
       if(dataRuleDefinitions != null) {
         Map<String, List<Record>> sampleRecords = getSampleRecords(dataRuleDefinitions, allRecords, lane);
-        for(Map.Entry<String, List<Record>> e : sampleRecords.entrySet()) {
-          ruleIdToRecordsMap.put(e.getKey(), e.getValue());
-        }
+        sampled |= !sampleRecords.isEmpty();
+        laneToRecordsMap.put(lane, sampleRecords);
       }
-      laneToRecordsMap.put(lane, ruleIdToRecordsMap);
     }
+    if (!sampled) {
+      //nothing to evaluate, don't take a slot in the observer queue
+      return;
+    }
+    DataRulesEvaluationRequest request = new DataRulesEvaluationRequest(laneToRecordsMap, laneToRecordsSizeMap);
     boolean offered;
-    try {
-      offered = observeRequests.offer(new DataRulesEvaluationRequest(laneToRecordsMap, laneToRecordsSizeMap),
-        configuration.get(Constants.MAX_OBSERVER_REQUEST_OFFER_WAIT_TIME_MS_KEY,
-        Constants.MAX_OBSERVER_REQUEST_OFFER_WAIT_TIME_MS_DEFAULT), TimeUnit.MILLISECONDS);
-    } catch (InterruptedException e) {
-      offered = false;
+    if (offerWaitTimeMs <= 0) {
+      offered = observeRequests.offer(request);
+    } else {
+      try {
+        offered = observeRequests.offer(request, offerWaitTimeMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        offered = false;
+      }
     }
     if(!offered) {
-      LOG.error("Dropping DataRules Evaluation Request as observer queue is full. " +
-        "Please resize the observer queue or decrease the sampling percentage.");
-      //reconfigure queue size or tune sampling %
+      droppedObservationsCounter.inc();
+      droppedObservationsMeter.mark();
+      LOG.debug("Dropping DataRules Evaluation Request as observer queue is full, dropped so far '{}'. " +
+        "Please resize the observer queue or decrease the sampling percentage.", droppedObservationsCounter.getCount());
     }
   }
 
@@ -156,141 +164,108 @@ public class ProductionObserver implements Observer {
     this.newConfig = rulesConfigurationChangeRequest;
   }
 
+  @VisibleForTesting
+  long getDroppedObservations() {
+    return droppedObservationsCounter.getCount();
+  }
+
   @VisibleForTesting
   Map<String, List<Record>> getSampleRecords(List<DataRuleDefinition> dataRuleDefinitions,
                                                      List<Record> allRecords, String lane) {
-
-    // Tucu's Algorithm for sampling
-    /*
-        1* pick the highest sampling percentage, X for that lane
-        2* generate X different random number between 0 and 99
-        4* send a counter reset event to the queue
-        5* start a record counter as records flow through the observer
-        6* when counter equals one of the X random numbers, that is sampling record
-        7* when record count hits 100 go back to #2
-    */
-
-    //Implementation notes:
-    /*
-
-      Algorithm implementation:
-      -------------------------
-      To start with, all maps and counters are empty.
-
-      Say this lane has 2 rules, rule 1 and rule 2 with sampling % N and M respectively, N > M.
-
-      In the first iteration, the rule with the max sampling %, for that lane is selected, which happens to be N in our
-      case, and N unique integers between 0 and 99 are generated.
-      Look at "getRecordsToPickUp(List<DataRuleDefinition> dataRuleDefinitions)" method for the generation algorithm.
-
-      rule 2 will pick up M numbers from the set of N numbers generated for rule1.
-      This way we clone only N% of records and both rules share the same cloned records.
-
-      rule1 evaluates all sampled records and rule2 will evaluate its share of records from the same list.
-
-      Picking up new configuration:
-      -----------------------------
-
-      When the record counter for that lane hits 100, it is reset to 0.
-      At that moment all maps and counters are cleared so that in the next iteration everything is computed fresh again.
-
-      This is the moment when any changes to sampling % of data rule definitions are picked up.
-
-      very Low throughput scenario:
-      -----------------------------
-
-      Look at the following unit test that tries to simulate the very Low throughput scenario:
-      "com.streamsets.pipeline.runner.production.TestProductionObserver.testGetSampledRecordsLowThroughput"
-    */
-
-    //record counter for this lane, reset when the count reaches 100
-    int recordCounter = 0;
-    if(laneToRecordCounterMap.containsKey(lane)) {
-      recordCounter = laneToRecordCounterMap.get(lane);
-    } else {
-      laneToRecordCounterMap.put(lane, recordCounter);
+    LaneSampler sampler = laneSamplers.get(lane);
+    if (sampler == null) {
+      sampler = new LaneSampler();
+      laneSamplers.put(lane, sampler);
     }
-    Map<String, List<Record>> sampledRecordsMap = new HashMap<>();
+    return sampler.sample(dataRuleDefinitions, allRecords);
+  }
 
-    //Get the max percentage records to be sampled for this lane.
-    //Generates a set n random integers, where n is max percentage for this lane [say n = 50] between 0 and 99
-    //The set of integers generated is cached on a per lane basis.
-    Set<Integer> recordIndexToPickup;
-    if(laneToMaxRecordIndexMap.containsKey(lane)) {
-      recordIndexToPickup = laneToMaxRecordIndexMap.get(lane);
-    } else {
-      recordIndexToPickup = getRecordsToPickUp(dataRuleDefinitions);
-      laneToMaxRecordIndexMap.put(lane, recordIndexToPickup);
+  /*
+    Records flowing through a lane are sampled in windows of 100 records.
+
+    When a window starts, the highest sampling percentage n of the rules of the lane is picked up and a random
+    arrangement of the window is drawn (partial Fisher-Yates shuffle) which ranks n of the 100 positions from 0 to n-1.
+    Those n positions are the records of the window that get sampled. A rule with sampling percentage m <= n takes the
+    positions ranked below m, so every rule gets exactly m% of the records of the window, the rules of a lane share
+    the cloned records and the samples of a lower percentage rule are a subset of the higher percentage ones.
+
+    Only the n selected positions of the window are visited for each batch, the rest of the records are not looked at.
+    Any change to the sampling percentages of the rules is picked up when the next window starts.
+
+    Look at the following unit test that tries to simulate the very Low throughput scenario:
+    "com.streamsets.datacollector.execution.runner.common.TestProductionObserver.testGetSampledRecordsLowThroughput"
+  */
+  private static final class LaneSampler {
+    private static final int WINDOW = 100;
+
+    private final Random random = new Random();
+    // any arrangement of 0..99, shuffling it again still gives a uniformly random selection
+    private final int[] positions = new int[WINDOW];
+    // rank of each position of the window, WINDOW if the position is not sampled
+    private final int[] rank = new int[WINDOW];
+    // sampled positions of the window, sorted
+    private int[] picked = new int[0];
+    private int nextPicked;
+    // position in the window of the next record flowing through the lane
+    private int counter;
+
+    LaneSampler() {
+      for (int i = 0; i < WINDOW; i++) {
+        positions[i] = i;
+      }
     }
 
-    //Go over all records for this lane and determine if it needs to be cloned.
-    for(Record record : allRecords) {
-      if(recordIndexToPickup.contains(recordCounter)) {
-        //needs to be cloned
-        Record recordClone = ((RecordImpl) record).clone();
-        for(DataRuleDefinition d : dataRuleDefinitions) {
-          //for every rule in this lane, check the integers generated for it to see if this record needs to be
-          //sampled
-          Set<Integer> recordsToPickup;
-          if (ruleIdToRecordIndexMap.containsKey(d.getId())) {
-            recordsToPickup = ruleIdToRecordIndexMap.get(d.getId());
-          } else {
-            //the integers generated to pick up records for sampling is shared between all rules for that lane.
-            //the rule with least percentage contains records which are subset of rule with max percentage.
-            //this is to minimize cloning of records.
-            recordsToPickup = getRecordsToPickUp(recordIndexToPickup, (int)d.getSamplingPercentage());
-            ruleIdToRecordIndexMap.put(d.getId(), recordsToPickup);
-          }
-          if (recordsToPickup.contains(recordCounter)) {
-            //this record must be picked up by this rule
-            List<Record> sampledRecords = sampledRecordsMap.get(d.getId());
-            if (sampledRecords == null) {
-              sampledRecords = new ArrayList<>();
-              sampledRecordsMap.put(d.getId(), sampledRecords);
-            }
-            sampledRecords.add(recordClone);
-          }
-        }
-      }
-      recordCounter++;
-      if(recordCounter == 100) {
-        //clear all records to pick up.
-        //It will be generated the next time the sampling is attempted
-        //It will also pick up any changes done to sampling percentages of rules in the next iteration.
-        recordCounter = 0;
-        for(DataRuleDefinition d : dataRuleDefinitions) {
-          ruleIdToRecordIndexMap.remove(d.getId());
-        }
-        laneToMaxRecordIndexMap.remove(lane);
+    private void startWindow(int maxPercentage) {
+      Arrays.fill(rank, WINDOW);
+      for (int i = 0; i < maxPercentage; i++) {
+        int j = i + random.nextInt(WINDOW - i);
+        int position = positions[j];
+        positions[j] = positions[i];
+        positions[i] = position;
+        rank[position] = i;
       }
+      picked = Arrays.copyOf(positions, maxPercentage);
+      Arrays.sort(picked);
+      nextPicked = 0;
     }
-    laneToRecordCounterMap.put(lane, recordCounter);
-    return sampledRecordsMap;
-  }
 
-  private Set<Integer> getRecordsToPickUp(List<DataRuleDefinition> dataRuleDefinitions) {
-    //Max percentage
-    double percentage = 0;
-    for(DataRuleDefinition dataRuleDefinition : dataRuleDefinitions) {
-      if (dataRuleDefinition.getSamplingPercentage() > percentage) {
-        percentage = dataRuleDefinition.getSamplingPercentage();
+    Map<String, List<Record>> sample(List<DataRuleDefinition> dataRuleDefinitions, List<Record> allRecords) {
+      int rules = dataRuleDefinitions.size();
+      int[] percentages = new int[rules];
+      int maxPercentage = 0;
+      for (int r = 0; r < rules; r++) {
+        percentages[r] = Math.min(WINDOW, Math.max(0, (int) dataRuleDefinitions.get(r).getSamplingPercentage()));
+        maxPercentage = Math.max(maxPercentage, percentages[r]);
       }
-    }
-    Set<Integer> recordsToPickup = new HashSet<>();
-    Collections.shuffle(randomNumberSampleSpace);
-    recordsToPickup.addAll(randomNumberSampleSpace.subList(0, (int) percentage));
-    return recordsToPickup;
-  }
 
-  private Set<Integer> getRecordsToPickUp(Set<Integer> recordIndexToPickup, int samplePercentage) {
-    Set<Integer> recordsToPickup = new HashSet<>();
-    Iterator<Integer> iterator = recordIndexToPickup.iterator();
-    int counter = 0;
-    while(iterator.hasNext() && counter < samplePercentage) {
-      recordsToPickup.add(iterator.next());
-      counter++;
+      Map<String, List<Record>> sampledRecordsMap = new HashMap<>();
+      int size = allRecords.size();
+      int base = 0;
+      while (base < size) {
+        if (counter == 0) {
+          startWindow(maxPercentage);
+        }
+        int end = Math.min(WINDOW, counter + size - base);
+        while (nextPicked < picked.length && picked[nextPicked] < end) {
+          int position = picked[nextPicked++];
+          Record recordClone = ((RecordImpl) allRecords.get(base + position - counter)).clone();
+          for (int r = 0; r < rules; r++) {
+            if (rank[position] < percentages[r]) {
+              String ruleId = dataRuleDefinitions.get(r).getId();
+              List<Record> sampledRecords = sampledRecordsMap.get(ruleId);
+              if (sampledRecords == null) {
+                sampledRecords = new ArrayList<>();
+                sampledRecordsMap.put(ruleId, sampledRecords);
+              }
+              sampledRecords.add(recordClone);
+            }
+          }
+        }
+        base += end - counter;
+        counter = (end == WINDOW) ? 0 : end;
+      }
+      return sampledRecordsMap;
     }
-    return recordsToPickup;
   }
 
 }
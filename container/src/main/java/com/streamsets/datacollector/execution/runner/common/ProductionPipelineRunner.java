@@ -66,6 +66,7 @@ import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.runner.StagePipe;
 import com.streamsets.datacollector.runner.production.BadRecordsHandler;
 import com.streamsets.datacollector.runner.production.PipelineErrorNotificationRequest;
+import com.streamsets.datacollector.runner.production.ProductionSourceOffsetTracker;
 import com.streamsets.datacollector.runner.production.ReportErrorDelegate;
 import com.streamsets.datacollector.runner.production.StatsAggregationHandler;
 import com.streamsets.datacollector.util.AggregatorUtil;
@@ -609,6 +610,11 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       // Next iteration should have new and empty PipeBatch
       pipeBatch = new FullPipeBatch(null,null, batchSize, false);
     }
+
+    // No more commits, compact the pending offset changes
+    if (offsetTracker instanceof ProductionSourceOffsetTracker) {
+      ((ProductionSourceOffsetTracker) offsetTracker).close();
+    }
   }
 
   @Override
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.snapshot.common;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.datacollector.record.io.RecordEncoding;
+import com.streamsets.datacollector.runner.StageOutput;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.impl.ErrorMessage;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads, one batch at a time, snapshot batches written by {@link KryoSnapshotWriter}.
+ */
+public class KryoSnapshotReader implements Closeable {
+  private final Kryo kryo;
+  private final Input input;
+
+  public KryoSnapshotReader(InputStream inputStream) throws IOException {
+    kryo = new Kryo();
+    input = new Input(inputStream);
+    byte magicNumber = input.readByte();
+    if (magicNumber != RecordEncoding.KRYO1.getMagicNumber()) {
+      throw new IOException(String.format("Unsupported magic number '0x%X'", magicNumber));
+    }
+    int version = input.readInt();
+    if (version != KryoSnapshotWriter.VERSION) {
+      throw new IOException(Utils.format("Unsupported snapshot version '{}'", version));
+    }
+  }
+
+  /**
+   * Skips the next batch without deserializing it, returns <code>false</code> if there are no more batches.
+   */
+  public boolean skipBatch() {
+    if (input.eof()) {
+      return false;
+    }
+    input.skip(input.readInt());
+    return true;
+  }
+
+  /**
+   * Returns the next batch, <code>null</code> if there are no more batches.
+   */
+  public List<StageOutput> readBatch() {
+    if (input.eof()) {
+      return null;
+    }
+    input.readInt();
+    int stages = input.readInt();
+    List<StageOutput> batch = new ArrayList<>(stages);
+    for (int i = 0; i < stages; i++) {
+      String instanceName = input.readString();
+      Map<String, List<Record>> output = null;
+      int lanes = input.readInt();
+      if (lanes != KryoSnapshotWriter.NULL_SIZE) {
+        output = new LinkedHashMap<>();
+        for (int j = 0; j < lanes; j++) {
+          String lane = input.readString();
+          output.put(lane, readRecords());
+        }
+      }
+      List<Record> errorRecords = readRecords();
+      List<ErrorMessage> stageErrors = readErrorMessages();
+      List<Record> eventRecords = readRecords();
+      batch.add(new StageOutput(instanceName, output, errorRecords, stageErrors, eventRecords));
+    }
+    return batch;
+  }
+
+  private List<Record> readRecords() {
+    int size = input.readInt();
+    if (size == KryoSnapshotWriter.NULL_SIZE) {
+      return null;
+    }
+    List<Record> records = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      records.add(kryo.readObject(input, RecordImpl.class));
+    }
+    return records;
+  }
+
+  private List<ErrorMessage> readErrorMessages() {
+    int size = input.readInt();
+    if (size == KryoSnapshotWriter.NULL_SIZE) {
+      return null;
+    }
+    List<ErrorMessage> errorMessages = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String errorCode = input.readString();
+      String nonLocalized = input.readString();
+      long timestamp = input.readLong();
+      errorMessages.add(new ErrorMessage(errorCode, nonLocalized, timestamp));
+    }
+    return errorMessages;
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.snapshot.common;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.datacollector.record.io.RecordEncoding;
+import com.streamsets.datacollector.runner.StageOutput;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.impl.ErrorMessage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes snapshot batches in the binary Kryo format read by {@link KryoSnapshotReader}.
+ * <p/>
+ * The stream starts with the {@link RecordEncoding#KRYO1} magic number and a format version, followed by one block per
+ * batch. Each block is prefixed with its length so readers can skip batches without deserializing them.
+ */
+public class KryoSnapshotWriter implements Closeable {
+  static final int VERSION = 1;
+  static final int NULL_SIZE = -1;
+
+  private final Kryo kryo;
+  private final Output output;
+  private final Output batchOutput;
+
+  public KryoSnapshotWriter(OutputStream outputStream) {
+    kryo = new Kryo();
+    output = new Output(outputStream);
+    batchOutput = new Output(64 * 1024, -1);
+    output.writeByte(RecordEncoding.KRYO1.getMagicNumber());
+    output.writeInt(VERSION);
+  }
+
+  public void write(List<List<StageOutput>> snapshotBatches) {
+    for (List<StageOutput> batch : snapshotBatches) {
+      writeBatch(batch);
+    }
+  }
+
+  public void writeBatch(List<StageOutput> batch) {
+    batchOutput.clear();
+    batchOutput.writeInt(batch.size());
+    for (StageOutput stageOutput : batch) {
+      batchOutput.writeString(stageOutput.getInstanceName());
+      Map<String, List<Record>> lanes = stageOutput.getOutput();
+      if (lanes == null) {
+        batchOutput.writeInt(NULL_SIZE);
+      } else {
+        batchOutput.writeInt(lanes.size());
+        for (Map.Entry<String, List<Record>> lane : lanes.entrySet()) {
+          batchOutput.writeString(lane.getKey());
+          writeRecords(lane.getValue());
+        }
+      }
+      writeRecords(stageOutput.getErrorRecords());
+      writeErrorMessages(stageOutput.getStageErrors());
+      writeRecords(stageOutput.getEventRecords());
+    }
+    output.writeInt(batchOutput.position());
+    output.writeBytes(batchOutput.getBuffer(), 0, batchOutput.position());
+  }
+
+  private void writeRecords(List<Record> records) {
+    if (records == null) {
+      batchOutput.writeInt(NULL_SIZE);
+      return;
+    }
+    batchOutput.writeInt(records.size());
+    for (Record record : records) {
+      RecordImpl recordImpl = (RecordImpl) record;
+      // Kryo serializes the header attributes map as is
+      recordImpl.getHeader().materializeAttributes();
+      kryo.writeObject(batchOutput, recordImpl);
+    }
+  }
+
+  // same information the JSON snapshot keeps for stage errors, see ErrorMessageDeserializer
+  private void writeErrorMessages(List<ErrorMessage> errorMessages) {
+    if (errorMessages == null) {
+      batchOutput.writeInt(NULL_SIZE);
+      return;
+    }
+    batchOutput.writeInt(errorMessages.size());
+    for (ErrorMessage errorMessage : errorMessages) {
+      batchOutput.writeString(errorMessage.getErrorCode());
+      batchOutput.writeString(errorMessage.getNonLocalized());
+      batchOutput.writeLong(errorMessage.getTimestamp());
+    }
+  }
+
+  public void flush() throws IOException {
+    output.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    output.close();
+  }
+
+}
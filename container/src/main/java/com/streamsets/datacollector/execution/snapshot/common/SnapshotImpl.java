@@ -19,18 +19,33 @@
  */
 package com.streamsets.datacollector.execution.snapshot.common;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.record.io.RecordEncoding;
+import com.streamsets.datacollector.restapi.bean.StageOutputJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
+import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.util.ContainerError;
+import org.apache.commons.io.IOUtils;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 public class SnapshotImpl implements Snapshot, Closeable {
+  private static final String SNAPSHOT_BATCHES = "snapshotBatches";
 
   private SnapshotInfo snapshotInfo;
   private File snapshotFile;
@@ -50,7 +65,14 @@ public class SnapshotImpl implements Snapshot, Closeable {
   public InputStream getOutput() throws PipelineRuntimeException {
     if(snapshotFile != null) {
       try {
-        output = new FileInputStream(snapshotFile);
+        if (isKryo()) {
+          // binary snapshots are converted, use writeOutput() to stream them instead
+          ByteArrayOutputStream json = new ByteArrayOutputStream();
+          writeKryoAsJson(json, 0, -1);
+          output = new ByteArrayInputStream(json.toByteArray());
+        } else {
+          output = new FileInputStream(snapshotFile);
+        }
         return output;
       } catch (Exception ex) {
         throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, snapshotInfo.getId(), snapshotInfo.getName(),
@@ -60,6 +82,98 @@ public class SnapshotImpl implements Snapshot, Closeable {
     return null;
   }
 
+  @Override
+  public void writeOutput(OutputStream outputStream, int batchOffset, int batchCount)
+      throws PipelineRuntimeException {
+    if (snapshotFile != null) {
+      try {
+        if (isKryo()) {
+          writeKryoAsJson(outputStream, batchOffset, batchCount);
+        } else if (batchOffset <= 0 && batchCount < 0) {
+          try (InputStream in = new FileInputStream(snapshotFile)) {
+            IOUtils.copy(in, outputStream);
+          }
+        } else {
+          copyJsonBatches(outputStream, batchOffset, batchCount);
+        }
+        outputStream.flush();
+      } catch (Exception ex) {
+        throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, snapshotInfo.getId(), snapshotInfo.getName(),
+          snapshotInfo.getRev(), ex.toString(), ex);
+      }
+    }
+  }
+
+  private boolean isKryo() throws IOException {
+    try (InputStream in = new FileInputStream(snapshotFile)) {
+      return in.read() == (RecordEncoding.KRYO1.getMagicNumber() & 0xFF);
+    }
+  }
+
+  // converts one batch at a time, only the batch being written is kept in memory
+  private void writeKryoAsJson(OutputStream outputStream, int batchOffset, int batchCount) throws IOException {
+    ObjectMapper json = ObjectMapperFactory.get();
+    try (KryoSnapshotReader reader = new KryoSnapshotReader(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+      JsonGenerator generator = json.getFactory().createGenerator(outputStream);
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(SNAPSHOT_BATCHES);
+      for (int index = 0; batchCount < 0 || index < batchOffset + batchCount; index++) {
+        if (index < batchOffset) {
+          if (!reader.skipBatch()) {
+            break;
+          }
+        } else {
+          List<StageOutput> batch = reader.readBatch();
+          if (batch == null) {
+            break;
+          }
+          generator.writeStartArray();
+          for (StageOutput stageOutput : batch) {
+            json.writeValue(generator, new StageOutputJson(stageOutput));
+          }
+          generator.writeEndArray();
+        }
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.flush();
+    }
+  }
+
+  // copies the requested batches token by token, skipped batches are not materialized
+  private void copyJsonBatches(OutputStream outputStream, int batchOffset, int batchCount) throws IOException {
+    ObjectMapper json = ObjectMapperFactory.get();
+    try (JsonParser parser = json.getFactory().createParser(snapshotFile)) {
+      JsonGenerator generator = json.getFactory().createGenerator(outputStream);
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(SNAPSHOT_BATCHES);
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          parser.nextToken();
+          if (SNAPSHOT_BATCHES.equals(field) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            int index = 0;
+            while ((batchCount < 0 || index < batchOffset + batchCount) &&
+                parser.nextToken() == JsonToken.START_ARRAY) {
+              if (index < batchOffset) {
+                parser.skipChildren();
+              } else {
+                generator.copyCurrentStructure(parser);
+              }
+              index++;
+            }
+            break;
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.flush();
+    }
+  }
+
   @Override
   public void close() throws IOException {
     snapshotInfo = null;
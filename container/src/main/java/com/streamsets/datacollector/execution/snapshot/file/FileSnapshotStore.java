@@ -23,17 +23,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
+import com.streamsets.datacollector.execution.snapshot.common.KryoSnapshotWriter;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotData;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotImpl;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotInfoImpl;
 import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.record.io.RecordEncoding;
 import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
 import com.streamsets.datacollector.restapi.bean.SnapshotInfoJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.store.PipelineStoreException;
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.datacollector.util.ContainerError;
 import com.streamsets.datacollector.util.LockCache;
 import com.streamsets.datacollector.util.PipelineDirectoryUtil;
@@ -52,16 +55,31 @@ import java.util.Collections;
 import java.util.List;
 
 public class FileSnapshotStore implements SnapshotStore {
+  public static final String SNAPSHOT_ENCODING_KEY = "snapshot.encoding";
+  public static final String SNAPSHOT_ENCODING_DEFAULT = RecordEncoding.JSON1.name();
+
   private static final String SNAPSHOT_FILE_NAME = "snapshot.json";
+  private static final String KRYO_SNAPSHOT_FILE_NAME = "snapshot.kryo";
   private static final String INFO_FILE_NAME = "info.json";
   private final LockCache<String> lockCache;
   private final RuntimeInfo runtimeInfo;
   private final ObjectMapper json;
+  private final RecordEncoding encoding;
 
-  @Inject
   public FileSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache) {
+    this(runtimeInfo, lockCache, RecordEncoding.JSON1);
+  }
+
+  @Inject
+  public FileSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache, Configuration configuration) {
+    this(runtimeInfo, lockCache, RecordEncoding.valueOf(
+        configuration.get(SNAPSHOT_ENCODING_KEY, SNAPSHOT_ENCODING_DEFAULT).toUpperCase()));
+  }
+
+  public FileSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache, RecordEncoding encoding) {
     this.runtimeInfo = runtimeInfo;
     this.lockCache = lockCache;
+    this.encoding = encoding;
     json = ObjectMapperFactory.get();
   }
 
@@ -195,17 +213,19 @@ public class FileSnapshotStore implements SnapshotStore {
   }
 
   File getData(String name, String rev, String id) throws PipelineRuntimeException {
-    File dataFile = getPipelineSnapshotFile(name, rev, id);
-    if(dataFile.exists()) {
-      return dataFile;
-    } else {
-      return null;
+    // the snapshot may have been saved with a different encoding than the current one
+    for (RecordEncoding dataEncoding : RecordEncoding.values()) {
+      File dataFile = getPipelineSnapshotFile(name, rev, id, dataEncoding);
+      if (dataFile.exists()) {
+        return dataFile;
+      }
     }
+    return null;
   }
 
-  private File getPipelineSnapshotFile(String pipelineName, String rev, String snapshotName) {
+  private File getPipelineSnapshotFile(String pipelineName, String rev, String snapshotName, RecordEncoding encoding) {
     return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, pipelineName, rev, snapshotName),
-      SNAPSHOT_FILE_NAME);
+      encoding == RecordEncoding.KRYO1 ? KRYO_SNAPSHOT_FILE_NAME : SNAPSHOT_FILE_NAME);
   }
 
   private File getPipelineSnapshotInfoFile(String name, String rev, String id) {
@@ -229,15 +249,30 @@ public class FileSnapshotStore implements SnapshotStore {
 
   private void persistSnapshot(String name, String rev, String id, List<List<StageOutput>> snapshotBatches)
     throws PipelineRuntimeException {
-    DataStore dataStore = new DataStore(getPipelineSnapshotFile(name, rev, id));
+    DataStore dataStore = new DataStore(getPipelineSnapshotFile(name, rev, id, encoding));
     try (OutputStream out = dataStore.getOutputStream()) {
-      json.writeValue(out, new SnapshotDataJson(new SnapshotData(snapshotBatches)));
+      if (encoding == RecordEncoding.KRYO1) {
+        KryoSnapshotWriter writer = new KryoSnapshotWriter(out);
+        writer.write(snapshotBatches);
+        writer.flush();
+      } else {
+        json.writeValue(out, new SnapshotDataJson(new SnapshotData(snapshotBatches)));
+      }
       dataStore.commit(out);
     } catch (IOException e) {
       throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev, e.toString(), e);
     } finally {
       dataStore.release();
     }
+    for (RecordEncoding otherEncoding : RecordEncoding.values()) {
+      if (otherEncoding != encoding) {
+        File staleFile = getPipelineSnapshotFile(name, rev, id, otherEncoding);
+        if (staleFile.exists() && !staleFile.delete()) {
+          throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev,
+              "Could not delete " + staleFile);
+        }
+      }
+    }
   }
 
 }
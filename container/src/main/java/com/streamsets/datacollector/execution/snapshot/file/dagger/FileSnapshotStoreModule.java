@@ -22,6 +22,7 @@ package com.streamsets.datacollector.execution.snapshot.file.dagger;
 import com.streamsets.datacollector.execution.snapshot.file.FileSnapshotStore;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.datacollector.util.LockCache;
 import com.streamsets.datacollector.util.LockCacheModule;
 
@@ -38,8 +39,12 @@ import javax.inject.Singleton;
 public class FileSnapshotStoreModule {
 
   @Provides @Singleton
-  public FileSnapshotStore provideSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache) {
-    return new FileSnapshotStore(runtimeInfo, lockCache);
+  public FileSnapshotStore provideSnapshotStore(
+      RuntimeInfo runtimeInfo,
+      LockCache<String> lockCache,
+      Configuration configuration
+  ) {
+    return new FileSnapshotStore(runtimeInfo, lockCache, configuration);
   }
 
 }
@@ -22,6 +22,7 @@ package com.streamsets.datacollector.execution.snapshot.file.dagger;
 import com.streamsets.datacollector.execution.snapshot.file.FileSnapshotStore;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.SlaveRuntimeModule;
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.datacollector.util.LockCache;
 import com.streamsets.datacollector.util.LockCacheModule;
 import dagger.Module;
@@ -37,8 +38,12 @@ import javax.inject.Singleton;
 public class SlaveFileSnapshotStoreModule {
 
   @Provides @Singleton
-  public FileSnapshotStore provideSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache) {
-    return new FileSnapshotStore(runtimeInfo, lockCache);
+  public FileSnapshotStore provideSnapshotStore(
+      RuntimeInfo runtimeInfo,
+      LockCache<String> lockCache,
+      Configuration configuration
+  ) {
+    return new FileSnapshotStore(runtimeInfo, lockCache, configuration);
   }
 
 }
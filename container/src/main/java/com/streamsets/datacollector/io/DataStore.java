@@ -21,6 +21,7 @@ package com.streamsets.datacollector.io;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.slf4j.Logger;
@@ -33,20 +34,53 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 
 public class DataStore {
   private final static Logger LOG = LoggerFactory.getLogger(DataStore.class);
-  private final static Map<Path, CounterLock> FILE_LOCKS = new HashMap<>();
+  // per file locks, the map is only updated atomically per key so stores of different files do not contend
+  private final static ConcurrentMap<Path, CounterLock> FILE_LOCKS = new ConcurrentHashMap<>();
+
+  /**
+   * How much effort is put in making commits durable.
+   */
+  public enum Durability {
+    /** Committed data is written to disk whenever the OS decides. */
+    NONE,
+    /** Committed data and the directory entry are fsync-ed before the commit returns. */
+    SYNC,
+    /**
+     * Committed files are fsync-ed in the background every batch interval, several commits of the same file within
+     * an interval cost a single fsync. A crash can lose the commits of the last interval.
+     */
+    BATCH,
+  }
+
+  public static final String DURABILITY_KEY = "datastore.durability";
+  public static final String DURABILITY_DEFAULT = Durability.NONE.name();
+  public static final String DURABILITY_BATCH_INTERVAL_MS_KEY = "datastore.durability.batch.interval.ms";
+  public static final long DURABILITY_BATCH_INTERVAL_MS_DEFAULT = 1000;
+
+  private static volatile Durability durability = Durability.NONE;
+  private static final Set<Path> PENDING_SYNCS = ConcurrentHashMap.newKeySet();
+  private static SafeScheduledExecutorService batchSyncExecutor;
 
   private final Path file;
   private final Path fileTmp;
   private final Path fileNew;
   private final Path fileOld;
+  private FileOutputStream fileOutputStream;
   private Closeable stream;
   private boolean forWrite;
   private boolean isClosed;
@@ -64,12 +98,14 @@ public class DataStore {
       counter = 1;
     }
 
-    public void inc() {
+    public CounterLock inc() {
       counter++;
+      return this;
     }
 
-    public void dec() {
+    public CounterLock dec() {
       counter--;
+      return this;
     }
 
     public void lock() {
@@ -95,23 +131,89 @@ public class DataStore {
     LOG.trace("Create DataStore for '{}'", file);
   }
 
+  /**
+   * Sets the durability of the commits of all data stores.
+   *
+   * @param durability the durability.
+   * @param batchIntervalMs interval between background fsyncs, only used with {@link Durability#BATCH}.
+   */
+  public static synchronized void setDurability(Durability durability, long batchIntervalMs) {
+    Utils.checkNotNull(durability, "durability");
+    LOG.debug("Setting DataStore durability to '{}'", durability);
+    if (batchSyncExecutor != null) {
+      batchSyncExecutor.shutdown();
+      batchSyncExecutor = null;
+      syncPendingFiles();
+    }
+    if (durability == Durability.BATCH) {
+      Utils.checkArgument(batchIntervalMs > 0, "batchIntervalMs must be greater than zero");
+      batchSyncExecutor = new SafeScheduledExecutorService(1, "DataStoreSync");
+      batchSyncExecutor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          syncPendingFiles();
+        }
+      }, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    DataStore.durability = durability;
+  }
+
+  public static Durability getDurability() {
+    return durability;
+  }
+
+  @VisibleForTesting
+  static void syncPendingFiles() {
+    Iterator<Path> iterator = PENDING_SYNCS.iterator();
+    while (iterator.hasNext()) {
+      Path path = iterator.next();
+      iterator.remove();
+      try {
+        sync(path);
+        sync(path.getParent());
+      } catch (NoSuchFileException ex) {
+        // being rewritten, the new commit will be synced
+        LOG.trace("File '{}' not found while syncing", path);
+      } catch (IOException ex) {
+        LOG.warn("Could not sync '{}': {}", path, ex.toString(), ex);
+      }
+    }
+  }
+
+  private static void sync(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (NoSuchFileException ex) {
+      throw ex;
+    } catch (IOException ex) {
+      // some platforms do not allow to sync directories
+      if (!Files.isDirectory(path)) {
+        throw ex;
+      }
+      LOG.trace("Could not sync directory '{}': {}", path, ex.toString());
+    }
+  }
+
+  @VisibleForTesting
+  static boolean hasLock(File file) {
+    return FILE_LOCKS.containsKey(file.getAbsoluteFile().toPath());
+  }
+
   public File getFile() {
     return file.toFile();
   }
 
   public void close() throws IOException {
     LOG.trace("Close DataStore for '{}'", file);
-    synchronized (DataStore.class) {
-      if (stream != null) {
-        try {
-          stream.close();
-        } catch (IOException ex) {
-          LOG.error("DataStore '{}' error while closing stream, {}", file, ex.toString(), ex);
-        }
-        FILE_LOCKS.remove(file);
-        throw new IOException(Utils.format("DataStore '{}' closed while open for '{}'", file,
-                                           (forWrite) ? "WRITE" : "READ"));
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException ex) {
+        LOG.error("DataStore '{}' error while closing stream, {}", file, ex.toString(), ex);
       }
+      FILE_LOCKS.remove(file);
+      throw new IOException(Utils.format("DataStore '{}' closed while open for '{}'", file,
+                                         (forWrite) ? "WRITE" : "READ"));
     }
   }
 
@@ -123,18 +225,17 @@ public class DataStore {
   @VisibleForTesting
   void acquireLock() {
     LOG.trace("Acquiring lock for '{}'", file);
-    CounterLock lock;
-    synchronized (DataStore.class) {
-      lock = FILE_LOCKS.get(file);
-      if (lock == null) {
-        lock = new CounterLock();
-        FILE_LOCKS.put(file, lock);
-      } else {
-        lock.inc();
-        Utils.checkState(!lock.isHeldByCurrentThread(), Utils.format("The current thread already has a lock on '{}'",
-                                                                     file));
+    CounterLock lock = FILE_LOCKS.compute(file, new BiFunction<Path, CounterLock, CounterLock>() {
+      @Override
+      public CounterLock apply(Path path, CounterLock current) {
+        if (current == null) {
+          return new CounterLock();
+        }
+        Utils.checkState(!current.isHeldByCurrentThread(), Utils.format("The current thread already has a lock on '{}'",
+                                                                        file));
+        return current.inc();
       }
-    }
+    });
     lock.lock();
     LOG.trace("Acquired lock '{}' for '{}'", lock, file);
   }
@@ -161,21 +262,19 @@ public class DataStore {
    *
    */
   public void release() {
-    CounterLock lock;
-    synchronized (DataStore.class) {
-      lock = FILE_LOCKS.get(file);
-
-      if(lock == null) {
-        LOG.error("Trying to release unlocked file {}", file);
-        return;
-      }
-
-      lock.dec();
+    CounterLock lock = FILE_LOCKS.get(file);
+    if(lock == null) {
+      LOG.error("Trying to release unlocked file {}", file);
+      return;
+    }
 
-      if(lock.counter == 0) {
-        FILE_LOCKS.remove(file);
+    // removing the lock from the map once nobody is using it
+    FILE_LOCKS.computeIfPresent(file, new BiFunction<Path, CounterLock, CounterLock>() {
+      @Override
+      public CounterLock apply(Path path, CounterLock current) {
+        return (current.dec().counter == 0) ? null : current;
       }
-    }
+    });
 
     LOG.trace("Releasing the lock {} for '{}'", lock, file);
     lock.unlock();
@@ -263,13 +362,18 @@ public class DataStore {
         Files.move(file, fileOld);
         LOG.trace("Starting write, move '{}' to '{}'", file, fileOld);
       }
-      OutputStream os = new ProxyOutputStream(new FileOutputStream(fileTmp.toFile())) {
+      fileOutputStream = new FileOutputStream(fileTmp.toFile());
+      OutputStream os = new ProxyOutputStream(fileOutputStream) {
         @Override
         public void close() throws IOException {
           if (isClosed) {
             return;
           }
           try {
+            if (durability == Durability.SYNC) {
+              flush();
+              fileOutputStream.getFD().sync();
+            }
             super.close();
           } finally {
             isClosed = true;
@@ -318,6 +422,17 @@ public class DataStore {
       Files.delete(fileOld);
       LOG.trace("Committing write, deleting '{}'", fileOld);
     }
+    switch (durability) {
+      case SYNC:
+        // the file contents were synced when closing the stream, the renames are in the directory
+        sync(file.getParent());
+        break;
+      case BATCH:
+        PENDING_SYNCS.add(file);
+        break;
+      default:
+        break;
+    }
     LOG.trace("Committed");
   }
 
@@ -23,6 +23,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.execution.EventListenerManager;
 import com.streamsets.datacollector.http.WebServerTask;
+import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.metrics.MetricsModule;
 import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.lib.security.http.RemoteSSOService;
@@ -91,6 +92,10 @@ public class RuntimeModule {
         } else {
           runtimeInfo.setAclEnabled(false);
         }
+        DataStore.setDurability(
+            DataStore.Durability.valueOf(conf.get(DataStore.DURABILITY_KEY, DataStore.DURABILITY_DEFAULT).toUpperCase()),
+            conf.get(DataStore.DURABILITY_BATCH_INTERVAL_MS_KEY, DataStore.DURABILITY_BATCH_INTERVAL_MS_DEFAULT)
+        );
       } catch (IOException ex) {
         throw new RuntimeException(ex);
       }
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time and the allocated bytes of the current thread from the JVM.
+ * <p/>
+ * Both values are cheap to read compared with walking the object graph of a stage, methods return <code>-1</code> if
+ * the JVM does not support (or has disabled) the measurement.
+ */
+public class ThreadResourceUsage {
+  private static final Logger LOG = LoggerFactory.getLogger(ThreadResourceUsage.class);
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME_SUPPORTED;
+  private static final boolean ALLOCATED_BYTES_SUPPORTED;
+
+  static {
+    boolean cpuTime = false;
+    boolean allocatedBytes = false;
+    try {
+      cpuTime = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+      if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+        allocatedBytes = sunThreadMXBean.isThreadAllocatedMemorySupported() &&
+            sunThreadMXBean.isThreadAllocatedMemoryEnabled();
+      }
+    } catch (Throwable ex) {
+      LOG.warn("Can't determine thread CPU time and allocated memory support: {}", ex.toString(), ex);
+    }
+    CPU_TIME_SUPPORTED = cpuTime;
+    ALLOCATED_BYTES_SUPPORTED = allocatedBytes;
+    LOG.debug("Thread CPU time supported '{}', thread allocated memory supported '{}'", cpuTime, allocatedBytes);
+  }
+
+  private ThreadResourceUsage() {
+  }
+
+  public static boolean isCpuTimeSupported() {
+    return CPU_TIME_SUPPORTED;
+  }
+
+  public static boolean isAllocatedBytesSupported() {
+    return ALLOCATED_BYTES_SUPPORTED;
+  }
+
+  /**
+   * Returns the CPU time of the current thread in nanoseconds.
+   */
+  public static long getCpuTime() {
+    return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+  }
+
+  /**
+   * Returns the bytes allocated in the heap by the current thread since it started.
+   */
+  public static long getAllocatedBytes() {
+    if (ALLOCATED_BYTES_SUPPORTED) {
+      return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(
+          Thread.currentThread().getId()
+      );
+    }
+    return -1;
+  }
+
+}
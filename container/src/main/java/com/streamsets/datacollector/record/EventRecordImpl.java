@@ -41,6 +41,10 @@ public class EventRecordImpl extends RecordImpl implements EventRecord {
     super(record);
   }
 
+  private EventRecordImpl(RecordImpl record, boolean copyOnWrite) {
+    super(record, copyOnWrite);
+  }
+
   private void setEventAtributes(String type, int version) {
     getHeader().setAttribute(EventRecord.TYPE, type);
     getHeader().setAttribute(EventRecord.VERSION, String.valueOf(version));
@@ -53,5 +57,10 @@ public class EventRecordImpl extends RecordImpl implements EventRecord {
     return new EventRecordImpl(this);
   }
 
+  @Override
+  public EventRecordImpl cloneCopyOnWrite() {
+    return new EventRecordImpl(this, true);
+  }
+
 
 }
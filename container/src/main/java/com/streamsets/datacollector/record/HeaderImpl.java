@@ -32,6 +32,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
@@ -53,7 +54,11 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
   private static final String ERROR_STACKTRACE = RESERVED_PREFIX + "errorStackTrace";
   //Note: additional fields should also define in ScriptRecord
 
+  private static final String[] LAZY_ATTRS = {STAGES_PATH_ATTR, TRACKING_ID_ATTR, PREVIOUS_TRACKING_ID_ATTR};
+
   private Map<String, Object> map;
+  // true while the map is shared with other copy-on-write clones of this header, it must be copied before writing.
+  private transient boolean shared;
 
   public HeaderImpl() {
     map = new HashMap<>();
@@ -65,6 +70,20 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
     this.map = new HashMap<>(header.map);
   }
 
+  // for cloneCopyOnWrite() purposes
+  private HeaderImpl(Map<String, Object> map) {
+    this.map = map;
+    this.shared = true;
+  }
+
+  private Map<String, Object> writableMap() {
+    if (shared) {
+      map = new HashMap<>(map);
+      shared = false;
+    }
+    return map;
+  }
+
   // Predicate interface
 
   @Override
@@ -86,17 +105,22 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
 
   @Override
   public String getStagesPath() {
-    return (String) map.get(STAGES_PATH_ATTR);
+    return toStringOrNull(map.get(STAGES_PATH_ATTR));
   }
 
   @Override
   public String getTrackingId() {
-    return (String) map.get(TRACKING_ID_ATTR);
+    return toStringOrNull(map.get(TRACKING_ID_ATTR));
   }
 
   @Override
   public String getPreviousTrackingId() {
-    return (String) map.get(PREVIOUS_TRACKING_ID_ATTR);
+    return toStringOrNull(map.get(PREVIOUS_TRACKING_ID_ATTR));
+  }
+
+  // the stages path and the tracking IDs may be held as StagePath and StagePath.TrackingId instances
+  private static String toStringOrNull(Object value) {
+    return (value == null) ? null : value.toString();
   }
 
   @Override
@@ -169,14 +193,14 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
     Preconditions.checkNotNull(name, "name cannot be null");
     Preconditions.checkArgument(!name.startsWith(RESERVED_PREFIX), RESERVED_PREFIX_EXCEPTION_MSG);
     Preconditions.checkNotNull(value, "value cannot be null");
-    map.put(name, value);
+    writableMap().put(name, value);
   }
 
   @Override
   public void deleteAttribute(String name) {
     Preconditions.checkNotNull(name, "name cannot be null");
     Preconditions.checkArgument(!name.startsWith(RESERVED_PREFIX), RESERVED_PREFIX_EXCEPTION_MSG);
-    map.remove(name);
+    writableMap().remove(name);
   }
 
   // For Json serialization
@@ -219,37 +243,77 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
 
   public void setStageCreator(String stateCreator) {
     Preconditions.checkNotNull(stateCreator, "stateCreator cannot be null");
-    map.put(STAGE_CREATOR_INSTANCE_ATTR, stateCreator);
+    writableMap().put(STAGE_CREATOR_INSTANCE_ATTR, stateCreator);
   }
 
   public void setSourceId(String sourceId) {
     Preconditions.checkNotNull(sourceId, "sourceId cannot be null");
-    map.put(RECORD_SOURCE_ID_ATTR, sourceId);
+    writableMap().put(RECORD_SOURCE_ID_ATTR, sourceId);
   }
 
   public void setStagesPath(String stagePath) {
     Preconditions.checkNotNull(stagePath, "stagePath cannot be null");
-    map.put(STAGES_PATH_ATTR, stagePath);
+    writableMap().put(STAGES_PATH_ATTR, stagePath);
   }
 
   public void setTrackingId(String trackingId) {
     Preconditions.checkNotNull(trackingId, "trackingId cannot be null");
-    map.put(TRACKING_ID_ATTR, trackingId);
+    writableMap().put(TRACKING_ID_ATTR, trackingId);
   }
 
   public void setPreviousTrackingId(String previousTrackingId) {
     Preconditions.checkNotNull(previousTrackingId, "previousTrackingId cannot be null");
-    map.put(PREVIOUS_TRACKING_ID_ATTR, previousTrackingId);
+    writableMap().put(PREVIOUS_TRACKING_ID_ATTR, previousTrackingId);
+  }
+
+  private StagePath getStagePath() {
+    Object path = map.get(STAGES_PATH_ATTR);
+    return (path == null || path instanceof StagePath) ? (StagePath) path : StagePath.of((String) path);
+  }
+
+  public void addStageToStagesPath(String stage) {
+    Preconditions.checkNotNull(stage, "stage cannot be null");
+    StagePath path = getStagePath();
+    writableMap().put(STAGES_PATH_ATTR, (path == null) ? StagePath.of(stage) : path.append(stage));
+  }
+
+  /**
+   * Sets the tracking ID to {@code <SOURCE_ID>::<STAGES_PATH>}, the current tracking ID, if any, becomes the previous
+   * tracking ID.
+   */
+  public void createTrackingId() {
+    Object currentTrackingId = map.get(TRACKING_ID_ATTR);
+    if (currentTrackingId != null) {
+      writableMap().put(PREVIOUS_TRACKING_ID_ATTR, currentTrackingId);
+    }
+    writableMap().put(TRACKING_ID_ATTR, new StagePath.TrackingId(getSourceId(), getStagePath()));
+  }
+
+  /**
+   * Replaces the lazily computed attributes (stages path and tracking IDs) with their String values. It must be called
+   * before the attributes map is serialized as is.
+   */
+  public void materializeAttributes() {
+    for (String attr : LAZY_ATTRS) {
+      Object value = map.get(attr);
+      if (value != null && !(value instanceof String)) {
+        writableMap().put(attr, value.toString());
+      }
+    }
+    Record sourceRecord = getSourceRecord();
+    if (sourceRecord instanceof RecordImpl && ((RecordImpl) sourceRecord).getHeader() != this) {
+      ((RecordImpl) sourceRecord).getHeader().materializeAttributes();
+    }
   }
 
   public void setRaw(byte[] raw) {
     Preconditions.checkNotNull(raw, "raw cannot be null");
-    map.put(RAW_DATA_ATTR, raw.clone());
+    writableMap().put(RAW_DATA_ATTR, raw.clone());
   }
 
   public void setRawMimeType(String rawMime) {
     Preconditions.checkNotNull(rawMime, "rawMime cannot be null");
-    map.put(RAW_MIME_TYPE_ATTR, rawMime);
+    writableMap().put(RAW_MIME_TYPE_ATTR, rawMime);
   }
 
   public void setError(String errorStage, ErrorMessage errorMessage) {
@@ -263,20 +327,20 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
   }
 
   public void setErrorContext(String datacollector, String pipelineName) {
-    map.put(ERROR_DATACOLLECTOR_ID_ATTR, datacollector);
-    map.put(ERROR_PIPELINE_NAME_ATTR, pipelineName);
+    writableMap().put(ERROR_DATACOLLECTOR_ID_ATTR, datacollector);
+    writableMap().put(ERROR_PIPELINE_NAME_ATTR, pipelineName);
 
   }
   private void setError(String errorStage, String errorCode, String errorMessage, long errorTimestamp, String errorStackTrace) {
-    map.put(ERROR_STAGE_ATTR, errorStage);
-    map.put(ERROR_CODE_ATTR, errorCode);
-    map.put(ERROR_MESSAGE_ATTR, errorMessage);
-    map.put(ERROR_TIMESTAMP_ATTR, errorTimestamp);
-    map.put(ERROR_STACKTRACE, errorStackTrace);
+    writableMap().put(ERROR_STAGE_ATTR, errorStage);
+    writableMap().put(ERROR_CODE_ATTR, errorCode);
+    writableMap().put(ERROR_MESSAGE_ATTR, errorMessage);
+    writableMap().put(ERROR_TIMESTAMP_ATTR, errorTimestamp);
+    writableMap().put(ERROR_STACKTRACE, errorStackTrace);
   }
 
   public void setSourceRecord(Record record) {
-    map.put(SOURCE_RECORD_ATTR, record);
+    writableMap().put(SOURCE_RECORD_ATTR, record);
   }
 
   public Record getSourceRecord() {
@@ -285,9 +349,28 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
 
   // Object methods
 
+  // the lazily computed attributes are compared by their String values without materializing them, as hashCode() and
+  // equals() must not modify a header that may be shared with copy-on-write clones
+  private static Object getEffectiveValue(String key, Object value) {
+    if (value != null && !(value instanceof String)) {
+      for (String attr : LAZY_ATTRS) {
+        if (attr.equals(key)) {
+          return value.toString();
+        }
+      }
+    }
+    return value;
+  }
+
   @Override
   public int hashCode() {
-    return map.hashCode();
+    // same as the hash code of the materialized map
+    int hashCode = 0;
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      hashCode += Objects.hashCode(entry.getKey()) ^
+          Objects.hashCode(getEffectiveValue(entry.getKey(), entry.getValue()));
+    }
+    return hashCode;
   }
 
   @Override
@@ -299,8 +382,8 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
       if (eq) {
         for (Map.Entry<String, Object> entry : map.entrySet()) {
           String key = entry.getKey();
-          Object value = entry.getValue();
-          Object otherValue = otherMap.get(key);
+          Object value = getEffectiveValue(key, entry.getValue());
+          Object otherValue = getEffectiveValue(key, otherMap.get(key));
           switch (key) {
             case SOURCE_RECORD_ATTR:
               break;
@@ -333,6 +416,14 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
     return new HeaderImpl(this);
   }
 
+  /**
+   * Returns a clone that shares the attributes map with this header until either of them modifies it.
+   */
+  public HeaderImpl cloneCopyOnWrite() {
+    shared = true;
+    return new HeaderImpl(map);
+  }
+
   @Override
   public String toString() {
     return Utils.format("HeaderImpl[{}]", getSourceId());
@@ -340,13 +431,16 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable {
 
   // ImmutableMap can't have null values and our map could have, so use unmodifiable map
   public Map<String, Object> getAllAttributes() {
+    materializeAttributes();
     return Collections.unmodifiableMap(map);
   }
 
   public Map<String, Object> setAllAttributes(Map<String, Object> newAttrs) {
     // ImmutableMap can't have null values and our map could have, so use unmodifiable map
+    materializeAttributes();
     Map<String, Object> old = Collections.unmodifiableMap(map);
     map = new HashMap<>(newAttrs);
+    shared = false;
     return old;
   }
 }
@@ -28,9 +28,11 @@ import com.streamsets.pipeline.api.impl.Utils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,6 +42,13 @@ public class RecordImpl implements Record, Cloneable {
   //Default true: so as to denote the record is just created
   //and initialized in a stage and did not pass through any other stage.
   private boolean isInitialRecord = true;
+  // true while the value tree is shared with other copy-on-write clones of this record, it must be cloned
+  // before it is handed out or modified.
+  private transient boolean valueShared;
+  // while the value tree is shared, the MAP/LIST/LIST_MAP fields that have been copied shallowly (their children
+  // may still be shared) and the fields that have been cloned with all their children
+  private transient Set<Field> ownedContainers;
+  private transient Set<Field> ownedTrees;
 
   // need default constructor for deserialization purposes (Kryo)
   private RecordImpl() {
@@ -82,19 +91,155 @@ public class RecordImpl implements Record, Cloneable {
     isInitialRecord = record.isInitialRecord();
   }
 
+  // for cloneCopyOnWrite() purposes
+  protected RecordImpl(RecordImpl record, boolean copyOnWrite) {
+    Preconditions.checkNotNull(record, "record cannot be null");
+    if (copyOnWrite) {
+      header = record.header.cloneCopyOnWrite();
+      value = record.value;
+      valueShared = value != null;
+      if (valueShared) {
+        // the fields the record had made private are now shared with this clone as well
+        record.valueShared = true;
+        record.ownedContainers = null;
+        record.ownedTrees = null;
+      }
+    } else {
+      header = record.header.clone();
+      value = (record.value != null) ? record.value.clone() : null;
+    }
+    isInitialRecord = record.isInitialRecord();
+  }
+
+  /**
+   * Returns the value tree of this record making sure it is not shared with any other record, cloning it if
+   * necessary. Must be used by any method that hands out or modifies the whole value tree.
+   */
+  private Field ownValue() {
+    if (valueShared) {
+      value = (value != null) ? own(value, true) : null;
+      valueShared = false;
+      ownedContainers = null;
+      ownedTrees = null;
+    }
+    return value;
+  }
+
+  /**
+   * Makes the fields along the given path private to this record before any of them is handed out or modified.
+   * The fields leading to the last existing field of the path are copied shallowly, so their other children are
+   * still shared. If the whole path exists its last field is cloned with all its children as it is handed out.
+   */
+  private void ownPath(List<PathElement> elements) {
+    if (!valueShared) {
+      return;
+    }
+    if (ownedContainers == null) {
+      ownedContainers = Collections.newSetFromMap(new IdentityHashMap<Field, Boolean>());
+      ownedTrees = Collections.newSetFromMap(new IdentityHashMap<Field, Boolean>());
+    }
+    List<Field> fields = get(elements);
+    boolean wholePath = fields.size() == elements.size();
+    Field parent = null;
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      if (ownedTrees.contains(field)) {
+        // everything below is private already
+        break;
+      }
+      Field owned = own(field, wholePath && i == fields.size() - 1);
+      if (owned != field) {
+        if (parent == null) {
+          value = owned;
+        } else {
+          replaceChild(parent, elements.get(i), field, owned);
+        }
+      }
+      parent = owned;
+    }
+    if (value != null && ownedTrees.contains(value)) {
+      valueShared = false;
+      ownedContainers = null;
+      ownedTrees = null;
+    }
+  }
+
+  private Field own(Field field, boolean deep) {
+    if (ownedTrees != null && ownedTrees.contains(field)) {
+      return field;
+    }
+    boolean container = field.getType().isOneOf(Field.Type.MAP, Field.Type.LIST, Field.Type.LIST_MAP) &&
+        field.getValue() != null;
+    boolean ownedContainer = ownedContainers != null && ownedContainers.contains(field);
+    Field owned;
+    if (!deep && container) {
+      owned = (ownedContainer) ? field : copyContainer(field);
+      ownedContainers.add(owned);
+      return owned;
+    }
+    if (ownedContainer) {
+      // the container is private already, only its children have to be made private
+      owned = field;
+      if (field.getType() == Field.Type.LIST) {
+        for (ListIterator<Field> it = field.getValueAsList().listIterator(); it.hasNext();) {
+          Field child = it.next();
+          if (child != null) {
+            it.set(own(child, true));
+          }
+        }
+      } else {
+        for (Map.Entry<String, Field> entry : field.getValueAsMap().entrySet()) {
+          if (entry.getValue() != null) {
+            entry.setValue(own(entry.getValue(), true));
+          }
+        }
+      }
+      ownedContainers.remove(field);
+    } else {
+      owned = field.clone();
+    }
+    if (ownedTrees != null) {
+      ownedTrees.add(owned);
+    }
+    return owned;
+  }
+
+  private static Field copyContainer(Field field) {
+    Field copy;
+    if (field.getType() == Field.Type.LIST) {
+      copy = Field.create(Field.Type.LIST, new ArrayList<>(field.getValueAsList()));
+    } else {
+      copy = Field.create(field.getType(), new LinkedHashMap<>(field.getValueAsMap()));
+    }
+    Map<String, String> attributes = field.getAttributes();
+    if (attributes != null) {
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        copy.setAttribute(attribute.getKey(), attribute.getValue());
+      }
+    }
+    return copy;
+  }
+
+  private static void replaceChild(Field parent, PathElement element, Field child, Field newChild) {
+    if (parent.getType() == Field.Type.LIST) {
+      parent.getValueAsList().set(element.getIndex(), newChild);
+    } else {
+      // LIST_MAP fields reached by index are replaced through their map as their list is a copy
+      for (Map.Entry<String, Field> entry : parent.getValueAsMap().entrySet()) {
+        if (entry.getValue() == child) {
+          entry.setValue(newChild);
+          break;
+        }
+      }
+    }
+  }
+
   public void addStageToStagePath(String stage) {
-    Preconditions.checkNotNull(stage, "stage cannot be null");
-    String currentPath = (header.getStagesPath() == null) ? "" : header.getStagesPath() + ":";
-    header.setStagesPath(currentPath + stage);
+    header.addStageToStagesPath(stage);
   }
 
   public void createTrackingId() {
-    String currentTrackingId = header.getTrackingId();
-    String newTrackingId = getHeader().getSourceId() + "::" + getHeader().getStagesPath();
-    if (currentTrackingId != null) {
-      header.setPreviousTrackingId(currentTrackingId);
-    }
-    header.setTrackingId(newTrackingId);
+    header.createTrackingId();
   }
 
   public boolean isInitialRecord() {
@@ -112,12 +257,12 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field get() {
-    return value;
+    return ownValue();
   }
 
   @Override
   public Field set(Field field) {
-    Field oldData = value;
+    Field oldData = ownValue();
     value = field;
     return oldData;
   }
@@ -266,7 +411,7 @@ public class RecordImpl implements Record, Cloneable {
   }
 
   public FieldWithPath getValue() {
-    return createFieldWithPath("", "", get());
+    return createFieldWithPath("", "", value);
   }
 
   List<PathElement> parse(String fieldPath) {
@@ -323,6 +468,7 @@ public class RecordImpl implements Record, Cloneable {
   @Override
   public Field get(String fieldPath) {
     List<PathElement> elements = parse(fieldPath);
+    ownPath(elements);
     List<Field> fields = get(elements);
     return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
   }
@@ -331,6 +477,7 @@ public class RecordImpl implements Record, Cloneable {
   @Override
   public Field delete(String fieldPath) {
     List<PathElement> elements = parse(fieldPath);
+    ownPath(elements);
     List<Field> fields = get(elements);
     Field deleted = null;
     int fieldPos = fields.size();
@@ -510,12 +657,26 @@ public class RecordImpl implements Record, Cloneable {
     return new RecordImpl(this);
   }
 
+  /**
+   * Returns a copy-on-write clone of the record.
+   * <p/>
+   * The clone shares the header attributes and the value tree with this record. The attributes are cloned the first
+   * time a record modifies them, the fields are copied the first time a record modifies them or hands them out (as
+   * {@link Field} instances are mutable), only along the field-path being used. Both this record and
+   * the returned clone are affected, so it must only be used when nobody else holds a reference to the fields
+   * of this record.
+   */
+  public RecordImpl cloneCopyOnWrite() {
+    return new RecordImpl(this, true);
+  }
+
   @Override
   public Field set(String fieldPath, Field newField) {
     //get all the elements present in the fieldPath, including the newest element
     //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the parser returns three
     // elements - a, b and d
     List<PathElement> elements = parse(fieldPath);
+    ownPath(elements);
     //return all *existing* fields form the list of elements
     //In the above case it is going to return only field a and field b. Field d does not exist.
     List<Field> fields = get(elements);
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Stages path of a record, kept as an immutable chain of stage names.
+ * <p/>
+ * Paths are interned, all the records that went through the same stages share the same {@code StagePath} instance,
+ * so extending the path of a record does not allocate and the String form of a path is computed only once, the first
+ * time somebody reads it.
+ */
+final class StagePath {
+  private static final LoadingCache<String, StagePath> ROOTS = createCache(null);
+
+  private final StagePath parent;
+  private final String stage;
+  // created on first append, transient as records (and their paths) may be serialized by Kryo, i.e. in Spark
+  private transient volatile LoadingCache<String, StagePath> children;
+  private String path;
+
+  private StagePath(StagePath parent, String stage) {
+    this.parent = parent;
+    this.stage = stage;
+  }
+
+  private static LoadingCache<String, StagePath> createCache(final StagePath parent) {
+    // weak values, parents are strongly referenced by their children, paths go away when no record uses them
+    return CacheBuilder.newBuilder().weakValues().build(new CacheLoader<String, StagePath>() {
+      @Override
+      public StagePath load(String stage) {
+        return new StagePath(parent, stage);
+      }
+    });
+  }
+
+  /**
+   * Returns the path for the given String path, as found in a record header.
+   */
+  static StagePath of(String path) {
+    Preconditions.checkNotNull(path, "path cannot be null");
+    return ROOTS.getUnchecked(path);
+  }
+
+  /**
+   * Returns the path resulting of appending the given stage to this path.
+   */
+  StagePath append(String stage) {
+    Preconditions.checkNotNull(stage, "stage cannot be null");
+    LoadingCache<String, StagePath> cache = children;
+    if (cache == null) {
+      synchronized (this) {
+        cache = children;
+        if (cache == null) {
+          cache = createCache(this);
+          children = cache;
+        }
+      }
+    }
+    return cache.getUnchecked(stage);
+  }
+
+  @Override
+  public String toString() {
+    // benign race, all threads would compute the same String
+    String str = path;
+    if (str == null) {
+      str = (parent == null) ? stage : parent.toString() + ":" + stage;
+      path = str;
+    }
+    return str;
+  }
+
+  /**
+   * Tracking ID of a record, {@code <SOURCE_ID>::<STAGES_PATH>}, turned into a String only when read.
+   */
+  static final class TrackingId {
+    private final String sourceId;
+    private final StagePath stagePath;
+    private String trackingId;
+
+    TrackingId(String sourceId, StagePath stagePath) {
+      this.sourceId = sourceId;
+      this.stagePath = stagePath;
+    }
+
+    @Override
+    public String toString() {
+      String str = trackingId;
+      if (str == null) {
+        str = sourceId + "::" + stagePath;
+        trackingId = str;
+      }
+      return str;
+    }
+  }
+
+}
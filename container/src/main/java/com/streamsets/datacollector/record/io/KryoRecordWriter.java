@@ -21,6 +21,7 @@ package com.streamsets.datacollector.record.io;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Output;
+import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.ext.RecordWriter;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -49,6 +50,10 @@ public class KryoRecordWriter implements RecordWriter {
       throw new IOException("output has been closed");
     }
     Utils.checkNotNull(record, "record");
+    if (record instanceof RecordImpl) {
+      // Kryo serializes the header attributes map as is
+      ((RecordImpl) record).getHeader().materializeAttributes();
+    }
     kryo.writeObject(output, record);
   }
 
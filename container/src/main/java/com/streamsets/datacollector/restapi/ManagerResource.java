@@ -24,6 +24,7 @@ import com.streamsets.datacollector.execution.Manager;
 import com.streamsets.datacollector.execution.PipelineState;
 import com.streamsets.datacollector.execution.PipelineStatus;
 import com.streamsets.datacollector.execution.Runner;
+import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
 import com.streamsets.datacollector.main.RuntimeInfo;
@@ -74,6 +75,9 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -636,13 +640,32 @@ public class ManagerResource {
   public Response getSnapshot(
       @PathParam("pipelineName") String pipelineName,
       @PathParam("snapshotName") String snapshotName,
-      @QueryParam("rev") @DefaultValue("0") String rev
+      @QueryParam("rev") @DefaultValue("0") String rev,
+      @QueryParam("batchOffset") @DefaultValue("0") final int batchOffset,
+      @QueryParam("batchCount") @DefaultValue("-1") final int batchCount
   ) throws PipelineException {
     PipelineInfo pipelineInfo = store.getInfo(pipelineName);
     RestAPIUtils.injectPipelineInMDC(pipelineInfo.getTitle(), pipelineInfo.getName());
     Runner runner = manager.getRunner(user, pipelineName, rev);
     if(runner != null) {
-      return Response.ok().type(MediaType.APPLICATION_JSON).entity(runner.getSnapshot(snapshotName).getOutput()).build();
+      final Snapshot snapshot = runner.getSnapshot(snapshotName);
+      if (snapshot.getInfo() == null || snapshot.getInfo().isInProgress()) {
+        return Response.ok().type(MediaType.APPLICATION_JSON).entity(snapshot.getOutput()).build();
+      }
+      // stream the snapshot batches straight from the store instead of loading the whole snapshot
+      StreamingOutput streamingOutput = new StreamingOutput() {
+        @Override
+        public void write(OutputStream output) throws IOException {
+          try {
+            snapshot.writeOutput(output, batchOffset, batchCount);
+          } catch (PipelineException ex) {
+            throw new IOException(ex.toString(), ex);
+          } finally {
+            snapshot.close();
+          }
+        }
+      };
+      return Response.ok().type(MediaType.APPLICATION_JSON).entity(streamingOutput).build();
     }
     return Response.noContent().build();
   }
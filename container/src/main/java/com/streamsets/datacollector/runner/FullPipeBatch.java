@@ -236,16 +236,20 @@ public class FullPipeBatch implements PipeBatch {
   public void moveLaneCopying(String inputLane, List<String> outputLanes) {
     List<Record> records = Preconditions.checkNotNull(fullPayload.remove(inputLane), Utils.formatL(
         "Stream '{}' does not exist", inputLane));
-    for (String lane : outputLanes) {
+    for (int i = 0; i < outputLanes.size(); i++) {
+      String lane = outputLanes.get(i);
       Preconditions.checkNotNull(fullPayload.containsKey(lane), Utils.formatL("Lane '{}' does not exist", lane));
-      fullPayload.put(lane, createCopy(records));
+      // the last lane takes the original records, the copies made for the other lanes protect them from its changes
+      fullPayload.put(lane, (i < outputLanes.size() - 1) ? createCopy(records) : records);
     }
   }
 
+  // the records have been removed from the payload and nobody else references them, the copies can share
+  // their headers and values with the original records until a stage modifies them
   private List<Record> createCopy(List<Record> records) {
     List<Record> list = new ArrayList<>(records.size());
     for (Record record : records) {
-      list.add(((RecordImpl) record).clone());
+      list.add(((RecordImpl) record).cloneCopyOnWrite());
     }
     return list;
   }
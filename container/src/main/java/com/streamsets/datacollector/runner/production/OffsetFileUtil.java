@@ -19,6 +19,7 @@
  */
 package com.streamsets.datacollector.runner.production;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
@@ -34,12 +35,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class OffsetFileUtil {
   private static final Logger LOG = LoggerFactory.getLogger(ProductionSourceOffsetTracker.class);
 
   private static final String OFFSET_FILE = "offset.json";
+  private static final String OFFSET_WAL_FILE = "offset.wal";
   private static final Map<String, String> DEFAULT_OFFSET = Collections.emptyMap();
   private static final int MAX_RETRIES = 5;
 
@@ -49,6 +52,30 @@ public class OffsetFileUtil {
     return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_FILE);
   }
 
+  public static File getPipelineOffsetWalFile(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_WAL_FILE);
+  }
+
+  /**
+   * Compacts the offset changes left in the write-ahead log, if any, into the offset file and deletes the log.
+   */
+  public static void recoverWriteAheadLog(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    File walFile = getPipelineOffsetWalFile(runtimeInfo, pipelineName, rev);
+    if (walFile.exists()) {
+      try {
+        Map<String, String> offsets = new HashMap<>(getOffsetsFromFile(runtimeInfo, pipelineName, rev));
+        int changes = OffsetWriteAheadLog.replay(walFile, offsets);
+        if (changes > 0) {
+          LOG.info("Recovered {} offset changes from '{}' for pipeline {}", changes, walFile, pipelineName);
+          saveOffsets(runtimeInfo, pipelineName, rev, offsets);
+        }
+        OffsetWriteAheadLog.delete(walFile);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   public static Map<String, String> saveIfEmpty(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     File pipelineOffsetFile =  getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
     SourceOffset sourceOffset;
@@ -88,9 +115,30 @@ public class OffsetFileUtil {
 
   public static void resetOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     saveOffsets(runtimeInfo, pipelineName, rev, DEFAULT_OFFSET);
+    try {
+      OffsetWriteAheadLog.delete(getPipelineOffsetWalFile(runtimeInfo, pipelineName, rev));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   public static Map<String, String> getOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    Map<String, String> offsets = getOffsetsFromFile(runtimeInfo, pipelineName, rev);
+    File walFile = getPipelineOffsetWalFile(runtimeInfo, pipelineName, rev);
+    if (walFile.exists()) {
+      // changes not compacted yet into the offset file
+      offsets = new HashMap<>(offsets);
+      try {
+        OffsetWriteAheadLog.replay(walFile, offsets);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return offsets;
+  }
+
+  @VisibleForTesting
+  static Map<String, String> getOffsetsFromFile(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     SourceOffset sourceOffset = getOffsetInternal(runtimeInfo, pipelineName, rev);
     return sourceOffset == null ? DEFAULT_OFFSET : sourceOffset.getOffsets();
   }
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append only log of offset changes.
+ * <p/>
+ * Each commit is appended as a single JSON line, {@code {"entity":"...","offset":"..."}}, a null offset meaning the
+ * entity has been removed. Appends are buffered, they are handed to the OS by {@link #flush()} and made durable by
+ * {@link #force()}. The log is meant to be replayed, in order, on top of the offset file and truncated once the
+ * offsets have been compacted into it.
+ * <p/>
+ * This class is not thread safe, callers must synchronize the access. The only exception is {@link #force()}, which
+ * can be called concurrently with the other methods so that the fsync does not block committers.
+ */
+public class OffsetWriteAheadLog implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffsetWriteAheadLog.class);
+  private static final String ENTITY = "entity";
+  private static final String OFFSET = "offset";
+
+  private final File file;
+  private final FileOutputStream fileOutputStream;
+  private final FileChannel channel;
+  private final Writer writer;
+  private final ObjectMapper objectMapper;
+  private long pendingCommits;
+  private long commits;
+
+  public OffsetWriteAheadLog(File file) throws IOException {
+    this.file = file;
+    fileOutputStream = new FileOutputStream(file, true);
+    channel = fileOutputStream.getChannel();
+    writer = new BufferedWriter(new OutputStreamWriter(fileOutputStream, Charsets.UTF_8));
+    objectMapper = ObjectMapperFactory.getOneLine();
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public void append(String entity, String offset) throws IOException {
+    Utils.checkNotNull(entity, "entity");
+    Map<String, String> delta = new LinkedHashMap<>();
+    delta.put(ENTITY, entity);
+    delta.put(OFFSET, offset);
+    writer.write(objectMapper.writeValueAsString(delta));
+    writer.write('\n');
+    pendingCommits++;
+    commits++;
+  }
+
+  /**
+   * Returns the number of commits appended since the last {@link #flush()}.
+   */
+  public long getPendingCommits() {
+    return pendingCommits;
+  }
+
+  /**
+   * Returns the number of commits in the log since it was created or last truncated.
+   */
+  public long getCommits() {
+    return commits;
+  }
+
+  /**
+   * Hands the appended commits to the OS.
+   *
+   * @return if there were commits to flush.
+   */
+  public boolean flush() throws IOException {
+    boolean flushed = pendingCommits > 0;
+    if (flushed) {
+      writer.flush();
+      LOG.trace("Flushed {} offset commits to '{}'", pendingCommits, file);
+      pendingCommits = 0;
+    }
+    return flushed;
+  }
+
+  /**
+   * Makes the flushed commits durable.
+   */
+  public void force() throws IOException {
+    channel.force(false);
+  }
+
+  /**
+   * Discards the log, it must be called only after all the offsets in it have been compacted into the offset file.
+   */
+  public void truncate() throws IOException {
+    writer.flush();
+    channel.truncate(0);
+    channel.force(false);
+    pendingCommits = 0;
+    commits = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (flush()) {
+        force();
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Applies the offset changes recorded in the given log to the given offsets map.
+   * <p/>
+   * A last incomplete line (a crash while appending) is ignored, the commit was never acknowledged as durable.
+   *
+   * @return the number of changes applied.
+   */
+  public static int replay(File file, Map<String, String> offsets) throws IOException {
+    int count = 0;
+    if (file.exists()) {
+      ObjectMapper objectMapper = ObjectMapperFactory.getOneLine();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8))) {
+        String line = reader.readLine();
+        while (line != null) {
+          String next = reader.readLine();
+          Map<String, String> delta;
+          try {
+            delta = objectMapper.readValue(line, new TypeReference<Map<String, String>>() {});
+          } catch (IOException ex) {
+            if (next == null) {
+              LOG.warn("Ignoring incomplete last offset commit in '{}': {}", file, ex.toString());
+              break;
+            }
+            throw new IOException(Utils.format("Corrupted offset commit log '{}': {}", file, ex.toString()), ex);
+          }
+          if (delta.get(OFFSET) == null) {
+            offsets.remove(delta.get(ENTITY));
+          } else {
+            offsets.put(delta.get(ENTITY), delta.get(OFFSET));
+          }
+          count++;
+          line = next;
+        }
+      }
+    }
+    return count;
+  }
+
+  public static void delete(File file) throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+}
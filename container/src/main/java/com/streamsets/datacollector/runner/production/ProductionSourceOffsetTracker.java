@@ -22,32 +22,91 @@ package com.streamsets.datacollector.runner.production;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
 
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProductionSourceOffsetTracker.class);
+
+  // When enabled commits are appended to a write-ahead log instead of rewriting the offset file on every commit. The
+  // log is fsync-ed every 'interval.ms' or every 'commits' commits and compacted into the offset file every
+  // 'compaction.commits' commits and when the pipeline stops. As the offset file and the log can only fall behind the
+  // processed batches, the at-least-once guarantee is preserved after a crash.
+  public static final String OFFSET_WAL_ENABLED_KEY = "production.offset.wal.enabled";
+  public static final boolean OFFSET_WAL_ENABLED_DEFAULT = false;
+  public static final String OFFSET_WAL_SYNC_INTERVAL_MS_KEY = "production.offset.wal.sync.interval.ms";
+  public static final long OFFSET_WAL_SYNC_INTERVAL_MS_DEFAULT = 1000;
+  public static final String OFFSET_WAL_SYNC_COMMITS_KEY = "production.offset.wal.sync.commits";
+  public static final int OFFSET_WAL_SYNC_COMMITS_DEFAULT = 1000;
+  public static final String OFFSET_WAL_COMPACTION_COMMITS_KEY = "production.offset.wal.compaction.commits";
+  public static final int OFFSET_WAL_COMPACTION_COMMITS_DEFAULT = 10000;
+
+  // shared by all pipelines, syncing a log is short
+  private static final SafeScheduledExecutorService WAL_EXECUTOR =
+      new SafeScheduledExecutorService(1, "OffsetWriteAheadLog");
+
   private Map<String, String> offsets;
   private volatile long lastBatchTime;
   private boolean finished;
   private final String pipelineName;
   private final String rev;
   private final RuntimeInfo runtimeInfo;
+  private OffsetWriteAheadLog wal;
+  private int walSyncCommits;
+  private int walCompactionCommits;
+  private ScheduledFuture<?> walSyncFuture;
+  // fsyncs run outside of the offsets lock, close() waits for the ones in flight before closing the log
+  private final ReadWriteLock walCloseLock = new ReentrantReadWriteLock();
+  private boolean walClosed;
+
+  public ProductionSourceOffsetTracker(String pipelineName, String rev, RuntimeInfo runtimeInfo) {
+    this(pipelineName, rev, runtimeInfo, null);
+  }
 
   @Inject
-  public ProductionSourceOffsetTracker( @Named("name") String pipelineName,  @Named("rev") String rev, RuntimeInfo runtimeInfo) {
+  public ProductionSourceOffsetTracker(
+      @Named("name") String pipelineName,
+      @Named("rev") String rev,
+      RuntimeInfo runtimeInfo,
+      Configuration configuration
+  ) {
     this.pipelineName = pipelineName;
     this.rev = rev;
     this.runtimeInfo = runtimeInfo;
+    OffsetFileUtil.recoverWriteAheadLog(runtimeInfo, pipelineName, rev);
     this.offsets = new HashMap<>(getSourceOffset(pipelineName, rev));
+    if (configuration != null && configuration.get(OFFSET_WAL_ENABLED_KEY, OFFSET_WAL_ENABLED_DEFAULT)) {
+      walSyncCommits = configuration.get(OFFSET_WAL_SYNC_COMMITS_KEY, OFFSET_WAL_SYNC_COMMITS_DEFAULT);
+      walCompactionCommits = configuration.get(OFFSET_WAL_COMPACTION_COMMITS_KEY, OFFSET_WAL_COMPACTION_COMMITS_DEFAULT);
+      long syncIntervalMs = configuration.get(OFFSET_WAL_SYNC_INTERVAL_MS_KEY, OFFSET_WAL_SYNC_INTERVAL_MS_DEFAULT);
+      try {
+        wal = new OffsetWriteAheadLog(OffsetFileUtil.getPipelineOffsetWalFile(runtimeInfo, pipelineName, rev));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      walSyncFuture = WAL_EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          syncWriteAheadLog();
+        }
+      }, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+      LOG.debug("Using offset write-ahead log '{}' for pipeline {}", wal.getFile(), pipelineName);
+    }
   }
 
   @Override
@@ -72,6 +131,7 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
     }
 
     // This object can be called from multiple threads, so we have to synchronize access to the offset map
+    OffsetWriteAheadLog walToForce = null;
     synchronized (offsets) {
       if (newOffset == null) {
         offsets.remove(entity);
@@ -79,8 +139,97 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
         offsets.put(entity, newOffset);
       }
 
-      // Finally write new variant of the offset file
-      saveOffset(pipelineName, rev, offsets);
+      if (wal == null) {
+        // Finally write new variant of the offset file
+        saveOffset(pipelineName, rev, offsets);
+      } else {
+        walToForce = appendToWriteAheadLog(entity, newOffset) ? wal : null;
+      }
+    }
+
+    // fsync outside of the lock, other runners can keep committing meanwhile
+    if (walToForce != null) {
+      forceWriteAheadLog(walToForce);
+    }
+  }
+
+  // must be called holding the offsets lock, returns if the log has to be fsync-ed
+  private boolean appendToWriteAheadLog(String entity, String newOffset) {
+    try {
+      wal.append(entity, newOffset);
+      if (wal.getCommits() >= walCompactionCommits) {
+        compactWriteAheadLog();
+        return false;
+      }
+      return wal.getPendingCommits() >= walSyncCommits && wal.flush();
+    } catch (IOException e) {
+      LOG.error("Failed to log offset commit for entity '{}'. Reason {}", entity, e.toString(), e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // must be called holding the offsets lock
+  private void compactWriteAheadLog() throws IOException {
+    saveOffset(pipelineName, rev, offsets);
+    wal.truncate();
+  }
+
+  private void forceWriteAheadLog(OffsetWriteAheadLog log) {
+    walCloseLock.readLock().lock();
+    try {
+      if (walClosed) {
+        // close() already compacted the log into the offset file
+        return;
+      }
+      log.force();
+    } catch (IOException e) {
+      LOG.error("Failed to sync offset write-ahead log '{}'. Reason {}", log.getFile(), e.toString(), e);
+      throw new IllegalStateException(e);
+    } finally {
+      walCloseLock.readLock().unlock();
+    }
+  }
+
+  private void syncWriteAheadLog() {
+    OffsetWriteAheadLog walToForce = null;
+    synchronized (offsets) {
+      try {
+        if (wal != null && wal.flush()) {
+          walToForce = wal;
+        }
+      } catch (IOException e) {
+        LOG.error("Failed to flush offset write-ahead log '{}'. Reason {}", wal.getFile(), e.toString(), e);
+      }
+    }
+    if (walToForce != null) {
+      forceWriteAheadLog(walToForce);
+    }
+  }
+
+  /**
+   * Compacts the write-ahead log, if used, into the offset file. Later commits are written directly to the offset file.
+   */
+  public void close() {
+    if (walSyncFuture != null) {
+      walSyncFuture.cancel(false);
+    }
+    walCloseLock.writeLock().lock();
+    try {
+      synchronized (offsets) {
+        if (wal != null) {
+          try {
+            compactWriteAheadLog();
+            wal.close();
+            OffsetWriteAheadLog.delete(wal.getFile());
+          } catch (IOException e) {
+            LOG.error("Failed to compact offset write-ahead log '{}'. Reason {}", wal.getFile(), e.toString(), e);
+          }
+          wal = null;
+          walClosed = true;
+        }
+      }
+    } finally {
+      walCloseLock.writeLock().unlock();
     }
   }
 
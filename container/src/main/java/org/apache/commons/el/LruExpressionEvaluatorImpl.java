@@ -64,4 +64,11 @@ public class LruExpressionEvaluatorImpl extends ExpressionEvaluatorImpl {
     thread.start();
   }
 
+  /**
+   * Returns the logger used by the evaluator, for evaluating parsed expressions and coercing their values.
+   */
+  public static Logger getLogger() {
+    return sLogger;
+  }
+
 }
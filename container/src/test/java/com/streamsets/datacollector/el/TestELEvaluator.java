@@ -118,6 +118,36 @@ public class TestELEvaluator {
     new ELEvaluator("testEmptyNameConstEl", EmptyNameConstEl.class);
   }
 
+  @Test
+  public void testRepeatedEvaluation() throws ELEvalException {
+    ELEval elEval = new ELEvaluator("testRepeatedEvaluation", ValidTestEl.class);
+    ELEvaluator.VariableResolverImpl previousResolver = null;
+    for (int i = 0; i < 3; i++) {
+      ELVars variables = elEval.createVariables();
+      variables.addVariable("N", i);
+      Assert.assertEquals(i + 1, (int) elEval.eval(variables, "${N + 1}", Integer.class));
+
+      // the resolver is created once per variables and reused by all their evaluations
+      ELEvaluator.VariableResolverImpl resolver = ((ELVariables) variables).getVariableResolver();
+      Assert.assertNotNull(resolver);
+      Assert.assertNotSame(previousResolver, resolver);
+      previousResolver = resolver;
+
+      Assert.assertEquals("n=" + i, elEval.eval(variables, "n=${N}", String.class));
+      Assert.assertEquals("static", elEval.eval(variables, "static", String.class));
+      Assert.assertTrue(elEval.eval(variables, "${location:city() eq CITY}", Boolean.class));
+      Assert.assertSame(resolver, ((ELVariables) variables).getVariableResolver());
+    }
+
+    // variables evaluated by another evaluator get a resolver with the constants of that evaluator
+    ELVars variables = elEval.createVariables();
+    elEval.eval(variables, "${CITY}", String.class);
+    ELEvaluator.VariableResolverImpl resolver = ((ELVariables) variables).getVariableResolver();
+    ELEval otherElEval = new ELEvaluator("testRepeatedEvaluation", ValidTestEl.class);
+    Assert.assertEquals("San Francisco", otherElEval.eval(variables, "${CITY}", String.class));
+    Assert.assertNotSame(resolver, ((ELVariables) variables).getVariableResolver());
+  }
+
   @Test
   public void testParseEL() throws ELEvalException {
     //valid EL
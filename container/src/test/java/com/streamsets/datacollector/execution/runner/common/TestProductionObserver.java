@@ -23,6 +23,7 @@ import com.streamsets.datacollector.config.DataRuleDefinition;
 import com.streamsets.datacollector.config.ThresholdType;
 import com.streamsets.datacollector.execution.alerts.TestUtil;
 import com.streamsets.datacollector.execution.runner.common.ProductionObserver;
+import com.streamsets.datacollector.runner.production.RulesConfigurationChangeRequest;
 import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.pipeline.api.Record;
 
@@ -31,10 +32,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class TestProductionObserver {
 
@@ -136,4 +139,33 @@ public class TestProductionObserver {
     System.out.println("Records for rule myID4 : " + ruleIdToSampledRecordsSize.get(ID + 4));
     System.out.println("Records for rule myID5 : " + ruleIdToSampledRecordsSize.get(ID + 5));*/
   }
+
+  @Test
+  public void testDropObservationsWhenQueueIsFull() {
+    List<DataRuleDefinition> dataRuleDefinitions = new ArrayList<>();
+    dataRuleDefinitions.add(new DataRuleDefinition(ID, "myRule", LANE + "::s", 100 /*Sampling %*/, 5,
+      "${record:value(\"/name\")==null}", true, "alertText", ThresholdType.COUNT, "2", 5, true, false, true,
+      System.currentTimeMillis()));
+    Map<String, List<DataRuleDefinition>> laneToDataRuleMap = new HashMap<>();
+    laneToDataRuleMap.put(LANE, dataRuleDefinitions);
+
+    BlockingQueue<Object> observeRequests = new ArrayBlockingQueue<>(3);
+    productionObserver.setObserveRequests(observeRequests);
+    productionObserver.setConfiguration(new RulesConfigurationChangeRequest(null, null, null, laneToDataRuleMap, null));
+    productionObserver.reconfigure();
+    Assert.assertEquals(1, observeRequests.size());
+
+    Map<String, List<Record>> snapshot = Collections.singletonMap(LANE, TestUtil.createRecords(5));
+    for (int i = 0; i < 5; i++) {
+      productionObserver.observe(null, snapshot);
+    }
+    // the configuration change and 2 evaluation requests fit in the queue, the other 3 are dropped without waiting
+    Assert.assertEquals(3, observeRequests.size());
+    Assert.assertEquals(3, productionObserver.getDroppedObservations());
+
+    // lanes without rules don't use the queue
+    observeRequests.clear();
+    productionObserver.observe(null, Collections.singletonMap("otherLane", TestUtil.createRecords(5)));
+    Assert.assertTrue(observeRequests.isEmpty());
+  }
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.snapshot;
+
+import com.streamsets.datacollector.execution.SnapshotStore;
+import com.streamsets.datacollector.execution.snapshot.file.FileSnapshotStore;
+import com.streamsets.datacollector.execution.snapshot.file.dagger.FileSnapshotStoreModule;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.record.io.RecordEncoding;
+import com.streamsets.datacollector.util.LockCache;
+import com.streamsets.datacollector.util.LockCacheModule;
+import com.streamsets.datacollector.util.PipelineDirectoryUtil;
+import dagger.Module;
+import dagger.ObjectGraph;
+import dagger.Provides;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class TestKryoFileSnapshotStore extends TestSnapshotStore {
+
+  @Module(injects = {FileSnapshotStore.class, RuntimeInfo.class}, library = true, includes = {RuntimeModule.class,
+      LockCacheModule.class})
+  public static class KryoFileSnapshotStoreModule {
+    @Provides @Singleton
+    public FileSnapshotStore provideSnapshotStore(RuntimeInfo runtimeInfo, LockCache<String> lockCache) {
+      return new FileSnapshotStore(runtimeInfo, lockCache, RecordEncoding.KRYO1);
+    }
+  }
+
+  private RuntimeInfo runtimeInfo;
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR, "./target/var");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.getProperties().remove(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR);
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    File f = new File(System.getProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR));
+    FileUtils.deleteDirectory(f);
+    ObjectGraph objectGraph = ObjectGraph.create(KryoFileSnapshotStoreModule.class);
+    snapshotStore = objectGraph.get(FileSnapshotStore.class);
+    runtimeInfo = objectGraph.get(RuntimeInfo.class);
+  }
+
+  @Test
+  public void testBinaryDataFile() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    File snapshotDir = PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, PIPELINE_NAME, PIPELINE_REV,
+        SNAPSHOT_ID);
+    File dataFile = new File(snapshotDir, "snapshot.kryo");
+    Assert.assertTrue(dataFile.exists());
+    Assert.assertFalse(new File(snapshotDir, "snapshot.json").exists());
+    Assert.assertEquals(RecordEncoding.KRYO1.getMagicNumber(), FileUtils.readFileToByteArray(dataFile)[0]);
+  }
+
+  @Test
+  public void testSameOutputAsJson() throws Exception {
+    SnapshotStore kryoStore = snapshotStore;
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    List<List<Map>> kryoBatches = readBatches(SNAPSHOT_ID, 0, -1);
+
+    // a JSON store reads binary snapshots and the other way around
+    snapshotStore = ObjectGraph.create(FileSnapshotStoreModule.class).get(FileSnapshotStore.class);
+    Assert.assertEquals(kryoBatches, readBatches(SNAPSHOT_ID, 0, -1));
+
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID + 1, SNAPSHOT_LABEL);
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID + 1, 0, getSnapshotData());
+    List<List<Map>> jsonBatches = readBatches(SNAPSHOT_ID + 1, 0, -1);
+
+    snapshotStore = kryoStore;
+    Assert.assertEquals(jsonBatches, readBatches(SNAPSHOT_ID + 1, 0, -1));
+    Assert.assertEquals(jsonBatches.size(), kryoBatches.size());
+    Assert.assertEquals(jsonBatches.get(0).get(0).get("output"), kryoBatches.get(0).get(0).get("output"));
+  }
+
+}
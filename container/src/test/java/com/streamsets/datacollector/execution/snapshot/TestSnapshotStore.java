@@ -22,6 +22,7 @@ package com.streamsets.datacollector.execution.snapshot;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.runner.ErrorSink;
 import com.streamsets.datacollector.runner.EventSink;
@@ -33,6 +34,7 @@ import com.streamsets.pipeline.api.Record;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -46,11 +48,11 @@ public abstract class TestSnapshotStore {
 
   private static final String TEST_STRING = "TestSnapshotStore";
   private static final String MIME = "application/octet-stream";
-  private static final String SNAPSHOT_ID = "mySnapshotId";
-  private static final String SNAPSHOT_LABEL = "mySnapshotLabel";
-  private static final String PIPELINE_NAME = "myPipeline";
-  private static final String PIPELINE_REV = "0";
-  private static final String USER = "user";
+  protected static final String SNAPSHOT_ID = "mySnapshotId";
+  protected static final String SNAPSHOT_LABEL = "mySnapshotLabel";
+  protected static final String PIPELINE_NAME = "myPipeline";
+  protected static final String PIPELINE_REV = "0";
+  protected static final String USER = "user";
 
   protected SnapshotStore snapshotStore = null;
 
@@ -220,7 +222,38 @@ public abstract class TestSnapshotStore {
 
   }
 
-  private List<List<StageOutput>> getSnapshotData() {
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testWriteOutputPages() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+
+    List<List<Map>> all = readBatches(SNAPSHOT_ID, 0, -1);
+    Assert.assertEquals(2, all.size());
+    Assert.assertEquals(2, all.get(0).size());
+    Assert.assertEquals("source", all.get(0).get(0).get("instanceName"));
+    Assert.assertEquals(2, ((List) ((Map) all.get(0).get(0).get("output")).get("lane")).size());
+    Assert.assertEquals("processor", all.get(0).get(1).get("instanceName"));
+
+    List<List<Map>> page = readBatches(SNAPSHOT_ID, 1, 1);
+    Assert.assertEquals(1, page.size());
+    Assert.assertEquals(all.get(1), page.get(0));
+
+    Assert.assertEquals(all, readBatches(SNAPSHOT_ID, 0, 5));
+    Assert.assertTrue(readBatches(SNAPSHOT_ID, 2, 1).isEmpty());
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<List<Map>> readBatches(String snapshotId, int batchOffset, int batchCount) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, snapshotId)) {
+      snapshot.writeOutput(out, batchOffset, batchCount);
+    }
+    Map data = ObjectMapperFactory.get().readValue(out.toByteArray(), Map.class);
+    return (List<List<Map>>) data.get("snapshotBatches");
+  }
+
+  protected List<List<StageOutput>> getSnapshotData() {
     List<List<StageOutput>> snapshotBatches = new ArrayList<>();
     snapshotBatches.add(createSnapshotData());
     snapshotBatches.add(createSnapshotData());
@@ -29,7 +29,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TestDataStore {
 
@@ -316,4 +322,71 @@ public class TestDataStore {
     }
   }
 
+  @Test(timeout = 60000)
+  public void testConcurrentCommitsNoDurability() throws Exception {
+    testConcurrentCommits(DataStore.Durability.NONE);
+  }
+
+  @Test(timeout = 60000)
+  public void testConcurrentCommitsSyncDurability() throws Exception {
+    testConcurrentCommits(DataStore.Durability.SYNC);
+  }
+
+  @Test(timeout = 60000)
+  public void testConcurrentCommitsBatchDurability() throws Exception {
+    testConcurrentCommits(DataStore.Durability.BATCH);
+  }
+
+  private void testConcurrentCommits(DataStore.Durability durability) throws Exception {
+    final int threads = 8;
+    final int commits = 50;
+    final File dir = createTestDir();
+    DataStore.setDurability(durability, 10);
+    try {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        final int thread = i;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int j = 0; j < commits; j++) {
+              // one file per thread and a file shared by all threads
+              write(new DataStore(new File(dir, "thread-" + thread)), thread + ":" + j);
+              write(new DataStore(new File(dir, "shared")), thread + ":" + j);
+              readViaStore(new DataStore(new File(dir, "shared")));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      executor.shutdown();
+      DataStore.syncPendingFiles();
+
+      for (int i = 0; i < threads; i++) {
+        File file = new File(dir, "thread-" + i);
+        Assert.assertArrayEquals((i + ":" + (commits - 1)).getBytes(), readViaStore(new DataStore(file)));
+        Assert.assertFalse(DataStore.hasLock(file));
+      }
+      File shared = new File(dir, "shared");
+      Assert.assertTrue(new String(readViaStore(new DataStore(shared))).endsWith(":" + (commits - 1)));
+      Assert.assertFalse(DataStore.hasLock(shared));
+      Assert.assertEquals(threads + 1, dir.list().length);
+    } finally {
+      DataStore.setDurability(DataStore.Durability.NONE, 0);
+    }
+  }
+
+  private void write(DataStore ds, String data) throws IOException {
+    try (OutputStream os = ds.getOutputStream()) {
+      os.write(data.getBytes());
+      ds.commit(os);
+    } finally {
+      ds.release();
+    }
+  }
+
 }
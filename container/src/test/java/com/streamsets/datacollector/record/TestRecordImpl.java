@@ -124,6 +124,138 @@ public class TestRecordImpl {
     Assert.assertNotSame(clone, record);
   }
 
+  @Test
+  public void testStagesPathAndTrackingId() {
+    RecordImpl record1 = new RecordImpl("stage", "source1", null, null);
+    RecordImpl record2 = new RecordImpl("stage", "source2", null, null);
+    for (RecordImpl record : ImmutableList.of(record1, record2)) {
+      record.addStageToStagePath("x");
+      record.createTrackingId();
+      record.addStageToStagePath("y");
+      record.createTrackingId();
+    }
+    Assert.assertEquals("x:y", record1.getHeader().getStagesPath());
+    Assert.assertSame(record1.getHeader().getStagesPath(), record2.getHeader().getStagesPath());
+    Assert.assertEquals("source1::x:y", record1.getHeader().getTrackingId());
+    Assert.assertEquals("source1::x", record1.getHeader().getPreviousTrackingId());
+    Assert.assertEquals("source2::x:y", record2.getHeader().getTrackingId());
+
+    // a path set as a String keeps growing
+    record1.getHeader().setStagesPath("a:b");
+    record1.addStageToStagePath("c");
+    record1.createTrackingId();
+    Assert.assertEquals("a:b:c", record1.getHeader().getStagesPath());
+    Assert.assertEquals("source1::a:b:c", record1.getHeader().getTrackingId());
+    Assert.assertEquals("source1::x:y", record1.getHeader().getPreviousTrackingId());
+
+    // attributes map only holds Strings
+    Assert.assertEquals("a:b:c", record1.getHeader().getAllAttributes().get("_.stagePath"));
+    Assert.assertEquals(record1.clone(), record1);
+  }
+
+  @Test
+  public void testHeaderEqualsWithLazyAttributes() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    record.addStageToStagePath("x");
+    record.createTrackingId();
+    RecordImpl clone = record.cloneCopyOnWrite();
+
+    // compared with the String values of the stages path and tracking ID
+    HeaderImpl materialized = record.getHeader().clone();
+    materialized.materializeAttributes();
+    Assert.assertEquals(materialized, record.getHeader());
+    Assert.assertEquals(record.getHeader(), materialized);
+    Assert.assertEquals(materialized.hashCode(), record.getHeader().hashCode());
+    Assert.assertEquals(record.getHeader(), clone.getHeader());
+    Assert.assertEquals(record.getHeader().hashCode(), clone.getHeader().hashCode());
+
+    clone.addStageToStagePath("y");
+    Assert.assertNotEquals(record.getHeader(), clone.getHeader());
+    Assert.assertEquals("x", record.getHeader().getStagesPath());
+    Assert.assertEquals("x:y", clone.getHeader().getStagesPath());
+  }
+
+  @Test
+  public void testCloneCopyOnWrite() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("A"));
+    record.set(Field.create(map));
+    record.getHeader().setAttribute("a", "A");
+
+    RecordImpl clone1 = record.cloneCopyOnWrite();
+    RecordImpl clone2 = record.cloneCopyOnWrite();
+    Assert.assertEquals(record, clone1);
+    Assert.assertEquals(record, clone2);
+    Assert.assertTrue(clone1.has("/a"));
+
+    clone1.set("/b", Field.create("B"));
+    clone1.getHeader().setAttribute("a", "X");
+    Assert.assertTrue(clone1.has("/b"));
+    Assert.assertEquals("X", clone1.getHeader().getAttribute("a"));
+    Assert.assertFalse(record.has("/b"));
+    Assert.assertFalse(clone2.has("/b"));
+    Assert.assertEquals("A", record.getHeader().getAttribute("a"));
+    Assert.assertEquals("A", clone2.getHeader().getAttribute("a"));
+
+    // fields handed out must not be shared either
+    clone2.get("/a").setAttribute("x", "y");
+    clone2.get().getValueAsMap().remove("a");
+    Assert.assertFalse(clone2.has("/a"));
+    Assert.assertTrue(record.has("/a"));
+    Assert.assertNull(record.get("/a").getAttribute("x"));
+    Assert.assertEquals("A", clone1.get("/a").getValueAsString());
+
+    record.delete("/a");
+    Assert.assertFalse(record.has("/a"));
+    Assert.assertTrue(clone1.has("/a"));
+
+    EventRecordImpl event = new EventRecordImpl("type", 1, "stage", "source", null, null);
+    Assert.assertTrue(event.cloneCopyOnWrite() instanceof EventRecordImpl);
+  }
+
+  @Test
+  public void testCloneCopyOnWritePathReads() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> inner = new HashMap<>();
+    inner.put("x", Field.create("X"));
+    inner.put("y", Field.create("Y"));
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create(inner));
+    map.put("b", Field.create("B"));
+    map.put("c", Field.create(new ArrayList<>(ImmutableList.of(Field.create("C0"), Field.create("C1")))));
+    record.set(Field.create(map));
+
+    RecordImpl clone = record.cloneCopyOnWrite();
+    Field x = clone.get("/a/x");
+    Field c1 = clone.get("/c[1]");
+    x.setAttribute("x", "y");
+    c1.setAttribute("c", "d");
+    Assert.assertNull(record.get("/a/x").getAttribute("x"));
+    Assert.assertNull(record.get("/c[1]").getAttribute("c"));
+
+    // fields handed out before stay in the record once the rest of the tree is made private
+    Field a = clone.get("/a");
+    Assert.assertSame(x, a.getValueAsMap().get("x"));
+    a.getValueAsMap().remove("y");
+    Assert.assertFalse(clone.has("/a/y"));
+    Assert.assertTrue(record.has("/a/y"));
+    Field root = clone.get();
+    Assert.assertSame(a, root.getValueAsMap().get("a"));
+    Assert.assertSame(c1, root.getValueAsMap().get("c").getValueAsList().get(1));
+    Assert.assertEquals("y", clone.get("/a/x").getAttribute("x"));
+
+    // a record partially made private can be cloned again
+    RecordImpl clone2 = clone.cloneCopyOnWrite();
+    clone2.get("/a/x").setAttribute("x", "z");
+    clone2.set("/b", Field.create("BB"));
+    Assert.assertEquals("y", clone.get("/a/x").getAttribute("x"));
+    Assert.assertEquals("B", clone.get("/b").getValueAsString());
+    Assert.assertEquals("z", clone2.get("/a/x").getAttribute("x"));
+    Assert.assertEquals("BB", clone2.get("/b").getValueAsString());
+    Assert.assertEquals("B", record.get("/b").getValueAsString());
+  }
+
   // tests for field-path expressions
 
   @Test
@@ -293,16 +293,19 @@ public class TestPipeBatch {
     Assert.assertEquals(origRecord, copiedRecordX);
     Assert.assertNotSame(origRecord, copiedRecordX);
 
-    Assert.assertEquals(origRecord, copiedRecordY);
-    Assert.assertNotSame(origRecord, copiedRecordY);
+    // the last lane gets the original record, it is not copied
+    Assert.assertSame(origRecord, copiedRecordY);
 
+    // the original and the copy don't see each other's changes
+    copiedRecordY.getHeader().setAttribute("a", "Y");
+    Assert.assertEquals("A", copiedRecordX.getHeader().getAttribute("a"));
 
     Map<String, List<Record>> snapshot = pipeBatch.getLaneOutputRecords(list);
     Assert.assertEquals(2, snapshot.size());
     Assert.assertEquals(1, snapshot.get("x").size());
     Assert.assertEquals(1, snapshot.get("y").size());
     Assert.assertEquals("A", snapshot.get("x").get(0).getHeader().getAttribute("a"));
-    Assert.assertEquals("A", snapshot.get("y").get(0).getHeader().getAttribute("a"));
+    Assert.assertEquals("Y", snapshot.get("y").get(0).getHeader().getAttribute("a"));
   }
 
   @Test
@@ -22,6 +22,7 @@ package com.streamsets.datacollector.runner;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.metrics.ThreadResourceUsage;
 import com.streamsets.datacollector.runner.BatchImpl;
 import com.streamsets.datacollector.runner.BatchMakerImpl;
 import com.streamsets.datacollector.runner.ErrorSink;
@@ -46,6 +47,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -174,6 +176,61 @@ public class TestStagePipe {
     Assert.assertTrue(process);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testResourceMetrics() throws Exception {
+    MockStages.setProcessorCapture(new Processor() {
+
+      @Override
+      public List<ConfigIssue> init(Info info, Context context) {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public void process(Batch batch, BatchMaker batchMaker) throws StageException {
+        List<byte[]> garbage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+          garbage.add(new byte[1024]);
+        }
+        Assert.assertEquals(100, garbage.size());
+      }
+
+      @Override
+      public void destroy() {
+      }
+    });
+    MetricRegistry metrics = new MetricRegistry();
+    PipelineRunner pipelineRunner = Mockito.mock(PipelineRunner.class);
+    Mockito.when(pipelineRunner.getMetrics()).thenReturn(metrics);
+    Mockito.when(pipelineRunner.getRuntimeInfo()).thenReturn(Mockito.mock(RuntimeInfo.class));
+    Pipeline pipeline = new Pipeline.Builder(MockStages.createStageLibrary(), new Configuration(), "name", "name", "0", MockStages.userContext(),
+                                             MockStages.createPipelineConfigurationSourceProcessorTarget())
+        .build(pipelineRunner);
+    StagePipe pipe = (StagePipe) pipeline.getRunners().get(0).get(3);
+    BatchMakerImpl batchMaker = Mockito.mock(BatchMakerImpl.class);
+    Mockito.when(batchMaker.getLanes()).thenReturn(ImmutableList.of("p"));
+
+    BatchImpl batch = Mockito.mock(BatchImpl.class);
+    Mockito.when(batch.getSize()).thenReturn(1);
+
+    PipeBatch pipeBatch = Mockito.mock(FullPipeBatch.class);
+    Mockito.when(pipeBatch.startStage(Mockito.eq(pipe))).thenReturn(batchMaker);
+    Mockito.when(pipeBatch.getBatch(Mockito.eq(pipe))).thenReturn(batch);
+    Mockito.when(pipeBatch.getErrorSink()).thenReturn(new ErrorSink());
+
+    Assert.assertTrue(pipe.init(new PipeContext()).isEmpty());
+    pipe.process(pipeBatch);
+    pipe.destroy(pipeBatch);
+
+    if (ThreadResourceUsage.isCpuTimeSupported()) {
+      Assert.assertEquals(1, metrics.getTimers().get("stage.p.cpuTime.timer").getCount());
+    }
+    if (ThreadResourceUsage.isAllocatedBytesSupported()) {
+      Assert.assertTrue(metrics.getCounters().get("stage.p.allocatedBytes.counter").getCount() >= 100 * 1024);
+      Assert.assertEquals(1, metrics.getHistograms().get("stage.p.allocatedBytes.histogramM5").getCount());
+    }
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testTarget() throws Exception {
@@ -20,9 +20,11 @@
 package com.streamsets.datacollector.runner.production;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.RuntimeModule;
 import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.impl.Utils;
 
@@ -37,7 +39,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class TestProductionSourceOffsetTracker {
   private static Logger LOG = LoggerFactory.getLogger(TestProductionSourceOffsetTracker.class);
@@ -45,6 +51,7 @@ public class TestProductionSourceOffsetTracker {
   private static final String PIPELINE_NAME = "myPipeline";
   private static final String PIPELINE_REV = "2.0";
 
+  private static RuntimeInfo info;
   private static ProductionSourceOffsetTracker offsetTracker;
 
   @BeforeClass
@@ -66,7 +73,7 @@ public class TestProductionSourceOffsetTracker {
 
   @Before
   public void createOffsetTracker() {
-    RuntimeInfo info = new StandaloneRuntimeInfo(
+    info = new StandaloneRuntimeInfo(
       RuntimeModule.SDC_PROPERTY_PREFIX,
       new MetricRegistry(),
       Arrays.asList(TestProductionSourceOffsetTracker.class.getClassLoader())
@@ -114,4 +121,91 @@ public class TestProductionSourceOffsetTracker {
     Assert.assertEquals(0, offsetTracker.getOffsets().size());
   }
 
+  @Test
+  public void testWriteAheadLog() {
+    Configuration conf = new Configuration();
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_ENABLED_KEY, true);
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_SYNC_COMMITS_KEY, 1);
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_COMPACTION_COMMITS_KEY, 3);
+    File walFile = OffsetFileUtil.getPipelineOffsetWalFile(info, PIPELINE_NAME, PIPELINE_REV);
+
+    ProductionSourceOffsetTracker tracker = new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info, conf);
+    tracker.commitOffset("a", "1");
+    tracker.commitOffset("b", "1");
+    Assert.assertTrue(walFile.length() > 0);
+    // not compacted yet
+    Assert.assertTrue(OffsetFileUtil.getOffsetsFromFile(info, PIPELINE_NAME, PIPELINE_REV).isEmpty());
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "1"), OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV));
+
+    // compaction
+    tracker.commitOffset("a", "2");
+    Assert.assertEquals(0, walFile.length());
+    Assert.assertEquals(
+        ImmutableMap.of("a", "2", "b", "1"),
+        OffsetFileUtil.getOffsetsFromFile(info, PIPELINE_NAME, PIPELINE_REV)
+    );
+
+    tracker.commitOffset("b", null);
+    tracker.commitOffset("c", "1");
+
+    // simulating a crash, a new tracker recovers the log
+    ProductionSourceOffsetTracker recovered = new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info);
+    Assert.assertEquals(ImmutableMap.of("a", "2", "c", "1"), recovered.getOffsets());
+    Assert.assertFalse(walFile.exists());
+    Assert.assertEquals(
+        ImmutableMap.of("a", "2", "c", "1"),
+        OffsetFileUtil.getOffsetsFromFile(info, PIPELINE_NAME, PIPELINE_REV)
+    );
+
+    tracker = new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info, conf);
+    tracker.commitOffset("a", "3");
+    tracker.close();
+    Assert.assertFalse(walFile.exists());
+    Assert.assertEquals(
+        ImmutableMap.of("a", "3", "c", "1"),
+        OffsetFileUtil.getOffsetsFromFile(info, PIPELINE_NAME, PIPELINE_REV)
+    );
+  }
+
+  @Test
+  public void testCloseWriteAheadLogWhileCommitting() throws Exception {
+    Configuration conf = new Configuration();
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_ENABLED_KEY, true);
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_SYNC_COMMITS_KEY, 1);
+    conf.set(ProductionSourceOffsetTracker.OFFSET_WAL_SYNC_INTERVAL_MS_KEY, 1);
+    final ProductionSourceOffsetTracker tracker =
+        new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info, conf);
+
+    // every commit fsyncs the log outside of the offsets lock, closing must not fail any of them
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final String entity = "entity-" + i;
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; !stop.get(); j++) {
+              tracker.commitOffset(entity, String.valueOf(j));
+            }
+          } catch (Throwable ex) {
+            error.set(ex);
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    Thread.sleep(200);
+    tracker.close();
+    Thread.sleep(50);
+    stop.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertNull(error.get());
+    Assert.assertEquals(tracker.getOffsets(), OffsetFileUtil.getOffsetsFromFile(info, PIPELINE_NAME, PIPELINE_REV));
+  }
+
 }
@@ -21,7 +21,6 @@ package com.streamsets.pipeline.stage.config.elasticsearch;
 
 import com.streamsets.pipeline.api.ConfigDef;
 import com.streamsets.pipeline.api.ValueChooserModel;
-import com.streamsets.pipeline.config.CharsetChooserValues;
 import com.streamsets.pipeline.config.TimeZoneChooserValues;
 import com.streamsets.pipeline.lib.el.DataUtilEL;
 import com.streamsets.pipeline.lib.el.RecordEL;
@@ -97,17 +96,6 @@ public class ElasticsearchTargetConfig extends ElasticsearchConfig {
   )
   public String docIdTemplate;
 
-  @ConfigDef(
-      required = true,
-      type = ConfigDef.Type.MODEL,
-      defaultValue = "UTF-8",
-      label = "Data Charset",
-      displayPosition = 90,
-      group = "ELASTIC_SEARCH"
-  )
-  @ValueChooserModel(CharsetChooserValues.class)
-  public String charset;
-
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -131,4 +119,30 @@ public class ElasticsearchTargetConfig extends ElasticsearchConfig {
   )
   @ValueChooserModel(UnsupportedOperationActionChooserValues.class)
   public UnsupportedOperationAction unsupportedAction;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "5120",
+      label = "Max Bulk Request Size (KB)",
+      description = "Batches larger than this size are split in several bulk requests",
+      displayPosition = 120,
+      group = "ELASTIC_SEARCH",
+      min = 1
+  )
+  public int maxBulkSizeKB;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Max Concurrent Bulk Requests",
+      description = "Number of bulk requests of a batch sent at the same time. With more than one request, " +
+          "operations on the same document in different requests can be applied in any order.",
+      displayPosition = 130,
+      group = "ELASTIC_SEARCH",
+      min = 1,
+      max = 32
+  )
+  public int maxConcurrentRequests;
 }
@@ -0,0 +1,255 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.lib.operation.OperationType;
+import com.streamsets.pipeline.lib.util.JsonUtil;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the body of an Elasticsearch bulk request writing the action and document lines of the records straight
+ * into a byte buffer that is reused from batch to batch.
+ * <p/>
+ * The JSON is generated without line breaks, so each action and document takes exactly one line of the NDJSON body.
+ */
+class BulkRequestBuilder {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int NEW_LINE = '\n';
+
+  static {
+    JSON_FACTORY.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  private static class Buffer extends ByteArrayOutputStream {
+
+    Buffer(int size) {
+      super(size);
+    }
+
+    byte[] getBuffer() {
+      return buf;
+    }
+
+    void truncate(int size) {
+      count = size;
+    }
+
+  }
+
+  static class ErrorItem {
+    final int index;
+    final String reason;
+
+    ErrorItem(int index, String reason) {
+      this.index = index;
+      this.reason = reason;
+    }
+  }
+
+  private final Buffer buffer;
+  private final List<Record> records;
+
+  BulkRequestBuilder(int initialSize) {
+    buffer = new Buffer(initialSize);
+    records = new ArrayList<>();
+  }
+
+  void clear() {
+    buffer.reset();
+    records.clear();
+  }
+
+  boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  /**
+   * Returns the size in bytes of the request body.
+   */
+  int size() {
+    return buffer.size();
+  }
+
+  /**
+   * Returns the records in the request, in the same order as the items of the bulk response.
+   */
+  List<Record> getRecords() {
+    return records;
+  }
+
+  /**
+   * Adds the operation for the record. If the record can't be written the request is left as it was before the call.
+   */
+  void add(Record record, String index, String type, String id, int opCode) throws IOException, StageException {
+    String action;
+    switch (opCode) {
+      case OperationType.UPSERT_CODE:
+        action = "index";
+        break;
+      case OperationType.INSERT_CODE:
+        action = "create";
+        break;
+      case OperationType.UPDATE_CODE:
+        action = "update";
+        break;
+      case OperationType.DELETE_CODE:
+        action = "delete";
+        break;
+      default:
+        throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
+    }
+    int mark = buffer.size();
+    try {
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart(action);
+        generator.writeStringField("_index", index);
+        generator.writeStringField("_type", type);
+        if (!StringUtils.isEmpty(id)) {
+          generator.writeStringField("_id", id);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+      }
+      buffer.write(NEW_LINE);
+      if (opCode != OperationType.DELETE_CODE) {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+          if (opCode == OperationType.UPDATE_CODE) {
+            generator.writeStartObject();
+            generator.writeFieldName("doc");
+            JsonUtil.writeField(record, record.get(), generator);
+            generator.writeEndObject();
+          } else {
+            JsonUtil.writeField(record, record.get(), generator);
+          }
+        }
+        buffer.write(NEW_LINE);
+      }
+      records.add(record);
+    } catch (IOException | StageException | RuntimeException ex) {
+      buffer.truncate(mark);
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns an entity backed by the request buffer, the builder must not be modified until the request is done.
+   */
+  HttpEntity createEntity() {
+    return new ByteArrayEntity(buffer.getBuffer(), 0, buffer.size(), ContentType.APPLICATION_JSON);
+  }
+
+  /**
+   * Parses a bulk response returning the items that failed.
+   * <p/>
+   * The response is read in streaming mode and, as Elasticsearch writes the <code>errors</code> flag before the
+   * <code>items</code>, the items are parsed only if some operation failed.
+   */
+  static List<ErrorItem> parseResponse(InputStream inputStream) throws IOException {
+    List<ErrorItem> errorItems = new ArrayList<>();
+    try (JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (name.equals("errors")) {
+          if (!reader.nextBoolean()) {
+            break;
+          }
+        } else if (name.equals("items")) {
+          readErrorItems(reader, errorItems);
+        } else {
+          reader.skipValue();
+        }
+      }
+    }
+    return errorItems;
+  }
+
+  private static void readErrorItems(JsonReader reader, List<ErrorItem> errorItems) throws IOException {
+    reader.beginArray();
+    for (int i = 0; reader.hasNext(); i++) {
+      // {"<action>": {..., "status": <status>, "error": <error>}}
+      reader.beginObject();
+      while (reader.hasNext()) {
+        reader.nextName();
+        int status = 0;
+        String reason = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          if (name.equals("status")) {
+            status = reader.nextInt();
+          } else if (name.equals("error")) {
+            reason = readErrorReason(reader);
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+        if (status >= 400) {
+          errorItems.add(new ErrorItem(i, reason));
+        }
+      }
+      reader.endObject();
+    }
+    reader.endArray();
+  }
+
+  // In some old versions, "error" is a simple string not a json object.
+  private static String readErrorReason(JsonReader reader) throws IOException {
+    String reason = "";
+    JsonToken token = reader.peek();
+    if (token == JsonToken.BEGIN_OBJECT) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.nextName().equals("reason") && reader.peek() == JsonToken.STRING) {
+          reason = reader.nextString();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    } else if (token == JsonToken.STRING) {
+      reason = reader.nextString();
+    } else {
+      reader.skipValue();
+    }
+    return reason;
+  }
+
+}
@@ -30,7 +30,7 @@ import com.streamsets.pipeline.stage.config.elasticsearch.Groups;
 
 @GenerateResourceBundle
 @StageDef(
-    version = 7,
+    version = 9,
     label = "Elasticsearch",
     description = "Upload data to an Elasticsearch cluster",
     icon = "elasticsearch.png",
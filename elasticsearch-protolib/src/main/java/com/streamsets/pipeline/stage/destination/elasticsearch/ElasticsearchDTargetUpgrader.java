@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 
 public class ElasticsearchDTargetUpgrader implements StageUpgrader {
   static final String OLD_CONFIG_PREFIX = "elasticSearchConfigBean.";
+  static final String TARGET_CONFIG_PREFIX = "elasticSearchConfig.";
 
   @Override
   public List<Config> upgrade(
@@ -71,7 +72,20 @@ public class ElasticsearchDTargetUpgrader implements StageUpgrader {
         }
         // fall through
       case 6:
-        return upgradeV6ToV7(configs);
+        configs = upgradeV6ToV7(configs);
+        if (toVersion == 7) {
+          break;
+        }
+        // fall through
+      case 7:
+        upgradeV7ToV8(configs);
+        if (toVersion == 8) {
+          break;
+        }
+        // fall through
+      case 8:
+        upgradeV8ToV9(configs);
+        break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
     }
@@ -244,4 +258,15 @@ public class ElasticsearchDTargetUpgrader implements StageUpgrader {
     return newConfigs;
   }
 
+  private static void upgradeV7ToV8(List<Config> configs) {
+    configs.add(new Config(ElasticsearchConfig.CONF_PREFIX + "maxBulkSizeKB", 5120));
+    configs.add(new Config(ElasticsearchConfig.CONF_PREFIX + "maxConcurrentRequests", 1));
+  }
+
+  private static void upgradeV8ToV9(List<Config> configs) {
+    // Remove charset, bulk requests are always sent in UTF-8.
+    configs.removeIf(config -> config.getName().equals(ElasticsearchConfig.CONF_PREFIX + "charset") ||
+        config.getName().equals(TARGET_CONFIG_PREFIX + "charset"));
+  }
+
 }
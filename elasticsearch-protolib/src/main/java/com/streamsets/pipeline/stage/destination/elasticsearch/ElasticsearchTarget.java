@@ -20,10 +20,9 @@
 package com.streamsets.pipeline.stage.destination.elasticsearch;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.ErrorCode;
 import com.streamsets.pipeline.api.Record;
@@ -34,15 +33,10 @@ import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.Utils;
-import com.streamsets.pipeline.config.JsonMode;
 import com.streamsets.pipeline.lib.el.RecordEL;
 import com.streamsets.pipeline.lib.el.TimeEL;
 import com.streamsets.pipeline.lib.el.TimeNowEL;
 import com.streamsets.pipeline.lib.elasticsearch.ElasticsearchStageDelegate;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFactoryBuilder;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFormat;
 import com.streamsets.pipeline.lib.operation.OperationType;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
@@ -51,17 +45,12 @@ import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchTargetCon
 import com.streamsets.pipeline.stage.config.elasticsearch.Errors;
 import com.streamsets.pipeline.stage.config.elasticsearch.Groups;
 import org.apache.commons.lang.StringUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.elasticsearch.client.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -69,9 +58,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ElasticsearchTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchTarget.class);
+  private static final int INITIAL_BULK_BUFFER_SIZE = 64 * 1024;
   private final ElasticsearchTargetConfig conf;
   private ELEval timeDriverEval;
   private TimeZone timeZone;
@@ -79,9 +73,11 @@ public class ElasticsearchTarget extends BaseTarget {
   private ELEval indexEval;
   private ELEval typeEval;
   private ELEval docIdEval;
-  private DataGeneratorFactory generatorFactory;
   private ErrorRecordHandler errorRecordHandler;
   private ElasticsearchStageDelegate delegate;
+  private int maxBulkSize;
+  private List<BulkRequestBuilder> bulkRequestBuilders;
+  private ExecutorService executor;
 
   public ElasticsearchTarget(ElasticsearchTargetConfig conf) {
     this.conf = conf;
@@ -173,16 +169,21 @@ public class ElasticsearchTarget extends BaseTarget {
 
     issues = delegate.init(issues);
 
-    generatorFactory = new DataGeneratorFactoryBuilder(getContext(), DataGeneratorFormat.JSON)
-        .setMode(JsonMode.MULTIPLE_OBJECTS)
-        .setCharset(Charset.forName(conf.charset))
-        .build();
+    maxBulkSize = (conf.maxBulkSizeKB > 0) ? conf.maxBulkSizeKB * 1024 : Integer.MAX_VALUE;
+    bulkRequestBuilders = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(
+        Math.max(1, conf.maxConcurrentRequests),
+        new ThreadFactoryBuilder().setNameFormat("Elasticsearch Bulk Request - %d").build()
+    );
 
     return issues;
   }
 
   @Override
   public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
     delegate.destroy();
     super.destroy();
   }
@@ -213,15 +214,13 @@ public class ElasticsearchTarget extends BaseTarget {
     TimeNowEL.setTimeNowInContext(elVars, getBatchTime());
     Iterator<Record> it = batch.getRecords();
 
-    StringBuilder bulkRequest = new StringBuilder();
-
-    //we need to keep the records in order of appearance in case we have indexing errors
-    //and error handling is TO_ERROR
-    List<Record> records = new ArrayList<>();
+    // the records of each bulk request are kept in order of appearance in case we have indexing errors
+    // and error handling is TO_ERROR
+    int bulkRequestCount = 0;
+    BulkRequestBuilder bulkRequest = getBulkRequestBuilder(bulkRequestCount++);
 
     while (it.hasNext()) {
       Record record = it.next();
-      records.add(record);
 
       try {
         RecordEL.setRecordInContext(elVars, record);
@@ -231,14 +230,9 @@ public class ElasticsearchTarget extends BaseTarget {
         if (!StringUtils.isEmpty(conf.docIdTemplate)) {
           id = docIdEval.eval(elVars, conf.docIdTemplate, String.class);
         }
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataGenerator generator = generatorFactory.getGenerator(baos);
-        generator.write(record);
-        generator.close();
 
         int opCode = -1;
         String opType = record.getHeader().getAttribute(OperationType.SDC_OPERATION_TYPE);
-        String recordJson = new String(baos.toByteArray(), StandardCharsets.UTF_8).replace("\n", "");
         // Check if the operation code from header attribute is valid
         if (!StringUtils.isEmpty(opType)) {
           try {
@@ -263,7 +257,24 @@ public class ElasticsearchTarget extends BaseTarget {
           // No header attribute set. Use default.
           opCode = conf.defaultOperation.code;
         }
-        bulkRequest.append(getOperation(index, type, id, recordJson, opCode));
+        if (opCode != -1) {
+          if (bulkRequest.size() >= maxBulkSize) {
+            bulkRequest = getBulkRequestBuilder(bulkRequestCount++);
+          }
+          try {
+            bulkRequest.add(record, index, type, id, opCode);
+          } catch (StageException ex) {
+            errorRecordHandler.onError(
+                new OnRecordErrorException(
+                    record,
+                    Errors.ELASTICSEARCH_15,
+                    record.getHeader().getSourceId(),
+                    ex.toString(),
+                    ex
+                )
+            );
+          }
+        }
       } catch (IOException ex) {
         errorRecordHandler.onError(
             new OnRecordErrorException(
@@ -277,117 +288,111 @@ public class ElasticsearchTarget extends BaseTarget {
       }
     }
 
-    if (!records.isEmpty()) {
-      try {
-        HttpEntity entity = new StringEntity(bulkRequest.toString(), ContentType.APPLICATION_JSON);
-        Response response;
-        response = delegate.performRequest(
-            "POST",
-            "/_bulk",
-            conf.params,
-            entity,
-            delegate.getAuthenticationHeader()
-        );
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        response.getEntity().writeTo(baos);
-        JsonObject json = new JsonParser().parse(baos.toString()).getAsJsonObject();
-        baos.close();
+    List<BulkRequestBuilder> bulkRequests = bulkRequestBuilders.subList(0, bulkRequestCount);
+    List<Future<List<BulkRequestBuilder.ErrorItem>>> responses = new ArrayList<>(bulkRequestCount);
+    int failedOperations = 0;
+    try {
+      for (BulkRequestBuilder request : bulkRequests) {
+        if (!request.isEmpty()) {
+          responses.add(executor.submit(() -> sendBulkRequest(request)));
+        } else {
+          responses.add(null);
+        }
+      }
 
-        // Handle errors in bulk requests individually.
-        boolean errors = json.get("errors").getAsBoolean();
-        if (errors) {
-          List<ErrorItem> errorItems;
+      for (int i = 0; i < bulkRequestCount; i++) {
+        if (responses.get(i) == null) {
+          continue;
+        }
+        List<Record> records = bulkRequests.get(i).getRecords();
+        try {
+          // Handle errors in bulk requests individually.
+          List<BulkRequestBuilder.ErrorItem> errorItems = getResponse(responses.get(i));
           switch (getContext().getOnErrorRecord()) {
             case DISCARD:
               break;
             case TO_ERROR:
-              errorItems = extractErrorItems(json);
-              for (ErrorItem item : errorItems) {
+              for (BulkRequestBuilder.ErrorItem item : errorItems) {
                 Record record = records.get(item.index);
                 getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
               }
               break;
             case STOP_PIPELINE:
-              errorItems = extractErrorItems(json);
-              throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
+              failedOperations += errorItems.size();
+              break;
             default:
               throw new IllegalStateException(
                   Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
               );
           }
+        } catch (IOException ex) {
+          errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
         }
-      } catch (IOException ex) {
-        errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
       }
+    } finally {
+      // requests still running read the bulk request buffers the next batch reuses
+      waitForResponses(responses);
+    }
+    if (failedOperations > 0) {
+      throw new StageException(Errors.ELASTICSEARCH_17, failedOperations, "One or more operations failed");
     }
   }
 
-  Date setBatchTime() {
-    batchTime = new Date();
-    return batchTime;
+  // reuses the bulk request buffers from batch to batch
+  private BulkRequestBuilder getBulkRequestBuilder(int index) {
+    if (index == bulkRequestBuilders.size()) {
+      bulkRequestBuilders.add(new BulkRequestBuilder(INITIAL_BULK_BUFFER_SIZE));
+    }
+    BulkRequestBuilder builder = bulkRequestBuilders.get(index);
+    builder.clear();
+    return builder;
   }
 
-  Date getBatchTime() {
-    return batchTime;
+  private List<BulkRequestBuilder.ErrorItem> sendBulkRequest(BulkRequestBuilder request) throws IOException {
+    Response response = delegate.performRequest(
+        "POST",
+        "/_bulk",
+        conf.params,
+        request.createEntity(),
+        delegate.getAuthenticationHeader()
+    );
+    try (InputStream inputStream = response.getEntity().getContent()) {
+      return BulkRequestBuilder.parseResponse(inputStream);
+    }
   }
 
-  private String getOperation(String index, String type, String id, String record, int opCode) {
-    StringBuilder op = new StringBuilder();
-    switch (opCode) {
-      case OperationType.UPSERT_CODE:
-        if (StringUtils.isEmpty(id)) {
-          op.append(String.format("{\"index\":{\"_index\":\"%s\",\"_type\":\"%s\"}}%n", index, type));
-        } else {
-          op.append(String.format("{\"index\":{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\"}}%n", index, type, id));
-        }
-        op.append(String.format("%s%n", record));
-        break;
-      case OperationType.INSERT_CODE:
-        op.append(String.format("{\"create\":{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\"}}%n", index, type, id));
-        op.append(String.format("%s%n", record));
-        break;
-      case OperationType.UPDATE_CODE:
-        op.append(String.format("{\"update\":{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\"}}%n", index, type, id));
-        op.append(String.format("{\"doc\":%s}%n", record));
-        break;
-      case OperationType.DELETE_CODE:
-        op.append(String.format("{\"delete\":{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\"}}%n", index, type, id));
-        break;
-      default:
-        LOG.error("Operation {} not supported", opCode);
-        throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
+  private List<BulkRequestBuilder.ErrorItem> getResponse(Future<List<BulkRequestBuilder.ErrorItem>> future)
+      throws IOException, StageException {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new StageException(Errors.ELASTICSEARCH_17, 0, ex.toString(), ex);
+    } catch (ExecutionException ex) {
+      Throwables.propagateIfInstanceOf(ex.getCause(), IOException.class);
+      throw Throwables.propagate(ex.getCause());
     }
-    return op.toString();
   }
 
-  private List<ErrorItem> extractErrorItems(JsonObject json) {
-    List<ErrorItem> errorItems = new ArrayList<>();
-    JsonArray items = json.getAsJsonArray("items");
-    for (int i = 0; i < items.size(); i++) {
-      JsonObject item = items.get(i).getAsJsonObject().entrySet().iterator().next().getValue().getAsJsonObject();
-      int status = item.get("status").getAsInt();
-      if (status >= 400) {
-        Object error = item.get("error");
-        // In some old versions, "error" is a simple string not a json object.
-        if (error instanceof JsonObject) {
-          errorItems.add(new ErrorItem(i, item.getAsJsonObject("error").get("reason").getAsString()));
-        } else if (error instanceof JsonPrimitive) {
-          errorItems.add(new ErrorItem(i, item.getAsJsonPrimitive("error").getAsString()));
-        } else {
-          // Error would be null if json has no "error" field.
-          errorItems.add(new ErrorItem(i, ""));
+  private static void waitForResponses(List<Future<List<BulkRequestBuilder.ErrorItem>>> responses) {
+    for (Future<List<BulkRequestBuilder.ErrorItem>> response : responses) {
+      if (response != null && !response.isDone()) {
+        try {
+          Uninterruptibles.getUninterruptibly(response);
+        } catch (ExecutionException ex) {
+          LOG.debug("Bulk request failed after the batch failed: {}", ex.getCause().toString(), ex);
         }
       }
     }
-    return errorItems;
   }
 
-  private static class ErrorItem {
-    int index;
-    String reason;
-    ErrorItem(int index, String reason) {
-      this.index = index;
-      this.reason = reason;
-    }
+  Date setBatchTime() {
+    batchTime = new Date();
+    return batchTime;
   }
+
+  Date getBatchTime() {
+    return batchTime;
+  }
+
 }
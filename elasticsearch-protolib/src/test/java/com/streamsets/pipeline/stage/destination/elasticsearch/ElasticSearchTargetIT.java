@@ -73,7 +73,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "${record:value('/index')x}";
     conf.typeTemplate = "${record:nonExistentFunction()}";
     conf.docIdTemplate = "";
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.INDEX;
     conf.useSecurity= false;
     conf.securityConfig = new SecurityConfig();
@@ -92,7 +91,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "x";
     conf.typeTemplate = "x";
     conf.docIdTemplate = "";
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.INDEX;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
@@ -109,7 +107,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "x";
     conf.typeTemplate = "x";
     conf.docIdTemplate = "";
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.INDEX;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
@@ -142,7 +139,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = indexEL;
     conf.typeTemplate = "${record:value('/type')}";
     conf.docIdTemplate = docIdEL;
-    conf.charset = "UTF-8";
     conf.defaultOperation = op;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
@@ -331,7 +327,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "${YYYY()}";
     conf.typeTemplate = "${record:value('/type')}";
     conf.docIdTemplate = "";
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.INDEX;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
@@ -442,7 +437,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "${YYYY()}";
     conf.typeTemplate = "${record:value('/type')}";
     conf.docIdTemplate = "";
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.INDEX;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
@@ -486,7 +480,6 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.indexTemplate = "${YYYY()}";
     conf.typeTemplate = "${record:value('/type')}";
     conf.docIdTemplate = ""; // empty document ID expression
-    conf.charset = "UTF-8";
     conf.defaultOperation = ElasticsearchOperationType.CREATE;
     conf.useSecurity = false;
     conf.securityConfig = new SecurityConfig();
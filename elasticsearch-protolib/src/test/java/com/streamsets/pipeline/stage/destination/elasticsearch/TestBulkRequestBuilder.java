@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.lib.operation.OperationType;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class TestBulkRequestBuilder {
+
+  private static Record createRecord(String value) {
+    Record record = RecordCreator.create();
+    record.set(Field.create(ImmutableMap.of("a", Field.create(value))));
+    return record;
+  }
+
+  private static String getBody(BulkRequestBuilder builder) throws Exception {
+    return EntityUtils.toString(builder.createEntity(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testOperations() throws Exception {
+    BulkRequestBuilder builder = new BulkRequestBuilder(16);
+    Assert.assertTrue(builder.isEmpty());
+    Record r1 = createRecord("x\ny");
+    Record r2 = createRecord("z");
+    builder.add(r1, "i\"1", "t", null, OperationType.UPSERT_CODE);
+    builder.add(r2, "i", "t", "1", OperationType.INSERT_CODE);
+    builder.add(r1, "i", "t", "2", OperationType.UPDATE_CODE);
+    builder.add(r2, "i", "t", "3", OperationType.DELETE_CODE);
+    Assert.assertFalse(builder.isEmpty());
+    Assert.assertEquals(4, builder.getRecords().size());
+    Assert.assertSame(r1, builder.getRecords().get(0));
+    Assert.assertSame(r2, builder.getRecords().get(3));
+
+    String expected =
+        "{\"index\":{\"_index\":\"i\\\"1\",\"_type\":\"t\"}}\n" +
+        "{\"a\":\"x\\ny\"}\n" +
+        "{\"create\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\"}}\n" +
+        "{\"a\":\"z\"}\n" +
+        "{\"update\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"2\"}}\n" +
+        "{\"doc\":{\"a\":\"x\\ny\"}}\n" +
+        "{\"delete\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"3\"}}\n";
+    Assert.assertEquals(expected, getBody(builder));
+    Assert.assertEquals(expected.length(), builder.size());
+
+    // the buffer is reused
+    builder.clear();
+    Assert.assertTrue(builder.isEmpty());
+    Assert.assertEquals(0, builder.size());
+    builder.add(r2, "i", "t", "3", OperationType.DELETE_CODE);
+    Assert.assertEquals("{\"delete\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"3\"}}\n", getBody(builder));
+  }
+
+  @Test
+  public void testUnsupportedOperation() throws Exception {
+    BulkRequestBuilder builder = new BulkRequestBuilder(16);
+    try {
+      builder.add(createRecord("x"), "i", "t", "1", -1);
+      Assert.fail();
+    } catch (UnsupportedOperationException ex) {
+      Assert.assertTrue(builder.isEmpty());
+      Assert.assertEquals(0, builder.size());
+    }
+  }
+
+  private static List<BulkRequestBuilder.ErrorItem> parse(String response) throws Exception {
+    return BulkRequestBuilder.parseResponse(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testParseResponseWithoutErrors() throws Exception {
+    Assert.assertTrue(parse("{\"took\":1,\"errors\":false,\"items\":[{\"index\":{\"status\":201}}]}").isEmpty());
+    // items are not parsed if there are no errors
+    Assert.assertTrue(parse("{\"took\":1,\"errors\":false,\"items\":[{\"index\":{\"status\":500}}]}").isEmpty());
+  }
+
+  @Test
+  public void testParseResponseWithErrors() throws Exception {
+    List<BulkRequestBuilder.ErrorItem> errorItems = parse(
+        "{\"took\":1,\"errors\":true,\"items\":[" +
+            "{\"index\":{\"_index\":\"i\",\"status\":201}}," +
+            "{\"create\":{\"_index\":\"i\",\"status\":409,\"error\":{\"type\":\"x\",\"reason\":\"exists\"," +
+            "\"caused_by\":{\"reason\":\"other\"}}}}," +
+            "{\"update\":{\"status\":404,\"error\":\"missing\"}}," +
+            "{\"delete\":{\"status\":400}}" +
+        "]}"
+    );
+    Assert.assertEquals(3, errorItems.size());
+    Assert.assertEquals(1, errorItems.get(0).index);
+    Assert.assertEquals("exists", errorItems.get(0).reason);
+    Assert.assertEquals(2, errorItems.get(1).index);
+    Assert.assertEquals("missing", errorItems.get(1).reason);
+    Assert.assertEquals(3, errorItems.get(2).index);
+    Assert.assertEquals("", errorItems.get(2).reason);
+  }
+
+}
@@ -26,9 +26,12 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class TestElasticSearchDTargetUpgrader {
@@ -62,6 +65,32 @@ public class TestElasticSearchDTargetUpgrader {
     newConfigs.forEach(config -> assertTrue(config.getName().startsWith(ElasticsearchConfig.CONF_PREFIX)));
   }
 
+  @Test
+  public void testV7ToV8Upgrade() throws Exception {
+    StageUpgrader upgrader = new ElasticsearchDTargetUpgrader();
+    List<Config> configs = upgrader.upgrade("l", "s", "i", 1, 8, createConfigs());
+    Map<String, Object> values = new HashMap<>();
+    configs.forEach(config -> values.put(config.getName(), config.getValue()));
+    assertEquals(5120, values.get(ElasticsearchConfig.CONF_PREFIX + "maxBulkSizeKB"));
+    assertEquals(1, values.get(ElasticsearchConfig.CONF_PREFIX + "maxConcurrentRequests"));
+  }
+
+  @Test
+  public void testV8ToV9Upgrade() throws Exception {
+    StageUpgrader upgrader = new ElasticsearchDTargetUpgrader();
+    List<Config> configs = createConfigs();
+    configs.add(new Config(ElasticsearchDTargetUpgrader.OLD_CONFIG_PREFIX + "charset", "UTF-8"));
+    configs = upgrader.upgrade("l", "s", "i", 1, 9, configs);
+    configs.forEach(config -> assertFalse(config.getName().endsWith("charset")));
+
+    configs = new ArrayList<>();
+    configs.add(new Config(ElasticsearchDTargetUpgrader.TARGET_CONFIG_PREFIX + "charset", "UTF-8"));
+    configs.add(new Config(ElasticsearchDTargetUpgrader.TARGET_CONFIG_PREFIX + "timeDriver", "${time:now()}"));
+    configs = upgrader.upgrade("l", "s", "i", 8, 9, configs);
+    assertEquals(1, configs.size());
+    assertEquals(ElasticsearchDTargetUpgrader.TARGET_CONFIG_PREFIX + "timeDriver", configs.get(0).getName());
+  }
+
   private List<Config> createConfigs() {
     List<Config> configs = new ArrayList<>();
     configs.add(new Config(ElasticsearchDTargetUpgrader.OLD_CONFIG_PREFIX + "clusterName", "MyCluster"));
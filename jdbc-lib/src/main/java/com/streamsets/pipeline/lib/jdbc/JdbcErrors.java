@@ -102,6 +102,8 @@ public enum JdbcErrors implements ErrorCode {
   JDBC_75("Jdbc Runner Failed. Reason {}"),
   JDBC_76("Invalid value '0' for Batches From Result Set"),
   JDBC_77("{} attempting to execute query '{}'. Giving up after {} errors as per stage configuration. First error: {}"),
+  JDBC_78("Column '{}' not found in the results of the lookup query '{}'"),
+  JDBC_79("Invalid partition ranges '{}' stored in the offset for table '{}'"),
   ;
 
   private final String msg;
@@ -0,0 +1,338 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written parser for the statements LogMiner writes to SQL_REDO for plain DML, like:
+ * <pre>
+ * insert into "SCHEMA"."TABLE"("ID","NAME") values ('1',NULL);
+ * update "SCHEMA"."TABLE" set "NAME" = 'sdc' where "ID" = '1' and "NAME" IS NULL and ROWID = 'AAAE9dAABAAAK+pAAA';
+ * delete from "SCHEMA"."TABLE" where "ID" = '1' and "NAME" = 'sdc';
+ * </pre>
+ * Values can be string and number literals, NULL and function calls (TO_DATE, TO_TIMESTAMP, HEXTORAW...).
+ * <p/>
+ * It returns the same columns as walking the ANTLR parse tree of the statement with {@link SQLListener}
+ * (including the value texts, which drop the whitespace between tokens) and null for statements of any other
+ * shape, so the caller can fall back to the ANTLR parser. Instances are not thread safe.
+ */
+final class FastSQLRedoParser {
+  private static final String INSERT = "insert";
+  private static final String INTO = "into";
+  private static final String VALUES = "values";
+  private static final String UPDATE = "update";
+  private static final String SET = "set";
+  private static final String DELETE = "delete";
+  private static final String FROM = "from";
+  private static final String WHERE = "where";
+  private static final String AND = "and";
+  private static final String IS = "is";
+  private static final String NULL = "null";
+
+  private final SQLListener formatter;
+
+  private String sql;
+  private int pos;
+
+  /**
+   * @param formatter listener whose column name and value formatting (quotes, case sensitivity) is used.
+   */
+  FastSQLRedoParser(SQLListener formatter) {
+    this.formatter = formatter;
+  }
+
+  Map<String, String> parseInsert(String sql) {
+    reset(sql);
+    if (!keyword(INSERT) || !keyword(INTO) || !tableName() || !consume('(')) {
+      return null;
+    }
+    List<String> columnNames = new ArrayList<>();
+    do {
+      String columnName = identifier();
+      if (columnName == null) {
+        return null;
+      }
+      columnNames.add(columnName);
+    } while (consume(','));
+    if (!consume(')') || !keyword(VALUES) || !consume('(')) {
+      return null;
+    }
+    Map<String, String> columns = new HashMap<>();
+    int i = 0;
+    do {
+      String value = value();
+      if (value == null || i >= columnNames.size()) {
+        return null;
+      }
+      columns.put(formatter.formatName(columnNames.get(i++)), formatter.formatValue(value));
+    } while (consume(','));
+    if (i != columnNames.size() || !consume(')') || !end()) {
+      return null;
+    }
+    return columns;
+  }
+
+  Map<String, String> parseUpdate(String sql) {
+    reset(sql);
+    if (!keyword(UPDATE) || !tableName() || !keyword(SET)) {
+      return null;
+    }
+    Map<String, String> columns = new HashMap<>();
+    do {
+      String columnName = identifier();
+      if (columnName == null || !consume('=')) {
+        return null;
+      }
+      String value = value();
+      if (value == null) {
+        return null;
+      }
+      columns.put(formatter.formatName(columnName), formatter.formatValue(value));
+    } while (consume(','));
+    return whereClause(columns) ? columns : null;
+  }
+
+  Map<String, String> parseDelete(String sql) {
+    reset(sql);
+    if (!keyword(DELETE) || !keyword(FROM) || !tableName()) {
+      return null;
+    }
+    Map<String, String> columns = new HashMap<>();
+    return whereClause(columns) ? columns : null;
+  }
+
+  private void reset(String sql) {
+    this.sql = sql;
+    this.pos = 0;
+  }
+
+  /**
+   * Parses an optional where clause made of <code>column = value</code> and <code>column IS NULL</code>
+   * conditions joined with AND up to the end of the statement. Like {@link SQLListener}, columns already set
+   * keep their value and IS NULL conditions add nothing.
+   */
+  private boolean whereClause(Map<String, String> columns) {
+    if (end()) {
+      return true;
+    }
+    if (!keyword(WHERE)) {
+      return false;
+    }
+    do {
+      String columnName = identifier();
+      if (columnName == null) {
+        return false;
+      }
+      if (keyword(IS)) {
+        if (!keyword(NULL)) {
+          return false;
+        }
+      } else {
+        if (!consume('=')) {
+          return false;
+        }
+        String value = value();
+        if (value == null) {
+          return false;
+        }
+        columns.putIfAbsent(formatter.formatName(columnName), formatter.formatValue(value));
+      }
+    } while (keyword(AND));
+    return end();
+  }
+
+  /**
+   * Skips the rest of the statement if it is only whitespace and an optional semicolon.
+   */
+  private boolean end() {
+    consume(';');
+    skipWhitespace();
+    return pos == sql.length();
+  }
+
+  private boolean tableName() {
+    do {
+      if (identifier() == null) {
+        return false;
+      }
+    } while (consume('.'));
+    return true;
+  }
+
+  private void skipWhitespace() {
+    while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private boolean consume(char c) {
+    skipWhitespace();
+    if (pos < sql.length() && sql.charAt(pos) == c) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean keyword(String keyword) {
+    skipWhitespace();
+    int end = pos + keyword.length();
+    if (sql.regionMatches(true, pos, keyword, 0, keyword.length())
+        && (end == sql.length() || !isIdentifierPart(sql.charAt(end)))) {
+      pos = end;
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+  }
+
+  /**
+   * Returns the text of a quoted or unquoted identifier, quotes included, or null if there is none.
+   */
+  private String identifier() {
+    skipWhitespace();
+    if (pos >= sql.length()) {
+      return null;
+    }
+    int start = pos;
+    if (sql.charAt(pos) == '"') {
+      int end = sql.indexOf('"', pos + 1);
+      // escaped quotes inside quoted identifiers are left to the ANTLR parser
+      if (end < 0 || (end + 1 < sql.length() && sql.charAt(end + 1) == '"')) {
+        return null;
+      }
+      pos = end + 1;
+    } else if (Character.isLetter(sql.charAt(pos))) {
+      while (pos < sql.length() && isIdentifierPart(sql.charAt(pos))) {
+        pos++;
+      }
+    } else {
+      return null;
+    }
+    return sql.substring(start, pos);
+  }
+
+  /**
+   * Returns the text of a value as the ANTLR parse tree would (tokens without the whitespace between them),
+   * or null if the value is not a literal, NULL or a function call.
+   */
+  private String value() {
+    skipWhitespace();
+    if (pos >= sql.length()) {
+      return null;
+    }
+    char c = sql.charAt(pos);
+    if (c == '\'') {
+      int start = pos;
+      return stringLiteral() ? sql.substring(start, pos) : null;
+    }
+    if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+      return number();
+    }
+    if (Character.isLetter(c)) {
+      String name = identifier();
+      if (consume('(')) {
+        StringBuilder text = new StringBuilder(name).append('(');
+        return functionArguments(text) ? text.toString() : null;
+      }
+      return NULL.equalsIgnoreCase(name) ? name : null;
+    }
+    return null;
+  }
+
+  private boolean stringLiteral() {
+    pos++;
+    while (pos < sql.length()) {
+      if (sql.charAt(pos++) == '\'') {
+        if (pos < sql.length() && sql.charAt(pos) == '\'') {
+          pos++;
+        } else {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private String number() {
+    StringBuilder text = new StringBuilder();
+    if (sql.charAt(pos) == '-' || sql.charAt(pos) == '+') {
+      text.append(sql.charAt(pos++));
+      skipWhitespace();
+    }
+    int start = pos;
+    while (pos < sql.length() && (Character.isDigit(sql.charAt(pos)) || sql.charAt(pos) == '.')) {
+      pos++;
+    }
+    if (pos < sql.length() && (sql.charAt(pos) == 'e' || sql.charAt(pos) == 'E')) {
+      pos++;
+      if (pos < sql.length() && (sql.charAt(pos) == '-' || sql.charAt(pos) == '+')) {
+        pos++;
+      }
+      while (pos < sql.length() && Character.isDigit(sql.charAt(pos))) {
+        pos++;
+      }
+    }
+    if (pos == start || (pos < sql.length() && isIdentifierPart(sql.charAt(pos)))) {
+      return null;
+    }
+    return text.append(sql, start, pos).toString();
+  }
+
+  /**
+   * Appends the arguments of a function call up to and including the closing parenthesis, dropping the whitespace
+   * outside string literals.
+   */
+  private boolean functionArguments(StringBuilder text) {
+    int depth = 1;
+    while (pos < sql.length()) {
+      char c = sql.charAt(pos);
+      if (c == '\'') {
+        int start = pos;
+        if (!stringLiteral()) {
+          return false;
+        }
+        text.append(sql, start, pos);
+        continue;
+      }
+      if (c == '"') {
+        return false;
+      }
+      pos++;
+      if (Character.isWhitespace(c)) {
+        continue;
+      }
+      text.append(c);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
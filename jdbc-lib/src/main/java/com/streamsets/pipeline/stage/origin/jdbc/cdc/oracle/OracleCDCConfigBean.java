@@ -86,4 +86,17 @@ public class OracleCDCConfigBean {
   @ValueChooserModel(DictionaryChooserValues.class)
   public DictionaryValues dictionary;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Parse Threads",
+      description = "Number of threads that parse the redo SQL statements in parallel. " +
+          "Records are still generated in commit order.",
+      displayPosition = 90,
+      group = "CDC",
+      defaultValue = "1",
+      min = 1
+  )
+  public int parseThreads;
+
 }
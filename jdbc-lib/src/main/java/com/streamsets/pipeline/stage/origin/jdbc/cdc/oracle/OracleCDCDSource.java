@@ -29,13 +29,14 @@ import com.streamsets.pipeline.configurablestage.DSource;
 import com.streamsets.pipeline.lib.jdbc.HikariPoolConfigBean;
 
 @StageDef(
-    version = 1,
+    version = 2,
     label = "Oracle CDC Client",
     description = "Origin that an read change events from an Oracle Database",
     icon = "rdbms.png",
     recordsByRef = true,
     producesEvents = true,
     resetOffset = true,
+    upgrader = OracleCDCSourceUpgrader.class,
     onlineHelpRefUrl = "index.html#Origins/OracleCDC.html#task_ehh_mjj_tw"
 )
 @GenerateResourceBundle
@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.EventRecord;
@@ -40,15 +41,9 @@ import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.origin.jdbc.cdc.ChangeTypeValues;
 import com.zaxxer.hikari.HikariDataSource;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import plsql.plsqlLexer;
-import plsql.plsqlParser;
 
 import java.math.BigDecimal;
 import java.sql.CallableStatement;
@@ -62,12 +57,15 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -190,8 +188,9 @@ public class OracleCDCSource extends BaseSource {
   private PreparedStatement numericFormat;
   private PreparedStatement switchContainer;
 
-  private final ParseTreeWalker parseTreeWalker = new ParseTreeWalker();
-  private final SQLListener sqlListener = new SQLListener();
+  private SQLRedoParser sqlRedoParser;
+  private ExecutorService parsingExecutor;
+  private ThreadLocal<SQLRedoParser> threadSqlRedoParser;
 
   public OracleCDCSource(HikariPoolConfigBean hikariConf, OracleCDCConfigBean oracleCDCConfigBean) {
     this.configBean = oracleCDCConfigBean;
@@ -349,104 +348,120 @@ public class OracleCDCSource extends BaseSource {
       PreparedStatement selectChanges,
       BatchMaker batchMaker
   ) throws SQLException, StageException, ParseException {
-    String operation;
+    // Statements are parsed (in parallel if there are multiple parse threads) while the next rows are read,
+    // records are always generated in the order of the rows, which is the commit order.
+    Deque<RedoRow> rows = new ArrayDeque<>();
     selectChanges.setMaxRows(batchSize);
-    try (ResultSet resultSet = selectChanges.executeQuery()) {
-      while (resultSet.next()) {
-        BigDecimal scnDecimal = resultSet.getBigDecimal(1);
-        String scn = scnDecimal.toPlainString();
-        String username = resultSet.getString(2);
-        short op = resultSet.getShort(3);
-        String timestamp = resultSet.getString(4);
-        String redoSQL = resultSet.getString(5);
-        String table = resultSet.getString(6).trim();
-        BigDecimal commitSCN = resultSet.getBigDecimal(7);
-        long seq = resultSet.getLong(8);
-        String scnSeq = null;
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("Commit SCN = " + commitSCN + ", SCN = " + scn + ", Redo SQL = " + redoSQL);
-        }
-        sqlListener.reset();
-        plsqlLexer lexer = new plsqlLexer(new ANTLRInputStream(redoSQL));
-        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
-        plsqlParser parser = new plsqlParser(tokenStream);
-        ParserRuleContext ruleContext = null;
-        int operationCode = -1;
-        switch (op) {
-          case OracleCDCOperationCode.UPDATE_CODE:
-          case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
-            ruleContext = parser.update_statement();
-            operationCode = OperationType.UPDATE_CODE;
-            break;
-          case OracleCDCOperationCode.INSERT_CODE:
-            ruleContext = parser.insert_statement();
-            operationCode = OperationType.INSERT_CODE;
-            break;
-          case OracleCDCOperationCode.DELETE_CODE:
-            ruleContext = parser.delete_statement();
-            operationCode = OperationType.DELETE_CODE;
-            break;
-          case OracleCDCOperationCode.DDL_CODE:
-            break;
-          default:
-            errorRecordHandler.onError(JDBC_43, redoSQL);
-            continue;
-        }
-        if (op != OracleCDCOperationCode.DDL_CODE) {
-          operation = OperationType.getLabelFromIntCode(operationCode);
-          scnSeq = commitSCN + OFFSET_DELIM + seq;
-          // Walk it and attach our sqlListener
-          parseTreeWalker.walk(sqlListener, ruleContext);
-          Map<String, String> columns = sqlListener.getColumns();
-          Map<String, Field> fields = new HashMap<>();
-
-          Record record = getContext().createRecord(scnSeq);
-          Record.Header recordHeader = record.getHeader();
-
-          for (Map.Entry<String, String> column : columns.entrySet()) {
-            String columnName = column.getKey();
-            fields.put(columnName, objectToField(table, columnName, column.getValue()));
-
-            if (decimalColumns.containsKey(table) && decimalColumns.get(table).containsKey(columnName)) {
-              int precision = decimalColumns.get(table).get(columnName).precision;
-              int scale = decimalColumns.get(table).get(columnName).scale;
-              recordHeader.setAttribute("jdbc." + columnName + ".precision", String.valueOf(precision));
-              recordHeader.setAttribute("jdbc." + columnName + ".scale", String.valueOf(scale));
-            }
-          }
-          recordHeader.setAttribute(SCN, scn);
-          recordHeader.setAttribute(USER, username);
-          recordHeader.setAttribute(OracleCDCOperationCode.OPERATION, operation);
-          recordHeader.setAttribute(TIMESTAMP_HEADER, timestamp);
-          recordHeader.setAttribute(TABLE, table);
-          recordHeader.setAttribute(OperationType.SDC_OPERATION_TYPE, String.valueOf(operationCode));
-          record.set(Field.create(fields));
+    try {
+      try (ResultSet resultSet = selectChanges.executeQuery()) {
+        while (resultSet.next()) {
+          RedoRow row = new RedoRow(resultSet);
           if (LOG.isDebugEnabled()) {
-            LOG.debug(Utils.format("Adding {} to batchmaker: {}", record, batchMaker.toString()));
+            LOG.debug("Commit SCN = " + row.commitSCN + ", SCN = " + row.scn + ", Redo SQL = " + row.redoSQL);
           }
-          batchMaker.addRecord(record);
-        } else {
-          scnSeq = scn + OFFSET_DELIM + ZERO;
-          boolean sendSchema = false;
-          // Event is sent on every DDL, but schema is not always sent.
-          // Schema sending logic:
-          // CREATE/ALTER: Schema is sent if the schema after the ALTER is newer than the cached schema
-          // (which we would have sent as an event earlier, at the last alter)
-          // DROP/TRUNCATE: Schema is not sent, since they don't change schema.
-          DDL_EVENT type = getDdlType(redoSQL);
-          if (type == DDL_EVENT.ALTER || type == DDL_EVENT.CREATE) {
-            sendSchema = refreshSchema(scnDecimal, table);
+          if (row.isDML()) {
+            row.columns = parse(row);
           }
-          getContext().toEvent(createEventRecord(type, redoSQL, table, scnSeq, sendSchema));
+          rows.add(row);
+          while (!rows.isEmpty() && rows.peek().isParsed()) {
+            generateRecord(rows.poll(), batchMaker);
+          }
+        }
+      } catch (SQLException ex) {
+        if (ex.getErrorCode() != RESULTSET_CLOSED_AS_LOGMINER_SESSION_CLOSED) {
+          LOG.warn("SQL Exception while retrieving records", ex);
         }
-        this.nextOffsetReference.set(scnSeq);
       }
-    } catch (SQLException ex) {
-      if (ex.getErrorCode() != RESULTSET_CLOSED_AS_LOGMINER_SESSION_CLOSED) {
-        LOG.warn("SQL Exception while retrieving records", ex);
+      while (!rows.isEmpty()) {
+        generateRecord(rows.poll(), batchMaker);
       }
+    } catch (InterruptedException ex) { // NOSONAR
+      // The batch timed out, the offset does not include the remaining rows so they are read again.
+      LOG.debug("Interrupted while waiting for {} statements to be parsed", rows.size());
+      rows.forEach(RedoRow::cancel);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Future<Map<String, String>> parse(RedoRow row) {
+    if (parsingExecutor == null) {
+      return Futures.immediateFuture(sqlRedoParser.parse(row.op, row.redoSQL));
     }
+    return parsingExecutor.submit(() -> threadSqlRedoParser.get().parse(row.op, row.redoSQL));
+  }
+
+  private void generateRecord(
+      RedoRow row,
+      BatchMaker batchMaker
+  ) throws StageException, ParseException, SQLException, InterruptedException {
+    String scn = row.scn.toPlainString();
+    String table = row.table;
+    String scnSeq;
+    int operationCode;
+    switch (row.op) {
+      case OracleCDCOperationCode.UPDATE_CODE:
+      case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
+        operationCode = OperationType.UPDATE_CODE;
+        break;
+      case OracleCDCOperationCode.INSERT_CODE:
+        operationCode = OperationType.INSERT_CODE;
+        break;
+      case OracleCDCOperationCode.DELETE_CODE:
+        operationCode = OperationType.DELETE_CODE;
+        break;
+      case OracleCDCOperationCode.DDL_CODE:
+        operationCode = -1;
+        break;
+      default:
+        errorRecordHandler.onError(JDBC_43, row.redoSQL);
+        return;
+    }
+    if (row.op != OracleCDCOperationCode.DDL_CODE) {
+      String operation = OperationType.getLabelFromIntCode(operationCode);
+      scnSeq = row.commitSCN + OFFSET_DELIM + row.seq;
+      Map<String, String> columns = row.getColumns();
+      Map<String, Field> fields = new HashMap<>();
+
+      Record record = getContext().createRecord(scnSeq);
+      Record.Header recordHeader = record.getHeader();
 
+      for (Map.Entry<String, String> column : columns.entrySet()) {
+        String columnName = column.getKey();
+        fields.put(columnName, objectToField(table, columnName, column.getValue()));
+
+        if (decimalColumns.containsKey(table) && decimalColumns.get(table).containsKey(columnName)) {
+          int precision = decimalColumns.get(table).get(columnName).precision;
+          int scale = decimalColumns.get(table).get(columnName).scale;
+          recordHeader.setAttribute("jdbc." + columnName + ".precision", String.valueOf(precision));
+          recordHeader.setAttribute("jdbc." + columnName + ".scale", String.valueOf(scale));
+        }
+      }
+      recordHeader.setAttribute(SCN, scn);
+      recordHeader.setAttribute(USER, row.username);
+      recordHeader.setAttribute(OracleCDCOperationCode.OPERATION, operation);
+      recordHeader.setAttribute(TIMESTAMP_HEADER, row.timestamp);
+      recordHeader.setAttribute(TABLE, table);
+      recordHeader.setAttribute(OperationType.SDC_OPERATION_TYPE, String.valueOf(operationCode));
+      record.set(Field.create(fields));
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(Utils.format("Adding {} to batchmaker: {}", record, batchMaker.toString()));
+      }
+      batchMaker.addRecord(record);
+    } else {
+      scnSeq = scn + OFFSET_DELIM + ZERO;
+      boolean sendSchema = false;
+      // Event is sent on every DDL, but schema is not always sent.
+      // Schema sending logic:
+      // CREATE/ALTER: Schema is sent if the schema after the ALTER is newer than the cached schema
+      // (which we would have sent as an event earlier, at the last alter)
+      // DROP/TRUNCATE: Schema is not sent, since they don't change schema.
+      DDL_EVENT type = getDdlType(row.redoSQL);
+      if (type == DDL_EVENT.ALTER || type == DDL_EVENT.CREATE) {
+        sendSchema = refreshSchema(row.scn, table);
+      }
+      getContext().toEvent(createEventRecord(type, row.redoSQL, table, scnSeq, sendSchema));
+    }
+    this.nextOffsetReference.set(scnSeq);
   }
 
   private EventRecord createEventRecord(
@@ -761,8 +776,14 @@ public class OracleCDCSource extends BaseSource {
           Groups.CDC.name(), "oracleCDCConfigBean.baseConfigBean.database", JDBC_00, configBean.baseConfigBean.database));
     }
 
-    if (configBean.baseConfigBean.caseSensitive) {
-      sqlListener.setCaseSensitive();
+    boolean caseSensitive = configBean.baseConfigBean.caseSensitive;
+    sqlRedoParser = new SQLRedoParser(caseSensitive);
+    if (configBean.parseThreads > 1) {
+      threadSqlRedoParser = ThreadLocal.withInitial(() -> new SQLRedoParser(caseSensitive));
+      parsingExecutor = Executors.newFixedThreadPool(
+          configBean.parseThreads,
+          new ThreadFactoryBuilder().setNameFormat("Oracle CDC SQL Parser - %d").setDaemon(true).build()
+      );
     }
     return issues;
   }
@@ -939,6 +960,10 @@ public class OracleCDCSource extends BaseSource {
     if (resultSetClosingFuture != null && !resultSetClosingFuture.isDone()) {
       resultSetClosingFuture.cancel(true);
     }
+
+    if (parsingExecutor != null) {
+      parsingExecutor.shutdownNow();
+    }
   }
 
   private void closeStatements(Statement ...statements) {
@@ -1110,4 +1135,55 @@ public class OracleCDCSource extends BaseSource {
     }
   }
 
+  /**
+   * A row read from LogMiner, with the columns of its statement once it is parsed.
+   */
+  private static class RedoRow {
+    final BigDecimal scn;
+    final String username;
+    final short op;
+    final String timestamp;
+    final String redoSQL;
+    final String table;
+    final BigDecimal commitSCN;
+    final long seq;
+    Future<Map<String, String>> columns;
+
+    RedoRow(ResultSet resultSet) throws SQLException {
+      scn = resultSet.getBigDecimal(1);
+      username = resultSet.getString(2);
+      op = resultSet.getShort(3);
+      timestamp = resultSet.getString(4);
+      redoSQL = resultSet.getString(5);
+      table = resultSet.getString(6).trim();
+      commitSCN = resultSet.getBigDecimal(7);
+      seq = resultSet.getLong(8);
+    }
+
+    boolean isDML() {
+      return op == OracleCDCOperationCode.INSERT_CODE
+          || op == OracleCDCOperationCode.UPDATE_CODE
+          || op == OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE
+          || op == OracleCDCOperationCode.DELETE_CODE;
+    }
+
+    boolean isParsed() {
+      return columns == null || columns.isDone();
+    }
+
+    Map<String, String> getColumns() throws InterruptedException {
+      try {
+        return columns.get();
+      } catch (ExecutionException ex) {
+        throw Throwables.propagate(ex.getCause());
+      }
+    }
+
+    void cancel() {
+      if (columns != null) {
+        columns.cancel(true);
+      }
+    }
+  }
+
 }
@@ -103,7 +103,7 @@ public class SQLListener extends plsqlBaseListener {
   /**
    * Format column names based on whether they are case-sensitive
    */
-  private String formatName(String columnName) {
+  String formatName(String columnName) {
     String returnValue = format(columnName);
     if (caseSensitive) {
       return returnValue;
@@ -114,7 +114,7 @@ public class SQLListener extends plsqlBaseListener {
   /**
    * Unescapes strings and returns them.
    */
-  private String formatValue(String value) {
+  String formatValue(String value) {
     String returnValue = format(value);
     return returnValue.replaceAll("''", "'");
   }
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.streamsets.pipeline.lib.jdbc.OracleCDCOperationCode;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import plsql.plsqlLexer;
+import plsql.plsqlParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the SQL_REDO of the INSERT, UPDATE and DELETE operations returned by LogMiner into the names and values of
+ * the columns they contain.
+ * <p/>
+ * Statements are first parsed by {@link FastSQLRedoParser}, which handles the shapes LogMiner generates for plain DML,
+ * and only fall back to the ANTLR PL/SQL grammar (walked with {@link SQLListener}) when it does not recognize them.
+ * Instances are not thread safe, each thread parsing statements needs its own.
+ */
+public class SQLRedoParser {
+  private final SQLListener sqlListener = new SQLListener();
+  private final ParseTreeWalker parseTreeWalker = new ParseTreeWalker();
+  private final FastSQLRedoParser fastParser = new FastSQLRedoParser(sqlListener);
+
+  public SQLRedoParser(boolean caseSensitive) {
+    if (caseSensitive) {
+      sqlListener.setCaseSensitive();
+    }
+  }
+
+  /**
+   * Returns the columns of the statement.
+   * @param op LogMiner operation code of the statement, one of the insert, update, select for update
+   *           or delete codes of {@link OracleCDCOperationCode}
+   * @param redoSQL SQL_REDO of the operation
+   * @return Map of column names to values (as text)
+   */
+  public Map<String, String> parse(int op, String redoSQL) {
+    Map<String, String> columns = parseFast(op, redoSQL);
+    return columns != null ? columns : parseWithAntlr(op, redoSQL);
+  }
+
+  @VisibleForTesting
+  Map<String, String> parseFast(int op, String redoSQL) {
+    switch (op) {
+      case OracleCDCOperationCode.UPDATE_CODE:
+      case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
+        return fastParser.parseUpdate(redoSQL);
+      case OracleCDCOperationCode.INSERT_CODE:
+        return fastParser.parseInsert(redoSQL);
+      case OracleCDCOperationCode.DELETE_CODE:
+        return fastParser.parseDelete(redoSQL);
+      default:
+        throw new IllegalArgumentException("Unsupported operation code: " + op);
+    }
+  }
+
+  @VisibleForTesting
+  Map<String, String> parseWithAntlr(int op, String redoSQL) {
+    sqlListener.reset();
+    plsqlLexer lexer = new plsqlLexer(new ANTLRInputStream(redoSQL));
+    CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+    plsqlParser parser = new plsqlParser(tokenStream);
+    ParserRuleContext ruleContext;
+    switch (op) {
+      case OracleCDCOperationCode.UPDATE_CODE:
+      case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
+        ruleContext = parser.update_statement();
+        break;
+      case OracleCDCOperationCode.INSERT_CODE:
+        ruleContext = parser.insert_statement();
+        break;
+      case OracleCDCOperationCode.DELETE_CODE:
+        ruleContext = parser.delete_statement();
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation code: " + op);
+    }
+    // Walk it and attach our sqlListener
+    parseTreeWalker.walk(sqlListener, ruleContext);
+    // The listener is reused for the next statement
+    return new HashMap<>(sqlListener.getColumns());
+  }
+}
@@ -120,7 +120,7 @@ public final class MultithreadedTableProvider {
    * After releasing from the {@link #ownedTablesQueue} add it to the {@link #sharedAvailableTablesQueue}
    */
   public void releaseOwnedTable(TableContext tableContext) {
-    String tableName = tableContext.getQualifiedName();
+    String tableName = tableContext.getOffsetKey();
     LOG.trace("Thread '{}' has released ownership for table '{}'", getCurrentThreadName(),  tableName);
 
     //Remove the last element (because we put the current processing element at the tail of dequeue)
@@ -142,12 +142,12 @@ public final class MultithreadedTableProvider {
    */
   public void reportDataOrNoMoreData(TableContext tableContext, boolean noMoreData) {
     if (noMoreData) {
-      tablesWithNoMoreData.add(tableContext.getQualifiedName());
+      tablesWithNoMoreData.add(tableContext.getOffsetKey());
     } else {
       //When we see a table with data, we mark isNoMoreDataEventGeneratedAlready to false
       //so we can generate event again if we don't see data from all tables.
       isNoMoreDataEventGeneratedAlready = false;
-      tablesWithNoMoreData.remove(tableContext.getQualifiedName());
+      tablesWithNoMoreData.remove(tableContext.getOffsetKey());
     }
     LOG.trace("Number of Tables With No More Data {}", tablesWithNoMoreData.size());
   }
@@ -20,6 +20,7 @@
 package com.streamsets.pipeline.stage.origin.jdbc.table;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -30,6 +31,9 @@ public final class TableContext {
   private final LinkedHashMap<String, Integer> offsetColumnToType;
   private final Map<String, String> offsetColumnToStartOffset;
   private final String extraOffsetColumnConditions;
+  private final boolean partitioned;
+  private final String partitionLowerBound;
+  private final String partitionUpperBound;
 
   TableContext(
       String schema,
@@ -37,12 +41,45 @@ public final class TableContext {
       LinkedHashMap<String, Integer> offsetColumnToType,
       Map<String, String> offsetColumnToStartOffset,
       String extraOffsetColumnConditions
+  ) {
+    this(schema, tableName, offsetColumnToType, offsetColumnToStartOffset, extraOffsetColumnConditions, false, null, null);
+  }
+
+  private TableContext(
+      String schema,
+      String tableName,
+      LinkedHashMap<String, Integer> offsetColumnToType,
+      Map<String, String> offsetColumnToStartOffset,
+      String extraOffsetColumnConditions,
+      boolean partitioned,
+      String partitionLowerBound,
+      String partitionUpperBound
   ) {
     this.schema = schema;
     this.tableName = tableName;
     this.offsetColumnToType = offsetColumnToType;
     this.offsetColumnToStartOffset = offsetColumnToStartOffset;
     this.extraOffsetColumnConditions = extraOffsetColumnConditions;
+    this.partitioned = partitioned;
+    this.partitionLowerBound = partitionLowerBound;
+    this.partitionUpperBound = partitionUpperBound;
+  }
+
+  /**
+   * Creates the context for the range of the first offset column between lowerBound (inclusive) and
+   * upperBound (exclusive) of this table, a null bound leaves the range open on that side.
+   */
+  TableContext createPartition(String lowerBound, String upperBound) {
+    return new TableContext(
+        schema,
+        tableName,
+        offsetColumnToType,
+        new HashMap<>(offsetColumnToStartOffset),
+        extraOffsetColumnConditions,
+        true,
+        lowerBound,
+        upperBound
+    );
   }
 
   public String getSchema() {
@@ -57,6 +94,27 @@ public final class TableContext {
     return TableContextUtil.getQualifiedTableName(schema, tableName);
   }
 
+  /**
+   * Returns the key the offset of this table (or of this partition of the table) is stored under.
+   */
+  public String getOffsetKey() {
+    return partitioned ?
+        TableContextUtil.getPartitionOffsetKey(getQualifiedName(), partitionLowerBound, partitionUpperBound) :
+        getQualifiedName();
+  }
+
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  public String getPartitionLowerBound() {
+    return partitionLowerBound;
+  }
+
+  public String getPartitionUpperBound() {
+    return partitionUpperBound;
+  }
+
   public Collection<String> getOffsetColumns() {
     return offsetColumnToType.keySet();
   }
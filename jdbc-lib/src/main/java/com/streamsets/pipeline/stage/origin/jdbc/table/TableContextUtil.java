@@ -19,7 +19,10 @@
  */
 package com.streamsets.pipeline.stage.origin.jdbc.table;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.StageException;
@@ -32,9 +35,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,6 +58,17 @@ public final class TableContextUtil {
   private static final String COLUMN_METADATA_COLUMN_NAME = "COLUMN_NAME";
   private static final String COLUMN_METADATA_COLUMN_TYPE = "DATA_TYPE";
   private static final Joiner COMMA_JOINER = Joiner.on(",");
+  private static final Splitter COMMA_SPLITTER = Splitter.on(",").trimResults().omitEmptyStrings();
+
+  private static final String OFFSET_COLUMN_RANGE_QUERY = "select min(%s), max(%s) from %s";
+  private static final String PARTITION_OFFSET_KEY_FORMAT = "%s#range=%s..%s";
+  private static final String PARTITION_LAYOUT_KEY_FORMAT = "%s#ranges";
+  private static final Set<Integer> RANGE_PARTITIONABLE_SQL_TYPES = ImmutableSet.of(
+      Types.TINYINT,
+      Types.SMALLINT,
+      Types.INTEGER,
+      Types.BIGINT
+  );
 
   private TableContextUtil() {}
 
@@ -268,4 +284,117 @@ public final class TableContextUtil {
     return tableContextMap;
   }
 
+  /**
+   * Returns the offset key of the range of the table between lowerBound (inclusive) and upperBound (exclusive).
+   */
+  public static String getPartitionOffsetKey(String qualifiedTableName, String lowerBound, String upperBound) {
+    return String.format(
+        PARTITION_OFFSET_KEY_FORMAT,
+        qualifiedTableName,
+        lowerBound == null ? "" : lowerBound,
+        upperBound == null ? "" : upperBound
+    );
+  }
+
+  /**
+   * Returns the offset key under which the boundaries between the ranges of the table are stored.
+   */
+  public static String getPartitionLayoutKey(String qualifiedTableName) {
+    return String.format(PARTITION_LAYOUT_KEY_FORMAT, qualifiedTableName);
+  }
+
+  /**
+   * Only tables with a single integer offset column and no initial offset can be read in ranges.
+   */
+  static boolean isRangePartitionable(TableContext tableContext) {
+    return tableContext.getOffsetColumns().size() == 1
+        && RANGE_PARTITIONABLE_SQL_TYPES.contains(
+            tableContext.getOffsetColumnType(tableContext.getOffsetColumns().iterator().next())
+        )
+        && !tableContext.isOffsetOverriden();
+  }
+
+  /**
+   * Queries the minimum and maximum values of the offset column of the table and splits them
+   * in ranges (See {@link #computePartitionBoundaries(long, long, int, long)}).
+   * @param connection JDBC connection
+   * @param tableContext {@link TableContext} of a table for which {@link #isRangePartitionable(TableContext)} is true
+   * @param maxPartitions maximum number of ranges
+   * @param minPartitionSize minimum number of offset values in a range
+   * @return the boundaries between consecutive ranges, empty if the table should be read with a single query.
+   * @throws StageException if the query fails
+   */
+  static List<Long> getPartitionBoundaries(
+      Connection connection,
+      TableContext tableContext,
+      int maxPartitions,
+      long minPartitionSize
+  ) throws StageException {
+    String offsetColumn = tableContext.getOffsetColumns().iterator().next();
+    String query = String.format(OFFSET_COLUMN_RANGE_QUERY, offsetColumn, offsetColumn, tableContext.getQualifiedName());
+    try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+      if (rs.next()) {
+        long min = rs.getLong(1);
+        boolean isEmpty = rs.wasNull();
+        long max = rs.getLong(2);
+        if (!isEmpty && !rs.wasNull()) {
+          return computePartitionBoundaries(min, max, maxPartitions, minPartitionSize);
+        }
+      }
+    } catch (SQLException e) {
+      String formattedError = JdbcUtil.formatSqlException(e);
+      LOG.error(formattedError, e);
+      throw new StageException(JdbcErrors.JDBC_34, query, formattedError);
+    }
+    return new ArrayList<>();
+  }
+
+  /**
+   * Splits the values between min and max (both inclusive) in up to maxPartitions ranges of the same size,
+   * each of at least minPartitionSize values. The first range is open at the bottom and the last one at the top
+   * so rows inserted later on are still read.
+   * @return the boundaries between consecutive ranges, empty if the values should not be split.
+   */
+  @VisibleForTesting
+  static List<Long> computePartitionBoundaries(long min, long max, int maxPartitions, long minPartitionSize) {
+    List<Long> boundaries = new ArrayList<>();
+    BigInteger numberOfValues = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+    BigInteger numberOfPartitions = numberOfValues
+        .divide(BigInteger.valueOf(Math.max(1, minPartitionSize)))
+        .min(BigInteger.valueOf(maxPartitions));
+    if (numberOfPartitions.compareTo(BigInteger.ONE) > 0) {
+      BigInteger partitionSize = numberOfValues.divide(numberOfPartitions);
+      for (int i = 1; i < numberOfPartitions.intValue(); i++) {
+        boundaries.add(BigInteger.valueOf(min).add(partitionSize.multiply(BigInteger.valueOf(i))).longValue());
+      }
+    }
+    return boundaries;
+  }
+
+  /**
+   * Creates one {@link TableContext} per range of the table delimited by the given boundaries.
+   */
+  static List<TableContext> createPartitions(TableContext tableContext, List<Long> boundaries) {
+    List<TableContext> partitions = new ArrayList<>(boundaries.size() + 1);
+    String lowerBound = null;
+    for (Long boundary : boundaries) {
+      String upperBound = String.valueOf(boundary);
+      partitions.add(tableContext.createPartition(lowerBound, upperBound));
+      lowerBound = upperBound;
+    }
+    partitions.add(tableContext.createPartition(lowerBound, null));
+    return partitions;
+  }
+
+  static String serializePartitionBoundaries(List<Long> boundaries) {
+    return COMMA_JOINER.join(boundaries);
+  }
+
+  static List<Long> deserializePartitionBoundaries(String boundaries) {
+    List<Long> partitionBoundaries = new ArrayList<>();
+    for (String boundary : COMMA_SPLITTER.split(boundaries)) {
+      partitionBoundaries.add(Long.parseLong(boundary));
+    }
+    return partitionBoundaries;
+  }
 }
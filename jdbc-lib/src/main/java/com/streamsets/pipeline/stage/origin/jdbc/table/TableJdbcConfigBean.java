@@ -129,9 +129,37 @@ public class TableJdbcConfigBean {
   )
   public int numberOfThreads;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Max Partitions per Table",
+      description = "Splits tables with a single integer offset column into up to this many ranges of offset values" +
+          " that are read in parallel by different threads. Use 1 to read each table with a single query.",
+      min = 1,
+      max = Integer.MAX_VALUE,
+      displayPosition = 230,
+      group = "ADVANCED"
+  )
+  public int maxPartitionsPerTable;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1000000",
+      label = "Min Partition Size",
+      description = "Minimum number of offset values in a partition. Smaller tables are split in fewer partitions.",
+      min = 1,
+      displayPosition = 240,
+      group = "ADVANCED"
+  )
+  public long minPartitionSize;
+
   public static final String TABLE_JDBC_CONFIG_BEAN_PREFIX = "tableJdbcConfigBean.";
   public static final String TABLE_CONFIG = TABLE_JDBC_CONFIG_BEAN_PREFIX + "tableConfigs";
   public static final String BATCHES_FROM_THE_RESULT_SET = "numberOfBatchesFromRs";
+  public static final String MAX_PARTITIONS_PER_TABLE = "maxPartitionsPerTable";
+  public static final String MIN_PARTITION_SIZE = "minPartitionSize";
 
   public List<Stage.ConfigIssue> validateConfigs(PushSource.Context context, List<Stage.ConfigIssue> issues) {
     if (tableConfigs.isEmpty()) {
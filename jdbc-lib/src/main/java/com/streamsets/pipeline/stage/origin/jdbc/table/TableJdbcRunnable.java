@@ -157,7 +157,7 @@ public final class TableJdbcRunnable implements Runnable {
   }
 
   private void updateGauge() {
-    gaugeMap.put(CURRENT_TABLE, tableContext.getQualifiedName());
+    gaugeMap.put(CURRENT_TABLE, tableContext.getOffsetKey());
     gaugeMap.put(TABLES_OWNED_COUNT, tableReadContextCache.size());
   }
 
@@ -233,7 +233,7 @@ public final class TableJdbcRunnable implements Runnable {
             calculateEvictTableFlag(shouldEvict, tableReadContext);
           });
       //Process And Commit offsets
-      context.processBatch(batchContext, tableContext.getQualifiedName(), offsets.get(tableContext.getQualifiedName()));
+      context.processBatch(batchContext, tableContext.getOffsetKey(), offsets.get(tableContext.getOffsetKey()));
     }
     //Make sure we close the result set only when there are no more rows in the result set
     if (shouldEvict.get()) {
@@ -320,7 +320,7 @@ public final class TableJdbcRunnable implements Runnable {
 
     batchContext.getBatchMaker().addRecord(record);
 
-    offsets.put(tableContext.getQualifiedName(), offsetFormat);
+    offsets.put(tableContext.getOffsetKey(), offsetFormat);
   }
 
   /**
@@ -40,15 +40,19 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
@@ -81,6 +85,7 @@ public class TableJdbcSource extends BasePushSource {
   private ConnectionManager connectionManager;
   private Map<String, String> offsets;
   private ExecutorService executorService;
+  private Queue<String> orderedTables;
   private MultithreadedTableProvider tableOrderProvider;
   private int numberOfThreads;
 
@@ -138,13 +143,14 @@ public class TableJdbcSource extends BasePushSource {
               )
           );
         } else {
+          int maxNumberOfTableContexts = getMaxNumberOfTableContexts();
           numberOfThreads = tableJdbcConfigBean.numberOfThreads;
-          if (tableJdbcConfigBean.numberOfThreads > allTableContexts.size()) {
-            numberOfThreads = Math.min(tableJdbcConfigBean.numberOfThreads, allTableContexts.size());
+          if (tableJdbcConfigBean.numberOfThreads > maxNumberOfTableContexts) {
+            numberOfThreads = Math.min(tableJdbcConfigBean.numberOfThreads, maxNumberOfTableContexts);
             LOG.info(
-                "Number of threads configured '{}'is more than number of tables '{}'. Will be Using '{}' number of threads.",
+                "Number of threads configured '{}'is more than number of tables/partitions '{}'. Will be Using '{}' number of threads.",
                 tableJdbcConfigBean.numberOfThreads,
-                allTableContexts.size(),
+                maxNumberOfTableContexts,
                 numberOfThreads
             );
           }
@@ -156,15 +162,7 @@ public class TableJdbcSource extends BasePushSource {
 
           try {
             tableOrderProvider.initialize(allTableContexts);
-            int maxQueueSize =
-                (tableJdbcConfigBean.batchTableStrategy == BatchTableStrategy.SWITCH_TABLES) ?
-                    allTableContexts.size() / numberOfThreads
-                    : 1;
-            this.tableOrderProvider = new MultithreadedTableProvider(
-                allTableContexts,
-                tableOrderProvider.getOrderedTables(),
-                maxQueueSize
-            );
+            orderedTables = tableOrderProvider.getOrderedTables();
           } catch (ExecutionException e) {
             LOG.debug("Error during Table Order Provider Init", e);
             throw new StageException(JdbcErrors.JDBC_67, e);
@@ -186,11 +184,28 @@ public class TableJdbcSource extends BasePushSource {
             )
         );
       } finally {
-        Optional.ofNullable(connectionManager).ifPresent(ConnectionManager::closeAll);
+        //SDC calls produce from the thread that ran init, its connection must not be left closed in the thread local
+        Optional.ofNullable(connectionManager).ifPresent(ConnectionManager::closeConnection);
       }
     }
   }
 
+  /**
+   * Returns the maximum number of tables and partitions the tables can be read in, the actual partitions are only
+   * known once the stored offsets are available (See {@link #initTableProvider()}).
+   */
+  private int getMaxNumberOfTableContexts() {
+    int maxNumberOfTableContexts = 0;
+    for (TableContext tableContext : allTableContexts.values()) {
+      maxNumberOfTableContexts += isPartitioningEnabled(tableContext) ? tableJdbcConfigBean.maxPartitionsPerTable : 1;
+    }
+    return maxNumberOfTableContexts;
+  }
+
+  private boolean isPartitioningEnabled(TableContext tableContext) {
+    return tableJdbcConfigBean.maxPartitionsPerTable > 1 && TableContextUtil.isRangePartitionable(tableContext);
+  }
+
   @Override
   protected List<Stage.ConfigIssue> init() {
     List<Stage.ConfigIssue> issues = new ArrayList<>();
@@ -230,6 +245,7 @@ public class TableJdbcSource extends BasePushSource {
     int batchSize = Math.min(maxBatchSize, commonSourceConfigBean.maxBatchSize);
     handleLastOffset(lastOffsets);
     try {
+      initTableProvider();
       executorService = new SafeScheduledExecutorService(numberOfThreads, TableJdbcRunnable.TABLE_JDBC_THREAD_PREFIX);
 
       ExecutorCompletionService<Future> completionService = new ExecutorCompletionService<>(executorService);
@@ -342,11 +358,30 @@ public class TableJdbcSource extends BasePushSource {
         offsets.putAll(lastOffsets);
       }
     }
+  }
+
+  /**
+   * Creates the {@link MultithreadedTableProvider} over the tables, split in one {@link TableContext} per
+   * offset column range for the tables read in partitions, after validating the stored offsets.
+   */
+  private void initTableProvider() throws StageException {
+    Map<String, TableContext> tableContextsToRead = new LinkedHashMap<>();
+    Queue<String> orderedTableContexts = new LinkedList<>();
+    for (String qualifiedTableName : orderedTables) {
+      TableContext tableContext = allTableContexts.get(qualifiedTableName);
+      List<Long> boundaries = getPartitionBoundaries(qualifiedTableName);
+      List<TableContext> partitions = boundaries.isEmpty() ?
+          Collections.singletonList(tableContext) : TableContextUtil.createPartitions(tableContext, boundaries);
+      for (TableContext partition : partitions) {
+        tableContextsToRead.put(partition.getOffsetKey(), partition);
+        orderedTableContexts.add(partition.getOffsetKey());
+      }
+    }
 
     //If the offset already does not contain the table (meaning it is the first start or a new table)
     //We can skip validation
     for (Map.Entry<String, String> tableAndOffsetEntry : offsets.entrySet()) {
-      TableContext tableContext = allTableContexts.get(tableAndOffsetEntry.getKey());
+      TableContext tableContext = tableContextsToRead.get(tableAndOffsetEntry.getKey());
       if (tableContext != null) { //When the table is removed from the configuration
         try {
           OffsetQueryUtil.validateStoredAndSpecifiedOffset(tableContext, tableAndOffsetEntry.getValue());
@@ -357,5 +392,69 @@ public class TableJdbcSource extends BasePushSource {
         }
       }
     }
+
+    if (numberOfThreads > tableContextsToRead.size()) {
+      LOG.info(
+          "Number of threads '{}' is more than number of tables/partitions to read '{}'. Will be Using '{}' number of threads.",
+          numberOfThreads,
+          tableContextsToRead.size(),
+          tableContextsToRead.size()
+      );
+      numberOfThreads = tableContextsToRead.size();
+    }
+
+    int maxQueueSize =
+        (tableJdbcConfigBean.batchTableStrategy == BatchTableStrategy.SWITCH_TABLES) ?
+            Math.max(1, tableContextsToRead.size() / numberOfThreads)
+            : 1;
+    tableOrderProvider = new MultithreadedTableProvider(tableContextsToRead, orderedTableContexts, maxQueueSize);
+  }
+
+  /**
+   * Returns the boundaries of the offset column ranges the table is read in, empty if the table is read
+   * with a single query. The boundaries are kept in the offset so a restarted pipeline resumes each range
+   * where it stopped, even if the offset column values changed in the meantime. The offset column values
+   * are only queried for partitionable tables read for the first time.
+   */
+  private List<Long> getPartitionBoundaries(String qualifiedTableName) throws StageException {
+    String partitionLayoutKey = TableContextUtil.getPartitionLayoutKey(qualifiedTableName);
+    String storedBoundaries = offsets.get(partitionLayoutKey);
+    if (storedBoundaries != null) {
+      try {
+        return TableContextUtil.deserializePartitionBoundaries(storedBoundaries);
+      } catch (NumberFormatException e) {
+        LOG.error("Error when reading the stored partition ranges", e);
+        throw new StageException(JdbcErrors.JDBC_79, storedBoundaries, qualifiedTableName);
+      }
+    }
+    if (offsets.containsKey(qualifiedTableName)) {
+      //The table was read with a single query before, keep reading it that way
+      return Collections.emptyList();
+    }
+    TableContext tableContext = allTableContexts.get(qualifiedTableName);
+    if (!isPartitioningEnabled(tableContext)) {
+      return Collections.emptyList();
+    }
+    //First read of the table, the ranges are computed from the current offset column values
+    List<Long> boundaries;
+    try (Connection connection = hikariDataSource.getConnection()) {
+      boundaries = TableContextUtil.getPartitionBoundaries(
+          connection,
+          tableContext,
+          tableJdbcConfigBean.maxPartitionsPerTable,
+          tableJdbcConfigBean.minPartitionSize
+      );
+    } catch (SQLException e) {
+      throw new StageException(JdbcErrors.JDBC_00, logError(e));
+    }
+    LOG.info(
+        "Table '{}' will be read in '{}' ranges of offset column values",
+        qualifiedTableName,
+        boundaries.size() + 1
+    );
+    if (!boundaries.isEmpty()) {
+      getContext().commitOffset(partitionLayoutKey, TableContextUtil.serializePartitionBoundaries(boundaries));
+    }
+    return boundaries;
   }
 }
@@ -40,6 +40,12 @@ public class TableJdbcSourceUpgrader implements StageUpgrader{
     switch (fromVersion) {
       case 1:
         upgradeV1ToV2(configs);
+        if (toVersion == 2) {
+          break;
+        }
+        // fall through
+      case 2:
+        upgradeV2ToV3(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -55,4 +61,19 @@ public class TableJdbcSourceUpgrader implements StageUpgrader{
         )
     );
   }
+
+  private void upgradeV2ToV3(List<Config> configs) {
+    configs.add(
+        new Config(
+            TableJdbcConfigBean.TABLE_JDBC_CONFIG_BEAN_PREFIX + TableJdbcConfigBean.MAX_PARTITIONS_PER_TABLE,
+            1
+        )
+    );
+    configs.add(
+        new Config(
+            TableJdbcConfigBean.TABLE_JDBC_CONFIG_BEAN_PREFIX + TableJdbcConfigBean.MIN_PARTITION_SIZE,
+            1000000
+        )
+    );
+  }
 }
@@ -58,7 +58,7 @@ public class JdbcTableReadContextLoader extends CacheLoader<TableContext, TableR
     Pair<String, List<Pair<Integer, String>>> queryAndParamValToSet =
         OffsetQueryUtil.buildAndReturnQueryAndParamValToSet(
             tableContext,
-            offsets.get(tableContext.getQualifiedName()),
+            offsets.get(tableContext.getOffsetKey()),
             tableJdbcELEvalContext
         );
 
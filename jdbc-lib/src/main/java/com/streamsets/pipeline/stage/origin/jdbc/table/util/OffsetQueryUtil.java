@@ -59,6 +59,8 @@ public final class OffsetQueryUtil {
 
   private static final String COLUMN_GREATER_THAN_VALUE = "%s > %s";
   private static final String COLUMN_EQUALS_VALUE = "%s = %s";
+  private static final String COLUMN_GREATER_THAN_OR_EQUALS_VALUE = "%s >= %s";
+  private static final String COLUMN_LESS_THAN_VALUE = "%s < %s";
 
   private static final String CONDITION_FORMAT = "( %s )";
 
@@ -182,6 +184,28 @@ public final class OffsetQueryUtil {
       finalAndConditions.add(String.format(CONDITION_FORMAT, OR_JOINER.join(finalOrConditions)));
     }
 
+    if (tableContext.isPartitioned()) {
+      //Limit the query to the range of the first offset column read by this partition of the table
+      String partitionColumn = tableContext.getOffsetColumns().iterator().next();
+      int partitionSqlType = tableContext.getOffsetColumnType(partitionColumn);
+      List<String> rangeConditions = new ArrayList<>();
+      if (tableContext.getPartitionLowerBound() != null) {
+        rangeConditions.add(
+            String.format(COLUMN_GREATER_THAN_OR_EQUALS_VALUE, partitionColumn, PREPARED_STATEMENT_POSITIONAL_PARAMETER)
+        );
+        paramValueToSet.add(Pair.of(partitionSqlType, tableContext.getPartitionLowerBound()));
+      }
+      if (tableContext.getPartitionUpperBound() != null) {
+        rangeConditions.add(
+            String.format(COLUMN_LESS_THAN_VALUE, partitionColumn, PREPARED_STATEMENT_POSITIONAL_PARAMETER)
+        );
+        paramValueToSet.add(Pair.of(partitionSqlType, tableContext.getPartitionUpperBound()));
+      }
+      if (!rangeConditions.isEmpty()) {
+        finalAndConditions.add(String.format(CONDITION_FORMAT, AND_JOINER.join(rangeConditions)));
+      }
+    }
+
     if (!StringUtils.isEmpty(tableContext.getExtraOffsetColumnConditions())) {
       //Apply extra offset column conditions configured which will be appended as AND on the query
       String condition =
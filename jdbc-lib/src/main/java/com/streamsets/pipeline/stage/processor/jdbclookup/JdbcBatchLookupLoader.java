@@ -0,0 +1,220 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
+import com.streamsets.pipeline.lib.jdbc.DataType;
+import com.streamsets.pipeline.lib.jdbc.JdbcErrors;
+import com.streamsets.pipeline.lib.jdbc.JdbcUtil;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads lookup values by key column value, all the keys of a batch are looked up together with parameterized
+ * <code>IN</code> list queries of at most <code>maxKeysPerQuery</code> keys each.
+ * <p/>
+ * The lookup query is wrapped as a derived table, so it can be any query returning the key column:
+ * <pre>SELECT * FROM (&lt;lookup query&gt;) lookup WHERE &lt;key column&gt; IN (?, ?, ...)</pre>
+ * Keys without a row get the default values of the column mappings, same as a query returning no row.
+ * <p/>
+ * Keys are bound with the SQL type of the key column and both the keys and the key column values are normalized
+ * before matching them, see {@link JdbcLookupKeyNormalizer}.
+ */
+public class JdbcBatchLookupLoader extends CacheLoader<String, Map<String, Field>> {
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcBatchLookupLoader.class);
+
+  private final DataSource dataSource;
+  private final String query;
+  private final String keyColumn;
+  private final int maxKeysPerQuery;
+  private final Map<String, String> columnsToFields;
+  private final Map<String, String> columnsToDefaults;
+  private final Map<String, DataType> columnsToTypes;
+  private final int maxClobSize;
+  private final int maxBlobSize;
+  private final ErrorRecordHandler errorRecordHandler;
+  private final Map<Integer, String> inListQueries;
+  private JdbcLookupKeyNormalizer keyNormalizer;
+
+  public JdbcBatchLookupLoader(
+      DataSource dataSource,
+      String query,
+      String keyColumn,
+      int maxKeysPerQuery,
+      Map<String, String> columnsToFields,
+      Map<String, String> columnsToDefaults,
+      Map<String, DataType> columnsToTypes,
+      int maxClobSize,
+      int maxBlobSize,
+      ErrorRecordHandler errorRecordHandler
+  ) {
+    this.dataSource = dataSource;
+    this.query = query;
+    this.keyColumn = keyColumn;
+    this.maxKeysPerQuery = maxKeysPerQuery;
+    this.columnsToFields = columnsToFields;
+    this.columnsToDefaults = columnsToDefaults;
+    this.columnsToTypes = columnsToTypes;
+    this.maxClobSize = maxClobSize;
+    this.maxBlobSize = maxBlobSize;
+    this.errorRecordHandler = errorRecordHandler;
+    this.inListQueries = new HashMap<>();
+  }
+
+  @Override
+  public Map<String, Field> load(String key) throws Exception {
+    return lookupValuesForKeys(Collections.singletonList(key)).get(key);
+  }
+
+  @Override
+  public Map<String, Map<String, Field>> loadAll(Iterable<? extends String> keys) throws Exception {
+    return lookupValuesForKeys(ImmutableList.copyOf(keys));
+  }
+
+  private Map<String, Map<String, Field>> lookupValuesForKeys(List<String> keys) throws StageException {
+    Map<String, Map<String, Field>> values = new HashMap<>(keys.size() * 4 / 3 + 1);
+    try (Connection connection = dataSource.getConnection()) {
+      if (keyNormalizer == null) {
+        keyNormalizer = new JdbcLookupKeyNormalizer(keyColumn, getKeyColumnType(connection));
+      }
+      for (List<String> chunk : Iterables.partition(keys, maxKeysPerQuery)) {
+        lookupValuesForChunk(connection, chunk, values);
+      }
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), query, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, query, e.getMessage());
+    }
+
+    // keys without a row
+    Map<String, Field> defaultValues = null;
+    for (String key : keys) {
+      if (!values.containsKey(key)) {
+        if (defaultValues == null) {
+          defaultValues = JdbcLookupLoader.getDefaultValues(columnsToFields, columnsToDefaults, columnsToTypes);
+        }
+        values.put(key, defaultValues);
+      }
+    }
+    return values;
+  }
+
+  private void lookupValuesForChunk(
+      Connection connection,
+      List<String> keys,
+      Map<String, Map<String, Field>> values
+  ) throws StageException {
+    // normalized key -> keys of the chunk, keys that cannot be converted to the key column type can't match any row
+    Map<String, List<String>> normalizedKeys = new LinkedHashMap<>();
+    for (String key : keys) {
+      String normalizedKey = keyNormalizer.normalizeKey(key);
+      if (normalizedKey != null) {
+        List<String> sameKeys = normalizedKeys.get(normalizedKey);
+        if (sameKeys == null) {
+          sameKeys = new ArrayList<>(1);
+          normalizedKeys.put(normalizedKey, sameKeys);
+        }
+        sameKeys.add(key);
+      }
+    }
+    if (normalizedKeys.isEmpty()) {
+      return;
+    }
+
+    String inListQuery = getInListQuery(normalizedKeys.size());
+    try (PreparedStatement stmt = connection.prepareStatement(inListQuery)) {
+      int paramIdx = 1;
+      for (String normalizedKey : normalizedKeys.keySet()) {
+        keyNormalizer.setKey(stmt, paramIdx++, normalizedKey);
+      }
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        int keyIndex = getKeyColumnIndex(resultSet, inListQuery);
+        int numColumns = resultSet.getMetaData().getColumnCount();
+        while (resultSet.next()) {
+          List<String> sameKeys = normalizedKeys.remove(keyNormalizer.getKey(resultSet, keyIndex));
+          if (sameKeys == null) {
+            // same as a per record query, the first row wins
+            continue;
+          }
+          LinkedHashMap<String, Field> fields = JdbcUtil.resultSetToFields(resultSet,
+              maxClobSize,
+              maxBlobSize,
+              columnsToTypes,
+              errorRecordHandler
+          );
+          if (fields.size() != numColumns) {
+            throw new OnRecordErrorException(JdbcErrors.JDBC_35, fields.size(), numColumns);
+          }
+          for (String key : sameKeys) {
+            values.put(key, fields);
+          }
+        }
+      }
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), inListQuery, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, inListQuery, e.getMessage());
+    }
+  }
+
+  private int getKeyColumnType(Connection connection) throws SQLException, StageException {
+    String typeQuery = "SELECT * FROM (" + query + ") lookup WHERE 1 = 0";
+    try (Statement stmt = connection.createStatement(); ResultSet resultSet = stmt.executeQuery(typeQuery)) {
+      return resultSet.getMetaData().getColumnType(getKeyColumnIndex(resultSet, typeQuery));
+    }
+  }
+
+  private int getKeyColumnIndex(ResultSet resultSet, String inListQuery) throws OnRecordErrorException {
+    try {
+      return resultSet.findColumn(keyColumn);
+    } catch (SQLException e) {
+      throw new OnRecordErrorException(JdbcErrors.JDBC_78, keyColumn, inListQuery);
+    }
+  }
+
+  private String getInListQuery(int numKeys) {
+    String inListQuery = inListQueries.get(numKeys);
+    if (inListQuery == null) {
+      // the statement text only depends on the number of keys, full chunks always reuse the same one
+      inListQuery = "SELECT * FROM (" + query + ") lookup WHERE " + keyColumn + " IN (" +
+          Joiner.on(", ").join(Collections.nCopies(numKeys, "?")) + ")";
+      inListQueries.put(numKeys, inListQuery);
+    }
+    return inListQuery;
+  }
+}
@@ -26,6 +26,7 @@ import com.streamsets.pipeline.api.GenerateResourceBundle;
 import com.streamsets.pipeline.api.ListBeanModel;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.api.ValueChooserModel;
 import com.streamsets.pipeline.configurablestage.DProcessor;
 import com.streamsets.pipeline.lib.el.RecordEL;
 import com.streamsets.pipeline.lib.el.StringEL;
@@ -37,7 +38,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import java.util.List;
 
 @StageDef(
-    version = 2,
+    version = 4,
     label = "JDBC Lookup",
     description = "Lookup values via JDBC to enrich records.",
     icon = "rdbms.png",
@@ -48,6 +49,19 @@ import java.util.List;
 @GenerateResourceBundle
 public class JdbcLookupDProcessor extends DProcessor {
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      label = "Lookup Mode",
+      description = "Run the query once per record, look up the keys of all the records of a batch together " +
+          "with a few IN list queries, or load the query results in memory and look up keys there",
+      defaultValue = "PER_RECORD",
+      displayPosition = 10,
+      group = "JDBC"
+  )
+  @ValueChooserModel(JdbcLookupModeChooserValues.class)
+  public JdbcLookupMode lookupMode = JdbcLookupMode.PER_RECORD;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.TEXT,
@@ -61,6 +75,75 @@ public class JdbcLookupDProcessor extends DProcessor {
   )
   public String query;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Key Column",
+      description = "Column of the query results matched against the lookup key of the records. " +
+          "The query must select it and must not reference the record.",
+      dependsOn = "lookupMode",
+      triggeredByValue = {"BATCH", "PRELOAD"},
+      displayPosition = 22,
+      group = "JDBC"
+  )
+  public String keyColumn;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Key Expression",
+      description = "Lookup key of the record, compared with the string value of the key column",
+      elDefs = {StringEL.class, RecordEL.class},
+      evaluation = ConfigDef.Evaluation.EXPLICIT,
+      dependsOn = "lookupMode",
+      triggeredByValue = {"BATCH", "PRELOAD"},
+      displayPosition = 24,
+      group = "JDBC"
+  )
+  public String keyExpression;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Keys per Query",
+      description = "Maximum number of keys in the IN list of a lookup query, must not exceed the maximum number of " +
+          "query parameters of the database",
+      defaultValue = "1000",
+      min = 1,
+      dependsOn = "lookupMode",
+      triggeredByValue = "BATCH",
+      displayPosition = 26,
+      group = "JDBC"
+  )
+  public int maxKeysPerQuery = 1000;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.STRING,
+      label = "Change Column",
+      description = "Column of the query results whose value increases when a row is inserted or updated, such as a " +
+          "last modified timestamp. Refreshes only read the changed rows. Leave empty to reload the whole table.",
+      dependsOn = "lookupMode",
+      triggeredByValue = "PRELOAD",
+      displayPosition = 27,
+      group = "JDBC"
+  )
+  public String changeColumn;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Refresh Interval (secs)",
+      description = "Seconds between refreshes of the preloaded table. Use 0 to never refresh it.",
+      defaultValue = "60",
+      min = 0,
+      dependsOn = "lookupMode",
+      triggeredByValue = "PRELOAD",
+      displayPosition = 28,
+      group = "JDBC"
+  )
+  public long refreshIntervalSecs = 60;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -102,7 +185,13 @@ public class JdbcLookupDProcessor extends DProcessor {
   @Override
   protected Processor createProcessor() {
     return new JdbcLookupProcessor(
+        lookupMode,
         query,
+        keyColumn,
+        keyExpression,
+        maxKeysPerQuery,
+        changeColumn,
+        refreshIntervalSecs,
         columnMappings,
         maxClobSize,
         maxBlobSize,
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Converts lookup keys and key column values to the form they are matched in, so that for example key
+ * <code>7</code> matches a <code>DECIMAL</code> value <code>7.00</code> and key <code>a</code> matches a
+ * <code>CHAR</code> value padded with spaces.
+ */
+final class JdbcLookupKeyNormalizer {
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupKeyNormalizer.class);
+
+  private final String keyColumn;
+  private final int keyColumnType;
+
+  JdbcLookupKeyNormalizer(String keyColumn, int keyColumnType) {
+    this.keyColumn = keyColumn;
+    this.keyColumnType = keyColumnType;
+  }
+
+  private boolean isNumericKey() {
+    switch (keyColumnType) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.DECIMAL:
+      case Types.NUMERIC:
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean isFixedLengthCharKey() {
+    return keyColumnType == Types.CHAR || keyColumnType == Types.NCHAR;
+  }
+
+  /**
+   * Returns the key in the form it is matched against the key column values, or <code>null</code> if the key cannot
+   * be converted to the key column type.
+   */
+  String normalizeKey(String key) {
+    if (isNumericKey()) {
+      try {
+        return normalizeNumber(new BigDecimal(key.trim()));
+      } catch (NumberFormatException e) {
+        LOG.debug("Key '{}' is not a valid value for numeric key column '{}'", key, keyColumn);
+        return null;
+      }
+    }
+    return (isFixedLengthCharKey()) ? trimTrailingSpaces(key) : key;
+  }
+
+  /**
+   * Binds a key returned by {@link #normalizeKey(String)} with the SQL type of the key column.
+   */
+  void setKey(PreparedStatement stmt, int paramIdx, String normalizedKey) throws SQLException {
+    if (isNumericKey()) {
+      stmt.setObject(paramIdx, new BigDecimal(normalizedKey), keyColumnType);
+    } else {
+      stmt.setObject(paramIdx, normalizedKey, keyColumnType);
+    }
+  }
+
+  /**
+   * Returns the normalized key column value of the current row, <code>null</code> if the value is null.
+   */
+  String getKey(ResultSet resultSet, int keyIndex) throws SQLException {
+    if (isNumericKey()) {
+      BigDecimal key = resultSet.getBigDecimal(keyIndex);
+      return (key != null) ? normalizeNumber(key) : null;
+    }
+    String key = resultSet.getString(keyIndex);
+    return (key != null && isFixedLengthCharKey()) ? trimTrailingSpaces(key) : key;
+  }
+
+  private static String normalizeNumber(BigDecimal number) {
+    return (number.signum() == 0) ? "0" : number.stripTrailingZeros().toPlainString();
+  }
+
+  private static String trimTrailingSpaces(String key) {
+    int end = key.length();
+    while (end > 0 && key.charAt(end - 1) == ' ') {
+      end--;
+    }
+    return key.substring(0, end);
+  }
+}
@@ -81,8 +81,6 @@ public class JdbcLookupLoader extends CacheLoader<String, Map<String, Field>> {
   }
 
   private Map<String, Field> lookupValuesForRecord(String preparedQuery) throws StageException {
-    Map<String, Field> defaultValues = new HashMap<>();
-
     try (Connection connection = dataSource.getConnection()) {
       try (Statement stmt = connection.createStatement()) {
         try (ResultSet resultSet = stmt.executeQuery(preparedQuery)) {
@@ -104,25 +102,7 @@ public class JdbcLookupLoader extends CacheLoader<String, Map<String, Field>> {
             return fields;
           } else {
             // Database returns no row. Use default values.
-            for (String column : columnsToFields.keySet()) {
-              String defaultValue = columnsToDefaults.get(column);
-              DataType dataType = columnsToTypes.get(column);
-              if (dataType != DataType.USE_COLUMN_TYPE) {
-                Field field;
-                try {
-                  if (dataType == DataType.DATE) {
-                    field = Field.createDate(DATE_FORMATTER.parseDateTime(defaultValue).toDate());
-                  } else if (dataType == DataType.DATETIME) {
-                    field = Field.createDatetime(DATETIME_FORMATTER.parseDateTime(defaultValue).toDate());
-                  } else {
-                    field = Field.create(Field.Type.valueOf(columnsToTypes.get(column).getLabel()), defaultValue);
-                  }
-                  defaultValues.put(column, field);
-                } catch (IllegalArgumentException e) {
-                  throw new OnRecordErrorException(JdbcErrors.JDBC_03, column, defaultValue, e);
-                }
-              }
-            }
+            return getDefaultValues(columnsToFields, columnsToDefaults, columnsToTypes);
           }
         }
       } catch (SQLException e) {
@@ -135,6 +115,37 @@ public class JdbcLookupLoader extends CacheLoader<String, Map<String, Field>> {
       LOG.error(JdbcErrors.JDBC_02.getMessage(), preparedQuery, e);
       throw new OnRecordErrorException(JdbcErrors.JDBC_02, preparedQuery, e.getMessage());
     }
+  }
+
+  /**
+   * Returns the values used when the database returns no row: the default value of every column mapping with an
+   * explicit data type.
+   */
+  static Map<String, Field> getDefaultValues(
+      Map<String, String> columnsToFields,
+      Map<String, String> columnsToDefaults,
+      Map<String, DataType> columnsToTypes
+  ) throws OnRecordErrorException {
+    Map<String, Field> defaultValues = new HashMap<>();
+    for (String column : columnsToFields.keySet()) {
+      String defaultValue = columnsToDefaults.get(column);
+      DataType dataType = columnsToTypes.get(column);
+      if (dataType != DataType.USE_COLUMN_TYPE) {
+        Field field;
+        try {
+          if (dataType == DataType.DATE) {
+            field = Field.createDate(DATE_FORMATTER.parseDateTime(defaultValue).toDate());
+          } else if (dataType == DataType.DATETIME) {
+            field = Field.createDatetime(DATETIME_FORMATTER.parseDateTime(defaultValue).toDate());
+          } else {
+            field = Field.create(Field.Type.valueOf(columnsToTypes.get(column).getLabel()), defaultValue);
+          }
+          defaultValues.put(column, field);
+        } catch (IllegalArgumentException e) {
+          throw new OnRecordErrorException(JdbcErrors.JDBC_03, column, defaultValue, e);
+        }
+      }
+    }
     return defaultValues;
   }
 }
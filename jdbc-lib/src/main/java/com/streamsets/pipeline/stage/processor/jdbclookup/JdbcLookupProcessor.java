@@ -21,6 +21,7 @@ package com.streamsets.pipeline.stage.processor.jdbclookup;
 
 import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
+import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Record;
@@ -46,10 +47,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static com.streamsets.pipeline.lib.jdbc.JdbcUtil.closeQuietly;
@@ -60,11 +65,20 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private static final String HIKARI_CONFIG_PREFIX = "hikariConfigBean.";
   private static final String CONNECTION_STRING = HIKARI_CONFIG_PREFIX + "connectionString";
   private static final String COLUMN_MAPPINGS = "columnMappings";
+  private static final String LOOKUP_TABLE_KEY = "jdbcLookupTable";
+  private static final String LOOKUP_TABLE_GAUGE = "Lookup Table";
   private final CacheConfig cacheConfig;
 
   private ELEval queryEval;
+  private ELEval keyEval;
 
+  private final JdbcLookupMode lookupMode;
   private final String query;
+  private final String keyColumn;
+  private final String keyExpression;
+  private final int maxKeysPerQuery;
+  private final String changeColumn;
+  private final long refreshIntervalSecs;
   private final List<JdbcFieldColumnMapping> columnMappings;
   private final int maxClobSize;
   private final int maxBlobSize;
@@ -78,16 +92,33 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final Properties driverProperties = new Properties();
 
   private LoadingCache<String, Map<String, Field>> cache;
+  // batch lookup mode, values of the keys of the current batch
+  private Map<String, Map<String, Field>> batchValues = Collections.emptyMap();
+  private OnRecordErrorException batchLookupError;
+  // preloaded table lookup mode
+  private JdbcLookupTable lookupTable;
 
   public JdbcLookupProcessor(
+      JdbcLookupMode lookupMode,
       String query,
+      String keyColumn,
+      String keyExpression,
+      int maxKeysPerQuery,
+      String changeColumn,
+      long refreshIntervalSecs,
       List<JdbcFieldColumnMapping> columnMappings,
       int maxClobSize,
       int maxBlobSize,
       HikariPoolConfigBean hikariConfigBean,
       CacheConfig cacheConfig
   ) {
+    this.lookupMode = lookupMode;
     this.query = query;
+    this.keyColumn = keyColumn;
+    this.keyExpression = keyExpression;
+    this.maxKeysPerQuery = maxKeysPerQuery;
+    this.changeColumn = changeColumn;
+    this.refreshIntervalSecs = refreshIntervalSecs;
     this.columnMappings = columnMappings;
     this.maxClobSize = maxClobSize;
     this.maxBlobSize = maxBlobSize;
@@ -106,6 +137,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     Processor.Context context = getContext();
 
     queryEval = getContext().createELEval("query");
+    keyEval = getContext().createELEval("keyExpression");
 
     issues = hikariConfigBean.validateConfigs(context, issues);
 
@@ -153,31 +185,143 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     }
 
     if (issues.isEmpty()) {
-      cache = buildCache();
+      if (lookupMode == JdbcLookupMode.PRELOAD) {
+        initLookupTable(issues);
+      } else {
+        cache = buildCache();
+      }
     }
     // If issues is not empty, the UI will inform the user of each configuration issue in the list.
     return issues;
   }
 
+  /**
+   * Loads the lookup table, unless another runner of the stage already did.
+   */
+  private void initLookupTable(List<ConfigIssue> issues) {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      lookupTable = (JdbcLookupTable) runnerSharedMap.get(LOOKUP_TABLE_KEY);
+      if (lookupTable == null) {
+        JdbcLookupTable table = new JdbcLookupTable(dataSource,
+            query,
+            keyColumn,
+            changeColumn,
+            columnsToTypes,
+            maxClobSize,
+            maxBlobSize,
+            errorRecordHandler,
+            getContext().createGauge(LOOKUP_TABLE_GAUGE).getValue()
+        );
+        try {
+          table.load();
+        } catch (StageException e) {
+          LOG.error("Can't load the lookup table: {}", e.toString(), e);
+          issues.add(getContext().createConfigIssue(Groups.JDBC.name(), "query", e.getErrorCode(), e.getParams()));
+          return;
+        }
+        if (refreshIntervalSecs > 0) {
+          table.startRefresh(refreshIntervalSecs);
+        }
+        lookupTable = table;
+        runnerSharedMap.put(LOOKUP_TABLE_KEY, lookupTable);
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public void destroy() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      // the first runner going away stops refreshing the table shared by all of them
+      JdbcLookupTable sharedTable = (JdbcLookupTable) runnerSharedMap.remove(LOOKUP_TABLE_KEY);
+      if (sharedTable != null) {
+        sharedTable.close();
+      }
+    }
     closeQuietly(dataSource);
     super.destroy();
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void process(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
+    if (lookupMode == JdbcLookupMode.BATCH) {
+      lookupBatch(batch);
+    } else if (lookupMode == JdbcLookupMode.PRELOAD) {
+      lookupTable.updateGauges();
+    }
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchValues = Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Looks up the distinct keys of the batch with a few IN list queries, values not in the cache are loaded in bulk.
+   */
+  private void lookupBatch(Batch batch) throws StageException {
+    Set<String> keys = new LinkedHashSet<>();
+    Iterator<Record> records = batch.getRecords();
+    while (records.hasNext()) {
+      ELVars elVars = getContext().createELVars();
+      RecordEL.setRecordInContext(elVars, records.next());
+      try {
+        keys.add(keyEval.eval(elVars, keyExpression, String.class));
+      } catch (ELEvalException e) { // NOSONAR
+        // the record is sent to error when it is processed
+      }
+    }
+    batchLookupError = null;
+    try {
+      batchValues = keys.isEmpty() ? Collections.<String, Map<String, Field>>emptyMap() : cache.getAll(keys);
+    } catch (ExecutionException e) {
+      batchValues = Collections.emptyMap();
+      if (e.getCause() instanceof OnRecordErrorException) {
+        // every record of the batch fails the same way
+        batchLookupError = (OnRecordErrorException) e.getCause();
+      } else {
+        Throwables.propagateIfPossible(e.getCause(), StageException.class);
+        throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
     try {
       ELVars elVars = getContext().createELVars();
       RecordEL.setRecordInContext(elVars, record);
-      String preparedQuery = queryEval.eval(elVars, query, String.class);
-      Map<String, Field> values = cache.get(preparedQuery);
+      Map<String, Field> values;
+      String lookup;
+      if (lookupMode == JdbcLookupMode.BATCH) {
+        if (batchLookupError != null) {
+          throw batchLookupError;
+        }
+        String key = keyEval.eval(elVars, keyExpression, String.class);
+        lookup = keyColumn + " = " + key;
+        values = batchValues.get(key);
+        if (values == null) {
+          values = cache.get(key);
+        }
+      } else if (lookupMode == JdbcLookupMode.PRELOAD) {
+        String key = keyEval.eval(elVars, keyExpression, String.class);
+        lookup = keyColumn + " = " + key;
+        values = lookupTable.get(key);
+        if (values == null) {
+          values = JdbcLookupLoader.getDefaultValues(columnsToFields, columnsToDefaults, columnsToTypes);
+        }
+      } else {
+        lookup = queryEval.eval(elVars, query, String.class);
+        values = cache.get(lookup);
+      }
       if (values.isEmpty()) {
         // No results
-        LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
-        errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
+        LOG.error(JdbcErrors.JDBC_04.getMessage(), lookup);
+        errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, lookup));
       }
       for (Map.Entry<String, Field> entry : values.entrySet()) {
         String columnName = entry.getKey();
@@ -206,8 +350,9 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       }
       batchMaker.addRecord(record);
     } catch (ELEvalException e) {
-      LOG.error(JdbcErrors.JDBC_01.getMessage(), query, e);
-      throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, query);
+      String expression = lookupMode == JdbcLookupMode.PER_RECORD ? query : keyExpression;
+      LOG.error(JdbcErrors.JDBC_01.getMessage(), expression, e);
+      throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, expression);
     } catch (ExecutionException e) {
       Throwables.propagateIfPossible(e.getCause(), StageException.class);
       throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
@@ -218,6 +363,20 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
 
   @SuppressWarnings("unchecked")
   private LoadingCache<String, Map<String, Field>> buildCache() {
+    if (lookupMode == JdbcLookupMode.BATCH) {
+      JdbcBatchLookupLoader loader = new JdbcBatchLookupLoader(dataSource,
+          query,
+          keyColumn,
+          maxKeysPerQuery,
+          columnsToFields,
+          columnsToDefaults,
+          columnsToTypes,
+          maxClobSize,
+          maxBlobSize,
+          errorRecordHandler
+      );
+      return LookupUtils.buildCache(loader, cacheConfig);
+    }
     JdbcLookupLoader loader = new JdbcLookupLoader(dataSource,
         columnsToFields,
         columnsToDefaults,
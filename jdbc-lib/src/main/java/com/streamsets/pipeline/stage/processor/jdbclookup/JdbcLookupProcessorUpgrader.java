@@ -43,6 +43,18 @@ public class JdbcLookupProcessorUpgrader implements StageUpgrader {
     switch (fromVersion) {
       case 1:
         upgradeV1ToV2(configs);
+        if (toVersion == 2) {
+          break;
+        }
+        // fall through
+      case 2:
+        upgradeV2ToV3(configs);
+        if (toVersion == 3) {
+          break;
+        }
+        // fall through
+      case 3:
+        upgradeV3ToV4(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -58,4 +70,16 @@ public class JdbcLookupProcessorUpgrader implements StageUpgrader {
     configs.add(new Config(p.join(CACHE_CONFIG, "expirationTime"), 1));
     configs.add(new Config(p.join(CACHE_CONFIG, "timeUnit"), TimeUnit.SECONDS));
   }
+
+  private static void upgradeV2ToV3(List<Config> configs) {
+    configs.add(new Config("lookupMode", JdbcLookupMode.PER_RECORD));
+    configs.add(new Config("keyColumn", ""));
+    configs.add(new Config("keyExpression", ""));
+    configs.add(new Config("maxKeysPerQuery", 1000));
+  }
+
+  private static void upgradeV3ToV4(List<Config> configs) {
+    configs.add(new Config("changeColumn", ""));
+    configs.add(new Config("refreshIntervalSecs", 60));
+  }
 }
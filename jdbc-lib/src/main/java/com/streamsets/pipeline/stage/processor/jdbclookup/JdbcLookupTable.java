@@ -0,0 +1,289 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
+import com.streamsets.pipeline.lib.jdbc.DataType;
+import com.streamsets.pipeline.lib.jdbc.JdbcErrors;
+import com.streamsets.pipeline.lib.jdbc.JdbcUtil;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole result of the lookup query held in memory and indexed by the key column, lookups don't go to the
+ * database.
+ * <p/>
+ * Rows are kept as arrays of fields sharing a single array of column names. The table is refreshed in the
+ * background: with a change column only the rows whose change column value is greater than or equal to the greatest
+ * value seen so far are queried again, rows deleted from the database are only dropped by a full reload. Without a
+ * change column every refresh is a full reload.
+ * <p/>
+ * A table is shared by all the runners of the stage, lookups are thread safe.
+ */
+public class JdbcLookupTable implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupTable.class);
+  private static final int FETCH_SIZE = 1000;
+
+  static final String ROWS = "Rows";
+  static final String LOAD_TIME = "Load Time (ms)";
+  static final String LAST_REFRESH = "Last Refresh";
+  static final String REFRESH_LAG = "Refresh Lag (secs)";
+  static final String REFRESH_ERROR = "Last Refresh Error";
+
+  private final DataSource dataSource;
+  private final String query;
+  private final String keyColumn;
+  private final String changeColumn;
+  private final Map<String, DataType> columnsToTypes;
+  private final int maxClobSize;
+  private final int maxBlobSize;
+  private final ErrorRecordHandler errorRecordHandler;
+  private final Map<String, Object> gaugeMap;
+  private ScheduledExecutorService refreshExecutor;
+
+  private static class Index {
+    private final String[] columns;
+    private final JdbcLookupKeyNormalizer keyNormalizer;
+    private final Map<String, Field[]> rows;
+
+    private Index(String[] columns, JdbcLookupKeyNormalizer keyNormalizer) {
+      this.columns = columns;
+      this.keyNormalizer = keyNormalizer;
+      this.rows = new ConcurrentHashMap<>();
+    }
+  }
+
+  private volatile Index index;
+  private volatile long lastRefresh;
+  private Object maxChange;
+
+  public JdbcLookupTable(
+      DataSource dataSource,
+      String query,
+      String keyColumn,
+      String changeColumn,
+      Map<String, DataType> columnsToTypes,
+      int maxClobSize,
+      int maxBlobSize,
+      ErrorRecordHandler errorRecordHandler,
+      Map<String, Object> gaugeMap
+  ) {
+    this.dataSource = dataSource;
+    this.query = query;
+    this.keyColumn = keyColumn;
+    this.changeColumn = StringUtils.trimToNull(changeColumn);
+    this.columnsToTypes = columnsToTypes;
+    this.maxClobSize = maxClobSize;
+    this.maxBlobSize = maxBlobSize;
+    this.errorRecordHandler = errorRecordHandler;
+    this.gaugeMap = gaugeMap;
+  }
+
+  /**
+   * Returns the values of the row with the given key, <code>null</code> if there is no such row. Keys are matched
+   * the same way as in the batch lookups, see {@link JdbcLookupKeyNormalizer}.
+   */
+  public Map<String, Field> get(String key) {
+    Index current = index;
+    String normalizedKey = current.keyNormalizer.normalizeKey(key);
+    if (normalizedKey == null) {
+      return null;
+    }
+    Field[] values = current.rows.get(normalizedKey);
+    if (values == null) {
+      return null;
+    }
+    Map<String, Field> fields = new LinkedHashMap<>(current.columns.length * 4 / 3 + 1);
+    for (int i = 0; i < values.length; i++) {
+      fields.put(current.columns[i], values[i]);
+    }
+    return fields;
+  }
+
+  public int size() {
+    return index.rows.size();
+  }
+
+  /**
+   * Loads the whole table, lookups keep using the previous contents until the load completes.
+   */
+  public synchronized void load() throws StageException {
+    long start = System.currentTimeMillis();
+    maxChange = null;
+    index = read(query, null, null);
+    lastRefresh = System.currentTimeMillis();
+    gaugeMap.put(LOAD_TIME, lastRefresh - start);
+    updateGauges();
+    LOG.debug("Loaded {} rows in {} ms", size(), lastRefresh - start);
+  }
+
+  /**
+   * Reads the rows changed since the last load or refresh, or loads the whole table again if there is no change
+   * column.
+   */
+  public synchronized void refresh() throws StageException {
+    if (changeColumn == null || maxChange == null) {
+      load();
+      return;
+    }
+    long start = System.currentTimeMillis();
+    String refreshQuery = "SELECT * FROM (" + query + ") lookup WHERE " + changeColumn + " >= ?";
+    Index current = index;
+    Index changes = read(refreshQuery, maxChange, current);
+    if (changes != current) {
+      // the query does not return the same columns anymore
+      load();
+      return;
+    }
+    lastRefresh = System.currentTimeMillis();
+    updateGauges();
+    LOG.debug("Refreshed the lookup table in {} ms", lastRefresh - start);
+  }
+
+  /**
+   * Starts refreshing the table in the background every <code>intervalSecs</code> seconds.
+   */
+  public synchronized void startRefresh(long intervalSecs) {
+    refreshExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("JDBC Lookup Table Refresh - %d").setDaemon(true).build()
+    );
+    refreshExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+        gaugeMap.remove(REFRESH_ERROR);
+      } catch (StageException | RuntimeException e) {
+        LOG.error("Can't refresh the lookup table: {}", e.toString(), e);
+        gaugeMap.put(REFRESH_ERROR, e.toString());
+      }
+    }, intervalSecs, intervalSecs, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Updates the gauge values that depend on the current time.
+   */
+  public void updateGauges() {
+    gaugeMap.put(ROWS, size());
+    gaugeMap.put(LAST_REFRESH, lastRefresh);
+    gaugeMap.put(REFRESH_LAG, (System.currentTimeMillis() - lastRefresh) / 1000);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+      refreshExecutor = null;
+    }
+  }
+
+  /**
+   * Runs the query and adds its rows to the given index, if the index is <code>null</code> or the query returns
+   * different columns the rows go to a new index, the index the rows were added to is returned.
+   */
+  private Index read(String sql, Object fromChange, Index into) throws StageException {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(sql)) {
+      stmt.setFetchSize(FETCH_SIZE);
+      if (fromChange != null) {
+        stmt.setObject(1, fromChange);
+      }
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        ResultSetMetaData md = resultSet.getMetaData();
+        int numColumns = md.getColumnCount();
+        String[] columns = new String[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+          columns[i] = md.getColumnLabel(i + 1);
+        }
+        if (into != null && !Arrays.equals(into.columns, columns)) {
+          return new Index(columns, into.keyNormalizer);
+        }
+        int keyIndex = findColumn(resultSet, keyColumn, sql);
+        Index target = (into != null) ? into : new Index(
+            columns,
+            new JdbcLookupKeyNormalizer(keyColumn, md.getColumnType(keyIndex))
+        );
+        int changeIndex = changeColumn == null ? -1 : findColumn(resultSet, changeColumn, sql);
+        while (resultSet.next()) {
+          String key = target.keyNormalizer.getKey(resultSet, keyIndex);
+          LinkedHashMap<String, Field> fields = JdbcUtil.resultSetToFields(resultSet,
+              maxClobSize,
+              maxBlobSize,
+              columnsToTypes,
+              errorRecordHandler
+          );
+          if (fields.size() != numColumns) {
+            throw new OnRecordErrorException(JdbcErrors.JDBC_35, fields.size(), numColumns);
+          }
+          if (key == null) {
+            continue;
+          }
+          Field[] values = new Field[numColumns];
+          Iterator<Field> it = fields.values().iterator();
+          for (int i = 0; i < numColumns; i++) {
+            values[i] = it.next();
+          }
+          target.rows.put(key, values);
+          if (changeIndex > 0) {
+            trackChange(resultSet.getObject(changeIndex));
+          }
+        }
+        return target;
+      }
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), sql, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, sql, e.getMessage());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void trackChange(Object change) {
+    if (change instanceof Comparable && (maxChange == null || ((Comparable) change).compareTo(maxChange) > 0)) {
+      maxChange = change;
+    }
+  }
+
+  private static int findColumn(ResultSet resultSet, String column, String sql) throws OnRecordErrorException {
+    try {
+      return resultSet.findColumn(column);
+    } catch (SQLException e) {
+      throw new OnRecordErrorException(JdbcErrors.JDBC_78, column, sql);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.lib.jdbc.OracleCDCOperationCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class TestSQLRedoParser {
+
+  private static void assertParsed(int op, String sql, Map<String, String> expected) {
+    SQLRedoParser parser = new SQLRedoParser(false);
+    Assert.assertEquals(expected, parser.parseFast(op, sql));
+    // The fast path and the ANTLR parser agree
+    Assert.assertEquals(expected, parser.parseWithAntlr(op, sql));
+    Assert.assertEquals(expected, parser.parse(op, sql));
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    assertParsed(
+        OracleCDCOperationCode.INSERT_CODE,
+        "insert into \"SYS\".\"MANYCOLS\"(\"ID\",\"NAME\",\"HIREDATE\",\"SALARY\",\"LASTLOGIN\") " +
+            "values ('10','stream',TO_DATE('19-11-2016 11:35:16', 'DD-MM-YYYY HH24:MI:SS'),'10000.1',NULL);",
+        ImmutableMap.<String, String>builder()
+            .put("ID", "10")
+            .put("NAME", "stream")
+            .put("HIREDATE", "TO_DATE('19-11-2016 11:35:16','DD-MM-YYYY HH24:MI:SS')")
+            .put("SALARY", "10000.1")
+            .put("LASTLOGIN", "NULL")
+            .build()
+    );
+    assertParsed(
+        OracleCDCOperationCode.INSERT_CODE,
+        "insert into \"SYS\".\"T\"(\"ID\",\"NAME\") values (-1,'O''Brien')",
+        ImmutableMap.of("ID", "-1", "NAME", "O'Brien")
+    );
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    assertParsed(
+        OracleCDCOperationCode.UPDATE_CODE,
+        "update \"SYS\".\"MANYCOLS\" set \"SALARY\" = '1998.483' where \"ID\" = '1' and \"NAME\" = '=sdc' and" +
+            " \"HIREDATE\" = TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS') and " +
+            "\"SALARY\" = '1332.322' and \"LASTLOGIN\" = TO_TIMESTAMP('2016-11-21 11:34:09.982753')",
+        ImmutableMap.<String, String>builder()
+            .put("ID", "1")
+            .put("SALARY", "1998.483")
+            .put("NAME", "=sdc")
+            .put("HIREDATE", "TO_DATE('21-11-2016 11:34:09','DD-MM-YYYY HH24:MI:SS')")
+            .put("LASTLOGIN", "TO_TIMESTAMP('2016-11-21 11:34:09.982753')")
+            .build()
+    );
+    assertParsed(
+        OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE,
+        "update \"SYS\".\"T\" set \"NAME\" = 'a', \"LASTLOGIN\" = NULL where \"ID\" = '1' and \"NAME\" IS NULL",
+        ImmutableMap.of("ID", "1", "NAME", "a", "LASTLOGIN", "NULL")
+    );
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    assertParsed(
+        OracleCDCOperationCode.DELETE_CODE,
+        "delete from \"SYS\".\"MANYCOLS\" where \"ID\" = '10' and \"NAME\" = 'stream' and " +
+            "\"HIREDATE\" = TO_DATE('19-11-2016 11:35:16', 'DD-MM-YYYY HH24:MI:SS') and " +
+            "\"SALARY\" = '10000.1' and \"LASTLOGIN\" IS NULL\n",
+        ImmutableMap.<String, String>builder()
+            .put("ID", "10")
+            .put("NAME", "stream")
+            .put("HIREDATE", "TO_DATE('19-11-2016 11:35:16','DD-MM-YYYY HH24:MI:SS')")
+            .put("SALARY", "10000.1")
+            .build()
+    );
+  }
+
+  @Test
+  public void testCaseSensitive() throws Exception {
+    SQLRedoParser parser = new SQLRedoParser(true);
+    String sql = "insert into \"SYS\".\"T\"(\"Id\",\"name\") values ('1','sdc')";
+    Map<String, String> expected = ImmutableMap.of("Id", "1", "name", "sdc");
+    Assert.assertEquals(expected, parser.parseFast(OracleCDCOperationCode.INSERT_CODE, sql));
+    Assert.assertEquals(expected, parser.parseWithAntlr(OracleCDCOperationCode.INSERT_CODE, sql));
+  }
+
+  @Test
+  public void testFallbackToAntlr() throws Exception {
+    SQLRedoParser parser = new SQLRedoParser(false);
+    // Shapes not handled by the fast path
+    Assert.assertNull(parser.parseFast(
+        OracleCDCOperationCode.UPDATE_CODE,
+        "update \"SYS\".\"T\" set \"NAME\" = 'a' where \"ID\" IS NOT NULL"
+    ));
+    Assert.assertNull(parser.parseFast(
+        OracleCDCOperationCode.UPDATE_CODE,
+        "update \"SYS\".\"T\" set \"NAME\" = 'a' || 'b' where \"ID\" = '1'"
+    ));
+    Assert.assertNull(parser.parseFast(
+        OracleCDCOperationCode.INSERT_CODE,
+        "insert into \"SYS\".\"T\"(\"ID\",\"NAME\") values ('1')"
+    ));
+
+    String sql = "update \"SYS\".\"T\" set \"NAME\" = 'a' where \"ID\" = '1' and \"X\" IS NOT NULL";
+    Assert.assertEquals(
+        parser.parseWithAntlr(OracleCDCOperationCode.UPDATE_CODE, sql),
+        parser.parse(OracleCDCOperationCode.UPDATE_CODE, sql)
+    );
+  }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.table;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.StageRunner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class PartitionedTableIT extends BaseTableJdbcSourceIT {
+  private static final String TABLE_NAME = "PARTITIONED";
+  private static final String QUALIFIED_TABLE_NAME = database + "." + TABLE_NAME;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(300);
+
+  private static class CollectingCallback implements PushSourceRunner.Callback {
+    private final PushSourceRunner pushSourceRunner;
+    private final int numberOfRecordsToStop;
+    private final List<Integer> ids;
+
+    private CollectingCallback(PushSourceRunner pushSourceRunner, int numberOfRecordsToStop) {
+      this.pushSourceRunner = pushSourceRunner;
+      this.numberOfRecordsToStop = numberOfRecordsToStop;
+      this.ids = new ArrayList<>();
+    }
+
+    @Override
+    public synchronized void processBatch(StageRunner.Output output) {
+      for (Record record : output.getRecords().get("a")) {
+        ids.add(record.get("/ID").getValueAsInteger());
+      }
+      if (ids.size() >= numberOfRecordsToStop) {
+        pushSourceRunner.setStop();
+      }
+    }
+
+    private synchronized List<Integer> getIds() {
+      return new ArrayList<>(ids);
+    }
+  }
+
+  /**
+   * Initializes the source from the produce thread, the way the pipeline runner calls init and produce
+   * from the same thread.
+   */
+  private static class SameThreadPushSource implements PushSource {
+    private final PushSource pushSource;
+    private final int numberOfThreads;
+    private Stage.Info info;
+    private PushSource.Context context;
+
+    private SameThreadPushSource(PushSource pushSource, int numberOfThreads) {
+      this.pushSource = pushSource;
+      this.numberOfThreads = numberOfThreads;
+    }
+
+    @Override
+    public List<ConfigIssue> init(Stage.Info info, PushSource.Context context) {
+      this.info = info;
+      this.context = context;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public int getNumberOfThreads() {
+      return numberOfThreads;
+    }
+
+    @Override
+    public void produce(Map<String, String> lastOffsets, int maxBatchSize) throws StageException {
+      List<ConfigIssue> issues = pushSource.init(info, context);
+      Assert.assertEquals(Collections.emptyList(), issues);
+      pushSource.produce(lastOffsets, maxBatchSize);
+    }
+
+    @Override
+    public void destroy() {
+      pushSource.destroy();
+    }
+  }
+
+  private static void insertRows(int from, int to) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (int id = from; id <= to; id++) {
+        statement.addBatch(
+            String.format(INSERT_STATEMENT_TEMPLATE, database, TABLE_NAME, id + ", 'name" + id + "'")
+        );
+      }
+      statement.executeBatch();
+    }
+  }
+
+  @Before
+  public void createTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          String.format(CREATE_STATEMENT_TEMPLATE, database, TABLE_NAME, "ID INT NOT NULL PRIMARY KEY, NAME VARCHAR(20)")
+      );
+    }
+    insertRows(1, 100);
+  }
+
+  @After
+  public void dropTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(String.format(DROP_STATEMENT_TEMPLATE, database, TABLE_NAME));
+    }
+  }
+
+  private static TableJdbcSource createSource(int numberOfThreads) {
+    TableConfigBean tableConfigBean = new TableJdbcSourceTestBuilder.TableConfigBeanTestBuilder()
+        .tablePattern(TABLE_NAME)
+        .schema(database)
+        .build();
+
+    return new TableJdbcSourceTestBuilder(JDBC_URL, true, USER_NAME, PASSWORD)
+        .tableConfigBeans(ImmutableList.of(tableConfigBean))
+        .batchTableStrategy(BatchTableStrategy.SWITCH_TABLES)
+        .numberOfThreads(numberOfThreads)
+        .maxPartitionsPerTable(4)
+        .minPartitionSize(10)
+        .build();
+  }
+
+  private static List<Integer> runUntil(
+      int numberOfThreads,
+      Map<String, String> offsets,
+      int numberOfRecordsToStop
+  ) throws Exception {
+    return runUntil(createSource(numberOfThreads), offsets, numberOfRecordsToStop);
+  }
+
+  private static List<Integer> runUntil(
+      PushSource source,
+      Map<String, String> offsets,
+      int numberOfRecordsToStop
+  ) throws Exception {
+    PushSourceRunner runner = new PushSourceRunner.Builder(TableJdbcDSource.class, source)
+        .addOutputLane("a")
+        .build();
+    runner.runInit();
+    CollectingCallback callback = new CollectingCallback(runner, numberOfRecordsToStop);
+    try {
+      runner.runProduce(offsets, 10, callback);
+      runner.waitOnProduce();
+      offsets.clear();
+      offsets.putAll(runner.getOffsets());
+    } finally {
+      runner.runDestroy();
+    }
+    return callback.getIds();
+  }
+
+  private static void assertReadOnce(List<Integer> ids, int numberOfRows) {
+    Set<Integer> uniqueIds = new TreeSet<>(ids);
+    Assert.assertEquals("Rows read more than once", ids.size(), uniqueIds.size());
+    Assert.assertEquals(numberOfRows, uniqueIds.size());
+    Assert.assertEquals(1, (int) Collections.min(uniqueIds));
+    Assert.assertEquals(numberOfRows, (int) Collections.max(uniqueIds));
+  }
+
+  @Test
+  public void testPartitionedRead() throws Exception {
+    Map<String, String> offsets = new HashMap<>();
+    List<Integer> ids = runUntil(4, offsets, 100);
+    assertReadOnce(ids, 100);
+
+    // 100 values split in 4 ranges, the ranges are kept in the offset
+    Assert.assertEquals("26,51,76", offsets.get(TableContextUtil.getPartitionLayoutKey(QUALIFIED_TABLE_NAME)));
+    Assert.assertTrue(offsets.containsKey(TableContextUtil.getPartitionOffsetKey(QUALIFIED_TABLE_NAME, null, "26")));
+    Assert.assertTrue(offsets.containsKey(TableContextUtil.getPartitionOffsetKey(QUALIFIED_TABLE_NAME, "26", "51")));
+    Assert.assertTrue(offsets.containsKey(TableContextUtil.getPartitionOffsetKey(QUALIFIED_TABLE_NAME, "51", "76")));
+    Assert.assertTrue(offsets.containsKey(TableContextUtil.getPartitionOffsetKey(QUALIFIED_TABLE_NAME, "76", null)));
+    Assert.assertFalse(offsets.containsKey(QUALIFIED_TABLE_NAME));
+  }
+
+  @Test
+  public void testPartitionedReadRestart() throws Exception {
+    Map<String, String> offsets = new HashMap<>();
+    List<Integer> ids = new ArrayList<>(runUntil(2, offsets, 1));
+    Assert.assertTrue(ids.size() < 100);
+    Assert.assertEquals("26,51,76", offsets.get(TableContextUtil.getPartitionLayoutKey(QUALIFIED_TABLE_NAME)));
+
+    // rows above the last boundary are read in the last range, the stored ranges are not computed again
+    insertRows(101, 150);
+    ids.addAll(runUntil(2, offsets, 150 - ids.size()));
+    assertReadOnce(ids, 150);
+    Assert.assertEquals("26,51,76", offsets.get(TableContextUtil.getPartitionLayoutKey(QUALIFIED_TABLE_NAME)));
+  }
+
+  @Test
+  public void testPartitionedReadInitAndProduceOnSameThread() throws Exception {
+    Map<String, String> offsets = new HashMap<>();
+    List<Integer> ids = runUntil(new SameThreadPushSource(createSource(2), 2), offsets, 100);
+    assertReadOnce(ids, 100);
+    Assert.assertEquals("26,51,76", offsets.get(TableContextUtil.getPartitionLayoutKey(QUALIFIED_TABLE_NAME)));
+  }
+}
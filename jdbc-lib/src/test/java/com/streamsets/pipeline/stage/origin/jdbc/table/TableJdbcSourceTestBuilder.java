@@ -48,6 +48,8 @@ public class TableJdbcSourceTestBuilder {
   private int numberOfThreads;
   private int maximumPoolSize;
   private int numberOfBatchesFromResultset;
+  private int maxPartitionsPerTable;
+  private long minPartitionSize;
 
 
   public TableJdbcSourceTestBuilder(String jdbcUrl, boolean useCredentials, String username, String password) {
@@ -71,6 +73,8 @@ public class TableJdbcSourceTestBuilder {
     this.numberOfThreads = 1;
     this.maximumPoolSize = -1;
     this.numberOfBatchesFromResultset = -1;
+    this.maxPartitionsPerTable = 1;
+    this.minPartitionSize = 1000000;
   }
 
   public TableJdbcSourceTestBuilder() {
@@ -167,6 +171,16 @@ public class TableJdbcSourceTestBuilder {
     return this;
   }
 
+  public TableJdbcSourceTestBuilder maxPartitionsPerTable(int maxPartitionsPerTable) {
+    this.maxPartitionsPerTable = maxPartitionsPerTable;
+    return this;
+  }
+
+  public TableJdbcSourceTestBuilder minPartitionSize(long minPartitionSize) {
+    this.minPartitionSize = minPartitionSize;
+    return this;
+  }
+
   public TableJdbcSourceTestBuilder maximumPoolSize(int maximumPoolSize) {
     this.maximumPoolSize = maximumPoolSize;
     return this;
@@ -194,6 +208,8 @@ public class TableJdbcSourceTestBuilder {
     tableJdbcConfigBean.resultCacheSize = resultSetCacheSize;
     tableJdbcConfigBean.numberOfThreads = numberOfThreads;
     tableJdbcConfigBean.numberOfBatchesFromRs = numberOfBatchesFromResultset;
+    tableJdbcConfigBean.maxPartitionsPerTable = maxPartitionsPerTable;
+    tableJdbcConfigBean.minPartitionSize = minPartitionSize;
 
     return new TableJdbcSource(
         hikariPoolConfigBean,
@@ -45,4 +45,23 @@ public class TestTableJdbcSourceUpgrader {
         config.getValue()
     );
   }
+
+  @Test
+  public void testUpgradeV2ToV3() throws Exception {
+    List<Config> configs = new ArrayList<>();
+    TableJdbcSourceUpgrader upgrader = new TableJdbcSourceUpgrader();
+    List<Config> upgradedConfigs =
+        upgrader.upgrade("a", "b", "c", 2, 3, configs);
+    Assert.assertEquals(2, upgradedConfigs.size());
+    Assert.assertEquals(
+        TableJdbcConfigBean.TABLE_JDBC_CONFIG_BEAN_PREFIX + TableJdbcConfigBean.MAX_PARTITIONS_PER_TABLE,
+        upgradedConfigs.get(0).getName()
+    );
+    Assert.assertEquals(1, upgradedConfigs.get(0).getValue());
+    Assert.assertEquals(
+        TableJdbcConfigBean.TABLE_JDBC_CONFIG_BEAN_PREFIX + TableJdbcConfigBean.MIN_PARTITION_SIZE,
+        upgradedConfigs.get(1).getName()
+    );
+    Assert.assertEquals(1000000, upgradedConfigs.get(1).getValue());
+  }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.table;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.stage.origin.jdbc.table.util.OffsetQueryUtil;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class TestTablePartitions {
+
+  private static TableContext getTableContext(int offsetColumnType) {
+    return new TableContext(
+        "SCHEMA",
+        "TAB",
+        new LinkedHashMap<>(ImmutableMap.of("id", offsetColumnType)),
+        new HashMap<>(),
+        null
+    );
+  }
+
+  @Test
+  public void testComputePartitionBoundaries() throws Exception {
+    Assert.assertEquals(
+        ImmutableList.of(26L, 51L, 76L),
+        TableContextUtil.computePartitionBoundaries(1, 100, 4, 10)
+    );
+    //Limited by the minimum partition size
+    Assert.assertEquals(
+        ImmutableList.of(51L),
+        TableContextUtil.computePartitionBoundaries(1, 100, 4, 50)
+    );
+    Assert.assertEquals(
+        Collections.emptyList(),
+        TableContextUtil.computePartitionBoundaries(1, 100, 4, 101)
+    );
+    Assert.assertEquals(
+        Collections.emptyList(),
+        TableContextUtil.computePartitionBoundaries(1, 100, 1, 1)
+    );
+    //Does not overflow for the whole range of longs
+    List<Long> boundaries = TableContextUtil.computePartitionBoundaries(Long.MIN_VALUE, Long.MAX_VALUE, 2, 1);
+    Assert.assertEquals(ImmutableList.of(0L), boundaries);
+  }
+
+  @Test
+  public void testIsRangePartitionable() throws Exception {
+    Assert.assertTrue(TableContextUtil.isRangePartitionable(getTableContext(Types.BIGINT)));
+    Assert.assertFalse(TableContextUtil.isRangePartitionable(getTableContext(Types.VARCHAR)));
+    Assert.assertFalse(
+        TableContextUtil.isRangePartitionable(
+            new TableContext(
+                "SCHEMA",
+                "TAB",
+                new LinkedHashMap<>(ImmutableMap.of("id", Types.INTEGER, "id2", Types.INTEGER)),
+                new HashMap<>(),
+                null
+            )
+        )
+    );
+    TableContext tableContext = getTableContext(Types.INTEGER);
+    tableContext.getOffsetColumnToStartOffset().put("id", "10");
+    Assert.assertFalse(TableContextUtil.isRangePartitionable(tableContext));
+  }
+
+  @Test
+  public void testPartitionOffsetKeysAndQueries() throws Exception {
+    List<TableContext> partitions =
+        TableContextUtil.createPartitions(getTableContext(Types.INTEGER), ImmutableList.of(-5L, 100L));
+    Assert.assertEquals(3, partitions.size());
+    Assert.assertEquals("SCHEMA.TAB#range=..-5", partitions.get(0).getOffsetKey());
+    Assert.assertEquals("SCHEMA.TAB#range=-5..100", partitions.get(1).getOffsetKey());
+    Assert.assertEquals("SCHEMA.TAB#range=100..", partitions.get(2).getOffsetKey());
+    Assert.assertEquals("SCHEMA.TAB", getTableContext(Types.INTEGER).getOffsetKey());
+
+    Pair<String, List<Pair<Integer, String>>> queryAndParams =
+        OffsetQueryUtil.buildAndReturnQueryAndParamValToSet(partitions.get(0), null, null);
+    Assert.assertEquals("select * from SCHEMA.TAB WHERE ( id < ? )  ORDER by id ", queryAndParams.getLeft());
+    Assert.assertEquals(ImmutableList.of(Pair.of(Types.INTEGER, "-5")), queryAndParams.getRight());
+
+    queryAndParams = OffsetQueryUtil.buildAndReturnQueryAndParamValToSet(partitions.get(1), "id=10", null);
+    Assert.assertEquals(
+        "select * from SCHEMA.TAB WHERE ( ( id > ? ) ) and ( id >= ? and id < ? )  ORDER by id ",
+        queryAndParams.getLeft()
+    );
+    Assert.assertEquals(
+        ImmutableList.of(Pair.of(Types.INTEGER, "10"), Pair.of(Types.INTEGER, "-5"), Pair.of(Types.INTEGER, "100")),
+        queryAndParams.getRight()
+    );
+  }
+
+  @Test
+  public void testPartitionBoundariesSerialization() throws Exception {
+    List<Long> boundaries = ImmutableList.of(-5L, 100L, 2000L);
+    String serialized = TableContextUtil.serializePartitionBoundaries(boundaries);
+    Assert.assertEquals("-5,100,2000", serialized);
+    Assert.assertEquals(boundaries, TableContextUtil.deserializePartitionBoundaries(serialized));
+  }
+}
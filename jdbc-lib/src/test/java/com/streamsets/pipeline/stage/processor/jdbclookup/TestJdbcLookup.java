@@ -31,6 +31,7 @@ import com.streamsets.pipeline.lib.jdbc.JdbcFieldColumnMapping;
 import com.streamsets.pipeline.sdk.ProcessorRunner;
 import com.streamsets.pipeline.sdk.RecordCreator;
 import com.streamsets.pipeline.sdk.StageRunner;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -44,9 +45,12 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -580,4 +584,301 @@ public class TestJdbcLookup {
       processorRunner.runDestroy();
     }
   }
+
+  private Record createIdRecord(int id) {
+    return createIdRecord(Field.create(id));
+  }
+
+  private Record createIdRecord(Field id) {
+    Record record = RecordCreator.create();
+    LinkedHashMap<String, Field> fields = new LinkedHashMap<>();
+    fields.put("id", id);
+    record.set(Field.create(fields));
+    return record;
+  }
+
+  @Test
+  public void testBatchLookup() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(
+        new JdbcFieldColumnMapping("FIRST_NAME", "/first_name", "Unknown", DataType.STRING)
+    );
+
+    JdbcLookupDProcessor processor = new JdbcLookupDProcessor();
+    processor.hikariConfigBean = createConfigBean(h2ConnectionString, username, password);
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("lookupMode", JdbcLookupMode.BATCH)
+        .addConfiguration("query", "SELECT P_ID, FIRST_NAME, LAST_NAME FROM TEST.TEST_TABLE")
+        .addConfiguration("keyColumn", "P_ID")
+        .addConfiguration("keyExpression", "${record:value('/id')}")
+        .addConfiguration("maxKeysPerQuery", 2)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+
+    // 4 distinct keys, 2 IN list queries, the last key has no row
+    List<Record> records = ImmutableList.of(
+        createIdRecord(1),
+        createIdRecord(2),
+        createIdRecord(2),
+        createIdRecord(4),
+        createIdRecord(5)
+    );
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+      Assert.assertEquals(5, outputRecords.size());
+
+      Assert.assertEquals("Adam", outputRecords.get(0).get("/first_name").getValueAsString());
+      Assert.assertEquals("Kunicki", outputRecords.get(0).get("/LAST_NAME").getValueAsString());
+      Assert.assertEquals(1, outputRecords.get(0).get("/P_ID").getValueAsInteger());
+      Assert.assertEquals("Jon", outputRecords.get(1).get("/first_name").getValueAsString());
+      Assert.assertEquals("Natkins", outputRecords.get(1).get("/LAST_NAME").getValueAsString());
+      Assert.assertEquals("Jon", outputRecords.get(2).get("/first_name").getValueAsString());
+      Assert.assertEquals("Natkins", outputRecords.get(2).get("/LAST_NAME").getValueAsString());
+      Assert.assertEquals("Girish", outputRecords.get(3).get("/first_name").getValueAsString());
+      Assert.assertEquals("Pancha", outputRecords.get(3).get("/LAST_NAME").getValueAsString());
+      Assert.assertEquals("Unknown", outputRecords.get(4).get("/first_name").getValueAsString());
+      Assert.assertFalse(outputRecords.get(4).has("/LAST_NAME"));
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupInvalidKeyColumn() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("FIRST_NAME", "/first_name"));
+
+    JdbcLookupDProcessor processor = new JdbcLookupDProcessor();
+    processor.hikariConfigBean = createConfigBean(h2ConnectionString, username, password);
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("lookupMode", JdbcLookupMode.BATCH)
+        .addConfiguration("query", "SELECT FIRST_NAME FROM TEST.TEST_TABLE")
+        .addConfiguration("keyColumn", "P_ID")
+        .addConfiguration("keyExpression", "${record:value('/id')}")
+        .addConfiguration("maxKeysPerQuery", 1000)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = ImmutableList.of(createIdRecord(1), createIdRecord(2));
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      Assert.assertEquals(0, output.getRecords().get("lane").size());
+      // the lookup query fails for the whole batch
+      Assert.assertEquals(2, processorRunner.getErrorRecords().size());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupNumericKeyColumn() throws Exception {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE TEST.PRICE_TABLE (CODE DECIMAL(10, 2) NOT NULL PRIMARY KEY, NAME VARCHAR(255))");
+      statement.execute("INSERT INTO TEST.PRICE_TABLE VALUES (1.5, 'a'), (2, 'b'), (30, 'c')");
+    }
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(
+        new JdbcFieldColumnMapping("NAME", "/name", "Unknown", DataType.STRING)
+    );
+
+    JdbcLookupDProcessor processor = new JdbcLookupDProcessor();
+    processor.hikariConfigBean = createConfigBean(h2ConnectionString, username, password);
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("lookupMode", JdbcLookupMode.BATCH)
+        .addConfiguration("query", "SELECT CODE, NAME FROM TEST.PRICE_TABLE")
+        .addConfiguration("keyColumn", "CODE")
+        .addConfiguration("keyExpression", "${record:value('/id')}")
+        .addConfiguration("maxKeysPerQuery", 1000)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+
+    // the key column values read back as 1.50, 2.00 and 30.00
+    List<Record> records = ImmutableList.of(
+        createIdRecord(Field.create(1.5d)),
+        createIdRecord(Field.create(2)),
+        createIdRecord(Field.create("30.0")),
+        createIdRecord(Field.create("3")),
+        createIdRecord(Field.create("abc"))
+    );
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+      Assert.assertEquals(5, outputRecords.size());
+      Assert.assertEquals("a", outputRecords.get(0).get("/name").getValueAsString());
+      Assert.assertEquals("b", outputRecords.get(1).get("/name").getValueAsString());
+      Assert.assertEquals("c", outputRecords.get(2).get("/name").getValueAsString());
+      Assert.assertEquals("Unknown", outputRecords.get(3).get("/name").getValueAsString());
+      // not a number, it can't match any row
+      Assert.assertEquals("Unknown", outputRecords.get(4).get("/name").getValueAsString());
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testPreloadedTable() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(
+        new JdbcFieldColumnMapping("FIRST_NAME", "/first_name", "Unknown", DataType.STRING)
+    );
+
+    JdbcLookupDProcessor processor = new JdbcLookupDProcessor();
+    processor.hikariConfigBean = createConfigBean(h2ConnectionString, username, password);
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("lookupMode", JdbcLookupMode.PRELOAD)
+        .addConfiguration("query", "SELECT P_ID, FIRST_NAME FROM TEST.TEST_TABLE")
+        .addConfiguration("keyColumn", "P_ID")
+        .addConfiguration("keyExpression", "${record:value('/id')}")
+        .addConfiguration("changeColumn", "")
+        .addConfiguration("refreshIntervalSecs", 0)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+
+    processorRunner.runInit();
+    try {
+      // rows are not read from the database anymore
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("UPDATE TEST.TEST_TABLE SET FIRST_NAME = 'Changed'");
+      }
+
+      List<Record> records = ImmutableList.of(createIdRecord(1), createIdRecord(4), createIdRecord(5));
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+      Assert.assertEquals(3, outputRecords.size());
+      Assert.assertEquals("Adam", outputRecords.get(0).get("/first_name").getValueAsString());
+      Assert.assertEquals(1, outputRecords.get(0).get("/P_ID").getValueAsInteger());
+      Assert.assertEquals("Girish", outputRecords.get(1).get("/first_name").getValueAsString());
+      Assert.assertEquals("Unknown", outputRecords.get(2).get("/first_name").getValueAsString());
+      Assert.assertFalse(outputRecords.get(2).has("/P_ID"));
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testPreloadedTableNumericKeyColumn() throws Exception {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE TEST.PRELOADED_PRICE_TABLE (CODE DECIMAL(10, 2) NOT NULL PRIMARY KEY, NAME VARCHAR(255))"
+      );
+      statement.execute("INSERT INTO TEST.PRELOADED_PRICE_TABLE VALUES (1.5, 'a'), (2, 'b'), (30, 'c')");
+    }
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(
+        new JdbcFieldColumnMapping("NAME", "/name", "Unknown", DataType.STRING)
+    );
+
+    JdbcLookupDProcessor processor = new JdbcLookupDProcessor();
+    processor.hikariConfigBean = createConfigBean(h2ConnectionString, username, password);
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("lookupMode", JdbcLookupMode.PRELOAD)
+        .addConfiguration("query", "SELECT CODE, NAME FROM TEST.PRELOADED_PRICE_TABLE")
+        .addConfiguration("keyColumn", "CODE")
+        .addConfiguration("keyExpression", "${record:value('/id')}")
+        .addConfiguration("changeColumn", "")
+        .addConfiguration("refreshIntervalSecs", 0)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+
+    // same keys as the batch lookup, the key column values read back as 1.50, 2.00 and 30.00
+    List<Record> records = ImmutableList.of(
+        createIdRecord(Field.create(1.5d)),
+        createIdRecord(Field.create(2)),
+        createIdRecord(Field.create("30.0")),
+        createIdRecord(Field.create("3")),
+        createIdRecord(Field.create("abc"))
+    );
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+      Assert.assertEquals(5, outputRecords.size());
+      Assert.assertEquals("a", outputRecords.get(0).get("/name").getValueAsString());
+      Assert.assertEquals("b", outputRecords.get(1).get("/name").getValueAsString());
+      Assert.assertEquals("c", outputRecords.get(2).get("/name").getValueAsString());
+      Assert.assertEquals("Unknown", outputRecords.get(3).get("/name").getValueAsString());
+      Assert.assertEquals("Unknown", outputRecords.get(4).get("/name").getValueAsString());
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("DROP TABLE IF EXISTS TEST.PRELOADED_PRICE_TABLE");
+      }
+    }
+  }
+
+  @Test
+  public void testPreloadedTableRefresh() throws Exception {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE TEST.VERSIONED_TABLE (P_ID INT NOT NULL PRIMARY KEY, NAME VARCHAR(255), " +
+          "ROW_VERSION INT)");
+      statement.execute("INSERT INTO TEST.VERSIONED_TABLE VALUES (1, 'a', 1), (2, 'b', 1), (3, 'c', 2)");
+    }
+    try {
+      JdbcDataSource dataSource = new JdbcDataSource();
+      dataSource.setURL(h2ConnectionString);
+      dataSource.setUser(username);
+      dataSource.setPassword(password);
+      Map<String, Object> gauge = new HashMap<>();
+      JdbcLookupTable table = new JdbcLookupTable(dataSource,
+          "SELECT P_ID, NAME, ROW_VERSION FROM TEST.VERSIONED_TABLE",
+          "P_ID",
+          "ROW_VERSION",
+          Collections.<String, DataType>emptyMap(),
+          1000,
+          1000,
+          null,
+          gauge
+      );
+
+      table.load();
+      Assert.assertEquals(3, table.size());
+      Assert.assertEquals(3, gauge.get(JdbcLookupTable.ROWS));
+      Assert.assertEquals("b", table.get("2").get("NAME").getValueAsString());
+      Assert.assertEquals(
+          ImmutableList.of("P_ID", "NAME", "ROW_VERSION"),
+          ImmutableList.copyOf(table.get("2").keySet())
+      );
+      Assert.assertNull(table.get("4"));
+
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("UPDATE TEST.VERSIONED_TABLE SET NAME = 'B', ROW_VERSION = 3 WHERE P_ID = 2");
+        statement.execute("INSERT INTO TEST.VERSIONED_TABLE VALUES (4, 'd', 3)");
+        // not picked up by an incremental refresh, the version did not change
+        statement.execute("UPDATE TEST.VERSIONED_TABLE SET NAME = 'A' WHERE P_ID = 1");
+      }
+
+      table.refresh();
+      Assert.assertEquals(4, table.size());
+      Assert.assertEquals("a", table.get("1").get("NAME").getValueAsString());
+      Assert.assertEquals("B", table.get("2").get("NAME").getValueAsString());
+      Assert.assertEquals("d", table.get("4").get("NAME").getValueAsString());
+
+      table.load();
+      Assert.assertEquals("A", table.get("1").get("NAME").getValueAsString());
+      table.close();
+    } finally {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("DROP TABLE IF EXISTS TEST.VERSIONED_TABLE");
+      }
+    }
+  }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.streamsets.pipeline.api.Config;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TestJdbcLookupProcessorUpgrader {
+
+  @Test
+  public void testUpgradeV1ToV2() throws Exception {
+    List<Config> configs = new JdbcLookupProcessorUpgrader().upgrade("a", "b", "c", 1, 2, new ArrayList<Config>());
+    Set<String> names = getNames(configs);
+    Assert.assertEquals(5, names.size());
+    Assert.assertTrue(names.contains("cacheConfig.enabled"));
+    Assert.assertFalse(names.contains("lookupMode"));
+  }
+
+  @Test
+  public void testUpgradeV2ToV3() throws Exception {
+    List<Config> configs = new JdbcLookupProcessorUpgrader().upgrade("a", "b", "c", 2, 3, new ArrayList<Config>());
+    Set<String> names = getNames(configs);
+    Assert.assertEquals(4, names.size());
+    Assert.assertTrue(names.contains("lookupMode"));
+    Assert.assertFalse(names.contains("changeColumn"));
+  }
+
+  @Test
+  public void testUpgradeV1ToV4() throws Exception {
+    List<Config> configs = new JdbcLookupProcessorUpgrader().upgrade("a", "b", "c", 1, 4, new ArrayList<Config>());
+    Set<String> names = getNames(configs);
+    Assert.assertEquals(11, names.size());
+    Assert.assertTrue(names.contains("cacheConfig.enabled"));
+    Assert.assertTrue(names.contains("lookupMode"));
+    Assert.assertTrue(names.contains("changeColumn"));
+  }
+
+  private static Set<String> getNames(List<Config> configs) {
+    Set<String> names = new HashSet<>();
+    for (Config config : configs) {
+      names.add(config.getName());
+    }
+    return names;
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.net.HostAndPort;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OffsetCommitter;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseSource;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
@@ -72,9 +73,36 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
     List<ConfigIssue> issues = new ArrayList<>();
     errorRecordHandler = new DefaultErrorRecordHandler(getContext());
 
+    int partitionCount = validateConfigs(getContext(), conf, kafkaValidationUtil, issues);
+    if (partitionCount > 0) {
+      //cache the partition count as parallelism for future use
+      originParallelism = partitionCount;
+    }
+    parserFactory = conf.dataFormatConfig.getParserFactory();
+
+    //validate connecting to kafka
+    if (issues.isEmpty()) {
+      kafkaConsumer = createKafkaConsumer(getContext(), conf);
+      kafkaConsumer.validate(issues, getContext());
+    }
+
+    return issues;
+  }
+
+  /**
+   * Validates the configuration and the data format, returns the partition count of the topic, zero if it could not
+   * be determined.
+   */
+  static int validateConfigs(
+      Stage.Context context,
+      KafkaConfigBean conf,
+      SdcKafkaValidationUtil kafkaValidationUtil,
+      List<ConfigIssue> issues
+  ) {
+    int partitionCount = 0;
     if (conf.topic == null || conf.topic.isEmpty()) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               KafkaOriginGroups.KAFKA.name(),
               KAFKA_CONFIG_BEAN_PREFIX + "topic",
               KafkaErrors.KAFKA_05
@@ -84,7 +112,7 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
     //maxWaitTime
     if (conf.maxWaitTime < 1) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               KafkaOriginGroups.KAFKA.name(),
               KAFKA_CONFIG_BEAN_PREFIX + "maxWaitTime",
               KafkaErrors.KAFKA_35
@@ -92,10 +120,10 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
       );
     }
 
-    conf.init(getContext(), issues);
+    conf.init(context, issues);
 
     conf.dataFormatConfig.init(
-        getContext(),
+        context,
         conf.dataFormat,
         KafkaOriginGroups.KAFKA.name(),
         KAFKA_DATA_FORMAT_CONFIG_BEAN_PREFIX,
@@ -103,7 +131,7 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
     );
     if (conf.dataFormat == DataFormat.XML && conf.produceSingleRecordPerMessage) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               KafkaOriginGroups.KAFKA.name(),
               KAFKA_CONFIG_BEAN_PREFIX + "produceSingleRecordPerMessage",
               KafkaErrors.KAFKA_40
@@ -111,19 +139,17 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
       );
     }
 
-    parserFactory = conf.dataFormatConfig.getParserFactory();
-
     // Validate broker config
     List<HostAndPort> kafkaBrokers = kafkaValidationUtil.validateKafkaBrokerConnectionString(
         issues,
         conf.metadataBrokerList,
         KafkaOriginGroups.KAFKA.name(),
         KAFKA_CONFIG_BEAN_PREFIX + "metadataBrokerList",
-        getContext()
+        context
     );
 
     try {
-      int partitionCount = kafkaValidationUtil.getPartitionCount(
+      partitionCount = kafkaValidationUtil.getPartitionCount(
           conf.metadataBrokerList,
           conf.topic,
           new HashMap<String, Object>(conf.kafkaConsumerConfigs),
@@ -131,17 +157,14 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
           1000
       );
       if (partitionCount < 1) {
-        issues.add(getContext().createConfigIssue(KafkaOriginGroups.KAFKA.name(),
+        issues.add(context.createConfigIssue(KafkaOriginGroups.KAFKA.name(),
             KAFKA_CONFIG_BEAN_PREFIX + "topic",
             KafkaErrors.KAFKA_42,
             conf.topic
         ));
-      } else {
-        //cache the partition count as parallelism for future use
-        originParallelism = partitionCount;
       }
     } catch (StageException e) {
-      issues.add(getContext().createConfigIssue(KafkaOriginGroups.KAFKA.name(),
+      issues.add(context.createConfigIssue(KafkaOriginGroups.KAFKA.name(),
           KAFKA_CONFIG_BEAN_PREFIX + "topic",
           KafkaErrors.KAFKA_41,
           conf.topic,
@@ -156,43 +179,40 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
         conf.zookeeperConnect,
         KafkaOriginGroups.KAFKA.name(),
         KAFKA_CONFIG_BEAN_PREFIX + "zookeeperConnect",
-        getContext()
+        context
     );
 
     //consumerGroup
     if (conf.consumerGroup == null || conf.consumerGroup.isEmpty()) {
       issues.add(
-          getContext().createConfigIssue(
+          context.createConfigIssue(
               KafkaOriginGroups.KAFKA.name(),
               KAFKA_CONFIG_BEAN_PREFIX + "consumerGroup",
               KafkaErrors.KAFKA_33
           )
       );
     }
+    return partitionCount;
+  }
 
-    //validate connecting to kafka
-    if (issues.isEmpty()) {
-      Map<String, Object> kafkaConsumerConfigs = new HashMap<>();
-      kafkaConsumerConfigs.putAll(conf.kafkaConsumerConfigs);
-      kafkaConsumerConfigs.put(KafkaConstants.KEY_DESERIALIZER_CLASS_CONFIG, conf.keyDeserializer.getKeyClass());
-      kafkaConsumerConfigs.put(KafkaConstants.VALUE_DESERIALIZER_CLASS_CONFIG, conf.valueDeserializer.getValueClass());
-      kafkaConsumerConfigs.put(KafkaConstants.CONFLUENT_SCHEMA_REGISTRY_URL_CONFIG,
-          conf.dataFormatConfig.schemaRegistryUrls
-      );
-      ConsumerFactorySettings settings = new ConsumerFactorySettings(
-          conf.zookeeperConnect,
-          conf.metadataBrokerList,
-          conf.topic,
-          conf.maxWaitTime,
-          getContext(),
-          kafkaConsumerConfigs,
-          conf.consumerGroup
-      );
-      kafkaConsumer = SdcKafkaConsumerFactory.create(settings).create();
-      kafkaConsumer.validate(issues, getContext());
-    }
-
-    return issues;
+  static SdcKafkaConsumer createKafkaConsumer(Stage.Context context, KafkaConfigBean conf) {
+    Map<String, Object> kafkaConsumerConfigs = new HashMap<>();
+    kafkaConsumerConfigs.putAll(conf.kafkaConsumerConfigs);
+    kafkaConsumerConfigs.put(KafkaConstants.KEY_DESERIALIZER_CLASS_CONFIG, conf.keyDeserializer.getKeyClass());
+    kafkaConsumerConfigs.put(KafkaConstants.VALUE_DESERIALIZER_CLASS_CONFIG, conf.valueDeserializer.getValueClass());
+    kafkaConsumerConfigs.put(KafkaConstants.CONFLUENT_SCHEMA_REGISTRY_URL_CONFIG,
+        conf.dataFormatConfig.schemaRegistryUrls
+    );
+    ConsumerFactorySettings settings = new ConsumerFactorySettings(
+        conf.zookeeperConnect,
+        conf.metadataBrokerList,
+        conf.topic,
+        conf.maxWaitTime,
+        context,
+        kafkaConsumerConfigs,
+        conf.consumerGroup
+    );
+    return SdcKafkaConsumerFactory.create(settings).create();
   }
 
   // This API is being used by ClusterKafkaSource
@@ -215,8 +235,30 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
 
   protected List<Record> processKafkaMessageDefault(String partition, long offset, String messageId, byte[] payload)
     throws StageException {
+    return processKafkaMessage(
+        getContext(),
+        conf,
+        Utils.checkNotNull(parserFactory, "Initialization failed"),
+        errorRecordHandler,
+        partition,
+        offset,
+        messageId,
+        payload
+    );
+  }
+
+  static List<Record> processKafkaMessage(
+      Stage.Context context,
+      KafkaConfigBean conf,
+      DataParserFactory parserFactory,
+      ErrorRecordHandler errorRecordHandler,
+      String partition,
+      long offset,
+      String messageId,
+      byte[] payload
+  ) throws StageException {
     List<Record> records = new ArrayList<>();
-    try (DataParser parser = Utils.checkNotNull(parserFactory, "Initialization failed").getParser(messageId, payload)) {
+    try (DataParser parser = parserFactory.getParser(messageId, payload)) {
       Record record = parser.parse();
       while (record != null) {
         record.getHeader().setAttribute(HeaderAttributeConstants.TOPIC, conf.topic);
@@ -227,7 +269,7 @@ public abstract class BaseKafkaSource extends BaseSource implements OffsetCommit
         record = parser.parse();
       }
     } catch (IOException|DataParserException ex) {
-      Record record = getContext().createRecord(messageId);
+      Record record = context.createRecord(messageId);
       record.set(Field.create(payload));
       errorRecordHandler.onError(
           new OnRecordErrorException(
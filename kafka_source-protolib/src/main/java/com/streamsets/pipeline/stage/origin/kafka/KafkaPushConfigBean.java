@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.kafka;
+
+import com.streamsets.pipeline.api.ConfigDef;
+
+public class KafkaPushConfigBean extends KafkaConfigBean {
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Number of Threads",
+      description = "Number of consumers in the consumer group, each one reads its share of the topic partitions " +
+          "and sends its batches to its own pipeline runner. More threads than partitions leaves threads idle.",
+      displayPosition = 65,
+      group = "KAFKA",
+      min = 1,
+      max = 200
+  )
+  public int numberOfThreads;
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.kafka;
+
+import com.streamsets.pipeline.api.ConfigDefBean;
+import com.streamsets.pipeline.api.ConfigGroups;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.GenerateResourceBundle;
+import com.streamsets.pipeline.api.HideConfigs;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.configurablestage.DPushSource;
+import com.streamsets.pipeline.kafka.api.KafkaOriginGroups;
+
+@StageDef(
+    version = 1,
+    label = "Kafka Consumer (Multithreaded)",
+    description = "Reads data from Kafka with several consumers of the same consumer group [Multi-Threaded Pipeline]",
+    execution = ExecutionMode.STANDALONE,
+    icon = "kafka.png",
+    recordsByRef = true,
+    onlineHelpRefUrl = "index.html#Origins/KConsumer.html#task_npx_xgf_vq"
+)
+@ConfigGroups(value = KafkaOriginGroups.class)
+@HideConfigs(value = {"kafkaConfigBean.dataFormatConfig.compression"})
+@GenerateResourceBundle
+public class KafkaPushDSource extends DPushSource {
+
+  @ConfigDefBean
+  public KafkaPushConfigBean kafkaConfigBean;
+
+  @Override
+  protected PushSource createPushSource() {
+    return new KafkaPushSource(kafkaConfigBean);
+  }
+
+}
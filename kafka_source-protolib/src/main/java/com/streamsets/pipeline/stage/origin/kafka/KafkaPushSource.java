@@ -0,0 +1,200 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.kafka;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.BatchContext;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.BasePushSource;
+import com.streamsets.pipeline.kafka.api.MessageAndOffset;
+import com.streamsets.pipeline.kafka.api.SdcKafkaConsumer;
+import com.streamsets.pipeline.kafka.api.SdcKafkaValidationUtilFactory;
+import com.streamsets.pipeline.lib.kafka.KafkaErrors;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Kafka origin running one consumer per runner thread, all in the same consumer group.
+ * <p/>
+ * Kafka assigns each consumer its share of the topic partitions, each runner parses the messages of its partitions
+ * and commits its consumer offsets once its batch has been processed. Offsets are kept by Kafka, not by the origin.
+ */
+public class KafkaPushSource extends BasePushSource {
+  private static final Logger LOG = LoggerFactory.getLogger(KafkaPushSource.class);
+
+  private final KafkaPushConfigBean conf;
+
+  private DataParserFactory parserFactory;
+  private final List<SdcKafkaConsumer> kafkaConsumers = new ArrayList<>();
+  private int batchSize;
+
+  public KafkaPushSource(KafkaPushConfigBean conf) {
+    this.conf = conf;
+  }
+
+  @Override
+  protected List<ConfigIssue> init() {
+    List<ConfigIssue> issues = super.init();
+
+    BaseKafkaSource.validateConfigs(
+        getContext(),
+        conf,
+        SdcKafkaValidationUtilFactory.getInstance().create(),
+        issues
+    );
+    parserFactory = conf.dataFormatConfig.getParserFactory();
+
+    if (issues.isEmpty()) {
+      if (getContext().isPreview()) {
+        //set fixed batch duration time of 1 second for preview.
+        conf.maxWaitTime = 1000;
+      }
+      // consumers of the same group, Kafka rebalances the partitions among them as they join
+      for (int i = 0; i < conf.numberOfThreads && issues.isEmpty(); i++) {
+        SdcKafkaConsumer kafkaConsumer = BaseKafkaSource.createKafkaConsumer(getContext(), conf);
+        kafkaConsumers.add(kafkaConsumer);
+        kafkaConsumer.validate(issues, getContext());
+      }
+    }
+    if (issues.isEmpty()) {
+      try {
+        for (SdcKafkaConsumer kafkaConsumer : kafkaConsumers) {
+          kafkaConsumer.init();
+        }
+        LOG.info("Successfully initialized {} Kafka Consumers", kafkaConsumers.size());
+      } catch (StageException ex) {
+        issues.add(getContext().createConfigIssue(null, null, ex.getErrorCode(), ex.getParams()));
+      }
+    }
+    return issues;
+  }
+
+  @Override
+  public int getNumberOfThreads() {
+    return conf.numberOfThreads;
+  }
+
+  @Override
+  public void produce(Map<String, String> lastOffsets, int maxBatchSize) throws StageException {
+    batchSize = Math.min(conf.maxBatchSize, maxBatchSize);
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        kafkaConsumers.size(),
+        new ThreadFactoryBuilder().setNameFormat("Kafka Runner - %d").build()
+    );
+    CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+    for (SdcKafkaConsumer kafkaConsumer : kafkaConsumers) {
+      completionService.submit(new KafkaRunnable(kafkaConsumer));
+    }
+
+    int numThreadsRemaining = kafkaConsumers.size();
+    try {
+      while (numThreadsRemaining-- > 0) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while waiting for the Kafka runners", e);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StageException) {
+        throw (StageException) cause;
+      }
+      throw new StageException(KafkaErrors.KAFKA_74, cause.toString(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for (SdcKafkaConsumer kafkaConsumer : kafkaConsumers) {
+      kafkaConsumer.destroy();
+    }
+    super.destroy();
+  }
+
+  private String getMessageID(MessageAndOffset message) {
+    return conf.topic + "::" + message.getPartition() + "::" + message.getOffset();
+  }
+
+  private class KafkaRunnable implements Callable<Void> {
+    private final SdcKafkaConsumer kafkaConsumer;
+
+    KafkaRunnable(SdcKafkaConsumer kafkaConsumer) {
+      this.kafkaConsumer = kafkaConsumer;
+    }
+
+    @Override
+    public Void call() throws StageException {
+      while (!getContext().isStopped()) {
+        BatchContext batchContext = getContext().startBatch();
+        ErrorRecordHandler errorRecordHandler = new DefaultErrorRecordHandler(getContext(), batchContext);
+        int recordCounter = 0;
+        long startTime = System.currentTimeMillis();
+        while (recordCounter < batchSize &&
+            (startTime + conf.maxWaitTime) > System.currentTimeMillis() &&
+            !getContext().isStopped()) {
+          MessageAndOffset message = kafkaConsumer.read();
+          if (message != null) {
+            List<Record> records = BaseKafkaSource.processKafkaMessage(
+                getContext(),
+                conf,
+                parserFactory,
+                errorRecordHandler,
+                String.valueOf(message.getPartition()),
+                message.getOffset(),
+                getMessageID(message),
+                (byte[]) message.getPayload()
+            );
+            // If we are in preview mode, make sure we don't send a huge number of messages.
+            if (getContext().isPreview() && recordCounter + records.size() > batchSize) {
+              records = records.subList(0, batchSize - recordCounter);
+            }
+            for (Record record : records) {
+              batchContext.getBatchMaker().addRecord(record);
+            }
+            recordCounter += records.size();
+          }
+        }
+        // the consumer commits what it read, that is only what went into this batch
+        if (getContext().processBatch(batchContext)) {
+          kafkaConsumer.commit();
+        }
+      }
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 StreamSets Inc.
+ *
+ * Licensed under the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.kafka;
+
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.kafka.common.DataType;
+import com.streamsets.pipeline.kafka.common.ProducerRunnable;
+import com.streamsets.pipeline.kafka.common.SdcKafkaTestUtil;
+import com.streamsets.pipeline.kafka.common.SdcKafkaTestUtilFactory;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.StageRunner;
+import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
+import com.streamsets.testing.SingleForkNoReuseTest;
+import kafka.javaapi.producer.Producer;
+import kafka.utils.TestUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Category(SingleForkNoReuseTest.class)
+public class TestKafkaPushSource {
+  private static final int PARTITIONS = 4;
+  private static final String TOPIC = "TestKafkaPushSource";
+  private static final String CONSUMER_GROUP = "SDC";
+
+  private static Producer<String, String> producer;
+  private static final SdcKafkaTestUtil sdcKafkaTestUtil = SdcKafkaTestUtilFactory.getInstance().create();
+
+  @BeforeClass
+  public static void setUp() throws IOException, InterruptedException {
+    sdcKafkaTestUtil.startZookeeper();
+    sdcKafkaTestUtil.startKafkaBrokers(3);
+    sdcKafkaTestUtil.createTopic(TOPIC, PARTITIONS, 1);
+    for (int i = 0; i < PARTITIONS; i++) {
+      TestUtils.waitUntilMetadataIsPropagated(
+          scala.collection.JavaConversions.asScalaBuffer(sdcKafkaTestUtil.getKafkaServers()),
+          TOPIC, i, 5000);
+    }
+    producer = sdcKafkaTestUtil.createProducer(sdcKafkaTestUtil.getMetadataBrokerURI(), true);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    sdcKafkaTestUtil.shutdown();
+  }
+
+  @Test
+  public void testMultipleConsumers() throws Exception {
+    CountDownLatch startProducing = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    executorService.submit(new ProducerRunnable(TOPIC, PARTITIONS, producer, startProducing, DataType.TEXT, null, 100,
+        null));
+
+    KafkaPushConfigBean conf = new KafkaPushConfigBean();
+    conf.numberOfThreads = 2;
+    conf.metadataBrokerList = sdcKafkaTestUtil.getMetadataBrokerURI();
+    conf.topic = TOPIC;
+    conf.consumerGroup = CONSUMER_GROUP;
+    conf.zookeeperConnect = sdcKafkaTestUtil.getZkConnect();
+    conf.maxBatchSize = 10;
+    conf.maxWaitTime = 1000;
+    conf.produceSingleRecordPerMessage = false;
+    conf.dataFormat = DataFormat.TEXT;
+    conf.dataFormatConfig.charset = "UTF-8";
+    conf.dataFormatConfig.removeCtrlChars = false;
+    conf.dataFormatConfig.textMaxLineLen = 4096;
+
+    final PushSourceRunner runner = new PushSourceRunner.Builder(KafkaPushDSource.class, new KafkaPushSource(conf))
+        .addOutputLane("lane")
+        .build();
+    final List<Record> records = Collections.synchronizedList(new ArrayList<Record>());
+    runner.runInit();
+    try {
+      startProducing.countDown();
+      runner.runProduce(Collections.<String, String>emptyMap(), 10, new PushSourceRunner.Callback() {
+        @Override
+        public void processBatch(StageRunner.Output output) {
+          records.addAll(output.getRecords().get("lane"));
+          if (records.size() >= 100) {
+            runner.setStop();
+          }
+        }
+      });
+      runner.waitOnProduce();
+    } finally {
+      runner.runDestroy();
+      executorService.shutdownNow();
+      Assert.assertTrue(executorService.awaitTermination(5000, TimeUnit.MILLISECONDS));
+    }
+
+    Assert.assertEquals(100, records.size());
+    Set<String> partitions = new HashSet<>();
+    for (Record record : records) {
+      Assert.assertEquals(TOPIC, record.getHeader().getAttribute(HeaderAttributeConstants.TOPIC));
+      partitions.add(record.getHeader().getAttribute(HeaderAttributeConstants.PARTITION));
+    }
+    Assert.assertEquals(PARTITIONS, partitions.size());
+  }
+
+}
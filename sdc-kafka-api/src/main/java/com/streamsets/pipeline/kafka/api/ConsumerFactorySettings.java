@@ -19,7 +19,7 @@
  */
 package com.streamsets.pipeline.kafka.api;
 
-import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.api.Stage;
 
 import java.util.Map;
 
@@ -29,7 +29,7 @@ public class ConsumerFactorySettings {
   private final String bootstrapServers;
   private final String topic;
   private final int maxWaitTime;
-  private final Source.Context context;
+  private final Stage.Context context;
   private final Map<String, Object> kafkaConsumerConfigs;
   private final String consumerGroup;
 
@@ -38,7 +38,7 @@ public class ConsumerFactorySettings {
     String bootstrapServers,
     String topic,
     int maxWaitTime,
-    Source.Context context,
+    Stage.Context context,
     Map<String, Object> kafkaConsumerConfigs,
     String consumerGroup
   ) {
@@ -63,7 +63,7 @@ public class ConsumerFactorySettings {
     return maxWaitTime;
   }
 
-  public Source.Context getContext() {
+  public Stage.Context getContext() {
     return context;
   }
 
@@ -20,7 +20,7 @@
 
 package com.streamsets.pipeline.kafka.impl;
 
-import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.api.Stage;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +37,7 @@ public class KafkaConsumer10 extends KafkaConsumer09{
       String topic,
       String consumerGroup,
       Map<String, Object> kafkaConsumerConfigs,
-      Source.Context context
+      Stage.Context context
   ) {
     super(bootStrapServers, topic, consumerGroup, kafkaConsumerConfigs, context);
   }
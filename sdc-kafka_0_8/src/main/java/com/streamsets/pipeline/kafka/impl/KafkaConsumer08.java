@@ -19,7 +19,6 @@
  */
 package com.streamsets.pipeline.kafka.impl;
 
-import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.kafka.api.KafkaOriginGroups;
@@ -70,14 +69,14 @@ public class KafkaConsumer08 implements SdcKafkaConsumer {
   private final String zookeeperConnect;
   private final String topic;
   private final int maxWaitTime;
-  private final Source.Context context;
+  private final Stage.Context context;
   private final Map<String, Object> kafkaConsumerConfigs;
   private final String consumerGroup;
   private ConsumerConfig consumerConfig;
 
   public KafkaConsumer08(String zookeeperConnect, String topic, String consumerGroup,
                          int consumerTimeout, Map<String, Object> kafkaConsumerConfigs,
-                         Source.Context context) {
+                         Stage.Context context) {
     this.topic = topic;
     this.maxWaitTime = consumerTimeout;
     this.kafkaConsumerConfigs = kafkaConsumerConfigs;
@@ -20,7 +20,6 @@
 package com.streamsets.pipeline.kafka.impl;
 
 import com.codahale.metrics.Histogram;
-import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.kafka.api.MessageAndOffset;
@@ -111,8 +110,8 @@ public abstract class BaseKafkaConsumer09 implements SdcKafkaConsumer {
   private final AtomicBoolean rebalanceInProgress;
   // Set by commit() when Kafka throws CommitFailedException to force us to call consumer's poll() before anything else
   private final AtomicBoolean needToCallPoll;
-  // Source's context for various metrics
-  private final Source.Context context;
+  // Origin's context for various metrics
+  private final Stage.Context context;
   // Histogram for rebalancing events
   private final Histogram rebalanceHistogram;
   // Gauge with various states that we're propagating up
@@ -122,7 +121,7 @@ public abstract class BaseKafkaConsumer09 implements SdcKafkaConsumer {
 
   private static final Logger LOG = LoggerFactory.getLogger(BaseKafkaConsumer09.class);
 
-  public BaseKafkaConsumer09(String topic, Source.Context context) {
+  public BaseKafkaConsumer09(String topic, Stage.Context context) {
     this.topic = topic;
     this.topicPartitionToOffsetMetadataMap = new HashMap<>();
     this.recordQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_SIZE);
@@ -19,7 +19,6 @@
  */
 package com.streamsets.pipeline.kafka.impl;
 
-import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.kafka.KafkaErrors;
@@ -50,7 +49,7 @@ public class MapRStreamsConsumer09 extends BaseKafkaConsumer09 {
     String topic,
     String consumerGroup,
     Map<String, Object> kafkaConsumerConfigs,
-    Source.Context context
+    Stage.Context context
   ) {
     super(topic, context);
     this.consumerGroup = consumerGroup;